@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster;
+
+/**
+ * Router whose result only depends on the invokers, the consumer url and the method name. (SPI, Prototype, ThreadSafe)
+ * <p>
+ * 可缓存的路由规则：路由结果仅取决于 Invoker 集合、消费者 URL 和方法名，与调用参数、隐式参数无关。
+ * {@link com.alibaba.dubbo.rpc.cluster.directory.AbstractDirectory} 按方法名缓存其路由结果，
+ * Invoker 集合、路由规则或消费者 URL 变更时失效。
+ *
+ * @see com.alibaba.dubbo.rpc.cluster.directory.AbstractDirectory#list(com.alibaba.dubbo.rpc.Invocation)
+ */
+public interface CacheableRouter extends Router {
+
+}
@@ -24,6 +24,7 @@ import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.cluster.CacheableRouter;
 import com.alibaba.dubbo.rpc.cluster.Directory;
 import com.alibaba.dubbo.rpc.cluster.Router;
 import com.alibaba.dubbo.rpc.cluster.RouterFactory;
@@ -32,6 +33,9 @@ import com.alibaba.dubbo.rpc.cluster.router.MockInvokersSelector;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Abstract implementation of Directory: Invoker list returned from this Directory's list method have been filtered by Routers
@@ -65,6 +69,11 @@ public abstract class AbstractDirectory<T> implements Directory<T> {
      */
     private volatile List<Router> routers;
 
+    /**
+     * {@link CacheableRouter} 的路由结果缓存，Router 数组或消费者 URL 变更时重建
+     */
+    private volatile RouteCache routeCache;
+
     public AbstractDirectory(URL url) {
         this(url, null);
     }
@@ -84,6 +93,7 @@ public abstract class AbstractDirectory<T> implements Directory<T> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public List<Invoker<T>> list(Invocation invocation) throws RpcException {
         if (destroyed) {
             throw new RpcException("Directory already destroyed .url: " + getUrl());
@@ -93,10 +103,27 @@ public abstract class AbstractDirectory<T> implements Directory<T> {
         // 根据路由规则，筛选 Invoker 集合
         List<Router> localRouters = this.routers; // local reference 本地引用，避免并发问题
         if (localRouters != null && !localRouters.isEmpty()) {
-            for (Router router : localRouters) {
+            // 缓存对应当前的 Router 数组时才使用
+            RouteCache cache = this.routeCache;
+            AtomicReferenceArray<Route> routes = cache != null && cache.routers == localRouters ? cache.getRoutes(invocation.getMethodName()) : null;
+            for (int i = 0; i < localRouters.size(); i++) {
+                Router router = localRouters.get(i);
                 try {
                     if (router.getUrl() == null || router.getUrl().getParameter(Constants.RUNTIME_KEY, false)) {
-                        invokers = router.route(invokers, getConsumerUrl(), invocation);
+                        if (routes == null || !(router instanceof CacheableRouter)) {
+                            invokers = router.route(invokers, getConsumerUrl(), invocation);
+                            continue;
+                        }
+                        // 输入的 Invoker 集合是同一个对象时，使用缓存的路由结果。
+                        // RegistryDirectory 按方法缓存 Invoker 集合，前面的 Router 命中缓存或未筛选时，输入即为同一个对象
+                        Route route = routes.get(i);
+                        if (route != null && route.invokers == invokers) {
+                            invokers = (List<Invoker<T>>) route.result;
+                        } else {
+                            List<Invoker<T>> result = router.route(invokers, getConsumerUrl(), invocation);
+                            routes.set(i, new Route(invokers, result));
+                            invokers = result;
+                        }
                     }
                 } catch (Throwable t) {
                     logger.error("Failed to execute router: " + getUrl() + ", cause: " + t.getMessage(), t);
@@ -125,6 +152,7 @@ public abstract class AbstractDirectory<T> implements Directory<T> {
 
     public void setConsumerUrl(URL consumerUrl) {
         this.consumerUrl = consumerUrl;
+        invalidateRouteCache();
     }
 
     public boolean isDestroyed() {
@@ -156,6 +184,66 @@ public abstract class AbstractDirectory<T> implements Directory<T> {
         Collections.sort(routers);
         // 赋值给属性
         this.routers = routers;
+        invalidateRouteCache();
+    }
+
+    /**
+     * 清空路由结果缓存，Invoker 集合变更时调用，释放对旧 Invoker 集合的引用
+     */
+    protected void invalidateRouteCache() {
+        List<Router> localRouters = this.routers;
+        this.routeCache = localRouters == null ? null : new RouteCache(localRouters);
+    }
+
+    /**
+     * 路由结果缓存
+     */
+    private static final class RouteCache {
+
+        /**
+         * 对应的 Router 数组
+         */
+        private final List<Router> routers;
+
+        /**
+         * 每个方法，按 Router 数组下标的路由结果
+         * <p>
+         * key：方法名
+         */
+        private final ConcurrentMap<String, AtomicReferenceArray<Route>> routes = new ConcurrentHashMap<String, AtomicReferenceArray<Route>>();
+
+        private RouteCache(List<Router> routers) {
+            this.routers = routers;
+        }
+
+        private AtomicReferenceArray<Route> getRoutes(String methodName) {
+            if (methodName == null) {
+                return null;
+            }
+            AtomicReferenceArray<Route> array = routes.get(methodName);
+            if (array == null) {
+                routes.putIfAbsent(methodName, new AtomicReferenceArray<Route>(routers.size()));
+                array = routes.get(methodName);
+            }
+            return array;
+        }
+
+    }
+
+    /**
+     * 一次路由的输入和结果
+     */
+    private static final class Route {
+
+        private final List<?> invokers;
+
+        private final List<?> result;
+
+        private Route(List<?> invokers, List<?> result) {
+            this.invokers = invokers;
+            this.result = result;
+        }
+
     }
 
 }
\ No newline at end of file
@@ -20,24 +20,53 @@ import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcStatus;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ConsistentHashLoadBalance
  * <p>
  * 一致性 Hash，相同参数的请求总是发到同一提供者。
  * 当某一台提供者挂时，原本发往该提供者的请求，基于虚拟节点，平摊到其它提供者，不会引起剧烈变动。
+ * <p>
+ * 哈希环为有序的 int 数组，二分查找。Invoker 集合变化时增量更新：只计算新增提供者的虚拟节点，与原有的归并。
+ * 虚拟节点与参数在环上的位置仍基于 MD5 计算，与旧版本一致，混合版本的消费者将相同参数发往同一提供者。
+ * 配置 `hash.balance` 时，限制每个提供者调用中的次数不超过 平均值 * `hash.balance` ，超过时顺延到环上的下一个提供者，
+ * 避免热点参数压垮一个提供者。
  */
 public class ConsistentHashLoadBalance extends AbstractLoadBalance {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 刷新所有提供者调用中的次数之和的间隔，单位：毫秒
+     */
+    private static final long ACTIVE_REFRESH_INTERVAL = 10L;
+
+    private static final ThreadLocal<MessageDigest> MD5 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    };
+
     /**
      * 服务方法与一致性哈希选择器的映射
      * <p>
@@ -48,77 +77,269 @@ public class ConsistentHashLoadBalance extends AbstractLoadBalance {
     @SuppressWarnings("unchecked")
     @Override
     protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
-        String key = invokers.get(0).getUrl().getServiceKey() + "." + invocation.getMethodName();
+        String methodName = invocation.getMethodName();
+        String key = invokers.get(0).getUrl().getServiceKey() + "." + methodName;
         // 基于 invokers 集合，根据对象内存地址来计算定义哈希值
         int identityHashCode = System.identityHashCode(invokers);
-        // 获得 ConsistentHashSelector 对象。若为空，或者定义哈希值变更（说明 invokers 集合发生变化），进行创建新的 ConsistentHashSelector 对象
+        // 获得 ConsistentHashSelector 对象。若为空，进行创建；若定义哈希值变更，且 invokers 集合的成员发生变化，增量更新
         ConsistentHashSelector<T> selector = (ConsistentHashSelector<T>) selectors.get(key);
         if (selector == null || selector.identityHashCode != identityHashCode) {
-            selectors.put(key, new ConsistentHashSelector<T>(invokers, invocation.getMethodName(), identityHashCode));
-            selector = (ConsistentHashSelector<T>) selectors.get(key);
+            if (selector != null && selector.isSameInvokers(invokers)) {
+                // 路由等每次创建新的集合，成员未变化时不重建
+                selector.identityHashCode = identityHashCode;
+            } else {
+                if (selector == null) {
+                    selector = new ConsistentHashSelector<T>(invokers.get(0).getUrl(), methodName);
+                }
+                selector = selector.update(invokers, methodName, identityHashCode);
+                selectors.put(key, selector);
+            }
         }
         return selector.select(invocation);
     }
 
-    private static final class ConsistentHashSelector<T> {
+    /**
+     * 计算 MD5 ，每个线程复用 MessageDigest 对象
+     */
+    static byte[] md5(String value) {
+        MessageDigest md5 = MD5.get();
+        md5.reset();
+        return md5.digest(value.getBytes(UTF_8));
+    }
+
+    /**
+     * 取 MD5 的第 number 组 4 个字节，作为环上的位置
+     * <p>
+     * 与旧版本相同，位置为 4 个字节组成的无符号数。存储为 int 时翻转符号位，使有符号的顺序与无符号的顺序一致
+     */
+    static int hash(byte[] digest, int number) {
+        int h = ((digest[3 + number * 4] & 0xFF) << 24)
+                | ((digest[2 + number * 4] & 0xFF) << 16)
+                | ((digest[1 + number * 4] & 0xFF) << 8)
+                | (digest[number * 4] & 0xFF);
+        return h ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * 提供者，及其虚拟节点
+     */
+    private static final class Node<T> {
+
+        private final String address;
+
+        private final Invoker<T> invoker;
+
+        /**
+         * 调用中的次数，用于限制负载
+         */
+        private final RpcStatus status;
 
         /**
-         * 虚拟节点与 Invoker 的映射关系
+         * 虚拟节点的哈希值
          */
-        private final TreeMap<Long, Invoker<T>> virtualInvokers;
+        private final int[] points;
+
+        Node(String address, Invoker<T> invoker, String methodName, int[] points) {
+            this.address = address;
+            this.invoker = invoker;
+            this.status = RpcStatus.getStatus(invoker.getUrl(), methodName);
+            this.points = points;
+        }
+
+    }
+
+    /**
+     * 一致性哈希选择器。哈希环不可变，更新时创建新的对象
+     */
+    private static final class ConsistentHashSelector<T> {
 
         /**
-         * 每个Invoker 对应的虚拟节点数
+         * 每个 Invoker 对应的虚拟节点数，为 4 的倍数
          */
         private final int replicaNumber;
 
         /**
-         * 定义哈希值
+         * 定义哈希值，invokers 集合成员未变化时更新
+         */
+        private volatile int identityHashCode;
+
+        /**
+         * 创建时的 Invoker 集合，用于判断成员是否变化
          */
-        private final int identityHashCode;
+        private final Set<Invoker<T>> invokers;
 
         /**
          * 取值参数位置数组
          */
         private final int[] argumentIndex;
 
-        ConsistentHashSelector(List<Invoker<T>> invokers, String methodName, int identityHashCode) {
-            this.virtualInvokers = new TreeMap<Long, Invoker<T>>();
-            // 设置 identityHashCode
+        /**
+         * 负载上限系数，不大于 0 时不限制
+         */
+        private final double balance;
+
+        private final Node<T>[] nodes;
+
+        /**
+         * 哈希环，虚拟节点的哈希值，升序
+         */
+        private final int[] points;
+
+        /**
+         * 虚拟节点对应的 {@link #nodes} 下标
+         */
+        private final int[] owners;
+
+        /**
+         * 所有提供者调用中的次数之和，每 {@link #ACTIVE_REFRESH_INTERVAL} 毫秒刷新，避免每次选择都遍历提供者
+         */
+        private volatile long totalActive;
+
+        /**
+         * 下次刷新 {@link #totalActive} 的时间
+         */
+        private final AtomicLong nextRefresh = new AtomicLong();
+
+        @SuppressWarnings("unchecked")
+        ConsistentHashSelector(URL url, String methodName) {
+            this(getReplicaNumber(url, methodName), 0, new HashSet<Invoker<T>>(), new int[0], 0D,
+                    new Node[0], new int[0], new int[0]);
+        }
+
+        private ConsistentHashSelector(int replicaNumber, int identityHashCode, Set<Invoker<T>> invokers, int[] argumentIndex,
+                                       double balance, Node<T>[] nodes, int[] points, int[] owners) {
+            this.replicaNumber = replicaNumber;
             this.identityHashCode = identityHashCode;
+            this.invokers = invokers;
+            this.argumentIndex = argumentIndex;
+            this.balance = balance;
+            this.nodes = nodes;
+            this.points = points;
+            this.owners = owners;
+        }
+
+        private static int getReplicaNumber(URL url, String methodName) {
+            // 每四个虚拟节点为一组，对应一个 MD5 值
+            return Math.max(url.getMethodParameter(methodName, "hash.nodes", 160) / 4, 1) * 4;
+        }
+
+        boolean isSameInvokers(List<Invoker<T>> invokers) {
+            if (invokers.size() != this.invokers.size()) {
+                return false;
+            }
+            for (Invoker<T> invoker : invokers) {
+                if (!this.invokers.contains(invoker)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 基于新的 Invoker 集合，创建选择器。保留的提供者复用虚拟节点，只计算新增的
+         */
+        @SuppressWarnings("unchecked")
+        ConsistentHashSelector<T> update(List<Invoker<T>> invokers, String methodName, int identityHashCode) {
             URL url = invokers.get(0).getUrl();
-            // 初始化 replicaNumber
-            this.replicaNumber = url.getMethodParameter(methodName, "hash.nodes", 160);
-            // 初始化 argumentIndex
+            int replicaNumber = getReplicaNumber(url, methodName);
+            // 虚拟节点数变化，全部重建
+            if (replicaNumber != this.replicaNumber) {
+                return new ConsistentHashSelector<T>(url, methodName).update(invokers, methodName, identityHashCode);
+            }
             String[] index = Constants.COMMA_SPLIT_PATTERN.split(url.getMethodParameter(methodName, "hash.arguments", "0"));
-            argumentIndex = new int[index.length];
+            int[] argumentIndex = new int[index.length];
             for (int i = 0; i < index.length; i++) {
                 argumentIndex[i] = Integer.parseInt(index[i]);
             }
-            // 初始化 virtualInvokers
+            double balance = url.getMethodParameter(methodName, Constants.HASH_BALANCE_KEY, 0D);
+
+            // 相同地址的 Invoker ，后面的覆盖前面的
+            Map<String, Invoker<T>> addresses = new LinkedHashMap<String, Invoker<T>>();
             for (Invoker<T> invoker : invokers) {
-                String address = invoker.getUrl().getAddress();
-                // 每四个虚拟结点为一组，为什么这样？下面会说到
-                for (int i = 0; i < replicaNumber / 4; i++) {
-                    // 这组虚拟结点得到惟一名称
-                    byte[] digest = md5(address + i);
-                    // Md5是一个16字节长度的数组，将16字节的数组每四个字节一组，分别对应一个虚拟结点，这就是为什么上面把虚拟结点四个划分一组的原因
-                    for (int h = 0; h < 4; h++) {
-                        // 对于每四个字节，组成一个long值数值，做为这个虚拟节点的在环中的惟一key
-                        long m = hash(digest, h);
-                        virtualInvokers.put(m, invoker);
+                addresses.put(invoker.getUrl().getAddress(), invoker);
+            }
+            Map<String, Integer> oldIndexes = new HashMap<String, Integer>();
+            for (int i = 0; i < this.nodes.length; i++) {
+                oldIndexes.put(this.nodes[i].address, i);
+            }
+            Node<T>[] nodes = new Node[addresses.size()];
+            int[] remap = new int[this.nodes.length]; // 原下标 => 新下标，-1 表示移除
+            Arrays.fill(remap, -1);
+            int addedPoints = 0;
+            int i = 0;
+            for (Map.Entry<String, Invoker<T>> entry : addresses.entrySet()) {
+                String address = entry.getKey();
+                Invoker<T> invoker = entry.getValue();
+                Integer old = oldIndexes.get(address);
+                if (old != null) {
+                    // 保留的提供者，Invoker 对象可能被替换
+                    Node<T> node = this.nodes[old];
+                    nodes[i] = node.invoker == invoker ? node : new Node<T>(address, invoker, methodName, node.points);
+                    remap[old] = i;
+                } else {
+                    // 新增的提供者，计算虚拟节点。Md5 是一个 16 字节长度的数组，每四个字节对应一个虚拟节点
+                    int[] virtualPoints = new int[replicaNumber];
+                    for (int r = 0; r < replicaNumber / 4; r++) {
+                        byte[] digest = md5(address + r);
+                        for (int h = 0; h < 4; h++) {
+                            virtualPoints[r * 4 + h] = hash(digest, h);
+                        }
+                    }
+                    nodes[i] = new Node<T>(address, invoker, methodName, virtualPoints);
+                    addedPoints += replicaNumber;
+                }
+                i++;
+            }
+
+            // 新增的虚拟节点，高 32 位为哈希值，低 32 位为下标，排序
+            long[] added = new long[addedPoints];
+            int count = 0;
+            for (i = 0; i < nodes.length; i++) {
+                Node<T> node = nodes[i];
+                if (!oldIndexes.containsKey(node.address)) {
+                    for (int point : node.points) {
+                        added[count++] = ((long) point << 32) | i;
                     }
                 }
             }
+            Arrays.sort(added);
+
+            // 归并保留的虚拟节点与新增的虚拟节点
+            int keptPoints = 0;
+            for (int owner : this.owners) {
+                if (remap[owner] >= 0) {
+                    keptPoints++;
+                }
+            }
+            int[] points = new int[keptPoints + addedPoints];
+            int[] owners = new int[keptPoints + addedPoints];
+            int oldPos = 0;
+            int addedPos = 0;
+            for (int pos = 0; pos < points.length; pos++) {
+                // 跳过移除的提供者
+                while (oldPos < this.points.length && remap[this.owners[oldPos]] < 0) {
+                    oldPos++;
+                }
+                if (addedPos >= addedPoints
+                        || (oldPos < this.points.length && this.points[oldPos] <= (int) (added[addedPos] >> 32))) {
+                    points[pos] = this.points[oldPos];
+                    owners[pos] = remap[this.owners[oldPos]];
+                    oldPos++;
+                } else {
+                    points[pos] = (int) (added[addedPos] >> 32);
+                    owners[pos] = (int) added[addedPos];
+                    addedPos++;
+                }
+            }
+            return new ConsistentHashSelector<T>(replicaNumber, identityHashCode, new HashSet<Invoker<T>>(invokers),
+                    argumentIndex, balance, nodes, points, owners);
         }
 
         public Invoker<T> select(Invocation invocation) {
             // 基于方法参数，获得 KEY
             String key = toKey(invocation.getArguments());
-            // 计算 MD5 值
-            byte[] digest = md5(key);
             // 计算 KEY 值
-            return selectForKey(hash(digest, 0));
+            return selectForKey(hash(md5(key), 0));
         }
 
         private String toKey(Object[] args) {
@@ -131,42 +352,42 @@ public class ConsistentHashLoadBalance extends AbstractLoadBalance {
             return buf.toString();
         }
 
-        private Invoker<T> selectForKey(long hash) {
-            // 得到大于当前 key 的那个子 Map ，然后从中取出第一个 key ，就是大于且离它最近的那个 key
-            Map.Entry<Long, Invoker<T>> entry = virtualInvokers.tailMap(hash, true).firstEntry();
-            // 不存在，则取 virtualInvokers 第一个
-            if (entry == null) {
-                entry = virtualInvokers.firstEntry();
+        private Invoker<T> selectForKey(int hash) {
+            // 二分查找，大于等于当前哈希值的第一个虚拟节点。不存在，则取第一个
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0) {
+                index = -index - 1;
+                if (index == points.length) {
+                    index = 0;
+                }
             }
-            // 存在，则返回
-            return entry.getValue();
-        }
-
-        private long hash(byte[] digest, int number) {
-            return (((long) (digest[3 + number * 4] & 0xFF) << 24)
-                    | ((long) (digest[2 + number * 4] & 0xFF) << 16)
-                    | ((long) (digest[1 + number * 4] & 0xFF) << 8)
-                    | (digest[number * 4] & 0xFF))
-                    & 0xFFFFFFFFL;
+            if (balance <= 0) {
+                return nodes[owners[index]].invoker;
+            }
+            // 负载上限 = ceil(平均调用中的次数（包括本次） * 系数)
+            long max = (long) Math.ceil(balance * (getTotalActive() + 1) / nodes.length);
+            // 沿环顺延，选择第一个未超过上限的提供者
+            for (int i = 0; i < points.length; i++) {
+                Node<T> node = nodes[owners[(index + i) % points.length]];
+                if (node.status.getActive() < max) {
+                    return node.invoker;
+                }
+            }
+            return nodes[owners[index]].invoker;
         }
 
-        // 计算 MD5
-        private byte[] md5(String value) {
-            MessageDigest md5;
-            try {
-                md5 = MessageDigest.getInstance("MD5");
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalStateException(e.getMessage(), e);
-            }
-            md5.reset();
-            byte[] bytes;
-            try {
-                bytes = value.getBytes("UTF-8");
-            } catch (UnsupportedEncodingException e) {
-                throw new IllegalStateException(e.getMessage(), e);
+        private long getTotalActive() {
+            long now = System.currentTimeMillis();
+            long next = nextRefresh.get();
+            // 到期时，由 CAS 成功的线程刷新，其它线程使用原值
+            if (now >= next && nextRefresh.compareAndSet(next, now + ACTIVE_REFRESH_INTERVAL)) {
+                long total = 0;
+                for (Node<T> node : nodes) {
+                    total += Math.max(node.status.getActive(), 0);
+                }
+                totalActive = total;
             }
-            md5.update(bytes);
-            return md5.digest();
+            return totalActive;
         }
 
     }
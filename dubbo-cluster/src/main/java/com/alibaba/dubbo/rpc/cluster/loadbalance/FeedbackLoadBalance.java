@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.loadbalance;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.ProviderLoad;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Load balance weighted by the load reported by providers.
+ * <p>
+ * 按服务提供者反馈的负载调整权重后随机：权重 * 剩余容量，见 {@link ProviderLoad#getHeadroom()} 。
+ * 线程池积压、CPU 繁忙或 GC 停顿后恢复的提供者，在下一次反馈后即收到更少的请求，而不需要等到调用超时。
+ * 没有反馈，或者反馈已过期的提供者，按原权重。
+ * <p>
+ * 负载由 {@link com.alibaba.dubbo.rpc.filter.LoadFeedbackFilter} 索取并记录。
+ */
+public class FeedbackLoadBalance extends AbstractLoadBalance {
+
+    public static final String NAME = Constants.LOAD_FEEDBACK_LOADBALANCE;
+
+    /**
+     * 反馈的有效期，单位：毫秒
+     */
+    private static final long FEEDBACK_EXPIRE = 5000;
+
+    private final Random random = new Random();
+
+    @Override
+    protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+        int length = invokers.size(); // 总个数
+        double[] weights = new double[length]; // 调整后的权重
+        double totalWeight = 0; // 总权重
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < length; i++) {
+            Invoker<T> invoker = invokers.get(i);
+            double weight = getWeight(invoker, invocation);
+            ProviderLoad load = ProviderLoad.getLoad(invoker.getUrl().getAddress());
+            if (load != null && now - load.getTimestamp() < FEEDBACK_EXPIRE) {
+                weight *= load.getHeadroom();
+            }
+            weights[i] = weight;
+            totalWeight += weight;
+        }
+        // 权重都为 0 ，均等随机
+        if (totalWeight <= 0) {
+            return invokers.get(random.nextInt(length));
+        }
+        // 随机后，判断在哪个 Invoker 的权重区间中
+        double offset = random.nextDouble() * totalWeight;
+        for (int i = 0; i < length; i++) {
+            offset -= weights[i];
+            if (offset < 0) {
+                return invokers.get(i);
+            }
+        }
+        return invokers.get(length - 1);
+    }
+
+}
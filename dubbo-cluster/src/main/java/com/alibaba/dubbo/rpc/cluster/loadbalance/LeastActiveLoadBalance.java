@@ -33,7 +33,7 @@ import java.util.Random;
  */
 public class LeastActiveLoadBalance extends AbstractLoadBalance {
 
-    public static final String NAME = "leastactive";
+    public static final String NAME = Constants.LEASTACTIVE_LOADBALANCE;
 
     private final Random random = new Random();
 
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.loadbalance;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcStatus;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Power of two choices load balance, scored by peak EWMA of elapsed.
+ * <p>
+ * 随机选择两个 Invoker ，选择负载更小的。负载 = 调用时长的峰值 EWMA * （调用中的次数 + 1） / 权重。
+ * 与 {@link LeastActiveLoadBalance} 相比，能感知变慢但还没有积压的提供者，并且选择为 O(1) ，与提供者数量无关。
+ * <p>
+ * 调用时长和调用中的次数，来自 {@link RpcStatus} ，由 {@link com.alibaba.dubbo.rpc.filter.ActiveLimitFilter} 统计。
+ */
+public class P2CLoadBalance extends AbstractLoadBalance {
+
+    public static final String NAME = Constants.P2C_LOADBALANCE;
+
+    /**
+     * 负载相差在该比例以内时视为相同，随机选择。
+     * 避免调用时长相近的提供者，因为从不同时间开始衰减的细微差别，总是同一个胜出
+     */
+    private static final double TIE_TOLERANCE = 0.05D;
+
+    private final Random random;
+
+    public P2CLoadBalance() {
+        this(new Random());
+    }
+
+    P2CLoadBalance(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+        int length = invokers.size(); // 总个数，至少为 2
+        // 随机两个不同的下标
+        int first = random.nextInt(length);
+        int second = random.nextInt(length - 1);
+        if (second >= first) {
+            second++;
+        }
+        Invoker<T> invoker1 = invokers.get(first);
+        Invoker<T> invoker2 = invokers.get(second);
+        double load1 = getLoad(invoker1, invocation);
+        double load2 = getLoad(invoker2, invocation);
+        if (Math.abs(load1 - load2) <= Math.max(load1, load2) * TIE_TOLERANCE) {
+            return random.nextBoolean() ? invoker1 : invoker2;
+        }
+        return load1 < load2 ? invoker1 : invoker2;
+    }
+
+    private double getLoad(Invoker<?> invoker, Invocation invocation) {
+        int weight = getWeight(invoker, invocation);
+        if (weight <= 0) {
+            return Double.MAX_VALUE;
+        }
+        RpcStatus status = RpcStatus.getStatus(invoker.getUrl(), invocation.getMethodName());
+        // 调用时长加 1 毫秒，使还没有调用时长的提供者，也按调用中的次数比较
+        return (status.getLatencyEwma() + 1) * (status.getActive() + 1) / weight;
+    }
+
+}
@@ -16,21 +16,26 @@
  */
 package com.alibaba.dubbo.rpc.cluster.loadbalance;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
-import com.alibaba.dubbo.common.utils.AtomicPositiveInteger;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Round robin load balance.
  * <p>
- * 轮循，按公约后的权重设置轮循比率。
+ * 平滑加权轮循（Smooth Weighted Round Robin）：每次选择时，所有 Invoker 的当前权重加上各自的权重，选择当前权重最大的，
+ * 再将它的当前权重减去总权重。例如权重为 {5, 1, 1} 时，选择顺序为 a a b a c a a ，而不是 a a a a a b c 。
+ * <p>
+ * 每个服务方法缓存 Invoker 的权重和当前权重，仅在 Invoker 集合变化时重建；选择为 O(n) ，不创建对象。
+ * 当前权重通过 CAS 累加，选择不加锁；并发选择时顺序可能交错，但每个 Invoker 被选择的比例仍与权重一致。
  * 存在慢的提供者累积请求的问题，比如：第二台机器很慢，但没挂，当请求调到第二台时就卡在那，久而久之，所有请求都卡在调到第二台上。
  */
 public class RoundRobinLoadBalance extends AbstractLoadBalance {
@@ -38,88 +43,231 @@ public class RoundRobinLoadBalance extends AbstractLoadBalance {
     public static final String NAME = "roundrobin";
 
     /**
-     * 服务方法与计数器的映射
+     * 每个服务方法最多缓存的 Invoker 集合数量，例如路由、重试时的子集，超过时淘汰最早的
+     */
+    private static final int MAX_STATES = 8;
+
+    /**
+     * 预热中的 Invoker 重新计算权重的间隔，单位：毫秒
+     */
+    private static final long WARMUP_REFRESH_INTERVAL = 1000;
+
+    /**
+     * 服务方法与轮循状态的映射
      * <p>
-     * KEY：serviceKey + "." + methodName
+     * KEY：服务键（分组/服务接口:版本）.方法名
      */
-    private final ConcurrentMap<String, AtomicPositiveInteger> sequences = new ConcurrentHashMap<String, AtomicPositiveInteger>();
+    private final ConcurrentMap<String, States> states = new ConcurrentHashMap<String, States>();
 
     @Override
+    @SuppressWarnings("unchecked")
     protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
-        String key = invokers.get(0).getUrl().getServiceKey() + "." + invocation.getMethodName();
-        int length = invokers.size(); // Number of invokers
-        int maxWeight = 0; // The maximum weight
-        int minWeight = Integer.MAX_VALUE; // The minimum weight
-        final LinkedHashMap<Invoker<T>, IntegerWrapper> invokerToWeightMap = new LinkedHashMap<Invoker<T>, IntegerWrapper>();
-        int weightSum = 0;
-        // 计算最小、最大权重，总的权重和。
-        for (int i = 0; i < length; i++) {
-            int weight = getWeight(invokers.get(i), invocation);
-            maxWeight = Math.max(maxWeight, weight); // Choose the maximum weight
-            minWeight = Math.min(minWeight, weight); // Choose the minimum weight
-            if (weight > 0) {
-                invokerToWeightMap.put(invokers.get(i), new IntegerWrapper(weight));
-                weightSum += weight;
-            }
+        String method = invocation.getMethodName();
+        String key = invokers.get(0).getUrl().getServiceKey() + "." + (method == null ? "" : method);
+        // 获得服务方法的轮循状态集合
+        States candidates = states.get(key);
+        if (candidates == null) {
+            states.putIfAbsent(key, new States());
+            candidates = states.get(key);
         }
-        // 获得 AtomicPositiveInteger 对象
-        AtomicPositiveInteger sequence = sequences.get(key);
-        if (sequence == null) {
-            sequences.putIfAbsent(key, new AtomicPositiveInteger());
-            sequence = sequences.get(key);
+        // 获得 Invoker 集合对应的轮循状态，不存在时创建
+        WeightedRoundRobin state = candidates.find(invokers);
+        if (state == null) {
+            state = candidates.add(invokers, method);
         }
-        // 获得当前顺序号，并递增 + 1
-        int currentSequence = sequence.getAndIncrement();
-        // 权重不相等，顺序根据权重分配
-        if (maxWeight > 0 && minWeight < maxWeight) {
-            int mod = currentSequence % weightSum; // 剩余权重
-            for (int i = 0; i < maxWeight; i++) { // 循环最大权重
-                for (Map.Entry<Invoker<T>, IntegerWrapper> each : invokerToWeightMap.entrySet()) { // 循环 Invoker 集合
-                    final Invoker<T> k = each.getKey();
-                    final IntegerWrapper v = each.getValue();
-                    // 剩余权重归 0 ，当前 Invoker 还有剩余权重，返回该 Invoker 对象
-                    if (mod == 0 && v.getValue() > 0) {
-                        return k;
-                    }
-                    // 若 Invoker 还有权重值，扣除它( value )和剩余权重( mod )。
-                    if (v.getValue() > 0) {
-                        v.decrement();
-                        mod--;
-                    }
+        return (Invoker<T>) state.select();
+    }
+
+    /**
+     * 服务方法的轮循状态集合，按 Invoker 集合区分
+     */
+    private static final class States {
+
+        private volatile WeightedRoundRobin[] states = new WeightedRoundRobin[0];
+
+        WeightedRoundRobin find(List<? extends Invoker<?>> invokers) {
+            WeightedRoundRobin[] current = states;
+            for (WeightedRoundRobin state : current) {
+                if (state.matches(invokers)) {
+                    return state;
                 }
             }
+            return null;
         }
-        // 权重相等，平均顺序获得
-        // Round robin
-        return invokers.get(currentSequence % length);
+
+        synchronized WeightedRoundRobin add(List<? extends Invoker<?>> invokers, String method) {
+            WeightedRoundRobin state = find(invokers);
+            if (state != null) {
+                return state;
+            }
+            state = new WeightedRoundRobin(invokers, method);
+            WeightedRoundRobin[] current = states;
+            // 新的放在最前，超过数量时淘汰最早的
+            int length = Math.min(current.length + 1, MAX_STATES);
+            WeightedRoundRobin[] updated = new WeightedRoundRobin[length];
+            updated[0] = state;
+            System.arraycopy(current, 0, updated, 1, length - 1);
+            states = updated;
+            return state;
+        }
+
     }
 
-    private static final class IntegerWrapper {
+    /**
+     * 一个 Invoker 集合的平滑加权轮循状态
+     */
+    private static final class WeightedRoundRobin {
+
+        private final Invoker<?>[] invokers;
+
+        /**
+         * 配置的权重
+         */
+        private final int[] configuredWeights;
+
+        /**
+         * 提供者启动时间，用于计算预热权重
+         */
+        private final long[] timestamps;
+
+        /**
+         * 预热时长
+         */
+        private final int[] warmups;
+
+        /**
+         * 生效的权重，预热中的 Invoker 按间隔替换
+         */
+        private volatile Weights weights;
 
         /**
-         * 权重值
+         * 下次重新计算权重的时间，由 CAS 成功的线程计算
          */
-        private int value;
+        private final AtomicLong nextRefresh = new AtomicLong();
 
-        public IntegerWrapper(int value) {
-            this.value = value;
+        /**
+         * 当前权重
+         */
+        private final AtomicLongArray current;
+
+        /**
+         * 权重都为 0 时，按顺序轮循
+         */
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        WeightedRoundRobin(List<? extends Invoker<?>> list, String method) {
+            int length = list.size();
+            this.invokers = list.toArray(new Invoker<?>[length]);
+            this.configuredWeights = new int[length];
+            this.timestamps = new long[length];
+            this.warmups = new int[length];
+            this.current = new AtomicLongArray(length);
+            for (int i = 0; i < length; i++) {
+                URL url = invokers[i].getUrl();
+                configuredWeights[i] = url.getMethodParameter(method, Constants.WEIGHT_KEY, Constants.DEFAULT_WEIGHT);
+                timestamps[i] = url.getParameter(Constants.REMOTE_TIMESTAMP_KEY, 0L);
+                warmups[i] = url.getParameter(Constants.WARMUP_KEY, Constants.DEFAULT_WARMUP);
+            }
+            refreshWeights(System.currentTimeMillis());
         }
 
-        public int getValue() {
-            return value;
+        /**
+         * 逐个比较，而不是按 List 引用，因为调用方可能复用并修改同一个 List
+         *
+         * @return 是否为同一个 Invoker 集合，顺序相同
+         */
+        boolean matches(List<? extends Invoker<?>> list) {
+            if (list.size() != invokers.length) {
+                return false;
+            }
+            for (int i = 0; i < invokers.length; i++) {
+                if (list.get(i) != invokers[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 计算生效的权重，与 {@link AbstractLoadBalance#getWeight(Invoker, Invocation)} 一致
+         */
+        private void refreshWeights(long now) {
+            int[] weights = new int[invokers.length];
+            int total = 0;
+            long end = 0;
+            for (int i = 0; i < invokers.length; i++) {
+                int weight = configuredWeights[i];
+                if (weight > 0 && timestamps[i] > 0L) {
+                    int uptime = (int) (now - timestamps[i]);
+                    if (uptime > 0 && uptime < warmups[i]) {
+                        weight = calculateWarmupWeight(uptime, warmups[i], weight);
+                        end = Math.max(end, timestamps[i] + warmups[i]);
+                    }
+                }
+                weights[i] = weight;
+                if (weight > 0) {
+                    total += weight;
+                }
+            }
+            this.weights = new Weights(weights, total, end);
+            nextRefresh.set(now + WARMUP_REFRESH_INTERVAL);
         }
 
-        public void setValue(int value) {
-            this.value = value;
+        Invoker<?> select() {
+            Weights w = weights;
+            // 存在预热中的 Invoker 时，按间隔重新计算权重
+            if (w.warmupEnd > 0) {
+                long now = System.currentTimeMillis();
+                long next = nextRefresh.get();
+                if (now >= next && nextRefresh.compareAndSet(next, now + WARMUP_REFRESH_INTERVAL)) {
+                    refreshWeights(now);
+                    w = weights;
+                }
+            }
+            // 权重都为 0 ，按顺序轮循
+            if (w.total <= 0) {
+                int index = (sequence.getAndIncrement() & Integer.MAX_VALUE) % invokers.length;
+                return invokers[index];
+            }
+            int selected = -1;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < invokers.length; i++) {
+                int weight = w.weights[i];
+                if (weight <= 0) {
+                    continue;
+                }
+                long value = current.addAndGet(i, weight);
+                if (value > max) {
+                    max = value;
+                    selected = i;
+                }
+            }
+            current.addAndGet(selected, -w.total);
+            return invokers[selected];
         }
 
+    }
+
+    /**
+     * 生效的权重，整体替换
+     */
+    private static final class Weights {
+
+        private final int[] weights;
+
+        private final int total;
+
         /**
-         * 扣除一
+         * 最晚的预热结束时间，0 表示没有预热中的 Invoker
          */
-        public void decrement() {
-            this.value--;
+        private final long warmupEnd;
+
+        private Weights(int[] weights, int total, long warmupEnd) {
+            this.weights = weights;
+            this.total = total;
+            this.warmupEnd = warmupEnd;
         }
 
     }
 
-}
\ No newline at end of file
+}
@@ -26,6 +26,7 @@ import com.alibaba.dubbo.common.utils.UrlUtils;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.cluster.CacheableRouter;
 import com.alibaba.dubbo.rpc.cluster.Router;
 
 import java.text.ParseException;
@@ -42,8 +43,10 @@ import java.util.regex.Pattern;
  * ConditionRouter
  * <p>
  * 条件 Router 实现类
+ * <p>
+ * 仅匹配消费者 URL 、方法名和服务提供者 URL ，路由结果可缓存
  */
-public class ConditionRouter implements Router {
+public class ConditionRouter implements CacheableRouter {
 
     private static final Logger logger = LoggerFactory.getLogger(ConditionRouter.class);
 
@@ -68,6 +68,11 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
      */
     private volatile Invoker<T> stickyInvoker = null;
 
+    /**
+     * 离群检测，未开启时为 null
+     */
+    private final OutlierDetector outlierDetector;
+
     public AbstractClusterInvoker(Directory<T> directory) {
         this(directory, directory.getUrl());
     }
@@ -81,6 +86,8 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
         // sticky: invoker.isAvailable() should always be checked before using when availablecheck is true.
         // 初始化 availablecheck
         this.availablecheck = url.getParameter(Constants.CLUSTER_AVAILABLE_CHECK_KEY, Constants.DEFAULT_CLUSTER_AVAILABLE_CHECK);
+        // 初始化 outlierDetector
+        this.outlierDetector = url.getParameter(Constants.OUTLIER_DETECTION_KEY, false) ? new OutlierDetector(url) : null;
     }
 
     @Override
@@ -280,13 +287,7 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
         List<Invoker<T>> invokers = list(invocation);
 
         // 获得 LoadBalance 对象
-        LoadBalance loadbalance;
-        if (invokers != null && !invokers.isEmpty()) {
-            loadbalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(invokers.get(0).getUrl()
-                    .getMethodParameter(invocation.getMethodName(), Constants.LOADBALANCE_KEY, Constants.DEFAULT_LOADBALANCE));
-        } else {
-            loadbalance = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(Constants.DEFAULT_LOADBALANCE);
-        }
+        LoadBalance loadbalance = initLoadBalance(invokers, invocation);
 
         // 设置调用编号，若是异步调用
         RpcUtils.attachInvocationIdIfAsync(getUrl(), invocation);
@@ -295,6 +296,21 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
         return doInvoke(invocation, invokers, loadbalance);
     }
 
+    /**
+     * 获得 LoadBalance 对象，方法级配置，默认为 random
+     *
+     * @param invokers   Invoker 集合
+     * @param invocation Invocation 对象
+     * @return LoadBalance 对象
+     */
+    protected LoadBalance initLoadBalance(List<Invoker<T>> invokers, Invocation invocation) {
+        if (invokers != null && !invokers.isEmpty()) {
+            return ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(invokers.get(0).getUrl()
+                    .getMethodParameter(invocation.getMethodName(), Constants.LOADBALANCE_KEY, Constants.DEFAULT_LOADBALANCE));
+        }
+        return ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(Constants.DEFAULT_LOADBALANCE);
+    }
+
     /**
      * 校验是否已经销毁
      * <p>
@@ -335,7 +351,9 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
      * @throws RpcException 当发生 RpcException
      */
     protected List<Invoker<T>> list(Invocation invocation) throws RpcException {
-        return directory.list(invocation);
+        List<Invoker<T>> invokers = directory.list(invocation);
+        // 排除离群摘除中的 Invoker
+        return outlierDetector == null ? invokers : outlierDetector.select(invokers);
     }
 
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
  */
 package com.alibaba.dubbo.rpc.cluster.support;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.rpc.Invocation;
@@ -50,18 +51,24 @@ public class BroadcastClusterInvoker<T> extends AbstractClusterInvoker<T> {
         RpcException exception = null;
         // 保存最后一次调用的结果
         Result result = null;
-        // 循环候选的 Invoker 集合，调用所有 Invoker 对象。
-        for (Invoker<T> invoker : invokers) {
-            try {
-                // 发起 RPC 调用
-                result = invoker.invoke(invocation);
-            } catch (RpcException e) {
-                exception = e;
-                logger.warn(e.getMessage(), e);
-            } catch (Throwable e) {
-                exception = new RpcException(e.getMessage(), e); // 封装成 RpcException 异常
-                logger.warn(e.getMessage(), e);
+        // 通过异步调用，同时发起所有 Invoker 的 RPC 调用，耗时约为最慢的一次调用，而不是所有调用之和
+        FanOut<T> fanOut = new FanOut<T>(invokers, invocation, getUrl().getParameter(Constants.FANOUT_PARALLELISM_KEY, Constants.DEFAULT_FANOUT_PARALLELISM));
+        try {
+            while (fanOut.hasNext()) {
+                FanOut.Completion<T> completion = fanOut.take();
+                Throwable e = completion.getException();
+                if (e == null) {
+                    result = completion.getResult();
+                } else if (e instanceof RpcException) {
+                    exception = (RpcException) e;
+                    logger.warn(e.getMessage(), e);
+                } else {
+                    exception = new RpcException(e.getMessage(), e); // 封装成 RpcException 异常
+                    logger.warn(e.getMessage(), e);
+                }
             }
+        } catch (InterruptedException e) {
+            throw new RpcException("Failed to broadcast invoke provider " + invokers + ": " + e.getMessage(), e);
         }
         // 若存在一个异常，抛出该异常
         if (exception != null) {
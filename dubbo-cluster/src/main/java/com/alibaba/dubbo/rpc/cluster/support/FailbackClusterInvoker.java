@@ -16,9 +16,15 @@
  */
 package com.alibaba.dubbo.rpc.cluster.support;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.timer.HashedWheelTimer;
+import com.alibaba.dubbo.common.timer.Timeout;
+import com.alibaba.dubbo.common.timer.Timer;
+import com.alibaba.dubbo.common.timer.TimerTask;
 import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+import com.alibaba.dubbo.common.utils.StringUtils;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
@@ -27,19 +33,23 @@ import com.alibaba.dubbo.rpc.RpcResult;
 import com.alibaba.dubbo.rpc.cluster.Directory;
 import com.alibaba.dubbo.rpc.cluster.LoadBalance;
 
-import java.util.HashMap;
+import java.io.File;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
- * When fails, record failure requests and schedule for retry on a regular interval.
+ * When fails, record failure requests and schedule for retry with exponential backoff.
  * Especially useful for services of notification.
+ * <p>
+ * 时间轮只负责到期和限速，重试交给重试线程池执行，避免一次慢的重试阻塞时间轮，推迟其它调用的重试。
  *
  * <a href="http://en.wikipedia.org/wiki/Failback">Failback</a>
  */
@@ -48,69 +58,166 @@ public class FailbackClusterInvoker<T> extends AbstractClusterInvoker<T> {
     private static final Logger logger = LoggerFactory.getLogger(FailbackClusterInvoker.class);
 
     /**
-     * 重试频率
+     * 最大重试延迟
      */
-    private static final long RETRY_FAILED_PERIOD = 5 * 1000;
+    private static final long MAX_RETRY_FAILED_PERIOD = 5 * 60 * 1000;
 
     /**
-     * ScheduledExecutorService 对象
+     * 时间轮每格的最大时长
      */
-    private final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(2, new NamedThreadFactory("failback-cluster-timer", true));
+    private static final long TICK_DURATION = 1000;
 
     /**
-     * 失败任务集合
+     * 重试线程数，重试可能阻塞到调用超时
      */
-    private final ConcurrentMap<Invocation, AbstractClusterInvoker<?>> failed = new ConcurrentHashMap<Invocation, AbstractClusterInvoker<?>>();
+    private static final int RETRY_THREADS = 4;
 
     /**
-     * 重试任务 Future
+     * 首次重试的延迟，之后每次翻倍
      */
-    private volatile ScheduledFuture<?> retryFuture;
+    private final long retryPeriod;
+
+    /**
+     * 时间轮每格的时长，不超过首次重试的延迟
+     */
+    private final long tickDuration;
+
+    /**
+     * 最大重试次数
+     */
+    private final int retries;
+
+    /**
+     * 最大等待重试的调用数
+     */
+    private final int failbackTasks;
+
+    /**
+     * 每秒最大重试次数，小于等于 0 表示不限制
+     */
+    private final int rate;
+
+    /**
+     * 可用的重试次数，按 rate 补充
+     */
+    private double permits;
+
+    private long lastRefillTime = System.currentTimeMillis();
+
+    /**
+     * 等待重试的调用
+     */
+    private final ConcurrentMap<RetryTask, Boolean> failed = new ConcurrentHashMap<RetryTask, Boolean>();
+
+    /**
+     * 本地日志，未配置时为 null 。相同服务键的 Invoker 共享
+     */
+    private final FailbackJournal journal;
+
+    /**
+     * 本地日志中，由该 Invoker 重试的调用的持有者
+     */
+    private final FailbackJournal.Owner journalOwner = new FailbackJournal.Owner() {
+        @Override
+        public void takeOver(Map<Long, Invocation> invocations) {
+            if (!invocations.isEmpty()) {
+                logger.info("Take over " + invocations.size() + " failback invocations of " + getUrl().getServiceKey() + " from journal");
+            }
+            for (Map.Entry<Long, Invocation> entry : invocations.entrySet()) {
+                addFailed(new RetryTask(entry.getKey(), entry.getValue()), retryPeriod);
+            }
+        }
+    };
+
+    /**
+     * 重试时间轮，有失败的调用时创建
+     */
+    private volatile Timer failTimer;
+
+    /**
+     * 重试线程池，和时间轮一起创建
+     */
+    private volatile ExecutorService retryExecutor;
 
     public FailbackClusterInvoker(Directory<T> directory) {
         super(directory);
+        int retriesConfig = getUrl().getParameter(Constants.RETRIES_KEY, Constants.DEFAULT_FAILBACK_TIMES);
+        retries = retriesConfig > 0 ? retriesConfig : Constants.DEFAULT_FAILBACK_TIMES;
+        int failbackTasksConfig = getUrl().getParameter(Constants.FAILBACK_TASKS_KEY, Constants.DEFAULT_FAILBACK_TASKS);
+        failbackTasks = failbackTasksConfig > 0 ? failbackTasksConfig : Constants.DEFAULT_FAILBACK_TASKS;
+        rate = getUrl().getParameter(Constants.FAILBACK_RATE_KEY, Constants.DEFAULT_FAILBACK_RATE);
+        permits = rate;
+        retryPeriod = getUrl().getPositiveParameter(Constants.FAILBACK_PERIOD_KEY, Constants.DEFAULT_FAILBACK_PERIOD);
+        tickDuration = Math.min(TICK_DURATION, retryPeriod);
+        // 回放本地日志，恢复重启前未完成的重试；共享的日志由首个 Invoker 接管，销毁时转交给其它 Invoker
+        String dir = getUrl().getParameter(Constants.FAILBACK_JOURNAL_KEY);
+        if (StringUtils.isNotEmpty(dir)) {
+            String name = getUrl().getServiceKey().replaceAll("[^\\w.-]", "_") + ".failback";
+            journal = FailbackJournal.getJournal(new File(dir, name), getInterface().getClassLoader(), journalOwner);
+        } else {
+            journal = null;
+        }
     }
 
-    private void addFailed(Invocation invocation, AbstractClusterInvoker<?> router) {
-        // 若定时任务未初始化，进行创建
-        if (retryFuture == null) {
+    private Timer getFailTimer() {
+        // 若时间轮未初始化，进行创建
+        if (failTimer == null) {
             synchronized (this) {
-                if (retryFuture == null) {
-                    retryFuture = scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
-
-                        public void run() {
-                            // collect retry statistics
-                            try {
-                                retryFailed();
-                            } catch (Throwable t) { // Defensive fault tolerance
-                                logger.error("Unexpected error occur at collect statistic", t);
-                            }
-                        }
-                    }, RETRY_FAILED_PERIOD, RETRY_FAILED_PERIOD, TimeUnit.MILLISECONDS);
+                if (failTimer == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(RETRY_THREADS, RETRY_THREADS, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("failback-cluster-retry", true));
+                    executor.allowCoreThreadTimeOut(true);
+                    retryExecutor = executor;
+                    failTimer = new HashedWheelTimer(new NamedThreadFactory("failback-cluster-timer", true),
+                            tickDuration, TimeUnit.MILLISECONDS, 32, failbackTasks);
                 }
             }
         }
-        // 添加到失败任务
-        failed.put(invocation, router);
+        return failTimer;
     }
 
-    void retryFailed() {
-        if (failed.size() == 0) {
+    private void addFailed(Invocation invocation) {
+        // 队列已满，放弃，避免内存无限增长
+        if (failed.size() >= failbackTasks) {
+            logger.error("Failback tasks of " + getUrl().getServiceKey() + " exceed " + failbackTasks + ", abandon invocation " + invocation.getMethodName());
             return;
         }
-        // 循环重试任务，逐个调用
-        for (Map.Entry<Invocation, AbstractClusterInvoker<?>> entry : new HashMap<Invocation, AbstractClusterInvoker<?>>(failed).entrySet()) { // 创建集合
-            Invocation invocation = entry.getKey();
-            Invoker<?> invoker = entry.getValue();
-            try {
-                // RPC 调用得到 Result
-                invoker.invoke(invocation);
-                // 移除失败任务
-                failed.remove(invocation);
-            } catch (Throwable e) {
-                logger.error("Failed retry to invoke method " + invocation.getMethodName() + ", waiting again.", e);
-            }
+        addFailed(new RetryTask(journal != null ? journal.append(journalOwner, invocation) : 0, invocation), retryPeriod);
+    }
+
+    private void addFailed(RetryTask task, long delay) {
+        failed.put(task, Boolean.TRUE);
+        try {
+            getFailTimer().newTimeout(task, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.error("Failback tasks of " + getUrl().getServiceKey() + " exceed " + failbackTasks + ", abandon invocation " + task.invocation.getMethodName(), e);
+            removeFailed(task);
+        } catch (IllegalStateException e) { // 已销毁
+            failed.remove(task);
+        }
+    }
+
+    private void removeFailed(RetryTask task) {
+        if (failed.remove(task) != null && journal != null) {
+            journal.remove(task.id);
+        }
+    }
+
+    /**
+     * 按 rate 获取一次重试许可，使恢复后逐步重试，避免突发流量再次压垮服务提供者
+     */
+    private synchronized boolean tryAcquire() {
+        if (rate <= 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        permits = Math.min(rate, permits + (now - lastRefillTime) * rate / 1000D);
+        lastRefillTime = now;
+        if (permits < 1) {
+            return false;
         }
+        permits--;
+        return true;
     }
 
     @Override
@@ -125,9 +232,91 @@ public class FailbackClusterInvoker<T> extends AbstractClusterInvoker<T> {
         } catch (Throwable e) {
             logger.error("Failback to invoke method " + invocation.getMethodName() + ", wait for retry in background. Ignored exception: " + e.getMessage() + ", ", e);
             // 添加到失败任务
-            addFailed(invocation, this);
+            addFailed(invocation);
             return new RpcResult(); // ignore
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    public void destroy() {
+        super.destroy();
+        // 未完成的重试保留在本地日志中，重启后恢复
+        Timer timer = failTimer;
+        if (timer != null) {
+            timer.stop();
+            retryExecutor.shutdown();
+        }
+        if (journal != null) {
+            journal.release(journalOwner);
+        }
+    }
+
+    /**
+     * 重试任务
+     */
+    private class RetryTask implements TimerTask, Runnable {
+
+        /**
+         * 本地日志中的编号，未保存时为 0
+         */
+        private final long id;
+
+        private final Invocation invocation;
+
+        /**
+         * 已重试次数
+         */
+        private int retryTimes;
+
+        /**
+         * 上次重试的 Invoker ，下次优先选择其他 Invoker
+         */
+        private Invoker<T> lastInvoker;
+
+        RetryTask(long id, Invocation invocation) {
+            this.id = id;
+            this.invocation = invocation;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            // 超过重试速率，下一格再试，不计入重试次数
+            if (!tryAcquire()) {
+                addFailed(this, tickDuration);
+                return;
+            }
+            try {
+                retryExecutor.execute(this);
+            } catch (RejectedExecutionException e) { // 已销毁，保留在本地日志中
+                failed.remove(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Invoker<T>> invokers = list(invocation);
+                checkInvokers(invokers, invocation);
+                Invoker<T> invoker = select(initLoadBalance(invokers, invocation), invocation, invokers,
+                        lastInvoker == null ? null : Collections.singletonList(lastInvoker));
+                lastInvoker = invoker;
+                // RPC 调用得到 Result
+                invoker.invoke(invocation);
+                // 移除失败任务
+                removeFailed(this);
+            } catch (Throwable e) {
+                if (++retryTimes >= retries) {
+                    logger.error("Failed retry times exceed threshold (" + retries + "), abandon invocation " + invocation.getMethodName() + " of " + getUrl().getServiceKey(), e);
+                    removeFailed(this);
+                } else {
+                    // 指数退避
+                    long delay = Math.min(retryPeriod << retryTimes, MAX_RETRY_FAILED_PERIOD);
+                    logger.error("Failed retry to invoke method " + invocation.getMethodName() + ", waiting again in " + delay + "ms.", e);
+                    addFailed(this, delay);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.io.Bytes;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.serialize.support.java.CompactedObjectInputStream;
+import com.alibaba.dubbo.common.serialize.support.java.CompactedObjectOutputStream;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only local journal of the failback retry queue.
+ * <p>
+ * 失败的调用入队时追加 "+编号 序列化的调用" ，重试成功或放弃时追加 "-编号" 。
+ * 重启后回放日志，恢复未完成的调用，并重写日志只保留它们；队列为空时清空日志，
+ * 已完成的记录超过 {@link #COMPACT_THRESHOLD} 且多于未完成的调用时，重写日志压缩。
+ * 调用通过 Java 序列化保存，参数不可序列化的调用只在内存中重试。
+ * <p>
+ * 相同文件的日志在进程内共享，例如相同服务键的多个 FailbackClusterInvoker ，编号统一分配，互不覆盖。
+ * 每个未完成的调用属于一个 {@link Owner} ：首个注册的持有者接管回放的调用；持有者释放时，
+ * 其未完成的调用转交给仍在使用的持有者，与创建和销毁的顺序无关。最后一个持有者释放时，保留在日志中，重启后恢复。
+ */
+class FailbackJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailbackJournal.class);
+
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * 触发压缩的已完成记录数
+     */
+    static final int COMPACT_THRESHOLD = 1024;
+
+    /**
+     * 共享的日志
+     * <p>
+     * key：文件绝对路径
+     */
+    private static final Map<String, FailbackJournal> JOURNALS = new HashMap<String, FailbackJournal>();
+
+    private final File file;
+
+    /**
+     * 反序列化调用参数的 ClassLoader
+     */
+    private final ClassLoader classLoader;
+
+    private Writer writer;
+
+    /**
+     * 下一个调用编号
+     */
+    private long nextId = 1;
+
+    /**
+     * 日志中未完成的调用，用于压缩时重写
+     * <p>
+     * key：编号
+     * value：序列化的调用
+     */
+    private final Map<Long, String> entries = new LinkedHashMap<Long, String>();
+
+    /**
+     * 未完成的调用的持有者
+     * <p>
+     * key：编号
+     */
+    private final Map<Long, Owner> holders = new HashMap<Long, Owner>();
+
+    /**
+     * 使用日志的持有者，按注册顺序
+     */
+    private final List<Owner> owners = new ArrayList<Owner>();
+
+    /**
+     * 日志的记录数
+     */
+    private int lines;
+
+    /**
+     * 是否已回放
+     */
+    private boolean recovered;
+
+    FailbackJournal(File file, ClassLoader classLoader) {
+        this.file = file;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * 获得文件的共享日志并注册持有者，首个持有者接管回放的调用。不再使用时调用 {@link #release(Owner)}
+     *
+     * @param file        文件
+     * @param classLoader 反序列化调用参数的 ClassLoader
+     * @param owner       持有者
+     * @return 日志
+     */
+    static FailbackJournal getJournal(File file, ClassLoader classLoader, Owner owner) {
+        synchronized (JOURNALS) {
+            String key = file.getAbsolutePath();
+            FailbackJournal journal = JOURNALS.get(key);
+            if (journal == null) {
+                journal = new FailbackJournal(file, classLoader);
+                JOURNALS.put(key, journal);
+            }
+            journal.register(owner);
+            return journal;
+        }
+    }
+
+    synchronized void register(Owner owner) {
+        owners.add(owner);
+        if (!recovered) {
+            Map<Long, Invocation> invocations = recover();
+            for (Long id : invocations.keySet()) {
+                holders.put(id, owner);
+            }
+            owner.takeOver(invocations);
+        }
+    }
+
+    /**
+     * 释放持有者，其未完成的调用转交给仍在使用的持有者。最后一个持有者释放时关闭日志，未完成的调用保留在日志中
+     *
+     * @param owner 持有者
+     */
+    void release(Owner owner) {
+        synchronized (JOURNALS) {
+            synchronized (this) {
+                if (!owners.remove(owner)) {
+                    return;
+                }
+                if (owners.isEmpty()) {
+                    JOURNALS.remove(file.getAbsolutePath());
+                    close();
+                    return;
+                }
+                handOver(owner, owners.get(0));
+            }
+        }
+    }
+
+    private void handOver(Owner owner, Owner heir) {
+        Map<Long, Invocation> invocations = new LinkedHashMap<Long, Invocation>();
+        for (Map.Entry<Long, Owner> entry : holders.entrySet()) {
+            if (entry.getValue() != owner) {
+                continue;
+            }
+            entry.setValue(heir);
+            try {
+                invocations.put(entry.getKey(), decode(entries.get(entry.getKey())));
+            } catch (Exception e) {
+                logger.warn("Failed to hand over failback invocation of journal " + file.getAbsolutePath() + ", it is kept in the journal, cause: " + e.getMessage(), e);
+            }
+        }
+        if (!invocations.isEmpty()) {
+            heir.takeOver(invocations);
+        }
+    }
+
+    /**
+     * 回放日志，恢复未完成的调用，并打开日志。共享的日志只在首次调用时恢复
+     *
+     * @return 未完成的调用，key 为编号
+     */
+    synchronized Map<Long, Invocation> recover() {
+        if (recovered) {
+            return Collections.emptyMap();
+        }
+        recovered = true;
+        if (file.exists()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int index = line.indexOf(' ');
+                    try {
+                        long id = Long.parseLong(index > 0 ? line.substring(1, index) : line.substring(1));
+                        nextId = Math.max(nextId, id + 1);
+                        if (line.charAt(0) == '+' && index > 0) {
+                            entries.put(id, line.substring(index + 1));
+                        } else if (line.charAt(0) == '-') {
+                            entries.remove(id);
+                        }
+                    } catch (RuntimeException e) { // 例如，写入一半时进程退出
+                        logger.warn("Ignore corrupted entry of failback journal " + file.getAbsolutePath());
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read failback journal " + file.getAbsolutePath() + ", cause: " + e.getMessage(), e);
+            } finally {
+                close(reader);
+            }
+        }
+        Map<Long, Invocation> invocations = new LinkedHashMap<Long, Invocation>();
+        for (Map.Entry<Long, String> entry : entries.entrySet()) {
+            try {
+                invocations.put(entry.getKey(), decode(entry.getValue()));
+            } catch (Exception e) {
+                logger.warn("Failed to recover failback invocation from journal " + file.getAbsolutePath() + ", cause: " + e.getMessage(), e);
+            }
+        }
+        // 重写日志，只保留未完成的调用
+        entries.keySet().retainAll(invocations.keySet());
+        rewrite();
+        return invocations;
+    }
+
+    /**
+     * 追加失败的调用
+     *
+     * @param owner      持有者
+     * @param invocation 调用
+     * @return 编号，无法保存时返回 0
+     */
+    synchronized long append(Owner owner, Invocation invocation) {
+        String data;
+        try {
+            data = encode(invocation);
+        } catch (IOException e) {
+            logger.warn("Failed to journal failback invocation " + invocation.getMethodName() + ", it will be lost after restart, cause: " + e.getMessage());
+            return 0;
+        }
+        long id = nextId++;
+        entries.put(id, data);
+        holders.put(id, owner);
+        write("+" + id + " " + data);
+        return id;
+    }
+
+    /**
+     * 追加完成的调用
+     *
+     * @param id 编号
+     */
+    synchronized void remove(long id) {
+        if (id <= 0 || entries.remove(id) == null) {
+            return;
+        }
+        holders.remove(id);
+        // 已完成的记录过多，重写日志压缩；没有未完成的调用时，即清空日志
+        int dead = lines - entries.size();
+        if (entries.isEmpty() || (dead >= COMPACT_THRESHOLD && dead > entries.size())) {
+            rewrite();
+        } else {
+            write("-" + id);
+        }
+    }
+
+    /**
+     * @return 日志的记录数
+     */
+    synchronized int getLines() {
+        return lines;
+    }
+
+    /**
+     * 重写日志，只保留未完成的调用
+     */
+    private void rewrite() {
+        open(false);
+        lines = 0;
+        for (Map.Entry<Long, String> entry : entries.entrySet()) {
+            write("+" + entry.getKey() + " " + entry.getValue());
+        }
+    }
+
+    synchronized void close() {
+        close(writer);
+        writer = null;
+    }
+
+    private void open(boolean append) {
+        close(writer);
+        writer = null;
+        try {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            writer = new OutputStreamWriter(new FileOutputStream(file, append), CHARSET);
+        } catch (IOException e) {
+            logger.warn("Failed to open failback journal " + file.getAbsolutePath() + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(String line) {
+        if (writer == null) {
+            open(true);
+            if (writer == null) {
+                return;
+            }
+        }
+        try {
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+            lines++;
+        } catch (IOException e) {
+            logger.warn("Failed to write failback journal " + file.getAbsolutePath() + ", cause: " + e.getMessage(), e);
+            close(writer);
+            writer = null;
+        }
+    }
+
+    private String encode(Invocation invocation) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new CompactedObjectOutputStream(bos);
+        out.writeObject(new RpcInvocation(invocation, null));
+        out.flush();
+        return Bytes.bytes2base64(bos.toByteArray());
+    }
+
+    private Invocation decode(String data) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new CompactedObjectInputStream(new ByteArrayInputStream(Bytes.base642bytes(data)), classLoader);
+        return (Invocation) in.readObject();
+    }
+
+    /**
+     * 日志中未完成的调用的持有者
+     */
+    interface Owner {
+
+        /**
+         * 接管未完成的调用，在日志的锁中调用
+         *
+         * @param invocations 回放的调用，或者已释放的持有者的调用，key 为编号
+         */
+        void takeOver(Map<Long, Invocation> invocations);
+
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
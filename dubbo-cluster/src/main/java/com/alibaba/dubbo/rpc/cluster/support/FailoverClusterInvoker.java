@@ -24,6 +24,7 @@ import com.alibaba.dubbo.common.utils.NetUtils;
 import com.alibaba.dubbo.rpc.*;
 import com.alibaba.dubbo.rpc.cluster.Directory;
 import com.alibaba.dubbo.rpc.cluster.LoadBalance;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -33,6 +34,7 @@ import java.util.Set;
 /**
  * When invoke fails, log the initial error and retry other invokers (retry n times, which means at most n different invokers will be invoked)
  * Note that retry causes latency.
+ * Retries of a service are limited by a {@link RetryBudget}, exceeding retries fail fast instead of amplifying the load.
  *
  * <a href="http://en.wikipedia.org/wiki/Failover">Failover</a>
  */
@@ -55,6 +57,10 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
         if (len <= 0) {
             len = 1;
         }
+        // 重试预算，ratio 为负数时不限制
+        String methodName = invocation.getMethodName();
+        int budgetRatio = getUrl().getMethodParameter(methodName, Constants.RETRY_BUDGET_RATIO_KEY, Constants.DEFAULT_RETRY_BUDGET_RATIO);
+        RetryBudget budget = budgetRatio >= 0 && len > 1 ? RetryBudget.getBudget(getUrl()) : null;
         // 保存最后一次调用的异常
         // retry loop.
         RpcException le = null; // last exception.
@@ -69,6 +75,20 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
             // 注意：如果列表发生了变化，那么invoked判断会失效，因为invoker示例已经改变
             if (i > 0) {
                 checkWhetherDestroyed();
+                // 超出重试预算，不再重试，抛出最后一次调用的异常
+                if (budget != null && !budget.tryWithdraw(budgetRatio,
+                        getUrl().getMethodParameter(methodName, Constants.RETRY_BUDGET_MIN_KEY, Constants.DEFAULT_RETRY_BUDGET_MIN))) {
+                    // 记在最后一次调用的服务提供者上，由 MonitorFilter 上报到监控
+                    RpcStatus.getStatus(invoked.get(invoked.size() - 1).getUrl(), RpcUtils.getMethodName(invocation)).addRetryRejected();
+                    throw new RpcException(le.getCode(), "Failed to invoke the method " + methodName
+                            + " in the service " + getInterface().getName()
+                            + ". Retry budget of the service is exhausted after tried " + i + " times of the providers "
+                            + providers + " (" + providers.size() + "/" + copyinvokers.size()
+                            + ") from the registry " + directory.getUrl().getAddress()
+                            + " on the consumer " + NetUtils.getLocalHost()
+                            + " using the dubbo version " + Version.getVersion()
+                            + ". Last error is: " + le.getMessage(), le.getCause() != null ? le.getCause() : le);
+                }
                 // 根据Invocation调用信息从Directory中获取所有可用Invoker
                 copyinvokers = list(invocation);
                 // check again
@@ -84,6 +104,10 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
             try {
                 // RPC 调用得到 Result
                 Result result = invoker.invoke(invocation);
+                // 成功的请求存入重试预算
+                if (budget != null) {
+                    budget.deposit();
+                }
                 // 重试过程中，将最后一次调用的异常信息以 warn 级别日志输出
                 if (le != null && logger.isWarnEnabled()) {
                     logger.warn("Although retry the method " + invocation.getMethodName()
@@ -121,4 +145,11 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
                 + ". Last error is: " + le.getMessage(), le.getCause() != null ? le.getCause() : le);
     }
 
+    @Override
+    public void destroy() {
+        super.destroy();
+        // 移除重试预算，避免随 Directory 的创建销毁而累积
+        RetryBudget.removeBudget(getUrl());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoke invokers concurrently on the async invocation path, without extra threads.
+ * <p>
+ * 在调用线程中依次发起异步调用，通过 {@link ResultFuture} 的回调收集结果，不占用额外的线程。
+ * 未完成的调用数不超过 parallelism ，每取得一个结果，再发起后续的调用。
+ * 不支持异步的协议，调用时同步完成，退化为依次调用。
+ * <p>
+ * 每个调用使用独立的 {@link RpcInvocation} ，并在发起前恢复创建时 {@link RpcContext} 的隐式传参，
+ * 因为 {@link com.alibaba.dubbo.rpc.filter.ConsumerContextFilter} 在每次调用后清空。
+ * <p>
+ * ActiveLimitFilter 、MonitorFilter 、OutlierDetectionFilter 等同样在 {@link ResultFuture} 的回调中结束统计，
+ * 因此每个调用的调用中次数、耗时和失败，按实际返回计入。
+ * <p>
+ * {@link #cancel()} 取消未完成的调用，丢弃之后返回的响应，其回调收到 {@link CancellationException} 。
+ *
+ * @param <T> service type
+ */
+class FanOut<T> {
+
+    private final List<Invoker<T>> invokers;
+
+    private final Invocation invocation;
+
+    /**
+     * 最大未完成的调用数
+     */
+    private final int parallelism;
+
+    /**
+     * 已完成的调用
+     */
+    private final BlockingQueue<Completion<T>> completions = new LinkedBlockingQueue<Completion<T>>();
+
+    /**
+     * 创建时 {@link RpcContext} 的隐式传参
+     */
+    private final Map<String, String> attachments;
+
+    /**
+     * 已发起调用的 Future ，同步完成的调用为 null
+     */
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+    /**
+     * 已发起的调用数
+     */
+    private int launched;
+
+    /**
+     * 已取得的结果数
+     */
+    private int received;
+
+    FanOut(List<Invoker<T>> invokers, Invocation invocation, int parallelism) {
+        this.invokers = invokers;
+        this.invocation = invocation;
+        this.parallelism = parallelism > 0 ? parallelism : invokers.size();
+        this.attachments = new HashMap<String, String>(RpcContext.getContext().getAttachments());
+    }
+
+    /**
+     * 不预先指定 Invoker ，由 {@link #add(Invoker)} 逐个发起调用
+     */
+    FanOut(Invocation invocation) {
+        this(new ArrayList<Invoker<T>>(), invocation, 0);
+    }
+
+    /**
+     * 立即发起一个调用，不受 parallelism 限制
+     *
+     * @param invoker Invoker
+     */
+    void add(Invoker<T> invoker) {
+        invokers.add(invoker);
+        launched++;
+        launch(invoker);
+    }
+
+    /**
+     * 调用完成时，在回调的线程中执行，包括未被取得的结果
+     *
+     * @param completion 结果
+     */
+    protected void completed(Completion<T> completion) {
+    }
+
+    /**
+     * @return 是否还有未取得的结果
+     */
+    boolean hasNext() {
+        return received < invokers.size();
+    }
+
+    /**
+     * 发起调用，并阻塞等待下一个结果
+     *
+     * @return 结果
+     */
+    Completion<T> take() throws InterruptedException {
+        launch();
+        Completion<T> completion = completions.take();
+        received++;
+        return completion;
+    }
+
+    /**
+     * 发起调用，并等待下一个结果
+     *
+     * @param timeout 等待时长，单位：毫秒
+     * @return 结果，超时返回 null
+     */
+    Completion<T> poll(long timeout) throws InterruptedException {
+        launch();
+        Completion<T> completion = completions.poll(timeout, TimeUnit.MILLISECONDS);
+        if (completion != null) {
+            received++;
+        }
+        return completion;
+    }
+
+    /**
+     * 取消未完成的调用，仅在调用线程中使用
+     */
+    void cancel() {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private void launch() {
+        // 未完成的调用数 = 已发起 - 已取得 - 已完成未取得
+        while (launched < invokers.size() && launched - received - completions.size() < parallelism) {
+            launch(invokers.get(launched++));
+        }
+    }
+
+    private void launch(final Invoker<T> invoker) {
+        final long start = System.currentTimeMillis();
+        ResultCallback callback = new ResultCallback() {
+            @Override
+            public void done(Result result) {
+                complete(new Completion<T>(invoker, result, null, System.currentTimeMillis() - start));
+            }
+
+            @Override
+            public void caught(Throwable exception) {
+                complete(new Completion<T>(invoker, null, exception, System.currentTimeMillis() - start));
+            }
+        };
+        // 每个调用使用独立的 Invocation ，避免编码前被修改
+        RpcInvocation inv = new RpcInvocation(invocation, invoker);
+        inv.setAttachment(Constants.ASYNC_KEY, Boolean.TRUE.toString());
+        RpcContext context = RpcContext.getContext();
+        context.setAttachments(attachments);
+        context.setFuture(null);
+        try {
+            Result result = invoker.invoke(inv);
+            Future<?> future = context.getFuture();
+            if (future instanceof ResultFuture) {
+                futures.add(future);
+                ((ResultFuture<?>) future).addCallback(callback);
+            } else if (future != null) {
+                // 不支持回调的 Future ，阻塞等待
+                try {
+                    callback.done(new RpcResult(future.get()));
+                } catch (ExecutionException e) {
+                    callback.caught(e.getCause() != null ? e.getCause() : e);
+                }
+            } else {
+                // 同步完成
+                callback.done(result);
+            }
+        } catch (Throwable e) {
+            callback.caught(e);
+        } finally {
+            context.setFuture(null);
+        }
+    }
+
+    private void complete(Completion<T> completion) {
+        try {
+            completed(completion);
+        } finally {
+            completions.offer(completion);
+        }
+    }
+
+    /**
+     * 一个调用的结果
+     */
+    static class Completion<T> {
+
+        private final Invoker<T> invoker;
+
+        private final Result result;
+
+        private final Throwable exception;
+
+        /**
+         * 调用时长，单位：毫秒
+         */
+        private final long elapsed;
+
+        Completion(Invoker<T> invoker, Result result, Throwable exception, long elapsed) {
+            this.invoker = invoker;
+            this.result = result;
+            this.exception = exception;
+            this.elapsed = elapsed;
+        }
+
+        public Invoker<T> getInvoker() {
+            return invoker;
+        }
+
+        /**
+         * @return 结果，调用失败时为 null
+         */
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * @return 调用失败的异常
+         */
+        public Throwable getException() {
+            return exception;
+        }
+
+        public long getElapsed() {
+            return elapsed;
+        }
+
+    }
+
+}
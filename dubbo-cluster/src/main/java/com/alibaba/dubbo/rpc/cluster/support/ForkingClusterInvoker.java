@@ -17,7 +17,6 @@
 package com.alibaba.dubbo.rpc.cluster.support;
 
 import com.alibaba.dubbo.common.Constants;
-import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
@@ -28,12 +27,6 @@ import com.alibaba.dubbo.rpc.cluster.LoadBalance;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Invoke a specific number of invokers concurrently, usually used for demanding real-time operations, but need to waste more service resources.
@@ -42,11 +35,6 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ForkingClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
-    /**
-     * ExecutorService 对象，并且为 CachedThreadPool 。
-     */
-    private final ExecutorService executor = Executors.newCachedThreadPool(new NamedThreadFactory("forking-cluster-timer", true));
-
     public ForkingClusterInvoker(Directory<T> directory) {
         super(directory);
     }
@@ -79,43 +67,33 @@ public class ForkingClusterInvoker<T> extends AbstractClusterInvoker<T> {
         }
         // 设置已经调用的 Invoker 集合，到 Context 中
         RpcContext.getContext().setInvokers((List) selected);
-        // 异常计数器
-        final AtomicInteger count = new AtomicInteger();
-        // 创建阻塞队列
-        final BlockingQueue<Object> ref = new LinkedBlockingQueue<Object>();
-        // 循环 selected 集合，提交线程池，发起 RPC 调用
-        for (final Invoker<T> invoker : selected) {
-            executor.execute(new Runnable() {
-                public void run() {
-                    try {
-                        // RPC 调用，获得 Result 结果
-                        Result result = invoker.invoke(invocation);
-                        // 添加 Result 到 `ref` 阻塞队列
-                        ref.offer(result);
-                    } catch (Throwable e) {
-                        // 异常计数器 + 1
-                        int value = count.incrementAndGet();
-                        // 若 RPC 调结果都是异常，则添加异常到 `ref` 阻塞队列
-                        if (value >= selected.size()) {
-                            ref.offer(e);
-                        }
-                    }
-                }
-            });
-        }
+        // 通过异步调用，同时发起 RPC 调用，不占用额外的线程
+        FanOut<T> fanOut = new FanOut<T>(selected, invocation, selected.size());
+        long deadline = System.currentTimeMillis() + timeout;
+        // 保存最后一次调用的异常
+        Throwable exception = null;
         try {
-            // 从 `ref` 队列中，阻塞等待结果
-            Object ret = ref.poll(timeout, TimeUnit.MILLISECONDS);
-            // 若是异常结果，抛出 RpcException 异常
-            if (ret instanceof Throwable) {
-                Throwable e = (Throwable) ret;
-                throw new RpcException(e instanceof RpcException ? ((RpcException) e).getCode() : 0, "Failed to forking invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + e.getMessage(), e.getCause() != null ? e.getCause() : e);
+            while (fanOut.hasNext()) {
+                // 阻塞等待结果
+                long remaining = deadline - System.currentTimeMillis();
+                FanOut.Completion<T> completion = remaining > 0 ? fanOut.poll(remaining) : null;
+                if (completion == null) {
+                    break;
+                }
+                // 若是正常结果，直接返回
+                if (completion.getException() == null) {
+                    return completion.getResult();
+                }
+                exception = completion.getException();
             }
-            // 若是正常结果，直接返回
-            return (Result) ret;
         } catch (InterruptedException e) {
             throw new RpcException("Failed to forking invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + e.getMessage(), e);
         }
+        // 若 RPC 调结果都是异常，抛出 RpcException 异常
+        if (!fanOut.hasNext()) {
+            throw new RpcException(exception instanceof RpcException ? ((RpcException) exception).getCode() : 0, "Failed to forking invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + exception.getMessage(), exception.getCause() != null ? exception.getCause() : exception);
+        }
+        throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Failed to forking invoke provider " + selected + " in " + timeout + "ms, but no luck to perform the invocation.");
     }
 
 }
\ No newline at end of file
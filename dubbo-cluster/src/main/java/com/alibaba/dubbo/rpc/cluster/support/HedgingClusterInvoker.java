@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.utils.RollingHistogram;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.cluster.Directory;
+import com.alibaba.dubbo.rpc.cluster.LoadBalance;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invoke one invoker first, and hedge to another one if there is no response after the recent latency percentile.
+ * The first success wins and the others are ignored, extra load is capped by a budget.
+ * <p>
+ * 通过 {@link FanOut} 在调用线程中发起异步调用，不占用额外的线程。返回或者失败时，取消未完成的调用：
+ * 丢弃其之后返回的响应，释放并发计数等资源，服务提供者仍会执行完成。被取消的调用不计入延迟统计、离群检测和监控的失败。
+ */
+public class HedgingClusterInvoker<T> extends AbstractClusterInvoker<T> {
+
+    /**
+     * 使用延迟分位数前，最少需要的成功调用数。不足时不发起对冲
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * 一次对冲消耗的令牌数。每次请求存入 budget 个令牌，即对冲请求数不超过请求数的 budget%
+     */
+    private static final int HEDGE_COST = 100;
+
+    /**
+     * 令牌上限，最多允许连续对冲 10 次
+     */
+    private static final int MAX_TOKENS = HEDGE_COST * 10;
+
+    /**
+     * 各方法近期成功调用的延迟
+     *
+     * key：方法名
+     */
+    private final ConcurrentMap<String, RollingHistogram> latencies = new ConcurrentHashMap<String, RollingHistogram>();
+
+    /**
+     * 对冲预算令牌
+     */
+    private final AtomicInteger tokens = new AtomicInteger();
+
+    public HedgingClusterInvoker(Directory<T> directory) {
+        super(directory);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Result doInvoke(final Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance) throws RpcException {
+        // 检查 invokers 即可用Invoker集合是否为空，如果为空，那么抛出异常
+        checkInvokers(invokers, invocation);
+        String methodName = RpcUtils.getMethodName(invocation);
+        // 最多调用的 Invoker 数量，包括首次调用，默认为 Constants.DEFAULT_FORKS = 2
+        int forks = getUrl().getParameter(Constants.FORKS_KEY, Constants.DEFAULT_FORKS);
+        // 获得调用超时时间，默认为 DEFAULT_TIMEOUT = 1000 毫秒
+        int timeout = getUrl().getMethodParameter(methodName, Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+        // 存入对冲预算
+        deposit(getUrl().getMethodParameter(methodName, Constants.HEDGING_BUDGET_KEY, Constants.DEFAULT_HEDGING_BUDGET));
+        final RollingHistogram latency = getLatency(methodName);
+        long delay = getDelay(methodName, latency);
+
+        List<Invoker<T>> selected = new ArrayList<Invoker<T>>();
+        FanOut<T> fanOut = new FanOut<T>(invocation) {
+            @Override
+            protected void completed(Completion<T> completion) {
+                // 记录成功调用的延迟
+                if (completion.getException() == null) {
+                    latency.record(completion.getElapsed());
+                }
+            }
+        };
+        long now = System.currentTimeMillis();
+        long deadline = now + timeout;
+        long hedgeTime = now + delay;
+        int failures = 0;
+        Throwable exception = null;
+        try {
+            // 首次调用
+            hedge(fanOut, invocation, invokers, loadbalance, selected);
+            while (now < deadline) {
+                boolean hedgeable = delay > 0 && selected.size() < forks;
+                // 等待结果，直到下次对冲时间
+                FanOut.Completion<T> completion = fanOut.poll((hedgeable ? Math.min(hedgeTime, deadline) : deadline) - now);
+                now = System.currentTimeMillis();
+                if (completion == null) {
+                    if (hedgeable && now >= hedgeTime) {
+                        // 预算或者可选的 Invoker 用尽时，不再对冲
+                        if (tryAcquire() && hedge(fanOut, invocation, invokers, loadbalance, selected)) {
+                            hedgeTime = now + delay;
+                        } else {
+                            delay = 0;
+                        }
+                    }
+                    continue;
+                }
+                // 最先成功的结果
+                if (completion.getException() == null) {
+                    return completion.getResult();
+                }
+                failures++;
+                exception = completion.getException();
+                // 失败时立即调用另一个 Invoker ，替代失败的请求，不消耗对冲预算
+                if (selected.size() < forks && hedge(fanOut, invocation, invokers, loadbalance, selected)) {
+                    continue;
+                }
+                // 全部失败
+                if (failures >= selected.size()) {
+                    throw new RpcException(exception instanceof RpcException ? ((RpcException) exception).getCode() : 0, "Failed to hedging invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + exception.getMessage(), exception.getCause() != null ? exception.getCause() : exception);
+                }
+            }
+            throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Failed to hedging invoke provider " + selected + " in " + timeout + "ms, but no luck to perform the invocation." + (exception != null ? " Last error is: " + exception.getMessage() : ""), exception);
+        } catch (InterruptedException e) {
+            throw new RpcException("Failed to hedging invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + e.getMessage(), e);
+        } finally {
+            // 取消未胜出的调用
+            fanOut.cancel();
+            // 设置已经调用的 Invoker 集合，到 Context 中
+            RpcContext.getContext().setInvokers((List) selected);
+        }
+    }
+
+    /**
+     * 选择一个未调用过的 Invoker ，发起异步的 RPC 调用
+     *
+     * @return 是否发起调用
+     */
+    private boolean hedge(FanOut<T> fanOut, Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance,
+                          List<Invoker<T>> selected) {
+        Invoker<T> invoker = select(loadbalance, invocation, invokers, selected);
+        if (invoker == null || selected.contains(invoker)) {
+            return false;
+        }
+        selected.add(invoker);
+        fanOut.add(invoker);
+        return true;
+    }
+
+    private RollingHistogram getLatency(String methodName) {
+        RollingHistogram latency = latencies.get(methodName);
+        if (latency == null) {
+            latencies.putIfAbsent(methodName, new RollingHistogram());
+            latency = latencies.get(methodName);
+        }
+        return latency;
+    }
+
+    /**
+     * @return 对冲延迟，单位：毫秒。0 表示不对冲
+     */
+    private long getDelay(String methodName, RollingHistogram latency) {
+        // 优先使用配置的固定延迟
+        int delay = getUrl().getMethodParameter(methodName, Constants.HEDGING_DELAY_KEY, 0);
+        if (delay > 0) {
+            return delay;
+        }
+        RollingHistogram.Snapshot snapshot = latency.snapshot();
+        if (snapshot.getCount() < MIN_SAMPLES) {
+            return 0;
+        }
+        int percentile = getUrl().getMethodParameter(methodName, Constants.HEDGING_PERCENTILE_KEY, Constants.DEFAULT_HEDGING_PERCENTILE);
+        return Math.max(snapshot.getPercentile(percentile / 100D), 1);
+    }
+
+    private void deposit(int budget) {
+        for (; ; ) {
+            int current = tokens.get();
+            int next = Math.min(current + budget, MAX_TOKENS);
+            if (next == current || tokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        for (; ; ) {
+            int current = tokens.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+}
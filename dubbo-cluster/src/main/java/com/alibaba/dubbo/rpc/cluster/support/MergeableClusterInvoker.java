@@ -22,12 +22,10 @@ import com.alibaba.dubbo.common.extension.ExtensionLoader;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.common.utils.ConfigUtils;
-import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcException;
-import com.alibaba.dubbo.rpc.RpcInvocation;
 import com.alibaba.dubbo.rpc.RpcResult;
 import com.alibaba.dubbo.rpc.cluster.Directory;
 import com.alibaba.dubbo.rpc.cluster.Merger;
@@ -37,14 +35,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("unchecked")
 public class MergeableClusterInvoker<T> implements Invoker<T> {
@@ -56,11 +47,6 @@ public class MergeableClusterInvoker<T> implements Invoker<T> {
      */
     private final Directory<T> directory;
 
-    /**
-     * ExecutorService 对象，并且为 CachedThreadPool 。
-     */
-    private ExecutorService executor = Executors.newCachedThreadPool(new NamedThreadFactory("mergeable-cluster-executor", true));
-
     public MergeableClusterInvoker(Directory<T> directory) {
         this.directory = directory;
     }
@@ -90,33 +76,32 @@ public class MergeableClusterInvoker<T> implements Invoker<T> {
             returnType = null;
         }
 
-        // 提交线程池，并行执行，发起 RPC 调用，并添加到 results 中
-        Map<String, Future<Result>> results = new HashMap<String, Future<Result>>();
-        for (final Invoker<T> invoker : invokers) {
-            Future<Result> future = executor.submit(new Callable<Result>() {
-                public Result call() {
-                    // RPC 调用
-                    return invoker.invoke(new RpcInvocation(invocation, invoker));
-                }
-            });
-            results.put(invoker.getUrl().getServiceKey(), future);
-        }
-
-        // 阻塞等待执行执行结果，并添加到 resultList 中
-        List<Result> resultList = new ArrayList<Result>(results.size());
+        // 通过异步调用，并行发起 RPC 调用，不占用额外的线程。阻塞等待执行结果，并添加到 resultList 中
+        List<Result> resultList = new ArrayList<Result>(invokers.size());
         int timeout = getUrl().getMethodParameter(invocation.getMethodName(), Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
-        for (Map.Entry<String, Future<Result>> entry : results.entrySet()) {
-            Future<Result> future = entry.getValue();
-            try {
-                Result r = future.get(timeout, TimeUnit.MILLISECONDS);
+        FanOut<T> fanOut = new FanOut<T>(invokers, invocation, getUrl().getParameter(Constants.FANOUT_PARALLELISM_KEY, Constants.DEFAULT_FANOUT_PARALLELISM));
+        long deadline = System.currentTimeMillis() + timeout;
+        try {
+            while (fanOut.hasNext()) {
+                long remaining = deadline - System.currentTimeMillis();
+                FanOut.Completion<T> completion = remaining > 0 ? fanOut.poll(remaining) : null;
+                if (completion == null) { // 超时，抛出 RpcException 异常
+                    throw new RpcException(RpcException.TIMEOUT_EXCEPTION, new StringBuilder(32).append("Failed to invoke service ").append(getInterface().getName()).append(": waiting merged results timeout after ").append(timeout).append("ms").toString());
+                }
+                String serviceKey = completion.getInvoker().getUrl().getServiceKey();
+                if (completion.getException() != null) { // 异常，抛出 RpcException 异常
+                    Throwable e = completion.getException();
+                    throw new RpcException(new StringBuilder(32).append("Failed to invoke service ").append(serviceKey).append(": ").append(e.getMessage()).toString(), e);
+                }
+                Result r = completion.getResult();
                 if (r.hasException()) { // 异常 Result ，打印错误日志，忽略
-                    log.error(new StringBuilder(32).append("Invoke ").append(getGroupDescFromServiceKey(entry.getKey())).append(" failed: ").append(r.getException().getMessage()).toString(), r.getException());
+                    log.error(new StringBuilder(32).append("Invoke ").append(getGroupDescFromServiceKey(serviceKey)).append(" failed: ").append(r.getException().getMessage()).toString(), r.getException());
                 } else { // 正常 Result ，添加到 resultList 中
                     resultList.add(r);
                 }
-            } catch (Exception e) { // 异常，抛出 RpcException 异常
-                throw new RpcException(new StringBuilder(32).append("Failed to invoke service ").append(entry.getKey()).append(": ").append(e.getMessage()).toString(), e);
             }
+        } catch (InterruptedException e) {
+            throw new RpcException(new StringBuilder(32).append("Failed to invoke service ").append(getInterface().getName()).append(": ").append(e.getMessage()).toString(), e);
         }
 
         // 结果大小为空，返回空的 RpcResult
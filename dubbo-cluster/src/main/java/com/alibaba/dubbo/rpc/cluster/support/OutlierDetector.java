@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.OutlierStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outlier detector of a cluster.
+ * <p>
+ * 离群检测：每隔 {@link Constants#OUTLIER_INTERVAL_KEY} ，基于 {@link OutlierStatus} 最近窗口的统计，摘除如下服务提供者：
+ * <p>
+ * 1. 失败率不低于 {@link Constants#OUTLIER_ERROR_RATE_KEY}
+ * 2. 平均调用时长不低于集群中位数的 {@link Constants#OUTLIER_LATENCY_FACTOR_KEY} 倍，至少 3 个服务提供者有足够的调用时才比较
+ * <p>
+ * 摘除时长按连续摘除的次数翻倍，到期后自动恢复；同时摘除的服务提供者不超过 {@link Constants#OUTLIER_MAX_EJECTION_PERCENT_KEY} 。
+ * 摘除作用于 {@link com.alibaba.dubbo.rpc.cluster.Directory} 列出的 Invoker 集合，对所有集群容错模式生效。
+ * <p>
+ * 检测由到达间隔后 CAS 成功的一个调用线程执行，每个服务提供者只读取几个窗口计数器，不阻塞其它调用。
+ */
+class OutlierDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlierDetector.class);
+
+    /**
+     * 比较调用时长时，至少需要的服务提供者数量
+     */
+    private static final int MIN_LATENCY_HOSTS = 3;
+
+    private final long interval;
+
+    private final int minRequests;
+
+    private final int errorRate;
+
+    private final int latencyFactor;
+
+    private final long ejectionTime;
+
+    private final long maxEjectionTime;
+
+    private final int maxEjectionPercent;
+
+    /**
+     * 下次检测的时间
+     */
+    private final AtomicLong nextEvaluation = new AtomicLong();
+
+    /**
+     * 最近一次的 Invoker 集合，及其 OutlierStatus ，集合不变时避免重复查找
+     */
+    private volatile Cache cache = new Cache(new Invoker<?>[0], new OutlierStatus[0]);
+
+    OutlierDetector(URL url) {
+        this.interval = url.getPositiveParameter(Constants.OUTLIER_INTERVAL_KEY, Constants.DEFAULT_OUTLIER_INTERVAL);
+        this.minRequests = url.getPositiveParameter(Constants.OUTLIER_MIN_REQUESTS_KEY, Constants.DEFAULT_OUTLIER_MIN_REQUESTS);
+        this.errorRate = url.getPositiveParameter(Constants.OUTLIER_ERROR_RATE_KEY, Constants.DEFAULT_OUTLIER_ERROR_RATE);
+        this.latencyFactor = url.getPositiveParameter(Constants.OUTLIER_LATENCY_FACTOR_KEY, Constants.DEFAULT_OUTLIER_LATENCY_FACTOR);
+        this.ejectionTime = url.getPositiveParameter(Constants.OUTLIER_EJECTION_TIME_KEY, Constants.DEFAULT_OUTLIER_EJECTION_TIME);
+        this.maxEjectionTime = url.getPositiveParameter(Constants.OUTLIER_MAX_EJECTION_TIME_KEY, Constants.DEFAULT_OUTLIER_MAX_EJECTION_TIME);
+        this.maxEjectionPercent = url.getParameter(Constants.OUTLIER_MAX_EJECTION_PERCENT_KEY, Constants.DEFAULT_OUTLIER_MAX_EJECTION_PERCENT);
+    }
+
+    /**
+     * 排除摘除中的 Invoker
+     *
+     * @param invokers Invoker 集合
+     * @return 未摘除的 Invoker 集合。没有摘除时，返回原集合
+     */
+    <T> List<Invoker<T>> select(List<Invoker<T>> invokers) {
+        return select(invokers, System.currentTimeMillis());
+    }
+
+    <T> List<Invoker<T>> select(List<Invoker<T>> invokers, long now) {
+        if (invokers == null || invokers.isEmpty()) {
+            return invokers;
+        }
+        OutlierStatus[] statuses = getStatuses(invokers);
+        // 到达间隔，由一个线程检测
+        long next = nextEvaluation.get();
+        if (now >= next && nextEvaluation.compareAndSet(next, now + interval)) {
+            evaluate(invokers, statuses, now);
+        }
+        int max = maxEjections(invokers.size());
+        int ejected = 0;
+        for (OutlierStatus status : statuses) {
+            if (status.isEjected(now)) {
+                ejected++;
+            }
+        }
+        if (ejected == 0 || max == 0) {
+            return invokers;
+        }
+        // 超过最大摘除比例时，仅排除前面的
+        List<Invoker<T>> selected = new ArrayList<Invoker<T>>(invokers.size() - Math.min(ejected, max));
+        int excluded = 0;
+        for (int i = 0; i < statuses.length; i++) {
+            if (excluded < max && statuses[i].isEjected(now)) {
+                excluded++;
+            } else {
+                selected.add(invokers.get(i));
+            }
+        }
+        return selected;
+    }
+
+    private int maxEjections(int size) {
+        return size * maxEjectionPercent / 100;
+    }
+
+    private OutlierStatus[] getStatuses(List<? extends Invoker<?>> invokers) {
+        Cache current = cache;
+        if (current.matches(invokers)) {
+            return current.statuses;
+        }
+        Invoker<?>[] array = invokers.toArray(new Invoker<?>[invokers.size()]);
+        OutlierStatus[] statuses = new OutlierStatus[array.length];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = OutlierStatus.getStatus(array[i].getUrl());
+        }
+        cache = new Cache(array, statuses);
+        return statuses;
+    }
+
+    private void evaluate(List<? extends Invoker<?>> invokers, OutlierStatus[] statuses, long now) {
+        int size = statuses.length;
+        long[] requests = new long[size];
+        long[] elapsed = new long[size];
+        long[] means = new long[size];
+        int hosts = 0;
+        int ejected = 0;
+        for (int i = 0; i < size; i++) {
+            OutlierStatus status = statuses[i];
+            if (status.isEjected(now)) {
+                ejected++;
+                continue;
+            }
+            status.resetIfHealthy(now, maxEjectionTime);
+            requests[i] = status.getRecentRequests();
+            if (requests[i] >= minRequests) {
+                elapsed[i] = status.getRecentElapsed() / requests[i];
+                means[hosts++] = elapsed[i];
+            }
+        }
+        // 集群平均调用时长的中位数
+        long median = -1;
+        if (hosts >= MIN_LATENCY_HOSTS) {
+            Arrays.sort(means, 0, hosts);
+            median = Math.max(means[hosts / 2], 1);
+        }
+        int max = maxEjections(size);
+        for (int i = 0; i < size && ejected < max; i++) {
+            if (requests[i] < minRequests) {
+                continue;
+            }
+            OutlierStatus status = statuses[i];
+            long failures = status.getRecentFailures();
+            String reason = null;
+            if (failures * 100 >= requests[i] * errorRate) {
+                reason = "error rate " + (failures * 100 / requests[i]) + "%";
+            } else if (median > 0 && elapsed[i] >= median * latencyFactor) {
+                reason = "average elapsed " + elapsed[i] + "ms, cluster median " + median + "ms";
+            }
+            if (reason != null) {
+                long duration = status.eject(now, ejectionTime, maxEjectionTime);
+                ejected++;
+                logger.warn("Eject outlier provider " + invokers.get(i).getUrl().getAddress() + " of service " + status.getService()
+                        + " for " + duration + "ms, " + reason);
+            }
+        }
+    }
+
+    private static final class Cache {
+
+        private final Invoker<?>[] invokers;
+
+        private final OutlierStatus[] statuses;
+
+        private Cache(Invoker<?>[] invokers, OutlierStatus[] statuses) {
+            this.invokers = invokers;
+            this.statuses = statuses;
+        }
+
+        /**
+         * 逐个比较，而不是按 List 引用，因为调用方可能复用并修改同一个 List
+         */
+        private boolean matches(List<? extends Invoker<?>> list) {
+            if (list.size() != invokers.length) {
+                return false;
+            }
+            for (int i = 0; i < invokers.length; i++) {
+                if (list.get(i) != invokers[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
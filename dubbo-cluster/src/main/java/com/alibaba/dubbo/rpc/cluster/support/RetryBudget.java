@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.RollingCounter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget of a service. (API, Cached, ThreadSafe)
+ * <p>
+ * 服务维度的重试预算：最近窗口内的重试次数不超过 max(成功的请求数 * ratio%, min * 窗口秒数) 。
+ * 只有成功的请求存入预算，服务提供者整体异常时，预算只剩 min ，失败的请求不再按 retries 成倍放大压力，超出预算的重试直接失败。
+ * <p>
+ * 检查与记录之间不加锁，并发时可能略微超出预算，是软限制。
+ * <p>
+ * 集群 Invoker 销毁时移除，见 {@link FailoverClusterInvoker#destroy()} 。
+ *
+ * @see com.alibaba.dubbo.common.Constants#RETRY_BUDGET_RATIO_KEY
+ * @see com.alibaba.dubbo.common.Constants#RETRY_BUDGET_MIN_KEY
+ * @see com.alibaba.dubbo.common.Constants#RETRY_BUDGET_WINDOW_KEY
+ */
+public class RetryBudget {
+
+    /**
+     * 基于服务键为维度的 RetryBudget 集合
+     * <p>
+     * key：服务键
+     */
+    private static final ConcurrentMap<String, RetryBudget> BUDGETS = new ConcurrentHashMap<String, RetryBudget>();
+
+    /**
+     * 计数项：成功的请求
+     */
+    private static final int SUCCEEDED = 0;
+
+    /**
+     * 计数项：重试
+     */
+    private static final int RETRIES = 1;
+
+    /**
+     * 计数项：超出预算的重试
+     */
+    private static final int REJECTED = 2;
+
+    private final String service;
+
+    /**
+     * 窗口秒数
+     */
+    private final int window;
+
+    /**
+     * 最近窗口的计数，每秒一个时间片
+     */
+    private final RollingCounter counter;
+
+    /**
+     * 累计超出预算的重试次数
+     */
+    private final AtomicLong totalRejected = new AtomicLong();
+
+    private RetryBudget(URL url) {
+        this.service = url.getServiceKey();
+        this.window = url.getPositiveParameter(Constants.RETRY_BUDGET_WINDOW_KEY, Constants.DEFAULT_RETRY_BUDGET_WINDOW);
+        this.counter = new RollingCounter(3, window, 1000L);
+    }
+
+    /**
+     * 获得 RetryBudget 对象
+     *
+     * @param url URL
+     * @return budget
+     */
+    public static RetryBudget getBudget(URL url) {
+        String key = url.getServiceKey();
+        RetryBudget budget = BUDGETS.get(key);
+        if (budget == null) {
+            BUDGETS.putIfAbsent(key, new RetryBudget(url));
+            budget = BUDGETS.get(key);
+        }
+        return budget;
+    }
+
+    public static void removeBudget(URL url) {
+        BUDGETS.remove(url.getServiceKey());
+    }
+
+    /**
+     * @return 所有 RetryBudget 对象
+     */
+    public static Collection<RetryBudget> getBudgets() {
+        return Collections.unmodifiableCollection(BUDGETS.values());
+    }
+
+    /**
+     * 记录一次成功的请求，重试后成功的请求也只记录一次
+     */
+    public void deposit() {
+        counter.increment(SUCCEEDED);
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @param ratio 重试数占请求数的百分比
+     * @param min   每秒始终允许的重试数
+     * @return 是否在预算内。超出时，记录一次拒绝
+     */
+    public boolean tryWithdraw(int ratio, int min) {
+        long allowed = Math.max(counter.sum(SUCCEEDED) * ratio / 100,
+                (long) min * window);
+        if (counter.sum(RETRIES) < allowed) {
+            counter.increment(RETRIES);
+            return true;
+        }
+        counter.increment(REJECTED);
+        totalRejected.incrementAndGet();
+        return false;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * @return 窗口秒数
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return 最近窗口成功的请求数
+     */
+    public long getRecentSucceeded() {
+        return counter.sum(SUCCEEDED);
+    }
+
+    /**
+     * @return 最近窗口的重试数
+     */
+    public long getRecentRetries() {
+        return counter.sum(RETRIES);
+    }
+
+    /**
+     * @return 最近窗口超出预算的重试数
+     */
+    public long getRecentRejected() {
+        return counter.sum(REJECTED);
+    }
+
+    /**
+     * @return 累计超出预算的重试数
+     */
+    public long getTotalRejected() {
+        return totalRejected.get();
+    }
+
+}
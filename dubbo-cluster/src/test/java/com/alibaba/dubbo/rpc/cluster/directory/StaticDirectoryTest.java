@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.directory;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.cluster.Router;
+import com.alibaba.dubbo.rpc.cluster.router.MockInvoker;
+import com.alibaba.dubbo.rpc.cluster.router.condition.ConditionRouter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StaticDirectoryTest {
+
+    private static final URL ROUTE_URL = URL.valueOf("condition://0.0.0.0/com.foo.BarService?runtime=true");
+
+    private final List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+
+    private Invoker<String> invoker1;
+
+    private Invoker<String> invoker2;
+
+    @Before
+    public void setUp() {
+        invoker1 = new MockInvoker<String>(URL.valueOf("dubbo://10.20.3.1:20880/com.foo.BarService"));
+        invoker2 = new MockInvoker<String>(URL.valueOf("dubbo://10.20.3.2:20880/com.foo.BarService"));
+        invokers.add(invoker1);
+        invokers.add(invoker2);
+    }
+
+    @Test
+    public void testCacheableRouter() {
+        CountingConditionRouter router = new CountingConditionRouter("method = getFoo => host = 10.20.3.1");
+        StaticDirectory<String> directory = new StaticDirectory<String>(invokers, Arrays.<Router>asList(router));
+
+        List<Invoker<String>> routed = directory.list(invocation("getFoo"));
+        assertEquals(Arrays.asList(invoker1), routed);
+        assertSame(routed, directory.list(invocation("getFoo")));
+        assertEquals(1, router.count);
+        // 按方法名缓存
+        assertEquals(invokers, directory.list(invocation("getBar")));
+        directory.list(invocation("getBar"));
+        assertEquals(2, router.count);
+        // 消费者 URL 变更，缓存失效
+        directory.setConsumerUrl(directory.getUrl());
+        directory.list(invocation("getFoo"));
+        assertEquals(3, router.count);
+    }
+
+    @Test
+    public void testNotCacheableRouter() {
+        CountingRouter router = new CountingRouter();
+        StaticDirectory<String> directory = new StaticDirectory<String>(invokers, Arrays.<Router>asList(router));
+        directory.list(invocation("getFoo"));
+        directory.list(invocation("getFoo"));
+        assertEquals(2, router.count);
+    }
+
+    @Test
+    public void testInvokersChanged() {
+        CountingConditionRouter router = new CountingConditionRouter("method = getFoo => host = 10.20.3.2");
+        StaticDirectory<String> directory = new StaticDirectory<String>(invokers, Arrays.<Router>asList(router)) {
+            @Override
+            protected List<Invoker<String>> doList(Invocation invocation) throws RpcException {
+                return new ArrayList<Invoker<String>>(super.doList(invocation));
+            }
+        };
+        // Invoker 集合不是同一个对象，重新路由
+        assertEquals(Arrays.asList(invoker2), directory.list(invocation("getFoo")));
+        assertEquals(Arrays.asList(invoker2), directory.list(invocation("getFoo")));
+        assertEquals(2, router.count);
+    }
+
+    private static Invocation invocation(String methodName) {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName(methodName);
+        return invocation;
+    }
+
+    private static class CountingConditionRouter extends ConditionRouter {
+
+        private int count;
+
+        private CountingConditionRouter(String rule) {
+            super(ROUTE_URL.addParameterAndEncoded(Constants.RULE_KEY, rule));
+        }
+
+        @Override
+        public <T> List<Invoker<T>> route(List<Invoker<T>> invokers, URL url, Invocation invocation) throws RpcException {
+            count++;
+            return super.route(invokers, url, invocation);
+        }
+
+    }
+
+    private static class CountingRouter implements Router {
+
+        private int count;
+
+        @Override
+        public URL getUrl() {
+            return ROUTE_URL;
+        }
+
+        @Override
+        public <T> List<Invoker<T>> route(List<Invoker<T>> invokers, URL url, Invocation invocation) throws RpcException {
+            count++;
+            return invokers;
+        }
+
+        @Override
+        public int compareTo(Router o) {
+            return 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.loadbalance;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcStatus;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ConsistentHashLoadBalanceTest
+ */
+@SuppressWarnings("unchecked")
+public class ConsistentHashLoadBalanceTest {
+
+    private static final int KEYS = 2000;
+
+    private Invoker<ConsistentHashLoadBalanceTest> mockInvoker(int port, String parameters) {
+        Invoker<ConsistentHashLoadBalanceTest> invoker = EasyMock.createMock(Invoker.class);
+        EasyMock.expect(invoker.isAvailable()).andReturn(true).anyTimes();
+        EasyMock.expect(invoker.getInterface()).andReturn(ConsistentHashLoadBalanceTest.class).anyTimes();
+        EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf("test://127.0.0.1:" + port + "/HashService?" + parameters)).anyTimes();
+        EasyMock.replay(invoker);
+        return invoker;
+    }
+
+    private List<Invoker<ConsistentHashLoadBalanceTest>> mockInvokers(int count, String parameters) {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = new ArrayList<Invoker<ConsistentHashLoadBalanceTest>>();
+        for (int i = 1; i <= count; i++) {
+            invokers.add(mockInvoker(i, parameters));
+        }
+        return invokers;
+    }
+
+    private Invoker<ConsistentHashLoadBalanceTest> select(ConsistentHashLoadBalance lb, List<Invoker<ConsistentHashLoadBalanceTest>> invokers, String key) {
+        RpcInvocation invocation = new RpcInvocation("hash", new Class<?>[]{String.class}, new Object[]{key});
+        return lb.select(invokers, invokers.get(0).getUrl(), invocation);
+    }
+
+    private Map<String, Invoker<ConsistentHashLoadBalanceTest>> selectAll(ConsistentHashLoadBalance lb, List<Invoker<ConsistentHashLoadBalanceTest>> invokers) {
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> selected = new HashMap<String, Invoker<ConsistentHashLoadBalanceTest>>();
+        for (int i = 0; i < KEYS; i++) {
+            selected.put("key" + i, select(lb, invokers, "key" + i));
+        }
+        return selected;
+    }
+
+    @Test
+    public void testDistribution() {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(5, "");
+        ConsistentHashLoadBalance lb = new ConsistentHashLoadBalance();
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> selected = selectAll(lb, invokers);
+        Map<Invoker<ConsistentHashLoadBalanceTest>, Integer> counter = new HashMap<Invoker<ConsistentHashLoadBalanceTest>, Integer>();
+        for (Map.Entry<String, Invoker<ConsistentHashLoadBalanceTest>> entry : selected.entrySet()) {
+            // 相同参数总是选择同一个 Invoker
+            Assert.assertSame(entry.getValue(), select(lb, invokers, entry.getKey()));
+            Integer count = counter.get(entry.getValue());
+            counter.put(entry.getValue(), count == null ? 1 : count + 1);
+        }
+        for (Invoker<ConsistentHashLoadBalanceTest> invoker : invokers) {
+            Assert.assertTrue(counter.get(invoker) > KEYS / 5 / 2);
+        }
+    }
+
+    @Test
+    public void testSameRingAsMd5TreeMap() throws Exception {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(5, "");
+        // 旧版本的哈希环：MD5 每四个字节为一个虚拟节点，无符号数为 KEY
+        TreeMap<Long, Invoker<ConsistentHashLoadBalanceTest>> ring = new TreeMap<Long, Invoker<ConsistentHashLoadBalanceTest>>();
+        for (Invoker<ConsistentHashLoadBalanceTest> invoker : invokers) {
+            for (int i = 0; i < 160 / 4; i++) {
+                byte[] digest = MessageDigest.getInstance("MD5").digest((invoker.getUrl().getAddress() + i).getBytes("UTF-8"));
+                for (int h = 0; h < 4; h++) {
+                    ring.put(md5Hash(digest, h), invoker);
+                }
+            }
+        }
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> selected = selectAll(new ConsistentHashLoadBalance(), invokers);
+        for (Map.Entry<String, Invoker<ConsistentHashLoadBalanceTest>> entry : selected.entrySet()) {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(entry.getKey().getBytes("UTF-8"));
+            Map.Entry<Long, Invoker<ConsistentHashLoadBalanceTest>> expected = ring.ceilingEntry(md5Hash(digest, 0));
+            if (expected == null) {
+                expected = ring.firstEntry();
+            }
+            // 混合版本的消费者，相同参数选择同一个提供者
+            Assert.assertSame(expected.getValue(), entry.getValue());
+        }
+    }
+
+    private static long md5Hash(byte[] digest, int number) {
+        return (((long) (digest[3 + number * 4] & 0xFF) << 24)
+                | ((long) (digest[2 + number * 4] & 0xFF) << 16)
+                | ((long) (digest[1 + number * 4] & 0xFF) << 8)
+                | (digest[number * 4] & 0xFF))
+                & 0xFFFFFFFFL;
+    }
+
+    @Test
+    public void testSameInvokersInNewList() {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(5, "");
+        ConsistentHashLoadBalance lb = new ConsistentHashLoadBalance();
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> before = selectAll(lb, invokers);
+        // 成员相同、顺序不同的新集合，选择不变
+        List<Invoker<ConsistentHashLoadBalanceTest>> copy = new ArrayList<Invoker<ConsistentHashLoadBalanceTest>>(invokers);
+        Collections.reverse(copy);
+        Assert.assertEquals(before, selectAll(lb, copy));
+    }
+
+    @Test
+    public void testInvokerRemoved() {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(5, "");
+        ConsistentHashLoadBalance lb = new ConsistentHashLoadBalance();
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> before = selectAll(lb, invokers);
+        Invoker<ConsistentHashLoadBalanceTest> removed = invokers.get(2);
+        List<Invoker<ConsistentHashLoadBalanceTest>> remaining = new ArrayList<Invoker<ConsistentHashLoadBalanceTest>>(invokers);
+        remaining.remove(removed);
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> after = selectAll(lb, remaining);
+        for (Map.Entry<String, Invoker<ConsistentHashLoadBalanceTest>> entry : before.entrySet()) {
+            if (entry.getValue() == removed) {
+                Assert.assertNotSame(removed, after.get(entry.getKey()));
+            } else {
+                // 只有移除的提供者上的参数变化
+                Assert.assertSame(entry.getValue(), after.get(entry.getKey()));
+            }
+        }
+        // 增量更新与全部重建一致
+        Assert.assertEquals(selectAll(new ConsistentHashLoadBalance(), remaining), after);
+    }
+
+    @Test
+    public void testInvokerAdded() {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(5, "");
+        ConsistentHashLoadBalance lb = new ConsistentHashLoadBalance();
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> before = selectAll(lb, invokers);
+        Invoker<ConsistentHashLoadBalanceTest> added = mockInvoker(6, "");
+        List<Invoker<ConsistentHashLoadBalanceTest>> more = new ArrayList<Invoker<ConsistentHashLoadBalanceTest>>(invokers);
+        more.add(1, added);
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> after = selectAll(lb, more);
+        int moved = 0;
+        for (Map.Entry<String, Invoker<ConsistentHashLoadBalanceTest>> entry : before.entrySet()) {
+            Invoker<ConsistentHashLoadBalanceTest> invoker = after.get(entry.getKey());
+            // 只会迁移到新增的提供者
+            if (invoker != entry.getValue()) {
+                Assert.assertSame(added, invoker);
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved > 0);
+        // 增量更新与全部重建一致
+        Assert.assertEquals(selectAll(new ConsistentHashLoadBalance(), more), after);
+    }
+
+    @Test
+    public void testInvokerReplaced() {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(3, "");
+        ConsistentHashLoadBalance lb = new ConsistentHashLoadBalance();
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> before = selectAll(lb, invokers);
+        // 相同地址的 Invoker 被替换，例如配置变更
+        Invoker<ConsistentHashLoadBalanceTest> replaced = mockInvoker(1, "timeout=100");
+        List<Invoker<ConsistentHashLoadBalanceTest>> updated = new ArrayList<Invoker<ConsistentHashLoadBalanceTest>>(invokers);
+        updated.set(0, replaced);
+        Map<String, Invoker<ConsistentHashLoadBalanceTest>> after = selectAll(lb, updated);
+        for (Map.Entry<String, Invoker<ConsistentHashLoadBalanceTest>> entry : before.entrySet()) {
+            Invoker<ConsistentHashLoadBalanceTest> expected = entry.getValue() == invokers.get(0) ? replaced : entry.getValue();
+            Assert.assertSame(expected, after.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testBoundedLoad() {
+        List<Invoker<ConsistentHashLoadBalanceTest>> invokers = mockInvokers(4, "hash.balance=1.25");
+        ConsistentHashLoadBalance lb = new ConsistentHashLoadBalance();
+        Invoker<ConsistentHashLoadBalanceTest> hot = select(lb, invokers, "hot");
+        Assert.assertSame(hot, select(lb, invokers, "hot"));
+        // 热点参数积压在一个提供者上，超过上限后顺延到其它提供者
+        for (int i = 0; i < 4; i++) {
+            RpcStatus.beginCount(hot.getUrl(), "hash");
+        }
+        try {
+            Assert.assertNotSame(hot, select(lb, invokers, "hot"));
+        } finally {
+            for (int i = 0; i < 4; i++) {
+                RpcStatus.endCount(hot.getUrl(), "hash", 0, true);
+            }
+        }
+        Assert.assertSame(hot, select(lb, invokers, "hot"));
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.loadbalance;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.ProviderLoad;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FeedbackLoadBalanceTest
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class FeedbackLoadBalanceTest {
+
+    private Invocation invocation;
+
+    private List<Invoker<FeedbackLoadBalanceTest>> invokers = new ArrayList<Invoker<FeedbackLoadBalanceTest>>();
+
+    @Before
+    public void setUp() throws Exception {
+        invocation = EasyMock.createMock(Invocation.class);
+        EasyMock.expect(invocation.getMethodName()).andReturn("method1").anyTimes();
+        EasyMock.replay(invocation);
+        for (int i = 1; i <= 2; i++) {
+            Invoker<FeedbackLoadBalanceTest> invoker = EasyMock.createMock(Invoker.class);
+            EasyMock.expect(invoker.isAvailable()).andReturn(true).anyTimes();
+            EasyMock.expect(invoker.getInterface()).andReturn(FeedbackLoadBalanceTest.class).anyTimes();
+            EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf("test://127.0.0.2:" + i + "/FeedbackService")).anyTimes();
+            EasyMock.replay(invoker);
+            invokers.add(invoker);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Invoker<FeedbackLoadBalanceTest> invoker : invokers) {
+            ProviderLoad.removeLoad(invoker.getUrl().getAddress());
+        }
+    }
+
+    private Map<Invoker, Integer> select(int runs) {
+        FeedbackLoadBalance lb = new FeedbackLoadBalance();
+        Map<Invoker, Integer> counter = new HashMap<Invoker, Integer>();
+        for (Invoker invoker : invokers) {
+            counter.put(invoker, 0);
+        }
+        for (int i = 0; i < runs; i++) {
+            Invoker invoker = lb.select(invokers, invokers.get(0).getUrl(), invocation);
+            counter.put(invoker, counter.get(invoker) + 1);
+        }
+        return counter;
+    }
+
+    @Test
+    public void testHeadroom() {
+        Assert.assertEquals(1D, ProviderLoad.parse("0,0,200,-1", 0).getHeadroom(), 0.0001);
+        Assert.assertEquals(0.5D, ProviderLoad.parse("0,100,200,10", 0).getHeadroom(), 0.0001);
+        Assert.assertEquals(0.2D, ProviderLoad.parse("0,10,200,80", 0).getHeadroom(), 0.0001);
+        // 线程池积压，不低于最低的剩余容量
+        Assert.assertEquals(0.05D, ProviderLoad.parse("500,200,200,10", 0).getHeadroom(), 0.0001);
+        Assert.assertNull(ProviderLoad.parse("1,2", 0));
+        Assert.assertNull(ProviderLoad.parse("a,b,c,d", 0));
+    }
+
+    @Test
+    public void testNoFeedback() {
+        Map<Invoker, Integer> counter = select(2000);
+        for (Invoker invoker : invokers) {
+            Assert.assertTrue(counter.get(invoker) > 800);
+        }
+    }
+
+    @Test
+    public void testOverloadedProviderAvoided() {
+        ProviderLoad.update(invokers.get(0).getUrl().getAddress(), "1000,200,200,50");
+        ProviderLoad.update(invokers.get(1).getUrl().getAddress(), "0,10,200,50");
+        Map<Invoker, Integer> counter = select(2000);
+        // 剩余容量 0.05 : 0.5
+        Assert.assertTrue(counter.get(invokers.get(0)) < 400);
+        Assert.assertTrue(counter.get(invokers.get(1)) > 1600);
+    }
+
+    @Test
+    public void testPartialFeedback() {
+        // 没有反馈的提供者按原权重
+        ProviderLoad.update(invokers.get(1).getUrl().getAddress(), "1000,200,200,50");
+        Map<Invoker, Integer> counter = select(2000);
+        Assert.assertTrue(counter.get(invokers.get(0)) > 1600);
+    }
+
+}
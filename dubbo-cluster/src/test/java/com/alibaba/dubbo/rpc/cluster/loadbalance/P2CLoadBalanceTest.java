@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.loadbalance;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcStatus;
+import com.alibaba.dubbo.rpc.cluster.LoadBalance;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * P2CLoadBalanceTest
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class P2CLoadBalanceTest {
+
+    private static final String METHOD = "p2cMethod";
+
+    /**
+     * 固定随机种子，选择结果可重复
+     */
+    private static final long SEED = 20180101L;
+
+    private Invocation invocation;
+
+    private List<Invoker<P2CLoadBalanceTest>> invokers = new ArrayList<Invoker<P2CLoadBalanceTest>>();
+
+    @Before
+    public void setUp() throws Exception {
+        invocation = EasyMock.createMock(Invocation.class);
+        EasyMock.expect(invocation.getMethodName()).andReturn(METHOD).anyTimes();
+        EasyMock.replay(invocation);
+        for (int i = 1; i <= 3; i++) {
+            Invoker<P2CLoadBalanceTest> invoker = EasyMock.createMock(Invoker.class);
+            EasyMock.expect(invoker.isAvailable()).andReturn(true).anyTimes();
+            EasyMock.expect(invoker.getInterface()).andReturn(P2CLoadBalanceTest.class).anyTimes();
+            EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf("test://127.0.0.1:" + i + "/P2CService")).anyTimes();
+            EasyMock.replay(invoker);
+            invokers.add(invoker);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Invoker<P2CLoadBalanceTest> invoker : invokers) {
+            RpcStatus.removeStatus(invoker.getUrl());
+            RpcStatus.removeStatus(invoker.getUrl(), METHOD);
+        }
+    }
+
+    private void record(Invoker<?> invoker, long elapsed) {
+        RpcStatus.beginCount(invoker.getUrl(), METHOD);
+        RpcStatus.endCount(invoker.getUrl(), METHOD, elapsed, true);
+    }
+
+    private Map<Invoker, Integer> select(int runs) {
+        LoadBalance lb = new P2CLoadBalance(new Random(SEED));
+        Map<Invoker, Integer> counter = new HashMap<Invoker, Integer>();
+        for (Invoker invoker : invokers) {
+            counter.put(invoker, 0);
+        }
+        for (int i = 0; i < runs; i++) {
+            Invoker invoker = lb.select(invokers, invokers.get(0).getUrl(), invocation);
+            counter.put(invoker, counter.get(invoker) + 1);
+        }
+        return counter;
+    }
+
+    @Test
+    public void testPeakEwma() {
+        Invoker<P2CLoadBalanceTest> invoker = invokers.get(0);
+        RpcStatus status = RpcStatus.getStatus(invoker.getUrl(), METHOD);
+        Assert.assertEquals(0D, status.getLatencyEwma());
+        record(invoker, 10);
+        record(invoker, 200);
+        // 变慢立即生效
+        Assert.assertTrue(status.getLatencyEwma() > 190);
+        // 变快按时间衰减，不会因为一次快的调用回落
+        record(invoker, 10);
+        Assert.assertTrue(status.getLatencyEwma() > 190);
+    }
+
+    @Test
+    public void testSlowInvokerAvoided() {
+        record(invokers.get(0), 500);
+        record(invokers.get(1), 5);
+        record(invokers.get(2), 5);
+        Map<Invoker, Integer> counter = select(3000);
+        // 两个随机的 Invoker 不同，最慢的永远不会被选择
+        Assert.assertEquals(0, counter.get(invokers.get(0)).intValue());
+        // 快的 Invoker 赢下与最慢的比较（1/3），两个快的之间负载相近随机胜出（1/6），期望 1500 次，标准差约 27
+        Assert.assertTrue(counter.get(invokers.get(1)) > 1000);
+        Assert.assertTrue(counter.get(invokers.get(2)) > 1000);
+    }
+
+    @Test
+    public void testActiveInvokerAvoided() {
+        for (Invoker invoker : invokers) {
+            record(invoker, 5);
+        }
+        // 调用中的次数多的提供者，负载更大
+        for (int i = 0; i < 5; i++) {
+            RpcStatus.beginCount(invokers.get(2).getUrl(), METHOD);
+        }
+        Map<Invoker, Integer> counter = select(3000);
+        Assert.assertEquals(0, counter.get(invokers.get(2)).intValue());
+    }
+
+    @Test
+    public void testNoStatistics() {
+        // 没有统计时，均等随机
+        Map<Invoker, Integer> counter = select(3000);
+        for (Invoker invoker : invokers) {
+            Assert.assertTrue(counter.get(invoker) > 700);
+        }
+    }
+
+}
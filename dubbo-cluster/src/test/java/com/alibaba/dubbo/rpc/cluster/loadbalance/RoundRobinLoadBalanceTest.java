@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.loadbalance;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Smooth weighted round robin
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class RoundRobinLoadBalanceTest {
+
+    private Invocation invocation;
+    private Invoker<RoundRobinLoadBalanceTest> a;
+    private Invoker<RoundRobinLoadBalanceTest> b;
+    private Invoker<RoundRobinLoadBalanceTest> c;
+
+    @Before
+    public void setUp() throws Exception {
+        invocation = EasyMock.createMock(Invocation.class);
+        EasyMock.expect(invocation.getMethodName()).andReturn("method1").anyTimes();
+        EasyMock.replay(invocation);
+        a = mockInvoker("test://127.0.0.1:1/DemoService?weight=5");
+        b = mockInvoker("test://127.0.0.1:2/DemoService?weight=1");
+        c = mockInvoker("test://127.0.0.1:3/DemoService?weight=1");
+    }
+
+    private Invoker<RoundRobinLoadBalanceTest> mockInvoker(String url) {
+        Invoker<RoundRobinLoadBalanceTest> invoker = EasyMock.createMock(Invoker.class);
+        EasyMock.expect(invoker.isAvailable()).andReturn(true).anyTimes();
+        EasyMock.expect(invoker.getInterface()).andReturn(RoundRobinLoadBalanceTest.class).anyTimes();
+        EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf(url)).anyTimes();
+        EasyMock.replay(invoker);
+        return invoker;
+    }
+
+    private List<Invoker<RoundRobinLoadBalanceTest>> select(RoundRobinLoadBalance lb, List<Invoker<RoundRobinLoadBalanceTest>> invokers, int runs) {
+        List<Invoker<RoundRobinLoadBalanceTest>> selected = new ArrayList<Invoker<RoundRobinLoadBalanceTest>>();
+        for (int i = 0; i < runs; i++) {
+            selected.add(lb.select(invokers, invokers.get(0).getUrl(), invocation));
+        }
+        return selected;
+    }
+
+    @Test
+    public void testSmoothOrder() {
+        RoundRobinLoadBalance lb = new RoundRobinLoadBalance();
+        List<Invoker<RoundRobinLoadBalanceTest>> invokers = Arrays.asList(a, b, c);
+        // 不连续选择同一个权重大的 Invoker
+        Assert.assertEquals(Arrays.asList(a, a, b, a, c, a, a, a, a, b, a, c, a, a), select(lb, invokers, 14));
+    }
+
+    @Test
+    public void testWeightedDistribution() {
+        RoundRobinLoadBalance lb = new RoundRobinLoadBalance();
+        Invoker<RoundRobinLoadBalanceTest> d = mockInvoker("test://127.0.0.1:4/DemoService?weight=3");
+        List<Invoker<RoundRobinLoadBalanceTest>> invokers = Arrays.asList(a, b, d);
+        Map<Invoker, Integer> counter = new HashMap<Invoker, Integer>();
+        for (Invoker invoker : select(lb, invokers, 900)) {
+            Integer count = counter.get(invoker);
+            counter.put(invoker, count == null ? 1 : count + 1);
+        }
+        Assert.assertEquals(500, counter.get(a).intValue());
+        Assert.assertEquals(100, counter.get(b).intValue());
+        Assert.assertEquals(300, counter.get(d).intValue());
+    }
+
+    @Test
+    public void testInvokersChanged() {
+        RoundRobinLoadBalance lb = new RoundRobinLoadBalance();
+        List<Invoker<RoundRobinLoadBalanceTest>> all = new ArrayList<Invoker<RoundRobinLoadBalanceTest>>(Arrays.asList(a, b, c));
+        select(lb, all, 3);
+        // 同一个 List 被修改，按新的 Invoker 集合选择
+        all.remove(a);
+        Assert.assertEquals(Arrays.asList(b, c, b, c), select(lb, all, 4));
+        // 恢复原集合，继续原来的轮循状态
+        Assert.assertEquals(Arrays.asList(a, c, a, a), select(lb, Arrays.asList(a, b, c), 4));
+    }
+
+    @Test
+    public void testConcurrentDistribution() throws Exception {
+        final RoundRobinLoadBalance lb = new RoundRobinLoadBalance();
+        final List<Invoker<RoundRobinLoadBalanceTest>> invokers = Arrays.asList(a, b, c);
+        final AtomicInteger countA = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 7000; j++) {
+                        if (lb.select(invokers, invokers.get(0).getUrl(), invocation) == a) {
+                            countA.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        // 并发时顺序可能交错，比例仍与权重一致
+        Assert.assertTrue(String.valueOf(countA.get()), Math.abs(countA.get() - 40000) <= 100);
+    }
+
+    @Test
+    public void testStatePerServiceKey() {
+        RoundRobinLoadBalance lb = new RoundRobinLoadBalance();
+        Invoker<RoundRobinLoadBalanceTest> a2 = mockInvoker("test://127.0.0.1:1/DemoService?weight=5&group=g2");
+        Invoker<RoundRobinLoadBalanceTest> b2 = mockInvoker("test://127.0.0.1:2/DemoService?weight=1&group=g2");
+        Assert.assertEquals(Arrays.asList(a2, a2, a2), select(lb, Arrays.asList(a2, b2), 3));
+        // 同一接口的其它分组使用很多 Invoker 集合，不淘汰本分组的轮循状态
+        for (int i = 0; i < 10; i++) {
+            select(lb, Arrays.asList(mockInvoker("test://127.0.0.1:" + (10 + i) + "/DemoService?group=g1")), 1);
+        }
+        Assert.assertEquals(Arrays.asList(b2, a2, a2), select(lb, Arrays.asList(a2, b2), 3));
+    }
+
+    @Test
+    public void testZeroWeight() {
+        RoundRobinLoadBalance lb = new RoundRobinLoadBalance();
+        Invoker<RoundRobinLoadBalanceTest> zero1 = mockInvoker("test://127.0.0.1:5/DemoService?weight=0");
+        Invoker<RoundRobinLoadBalanceTest> zero2 = mockInvoker("test://127.0.0.1:6/DemoService?weight=0");
+        // 权重为 0 的不被选择
+        for (Invoker invoker : select(lb, Arrays.asList(zero1, b, zero2, c), 10)) {
+            Assert.assertTrue(invoker == b || invoker == c);
+        }
+        // 权重都为 0 ，按顺序轮循
+        Assert.assertEquals(Arrays.asList(zero1, zero2, zero1, zero2), select(lb, Arrays.asList(zero1, zero2), 4));
+    }
+
+}
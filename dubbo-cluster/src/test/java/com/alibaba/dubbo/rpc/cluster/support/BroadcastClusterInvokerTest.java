@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.cluster.Directory;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BroadcastClusterInvokerTest
+ */
+@SuppressWarnings("unchecked")
+public class BroadcastClusterInvokerTest {
+
+    private List<Invoker<BroadcastClusterInvokerTest>> invokers = new ArrayList<Invoker<BroadcastClusterInvokerTest>>();
+
+    private RpcInvocation invocation = new RpcInvocation();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 未完成的调用数
+     */
+    private AtomicInteger active = new AtomicInteger();
+
+    private AtomicInteger maxActive = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        invocation.setMethodName("method1");
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+    }
+
+    private BroadcastClusterInvoker<BroadcastClusterInvokerTest> createClusterInvoker(String parameters) {
+        URL url = URL.valueOf("test://test:11/test?" + parameters);
+        Directory<BroadcastClusterInvokerTest> dic = EasyMock.createMock(Directory.class);
+        EasyMock.expect(dic.getUrl()).andReturn(url).anyTimes();
+        EasyMock.expect(dic.list(invocation)).andReturn(invokers).anyTimes();
+        EasyMock.expect(dic.getInterface()).andReturn(BroadcastClusterInvokerTest.class).anyTimes();
+        EasyMock.replay(dic);
+        return new BroadcastClusterInvoker<BroadcastClusterInvokerTest>(dic);
+    }
+
+    /**
+     * 模拟异步调用，延迟 delay 毫秒后回调结果
+     */
+    private void addInvoker(final int port, final long delay, final boolean fail) {
+        Invoker<BroadcastClusterInvokerTest> invoker = EasyMock.createMock(Invoker.class);
+        EasyMock.expect(invoker.invoke(EasyMock.<Invocation>anyObject())).andAnswer(new IAnswer<Result>() {
+            public Result answer() throws Throwable {
+                Invocation inv = (Invocation) EasyMock.getCurrentArguments()[0];
+                Assert.assertEquals("true", inv.getAttachment(Constants.ASYNC_KEY));
+                final TestFuture future = new TestFuture();
+                int current = active.incrementAndGet();
+                if (current > maxActive.get()) {
+                    maxActive.set(current);
+                }
+                scheduler.schedule(new Runnable() {
+                    public void run() {
+                        active.decrementAndGet();
+                        if (fail) {
+                            future.complete(null, new RpcException("failed " + port));
+                        } else {
+                            future.complete(new RpcResult(port), null);
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+                RpcContext.getContext().setFuture(future);
+                return new RpcResult();
+            }
+        }).anyTimes();
+        EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf("test://127.0.0.1:" + port + "/test")).anyTimes();
+        EasyMock.expect(invoker.isAvailable()).andReturn(true).anyTimes();
+        EasyMock.expect(invoker.getInterface()).andReturn(BroadcastClusterInvokerTest.class).anyTimes();
+        EasyMock.replay(invoker);
+        invokers.add(invoker);
+    }
+
+    @Test
+    public void testBroadcast() {
+        for (int i = 1; i <= 5; i++) {
+            addInvoker(i, 200, false);
+        }
+        long start = System.currentTimeMillis();
+        Result result = createClusterInvoker("").invoke(invocation);
+        // 同时发起调用，耗时约为一次调用
+        Assert.assertTrue(System.currentTimeMillis() - start < 600);
+        Assert.assertNotNull(result.getValue());
+        Assert.assertEquals(5, maxActive.get());
+        Assert.assertNull(RpcContext.getContext().getFuture());
+    }
+
+    @Test
+    public void testParallelism() {
+        for (int i = 1; i <= 4; i++) {
+            addInvoker(i, 50, false);
+        }
+        createClusterInvoker(Constants.FANOUT_PARALLELISM_KEY + "=2").invoke(invocation);
+        Assert.assertEquals(2, maxActive.get());
+    }
+
+    @Test
+    public void testException() {
+        addInvoker(1, 10, false);
+        addInvoker(2, 50, true);
+        addInvoker(3, 100, false);
+        try {
+            createClusterInvoker("").invoke(invocation);
+            Assert.fail();
+        } catch (RpcException expected) {
+            Assert.assertEquals("failed 2", expected.getMessage());
+        }
+        // 失败不影响其他调用
+        Assert.assertEquals(0, active.get());
+    }
+
+    private static class TestFuture implements ResultFuture<Object> {
+
+        private ResultCallback callback;
+
+        private Result result;
+
+        private Throwable exception;
+
+        private boolean done;
+
+        public void setCallback(ResultCallback callback) {
+            // 框架内部只使用 addCallback ，不覆盖使用方设置的回调
+            throw new UnsupportedOperationException();
+        }
+
+        public synchronized void addCallback(ResultCallback callback) {
+            if (done) {
+                invokeCallback(callback);
+            } else {
+                this.callback = callback;
+            }
+        }
+
+        synchronized void complete(Result result, Throwable exception) {
+            this.result = result;
+            this.exception = exception;
+            this.done = true;
+            if (callback != null) {
+                invokeCallback(callback);
+            }
+        }
+
+        private void invokeCallback(ResultCallback callback) {
+            if (exception != null) {
+                callback.caught(exception);
+            } else {
+                callback.done(result);
+            }
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return false;
+        }
+
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -17,7 +17,9 @@
 package com.alibaba.dubbo.rpc.cluster.support;
 
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.DubboAppender;
 import com.alibaba.dubbo.common.utils.LogUtil;
+import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
@@ -31,8 +33,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -86,6 +90,39 @@ public class FailbackClusterInvokerTest {
         EasyMock.replay(invoker);
     }
 
+    /**
+     * 等待后台重试输出日志
+     */
+    private static void waitForMessage(String message, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (LogUtil.findMessage(message) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, LogUtil.findMessage(message));
+    }
+
+    /**
+     * 等待后台重试成功，清空本地日志
+     */
+    private static void waitForEmpty(File journal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.length() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, journal.length());
+    }
+
+    private Directory<FailbackClusterInvokerTest> createDirectory(String parameters) {
+        dic = EasyMock.createMock(Directory.class);
+        EasyMock.expect(dic.getUrl()).andReturn(URL.valueOf("test://test:11/test?" + parameters)).anyTimes();
+        EasyMock.expect(dic.list(EasyMock.<Invocation>anyObject())).andReturn(invokers).anyTimes();
+        EasyMock.expect(dic.getInterface()).andReturn(FailbackClusterInvokerTest.class).anyTimes();
+        dic.destroy();
+        EasyMock.expectLastCall().anyTimes();
+        EasyMock.replay(dic);
+        return dic;
+    }
+
     private void resetInvokerToNoException() {
         EasyMock.reset(invoker);
         EasyMock.expect(invoker.invoke(invocation)).andReturn(result).anyTimes();
@@ -138,15 +175,171 @@ public class FailbackClusterInvokerTest {
     }
 
     @Test()
-    public void testRetryFailed() {
+    public void testRetryFailed() throws Exception {
 
         resetInvokerToException();
 
         FailbackClusterInvoker<FailbackClusterInvokerTest> invoker = new FailbackClusterInvoker<FailbackClusterInvokerTest>(
-                dic);
+                createDirectory("failback.period=10"));
+        LogUtil.start();
         invoker.invoke(invocation);
         Assert.assertNull(RpcContext.getContext().getInvoker());
-        invoker.retryFailed();// when retry the invoker which get from failed map already is not the mocked invoker,so
-        // it can be invoke successfully
+        // 时间轮到期后，在重试线程池中重试
+        waitForMessage("Failed retry to invoke method method1, waiting again in 20ms", 1);
+        LogUtil.stop();
+        DubboAppender.clear();
+        invoker.destroy();
+    }
+
+    @Test()
+    public void testFailbackTasksLimit() {
+        dic = EasyMock.createMock(Directory.class);
+        EasyMock.expect(dic.getUrl()).andReturn(URL.valueOf("test://test:11/test?failbacktasks=2")).anyTimes();
+        EasyMock.expect(dic.list(invocation)).andReturn(invokers).anyTimes();
+        EasyMock.expect(dic.getInterface()).andReturn(FailbackClusterInvokerTest.class).anyTimes();
+        EasyMock.replay(dic);
+
+        resetInvokerToException();
+
+        FailbackClusterInvoker<FailbackClusterInvokerTest> invoker = new FailbackClusterInvoker<FailbackClusterInvokerTest>(
+                dic);
+        LogUtil.start();
+        for (int i = 0; i < 3; i++) {
+            invoker.invoke(invocation);
+        }
+        // 超过最大等待重试的调用数，放弃
+        assertEquals(1, LogUtil.findMessage("Failback tasks of test exceed 2"));
+        LogUtil.stop();
+        DubboAppender.clear();
+    }
+
+    @Test()
+    public void testRetryTimesLimit() throws Exception {
+        resetInvokerToException();
+
+        FailbackClusterInvoker<FailbackClusterInvokerTest> invoker = new FailbackClusterInvoker<FailbackClusterInvokerTest>(
+                createDirectory("retries=2&failback.period=10"));
+        LogUtil.start();
+        invoker.invoke(invocation);
+        waitForMessage("waiting again in 20ms", 1);
+        waitForMessage("Failed retry times exceed threshold (2)", 1);
+        // 已放弃，不再重试
+        Thread.sleep(100);
+        assertEquals(2, LogUtil.findMessage("Failed retry"));
+        LogUtil.stop();
+        DubboAppender.clear();
+        invoker.destroy();
+    }
+
+    @Test()
+    public void testJournal() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "dubbo-failback-" + System.nanoTime());
+        File journal = new File(dir, "test.failback");
+        try {
+            createDirectory("failback.period=200&failback.journal=" + dir.getAbsolutePath());
+
+            resetInvokerToException();
+            FailbackClusterInvoker<FailbackClusterInvokerTest> failed = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            failed.invoke(invocation);
+            Assert.assertTrue(journal.length() > 0);
+            failed.destroy();
+
+            // 重启后，从本地日志恢复重试
+            EasyMock.reset(invoker);
+            EasyMock.expect(invoker.invoke(EasyMock.<Invocation>anyObject())).andReturn(result).once();
+            EasyMock.expect(invoker.getUrl()).andReturn(url).anyTimes();
+            EasyMock.expect(invoker.getInterface()).andReturn(FailbackClusterInvokerTest.class).anyTimes();
+            EasyMock.replay(invoker);
+            FailbackClusterInvoker<FailbackClusterInvokerTest> recovered = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            // 重试成功，清空日志
+            waitForEmpty(journal);
+            recovered.destroy();
+        } finally {
+            journal.delete();
+            dir.delete();
+        }
+    }
+
+    @Test()
+    public void testSharedJournal() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "dubbo-failback-" + System.nanoTime());
+        File journal = new File(dir, "test.failback");
+        try {
+            createDirectory("failback.period=200&failback.journal=" + dir.getAbsolutePath());
+
+            // 相同服务键的两个 Invoker ，共享本地日志，互不覆盖
+            resetInvokerToException();
+            FailbackClusterInvoker<FailbackClusterInvokerTest> first = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            FailbackClusterInvoker<FailbackClusterInvokerTest> second = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            first.invoke(invocation);
+            second.invoke(invocation);
+            first.destroy();
+            second.destroy();
+
+            // 重启后，两个调用各恢复一次
+            EasyMock.reset(invoker);
+            EasyMock.expect(invoker.invoke(EasyMock.<Invocation>anyObject())).andReturn(result).times(2);
+            EasyMock.expect(invoker.getUrl()).andReturn(url).anyTimes();
+            EasyMock.expect(invoker.getInterface()).andReturn(FailbackClusterInvokerTest.class).anyTimes();
+            EasyMock.replay(invoker);
+            FailbackClusterInvoker<FailbackClusterInvokerTest> recovered = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            waitForEmpty(journal);
+            recovered.destroy();
+        } finally {
+            journal.delete();
+            dir.delete();
+        }
+    }
+
+    @Test()
+    public void testJournalHandOver() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "dubbo-failback-" + System.nanoTime());
+        File journal = new File(dir, "test.failback");
+        try {
+            createDirectory("failback.period=200&failback.journal=" + dir.getAbsolutePath());
+            resetInvokerToException();
+            FailbackClusterInvoker<FailbackClusterInvokerTest> first = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            FailbackClusterInvoker<FailbackClusterInvokerTest> second = new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+            first.invoke(invocation);
+            // 先销毁记录调用的 Invoker ，未完成的调用转交给仍在使用的 Invoker 重试
+            first.destroy();
+            EasyMock.reset(invoker);
+            EasyMock.expect(invoker.invoke(EasyMock.<Invocation>anyObject())).andReturn(result).once();
+            EasyMock.expect(invoker.getUrl()).andReturn(url).anyTimes();
+            EasyMock.expect(invoker.getInterface()).andReturn(FailbackClusterInvokerTest.class).anyTimes();
+            EasyMock.replay(invoker);
+            waitForEmpty(journal);
+            second.destroy();
+        } finally {
+            journal.delete();
+            dir.delete();
+        }
+    }
+
+    @Test()
+    public void testJournalCompact() {
+        resetInvokerToNoException();
+        File dir = new File(System.getProperty("java.io.tmpdir"), "dubbo-failback-" + System.nanoTime());
+        File file = new File(dir, "test.failback");
+        try {
+            FailbackJournal.Owner owner = new FailbackJournal.Owner() {
+                @Override
+                public void takeOver(Map<Long, Invocation> invocations) {
+                }
+            };
+            FailbackJournal journal = new FailbackJournal(file, getClass().getClassLoader());
+            journal.register(owner);
+            journal.append(owner, invocation);
+            for (int i = 0; i < FailbackJournal.COMPACT_THRESHOLD * 2; i++) {
+                journal.remove(journal.append(owner, invocation));
+            }
+            // 已完成的记录定期压缩，不随调用数增长
+            Assert.assertTrue(journal.getLines() <= FailbackJournal.COMPACT_THRESHOLD + 2);
+            journal.close();
+            assertEquals(1, new FailbackJournal(file, getClass().getClassLoader()).recover().size());
+        } finally {
+            file.delete();
+            dir.delete();
+        }
     }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcInvocation;
 import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.RpcStatus;
 import com.alibaba.dubbo.rpc.cluster.Directory;
 import com.alibaba.dubbo.rpc.cluster.directory.StaticDirectory;
 import com.alibaba.dubbo.rpc.protocol.AbstractInvoker;
@@ -34,6 +35,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -225,6 +227,63 @@ public class FailoverClusterInvokerTest {
         clusterinvoker.invoke(inv);
     }
 
+    @Test
+    public void testRetryBudget() {
+        URL url = URL.valueOf("test://localhost/" + Demo.class.getName() + "?retries=" + retries
+                + "&retry.budget.ratio=50&retry.budget.min=0");
+        RetryBudget.removeBudget(url);
+        final AtomicInteger count = new AtomicInteger();
+        MockInvoker<Demo> invoker1 = new MockInvoker<Demo>(Demo.class, url);
+        invoker1.setException(new RpcException(RpcException.TIMEOUT_EXCEPTION));
+        invoker1.setCallable(new Callable<Object>() {
+            public Object call() throws Exception {
+                count.incrementAndGet();
+                return null;
+            }
+        });
+        List<Invoker<Demo>> invokers = new ArrayList<Invoker<Demo>>();
+        invokers.add(invoker1);
+
+        RpcInvocation inv = new RpcInvocation();
+        inv.setMethodName("test");
+
+        FailoverClusterInvoker<Demo> clusterinvoker = new FailoverClusterInvoker<Demo>(new MockDirectory<Demo>(url, invokers));
+        // 没有成功的请求，预算为 0 次重试
+        try {
+            clusterinvoker.invoke(inv);
+            fail();
+        } catch (RpcException expected) {
+            assertTrue(expected.isTimeout());
+            assertTrue(expected.getMessage().contains("Retry budget"));
+        }
+        assertEquals(1, count.get());
+        // 2 个成功的请求，预算为 1 次重试
+        invoker1.setException(null);
+        invoker1.setResult(new RpcResult());
+        clusterinvoker.invoke(inv);
+        clusterinvoker.invoke(inv);
+        invoker1.setException(new RpcException(RpcException.TIMEOUT_EXCEPTION));
+        try {
+            clusterinvoker.invoke(inv);
+            fail();
+        } catch (RpcException expected) {
+            assertTrue(expected.getMessage().contains("Retry budget"));
+        }
+        assertEquals(5, count.get());
+
+        RetryBudget budget = RetryBudget.getBudget(url);
+        assertEquals(2, budget.getRecentSucceeded());
+        assertEquals(1, budget.getRecentRetries());
+        assertEquals(2, budget.getTotalRejected());
+        // 放弃的重试记在最后一次调用的服务提供者上
+        assertEquals(2, RpcStatus.getStatus(url, "test").drainRetryRejected());
+        assertEquals(0, RpcStatus.getStatus(url, "test").drainRetryRejected());
+
+        // 销毁时移除重试预算
+        clusterinvoker.destroy();
+        assertFalse(RetryBudget.getBudgets().contains(budget));
+    }
+
     public static interface Demo {
 
     }
@@ -17,6 +17,7 @@
 package com.alibaba.dubbo.rpc.cluster.support;
 
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcException;
@@ -87,19 +88,19 @@ public class ForkingClusterInvokerTest {
 
     private void resetInvokerToException() {
         EasyMock.reset(invoker1);
-        EasyMock.expect(invoker1.invoke(invocation)).andThrow(new RuntimeException()).anyTimes();
+        EasyMock.expect(invoker1.invoke(EasyMock.<Invocation>anyObject())).andThrow(new RuntimeException()).anyTimes();
         EasyMock.expect(invoker1.getUrl()).andReturn(url).anyTimes();
         EasyMock.expect(invoker1.isAvailable()).andReturn(true).anyTimes();
         EasyMock.expect(invoker1.getInterface()).andReturn(ForkingClusterInvokerTest.class).anyTimes();
         EasyMock.replay(invoker1);
         EasyMock.reset(invoker2);
-        EasyMock.expect(invoker2.invoke(invocation)).andThrow(new RuntimeException()).anyTimes();
+        EasyMock.expect(invoker2.invoke(EasyMock.<Invocation>anyObject())).andThrow(new RuntimeException()).anyTimes();
         EasyMock.expect(invoker2.getUrl()).andReturn(url).anyTimes();
         EasyMock.expect(invoker2.isAvailable()).andReturn(true).anyTimes();
         EasyMock.expect(invoker2.getInterface()).andReturn(ForkingClusterInvokerTest.class).anyTimes();
         EasyMock.replay(invoker2);
         EasyMock.reset(invoker3);
-        EasyMock.expect(invoker3.invoke(invocation)).andThrow(new RuntimeException()).anyTimes();
+        EasyMock.expect(invoker3.invoke(EasyMock.<Invocation>anyObject())).andThrow(new RuntimeException()).anyTimes();
         EasyMock.expect(invoker3.getUrl()).andReturn(url).anyTimes();
         EasyMock.expect(invoker3.isAvailable()).andReturn(true).anyTimes();
         EasyMock.expect(invoker3.getInterface()).andReturn(ForkingClusterInvokerTest.class).anyTimes();
@@ -108,19 +109,19 @@ public class ForkingClusterInvokerTest {
 
     private void resetInvokerToNoException() {
         EasyMock.reset(invoker1);
-        EasyMock.expect(invoker1.invoke(invocation)).andReturn(result).anyTimes();
+        EasyMock.expect(invoker1.invoke(EasyMock.<Invocation>anyObject())).andReturn(result).anyTimes();
         EasyMock.expect(invoker1.getUrl()).andReturn(url).anyTimes();
         EasyMock.expect(invoker1.isAvailable()).andReturn(true).anyTimes();
         EasyMock.expect(invoker1.getInterface()).andReturn(ForkingClusterInvokerTest.class).anyTimes();
         EasyMock.replay(invoker1);
         EasyMock.reset(invoker2);
-        EasyMock.expect(invoker2.invoke(invocation)).andReturn(result).anyTimes();
+        EasyMock.expect(invoker2.invoke(EasyMock.<Invocation>anyObject())).andReturn(result).anyTimes();
         EasyMock.expect(invoker2.getUrl()).andReturn(url).anyTimes();
         EasyMock.expect(invoker2.isAvailable()).andReturn(true).anyTimes();
         EasyMock.expect(invoker2.getInterface()).andReturn(ForkingClusterInvokerTest.class).anyTimes();
         EasyMock.replay(invoker2);
         EasyMock.reset(invoker3);
-        EasyMock.expect(invoker3.invoke(invocation)).andReturn(result).anyTimes();
+        EasyMock.expect(invoker3.invoke(EasyMock.<Invocation>anyObject())).andReturn(result).anyTimes();
         EasyMock.expect(invoker3.getUrl()).andReturn(url).anyTimes();
         EasyMock.expect(invoker3.isAvailable()).andReturn(true).anyTimes();
         EasyMock.expect(invoker3.getInterface()).andReturn(ForkingClusterInvokerTest.class).anyTimes();
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.cluster.Directory;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HedgingClusterInvokerTest
+ */
+@SuppressWarnings("unchecked")
+public class HedgingClusterInvokerTest {
+
+    List<Invoker<HedgingClusterInvokerTest>> invokers = new ArrayList<Invoker<HedgingClusterInvokerTest>>();
+
+    RpcInvocation invocation = new RpcInvocation();
+
+    ScheduledExecutorService scheduler;
+
+    /**
+     * 各次调用收到的 Invocation
+     */
+    List<Invocation> received = new CopyOnWriteArrayList<Invocation>();
+
+    /**
+     * 各次调用的 Future
+     */
+    List<TestFuture> futures = new CopyOnWriteArrayList<TestFuture>();
+
+    @Before
+    public void setUp() throws Exception {
+        invocation.setMethodName("method1");
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        RpcContext.getContext().clearAttachments();
+    }
+
+    private Directory<HedgingClusterInvokerTest> createDirectory(String parameters) {
+        URL url = URL.valueOf("test://test:11/test?forks=2&" + parameters);
+        Directory<HedgingClusterInvokerTest> dic = EasyMock.createMock(Directory.class);
+        EasyMock.expect(dic.getUrl()).andReturn(url).anyTimes();
+        EasyMock.expect(dic.list(invocation)).andReturn(invokers).anyTimes();
+        EasyMock.expect(dic.getInterface()).andReturn(HedgingClusterInvokerTest.class).anyTimes();
+        EasyMock.replay(dic);
+        return dic;
+    }
+
+    /**
+     * 模拟异步调用，延迟 delay 毫秒后回调结果
+     */
+    private Invoker<HedgingClusterInvokerTest> addInvoker(final int port, final long delay, final boolean fail) {
+        Invoker<HedgingClusterInvokerTest> invoker = EasyMock.createMock(Invoker.class);
+        EasyMock.expect(invoker.invoke(EasyMock.<Invocation>anyObject())).andAnswer(new IAnswer<Result>() {
+            public Result answer() throws Throwable {
+                Invocation inv = (Invocation) EasyMock.getCurrentArguments()[0];
+                Assert.assertEquals("true", inv.getAttachment(Constants.ASYNC_KEY));
+                // 模拟 ConsumerContextFilter ，调用后清空隐式传参
+                inv.getAttachments().putAll(RpcContext.getContext().getAttachments());
+                RpcContext.getContext().clearAttachments();
+                received.add(inv);
+                final TestFuture future = new TestFuture();
+                futures.add(future);
+                scheduler.schedule(new Runnable() {
+                    public void run() {
+                        if (fail) {
+                            future.complete(null, new RpcException("failed " + port));
+                        } else {
+                            future.complete(new RpcResult(port), null);
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+                RpcContext.getContext().setFuture(future);
+                return new RpcResult();
+            }
+        }).anyTimes();
+        EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf("test://127.0.0.1:" + port + "/test")).anyTimes();
+        EasyMock.expect(invoker.isAvailable()).andReturn(true).anyTimes();
+        EasyMock.expect(invoker.getInterface()).andReturn(HedgingClusterInvokerTest.class).anyTimes();
+        EasyMock.replay(invoker);
+        invokers.add(invoker);
+        return invoker;
+    }
+
+    @Test
+    public void testHedge() {
+        addInvoker(1, 2000, false);
+        addInvoker(2, 0, false);
+        // 预算 100% ，每次请求都可以对冲一次
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("timeout=3000&hedging.delay=50&hedging.budget=100"));
+        for (int i = 0; i < 5; i++) {
+            long start = System.currentTimeMillis();
+            Assert.assertEquals(2, invoker.invoke(invocation).getValue());
+            Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    @Test
+    public void testCancelLosers() {
+        addInvoker(1, 2000, false);
+        addInvoker(2, 200, false);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("timeout=3000&hedging.delay=50&hedging.budget=100"));
+        Assert.assertEquals(2, invoker.invoke(invocation).getValue());
+        // 胜出后，未完成的调用被取消
+        Assert.assertEquals(2, futures.size());
+        int cancelled = 0;
+        for (TestFuture future : futures) {
+            Assert.assertTrue(future.isDone());
+            if (future.isCancelled()) {
+                cancelled++;
+            }
+        }
+        Assert.assertEquals(1, cancelled);
+    }
+
+    @Test
+    public void testAttachments() {
+        // 两个都慢于对冲延迟，无论先选中哪个，都会发起对冲
+        addInvoker(1, 2000, false);
+        addInvoker(2, 200, false);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("timeout=3000&hedging.delay=50&hedging.budget=100"));
+        RpcContext.getContext().setAttachment("trace", "hedging");
+        Assert.assertEquals(2, invoker.invoke(invocation).getValue());
+        // 每次调用使用独立的 Invocation ，并且都带有 RpcContext 的隐式传参
+        Assert.assertEquals(2, received.size());
+        for (Invocation inv : received) {
+            Assert.assertNotSame(invocation, inv);
+            Assert.assertEquals("hedging", inv.getAttachment("trace"));
+        }
+        Assert.assertNull(invocation.getAttachment(Constants.ASYNC_KEY));
+    }
+
+    @Test
+    public void testNoBudget() {
+        addInvoker(1, 200, false);
+        addInvoker(2, 200, false);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("hedging.delay=10&hedging.budget=0"));
+        Assert.assertNotNull(invoker.invoke(invocation).getValue());
+        // 没有预算，不发起对冲
+        Assert.assertEquals(1, RpcContext.getContext().getInvokers().size());
+    }
+
+    @Test
+    public void testNoLatencyHistory() {
+        addInvoker(1, 200, false);
+        addInvoker(2, 200, false);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("hedging.budget=100"));
+        invoker.invoke(invocation);
+        // 没有足够的延迟样本，不发起对冲
+        Assert.assertEquals(1, RpcContext.getContext().getInvokers().size());
+    }
+
+    @Test
+    public void testFailover() {
+        addInvoker(1, 0, true);
+        addInvoker(2, 0, false);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("hedging.budget=0"));
+        for (int i = 0; i < 10; i++) {
+            // 失败时立即调用另一个 Invoker
+            Assert.assertEquals(2, invoker.invoke(invocation).getValue());
+        }
+    }
+
+    @Test
+    public void testAllFailed() {
+        addInvoker(1, 0, true);
+        addInvoker(2, 0, true);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("hedging.delay=10&hedging.budget=100"));
+        try {
+            invoker.invoke(invocation);
+            Assert.fail();
+        } catch (RpcException expected) {
+            Assert.assertTrue(expected.getMessage().contains("Failed to hedging invoke provider"));
+            Assert.assertEquals(2, RpcContext.getContext().getInvokers().size());
+        }
+    }
+
+    @Test
+    public void testTimeout() {
+        addInvoker(1, 1000, false);
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = new HedgingClusterInvoker<HedgingClusterInvokerTest>(
+                createDirectory("timeout=100"));
+        try {
+            invoker.invoke(invocation);
+            Assert.fail();
+        } catch (RpcException expected) {
+            Assert.assertTrue(expected.isTimeout());
+        }
+    }
+
+    private static class TestFuture implements ResultFuture<Object> {
+
+        private ResultCallback callback;
+
+        private Result result;
+
+        private Throwable exception;
+
+        private boolean done;
+
+        private boolean cancelled;
+
+        public void setCallback(ResultCallback callback) {
+            // 框架内部只使用 addCallback ，不覆盖使用方设置的回调
+            throw new UnsupportedOperationException();
+        }
+
+        public synchronized void addCallback(ResultCallback callback) {
+            if (done) {
+                invokeCallback(callback);
+            } else {
+                this.callback = callback;
+            }
+        }
+
+        synchronized void complete(Result result, Throwable exception) {
+            if (done) {
+                return;
+            }
+            this.result = result;
+            this.exception = exception;
+            this.done = true;
+            if (callback != null) {
+                invokeCallback(callback);
+            }
+        }
+
+        private void invokeCallback(ResultCallback callback) {
+            if (exception != null) {
+                callback.caught(exception);
+            } else {
+                callback.done(result);
+            }
+        }
+
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            complete(null, new CancellationException());
+            return true;
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.InvokerListener;
+import com.alibaba.dubbo.rpc.OutlierStatus;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.listener.ListenerInvokerWrapper;
+import com.alibaba.dubbo.rpc.protocol.AbstractInvoker;
+
+import junit.framework.Assert;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OutlierDetectorTest
+ */
+@SuppressWarnings("unchecked")
+public class OutlierDetectorTest {
+
+    private List<Invoker<OutlierDetectorTest>> invokers = new ArrayList<Invoker<OutlierDetectorTest>>();
+
+    private URL url = URL.valueOf("test://127.0.0.1/OutlierService?" + Constants.OUTLIER_DETECTION_KEY + "=true");
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            Invoker<OutlierDetectorTest> invoker = EasyMock.createMock(Invoker.class);
+            EasyMock.expect(invoker.getUrl()).andReturn(URL.valueOf("test://127.0.0.3:" + i + "/OutlierService")).anyTimes();
+            EasyMock.replay(invoker);
+            invokers.add(invoker);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Invoker<OutlierDetectorTest> invoker : invokers) {
+            OutlierStatus.removeStatus(invoker.getUrl());
+        }
+    }
+
+    private OutlierStatus record(int index, int count, long elapsed, boolean failed) {
+        OutlierStatus status = OutlierStatus.getStatus(invokers.get(index).getUrl());
+        for (int i = 0; i < count; i++) {
+            status.record(elapsed, failed);
+        }
+        return status;
+    }
+
+    @Test
+    public void testNoOutlier() {
+        for (int i = 0; i < invokers.size(); i++) {
+            record(i, 20, 5, false);
+        }
+        // 没有摘除时，返回原集合
+        Assert.assertSame(invokers, new OutlierDetector(url).select(invokers));
+    }
+
+    @Test
+    public void testErrorRate() {
+        OutlierStatus bad = record(0, 20, 5, true);
+        for (int i = 1; i < invokers.size(); i++) {
+            record(i, 20, 5, false);
+        }
+        List<Invoker<OutlierDetectorTest>> selected = new OutlierDetector(url).select(invokers);
+        Assert.assertEquals(invokers.subList(1, 4), selected);
+        Assert.assertEquals(1, bad.getEjections());
+    }
+
+    @Test
+    public void testMinRequests() {
+        // 调用次数不够，不检测
+        record(0, 5, 5, true);
+        Assert.assertSame(invokers, new OutlierDetector(url).select(invokers));
+    }
+
+    @Test
+    public void testLatency() {
+        record(0, 20, 200, false);
+        for (int i = 1; i < invokers.size(); i++) {
+            record(i, 20, 5, false);
+        }
+        Assert.assertEquals(invokers.subList(1, 4), new OutlierDetector(url).select(invokers));
+    }
+
+    @Test
+    public void testMaxEjectionPercent() {
+        for (int i = 0; i < 3; i++) {
+            record(i, 20, 5, true);
+        }
+        record(3, 20, 5, false);
+        // 最多摘除一半
+        Assert.assertEquals(2, new OutlierDetector(url).select(invokers).size());
+    }
+
+    @Test
+    public void testExponentialEjection() {
+        OutlierStatus bad = record(0, 20, 5, true);
+        for (int i = 1; i < invokers.size(); i++) {
+            record(i, 20, 5, false);
+        }
+        OutlierDetector detector = new OutlierDetector(url);
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(3, detector.select(invokers, now).size());
+        Assert.assertEquals(now + Constants.DEFAULT_OUTLIER_EJECTION_TIME, bad.getEjectedUntil());
+        // 到期恢复后仍然失败，摘除时长翻倍
+        long readmitted = now + Constants.DEFAULT_OUTLIER_EJECTION_TIME;
+        Assert.assertEquals(3, detector.select(invokers, readmitted).size());
+        Assert.assertEquals(2, bad.getEjections());
+        Assert.assertEquals(readmitted + 2 * Constants.DEFAULT_OUTLIER_EJECTION_TIME, bad.getEjectedUntil());
+    }
+
+    @Test
+    public void testReadmission() {
+        OutlierStatus bad = record(0, 20, 5, true);
+        OutlierDetector detector = new OutlierDetector(url.addParameter(Constants.OUTLIER_EJECTION_TIME_KEY, 100));
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(3, detector.select(invokers, now).size());
+        Assert.assertTrue(bad.isEjected(now + 50));
+        // 到期后，在下次检测前恢复
+        Assert.assertSame(invokers, detector.select(invokers, now + 100));
+    }
+
+    @Test
+    public void testStatusRemovedOnDestroy() {
+        URL providerUrl = URL.valueOf("test://127.0.0.3:5/OutlierService?" + Constants.OUTLIER_DETECTION_KEY + "=true");
+        OutlierStatus status = OutlierStatus.getStatus(providerUrl);
+        status.record(5, true);
+        List<InvokerListener> listeners = ExtensionLoader.getExtensionLoader(InvokerListener.class)
+                .getActivateExtension(providerUrl, Constants.INVOKER_LISTENER_KEY);
+        Invoker<OutlierDetectorTest> invoker = new ListenerInvokerWrapper<OutlierDetectorTest>(new AbstractInvoker<OutlierDetectorTest>(OutlierDetectorTest.class, providerUrl) {
+            @Override
+            protected Result doInvoke(Invocation invocation) throws Throwable {
+                return null;
+            }
+        }, listeners);
+        invoker.destroy();
+        // 销毁后重新创建，之前的统计不再保留
+        Assert.assertNotSame(status, OutlierStatus.getStatus(providerUrl));
+        Assert.assertEquals(0, OutlierStatus.getStatus(providerUrl).getRecentFailures());
+        OutlierStatus.removeStatus(providerUrl);
+    }
+
+}
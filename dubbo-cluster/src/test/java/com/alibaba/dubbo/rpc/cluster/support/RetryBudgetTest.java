@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.cluster.support;
+
+import com.alibaba.dubbo.common.URL;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testRatio() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/com.alibaba.dubbo.RetryBudgetTest.ratio");
+        RetryBudget budget = RetryBudget.getBudget(url);
+        assertSame(budget, RetryBudget.getBudget(url.addParameter("timeout", 100)));
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+        // 10 个成功请求的 20%
+        assertTrue(budget.tryWithdraw(20, 0));
+        assertTrue(budget.tryWithdraw(20, 0));
+        assertFalse(budget.tryWithdraw(20, 0));
+        assertEquals(2, budget.getRecentRetries());
+        assertEquals(1, budget.getRecentRejected());
+        assertEquals(1, budget.getTotalRejected());
+        RetryBudget.removeBudget(url);
+    }
+
+    @Test
+    public void testMinRetries() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/com.alibaba.dubbo.RetryBudgetTest.min");
+        RetryBudget budget = RetryBudget.getBudget(url);
+        // 没有成功的请求时，默认窗口 10 秒内允许 min * 10 次重试
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryWithdraw(20, 1));
+        }
+        assertFalse(budget.tryWithdraw(20, 1));
+        assertEquals(0, budget.getRecentSucceeded());
+        assertTrue(RetryBudget.getBudgets().contains(budget));
+        RetryBudget.removeBudget(url);
+        assertFalse(RetryBudget.getBudgets().contains(budget));
+    }
+
+    @Test
+    public void testWindow() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/com.alibaba.dubbo.RetryBudgetTest.window?retry.budget.window=2");
+        RetryBudget budget = RetryBudget.getBudget(url);
+        assertEquals(2, budget.getWindow());
+        // 窗口 2 秒内允许 min * 2 次重试
+        assertTrue(budget.tryWithdraw(20, 1));
+        assertTrue(budget.tryWithdraw(20, 1));
+        assertFalse(budget.tryWithdraw(20, 1));
+        RetryBudget.removeBudget(url);
+    }
+
+}
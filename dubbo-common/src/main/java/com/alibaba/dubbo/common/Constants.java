@@ -220,6 +220,66 @@ public class Constants {
 
     public static final String FORKS_KEY = "forks";
 
+    /**
+     * Max outstanding sub requests of broadcast and mergeable clusters
+     */
+    public static final String FANOUT_PARALLELISM_KEY = "fanout.parallelism";
+
+    public static final int DEFAULT_FANOUT_PARALLELISM = 256;
+
+    /**
+     * Max failed invocations queued for retry by failback cluster
+     */
+    public static final String FAILBACK_TASKS_KEY = "failbacktasks";
+
+    public static final int DEFAULT_FAILBACK_TASKS = 100;
+
+    /**
+     * Default retry times of failback cluster, see {@link #RETRIES_KEY}
+     */
+    public static final int DEFAULT_FAILBACK_TIMES = 3;
+
+    /**
+     * Max retries per second of failback cluster, paces the drain after recovery
+     */
+    public static final String FAILBACK_RATE_KEY = "failback.rate";
+
+    public static final int DEFAULT_FAILBACK_RATE = 10;
+
+    /**
+     * First retry delay of failback cluster in milliseconds, doubled on each retry
+     */
+    public static final String FAILBACK_PERIOD_KEY = "failback.period";
+
+    public static final int DEFAULT_FAILBACK_PERIOD = 5 * 1000;
+
+    /**
+     * Directory of the failback journal, queued retries are recovered from it after restart
+     */
+    public static final String FAILBACK_JOURNAL_KEY = "failback.journal";
+
+    /**
+     * Retries of failover cluster allowed per service, in percent of the succeeded requests in the budget window,
+     * negative to disable the retry budget
+     */
+    public static final String RETRY_BUDGET_RATIO_KEY = "retry.budget.ratio";
+
+    public static final int DEFAULT_RETRY_BUDGET_RATIO = 20;
+
+    /**
+     * Retries per second always allowed by the retry budget, so that low traffic services can still retry
+     */
+    public static final String RETRY_BUDGET_MIN_KEY = "retry.budget.min";
+
+    public static final int DEFAULT_RETRY_BUDGET_MIN = 10;
+
+    /**
+     * Window of the retry budget in seconds, requests and retries older than it are forgotten
+     */
+    public static final String RETRY_BUDGET_WINDOW_KEY = "retry.budget.window";
+
+    public static final int DEFAULT_RETRY_BUDGET_WINDOW = 10;
+
     public static final String DEFAULT_THREADPOOL = "limited";
 
     public static final String DEFAULT_CLIENT_THREADPOOL = "cached";
@@ -240,6 +300,89 @@ public class Constants {
 
     public static final String EXECUTES_KEY = "executes";
 
+    /**
+     * Adaptive concurrency limit algorithm of provider, gradient or vegas
+     */
+    public static final String ADAPTIVE_LIMIT_KEY = "adaptive.limit";
+
+    public static final String ADAPTIVE_LIMIT_INITIAL_KEY = "adaptive.limit.initial";
+
+    public static final int DEFAULT_ADAPTIVE_LIMIT_INITIAL = 20;
+
+    public static final String ADAPTIVE_LIMIT_MAX_KEY = "adaptive.limit.max";
+
+    public static final int DEFAULT_ADAPTIVE_LIMIT_MAX = 1000;
+
+    /**
+     * Consumer side outlier detection, ejecting providers by error rate or latency versus the cluster median
+     */
+    public static final String OUTLIER_DETECTION_KEY = "outlier.detection";
+
+    /**
+     * Interval in milliseconds between two outlier evaluations
+     */
+    public static final String OUTLIER_INTERVAL_KEY = "outlier.interval";
+
+    public static final int DEFAULT_OUTLIER_INTERVAL = 1000;
+
+    /**
+     * Min requests of a provider in the window before it's evaluated
+     */
+    public static final String OUTLIER_MIN_REQUESTS_KEY = "outlier.min.requests";
+
+    public static final int DEFAULT_OUTLIER_MIN_REQUESTS = 10;
+
+    /**
+     * Error rate in percent that ejects a provider
+     */
+    public static final String OUTLIER_ERROR_RATE_KEY = "outlier.error.rate";
+
+    public static final int DEFAULT_OUTLIER_ERROR_RATE = 50;
+
+    /**
+     * Average elapsed, as a multiple of the cluster median, that ejects a provider
+     */
+    public static final String OUTLIER_LATENCY_FACTOR_KEY = "outlier.latency.factor";
+
+    public static final int DEFAULT_OUTLIER_LATENCY_FACTOR = 10;
+
+    /**
+     * Base ejection time in milliseconds, doubled for each consecutive ejection
+     */
+    public static final String OUTLIER_EJECTION_TIME_KEY = "outlier.ejection.time";
+
+    public static final int DEFAULT_OUTLIER_EJECTION_TIME = 30000;
+
+    public static final String OUTLIER_MAX_EJECTION_TIME_KEY = "outlier.max.ejection.time";
+
+    public static final int DEFAULT_OUTLIER_MAX_EJECTION_TIME = 300000;
+
+    /**
+     * Max percent of providers in a cluster that can be ejected at the same time
+     */
+    public static final String OUTLIER_MAX_EJECTION_PERCENT_KEY = "outlier.max.ejection.percent";
+
+    public static final int DEFAULT_OUTLIER_MAX_EJECTION_PERCENT = 50;
+
+    /**
+     * Fixed delay in milliseconds before a hedged request is sent, 0 means the recent latency percentile
+     */
+    public static final String HEDGING_DELAY_KEY = "hedging.delay";
+
+    /**
+     * Latency percentile of recent successful calls used as the hedging delay
+     */
+    public static final String HEDGING_PERCENTILE_KEY = "hedging.percentile";
+
+    public static final int DEFAULT_HEDGING_PERCENTILE = 95;
+
+    /**
+     * Max extra load in percent of requests that hedged requests can add
+     */
+    public static final String HEDGING_BUDGET_KEY = "hedging.budget";
+
+    public static final int DEFAULT_HEDGING_BUDGET = 5;
+
     public static final String BUFFER_KEY = "buffer";
 
     public static final String PAYLOAD_KEY = "payload";
@@ -254,8 +397,77 @@ public class Constants {
 
     public static final String ACCESS_LOG_KEY = "accesslog";
 
+    /**
+     * Sample 1 of N requests for per-phase latency breakdown, 0 to disable
+     */
+    public static final String LATENCY_SAMPLE_KEY = "latency.sample";
+
+    /**
+     * Ring buffer size of the asynchronous access log writer
+     */
+    public static final String ACCESS_LOG_BUFFER_KEY = "accesslog.buffer";
+
+    public static final int DEFAULT_ACCESS_LOG_BUFFER = 8192;
+
+    /**
+     * Max size in bytes of access log file before rolling
+     */
+    public static final String ACCESS_LOG_MAX_FILE_SIZE_KEY = "accesslog.max.file.size";
+
+    public static final long DEFAULT_ACCESS_LOG_MAX_FILE_SIZE = 100L * 1024 * 1024;
+
+    /**
+     * Span exporter of the tracing filters, true or default means log
+     */
+    public static final String TRACING_KEY = "tracing";
+
+    /**
+     * Trace sample rate in [0, 1], can be set per service or per method
+     */
+    public static final String TRACE_SAMPLE_KEY = "trace.sample";
+
+    public static final double DEFAULT_TRACE_SAMPLE = 0.1;
+
+    /**
+     * Ring buffer size of spans waiting to be exported
+     */
+    public static final String TRACE_BUFFER_KEY = "trace.buffer";
+
+    public static final int DEFAULT_TRACE_BUFFER = 8192;
+
+    /**
+     * Attachment carrying trace id, span id and sampled flag
+     */
+    public static final String TRACE_ATTACHMENT_KEY = "_trace";
+
     public static final String ACTIVES_KEY = "actives";
 
+    /**
+     * Waiting queue policy when actives is reached, fifo or lifo
+     */
+    public static final String ACTIVES_QUEUE_KEY = "actives.queue";
+
+    /**
+     * Count active invocations and elapsed in RpcStatus for a load balance reading it,
+     * set true for a custom load balance, the built-in ones below are counted anyway
+     */
+    public static final String ACTIVE_STATUS_KEY = "active.status";
+
+    public static final String LEASTACTIVE_LOADBALANCE = "leastactive";
+
+    public static final String P2C_LOADBALANCE = "p2c";
+
+    public static final String CONSISTENT_HASH_LOADBALANCE = "consistenthash";
+
+    /**
+     * Bound of active invocations of a provider relative to the average, for consistenthash
+     */
+    public static final String HASH_BALANCE_KEY = "hash.balance";
+
+    public static final String FIFO = "fifo";
+
+    public static final String LIFO = "lifo";
+
     public static final String CONNECTIONS_KEY = "connections";
 
     public static final String ACCEPTS_KEY = "accepts";
@@ -270,6 +482,11 @@ public class Constants {
 
     public static final String TIMEOUT_KEY = "timeout";
 
+    /**
+     * The remaining time budget of an invocation in milliseconds, passed by consumer as a compact attachment
+     */
+    public static final String TIMEOUT_ATTACHMENT_KEY = "_TO";
+
     public static final String RETRIES_KEY = "retries";
 
     /**
@@ -546,6 +763,70 @@ public class Constants {
      */
     public static final String CHANNEL_CALLBACK_KEY = "channel.callback.invokers.key";
 
+    /**
+     * The credit window of a stream, i.e. the max number of items in flight before the sender waits for the receiver
+     */
+    public static final String STREAM_WINDOW_KEY = "stream.window";
+
+    /**
+     * The default credit window of a stream
+     *
+     * @see #STREAM_WINDOW_KEY
+     */
+    public static final int DEFAULT_STREAM_WINDOW = 64;
+
+    /**
+     * Streams in channel, inbound for receiving items and outbound for sending items
+     */
+    public static final String CHANNEL_INBOUND_STREAMS_KEY = "channel.stream.inbound.key";
+
+    public static final String CHANNEL_OUTBOUND_STREAMS_KEY = "channel.stream.outbound.key";
+
+    /**
+     * The max number of strings in the per-connection symbol table, 0 means the symbol table is disabled
+     */
+    public static final String SYMBOL_TABLE_KEY = "symbol.table";
+
+    /**
+     * The default max number of strings in the per-connection symbol table
+     *
+     * @see #SYMBOL_TABLE_KEY
+     */
+    public static final int DEFAULT_SYMBOL_TABLE = 1024;
+
+    /**
+     * Symbol table in channel
+     */
+    public static final String CHANNEL_SYMBOL_TABLE_KEY = "channel.symbol.table.key";
+
+    /**
+     * Announces the symbol table support to the peer, passed as an attachment until negotiated
+     */
+    public static final String SYMBOL_ATTACHMENT_KEY = "_SYM";
+
+    /**
+     * Provider load feedback. The consumer announces it in the request attachments, the provider replies with
+     * "queue,active,threads,cpu" in the response attachments
+     */
+    public static final String LOAD_ATTACHMENT_KEY = "_load";
+
+    /**
+     * The min interval in milliseconds between two load feedbacks on one connection
+     */
+    public static final String LOAD_FEEDBACK_INTERVAL_KEY = "load.feedback.interval";
+
+    public static final int DEFAULT_LOAD_FEEDBACK_INTERVAL = 100;
+
+    /**
+     * Load feedback state in channel
+     */
+    public static final String CHANNEL_LOAD_FEEDBACK_KEY = "channel.load.feedback.key";
+
+    /**
+     * The load balance weighted by the provider load feedback
+     */
+    public static final String LOAD_FEEDBACK_LOADBALANCE = "feedback";
+
     @Deprecated
     public static final String SHUTDOWN_WAIT_SECONDS_KEY = "dubbo.service.shutdown.wait.seconds";
 
@@ -604,6 +885,11 @@ public class Constants {
 
     public static final String LOCAL_PROTOCOL = "injvm";
 
+    /**
+     * Cloner used by injvm to copy arguments and results, true or default means serialization
+     */
+    public static final String INJVM_COPY_KEY = "injvm.copy";
+
     public static final String AUTO_ATTACH_INVOCATIONID_KEY = "invocationid.autoattach";
 
     public static final String SCOPE_KEY = "scope";
@@ -633,6 +919,26 @@ public class Constants {
      */
     public static final long DEFAULT_TPS_LIMIT_INTERVAL = 60 * 1000;
 
+    /**
+     * TPS 限制 - 算法配置项：fixed 固定窗口、token 令牌桶、sliding 滑动窗口
+     */
+    public static final String TPS_LIMIT_STRATEGY_KEY = "tps.strategy";
+
+    /**
+     * TPS 限制 - 算法默认值
+     */
+    public static final String DEFAULT_TPS_LIMIT_STRATEGY = "fixed";
+
+    /**
+     * TPS 限制 - 令牌桶容量配置项，默认等于大小配置项
+     */
+    public static final String TPS_LIMIT_BURST_KEY = "tps.burst";
+
+    /**
+     * TPS 限制 - 服务消费者应用的配额配置项，例如 "app1:100,app2:200,*:50" ，`*` 为其它每个应用的配额
+     */
+    public static final String TPS_LIMIT_QUOTA_KEY = "tps.quota";
+
     public static final String DECODE_IN_IO_THREAD_KEY = "decode.in.io";
 
     public static final boolean DEFAULT_DECODE_IN_IO_THREAD = true;
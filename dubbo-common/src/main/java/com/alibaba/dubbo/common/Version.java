@@ -33,6 +33,11 @@ public final class Version {
 
     private static final String DEFAULT_DUBBO_VERSION = "2.0.0";
 
+    /**
+     * 协议版本，写入请求和响应
+     */
+    private static final String PROTOCOL_VERSION = "2.0.0";
+
     private static final Logger logger = LoggerFactory.getLogger(Version.class);
 
     private static final String VERSION = getVersion(Version.class, DEFAULT_DUBBO_VERSION);
@@ -49,6 +54,10 @@ public final class Version {
         return VERSION;
     }
 
+    public static String getProtocolVersion() {
+        return PROTOCOL_VERSION;
+    }
+
 
     private static boolean hasResource(String path) {
         try {
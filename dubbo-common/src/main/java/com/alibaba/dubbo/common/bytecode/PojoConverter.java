@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.bytecode;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.ClassHelper;
+import com.alibaba.dubbo.common.utils.ReflectUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PojoConverter.
+ * <p>
+ * 每个 POJO 类生成一个转换器，直接调用 getter / setter / public 属性，在 POJO 与 Map 之间转换，避免 {@link com.alibaba.dubbo.common.utils.PojoUtils} 每次反射扫描方法。
+ * <p>
+ * 属性值的递归转换，仍交给 {@link Generalizer} / {@link Realizer} 处理。
+ */
+public abstract class PojoConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PojoConverter.class);
+
+    /**
+     * PojoConverter 对象缓存
+     * key ：POJO 类
+     * value ：PojoConverter 对象，不支持生成的类为 {@link #UNSUPPORTED}
+     */
+    private static final ConcurrentMap<Class<?>, Object> CONVERTER_MAP = new ConcurrentHashMap<Class<?>, Object>();
+
+    /**
+     * 不支持生成转换器的占位对象
+     */
+    private static final Object UNSUPPORTED = new Object();
+
+    /**
+     * PojoConverter Class 计数，用于生成 PojoConverter 类名自增。
+     */
+    private static final AtomicLong CONVERTER_CLASS_COUNTER = new AtomicLong(0);
+
+    /**
+     * 获得 PojoConverter 对象
+     *
+     * @param c POJO 类
+     * @return PojoConverter 对象，不支持生成时（非 public 类、重载的 setter 等）返回 null ，由调用方反射处理
+     */
+    public static PojoConverter getConverter(Class<?> c) {
+        Object ret = CONVERTER_MAP.get(c);
+        if (ret == null) {
+            PojoConverter converter = makeConverter(c);
+            ret = converter == null ? UNSUPPORTED : converter;
+            Object old = CONVERTER_MAP.putIfAbsent(c, ret);
+            if (old != null) {
+                ret = old;
+            }
+        }
+        return ret == UNSUPPORTED ? null : (PojoConverter) ret;
+    }
+
+    private static PojoConverter makeConverter(Class<?> c) {
+        if (c.isPrimitive() || c.isArray() || c.isInterface() || Proxy.isProxyClass(c) || ClassGenerator.isDynamicClass(c) || !isPublic(c)) {
+            return null;
+        }
+        String name = ReflectUtils.getName(c);
+
+        // `#generalize(pojo, map, generalizer)` 的代码
+        StringBuilder c1 = new StringBuilder("public void generalize(Object o, java.util.Map m, ").append(Generalizer.class.getName()).append(" g){ ");
+        c1.append(name).append(" w = (").append(name).append(")$1; ");
+        int count = 0;
+        for (Method method : c.getMethods()) {
+            if (ReflectUtils.isBeanPropertyReadMethod(method)) {
+                if (!isPublic(method.getDeclaringClass())) {
+                    return null;
+                }
+                c1.append("$2.put(\"").append(ReflectUtils.getPropertyNameFromBeanReadMethod(method)).append("\", $3.generalize(($w)w.").append(method.getName()).append("())); ");
+                count++;
+            }
+        }
+        // public 属性，getter 已写入的属性跳过，null 值不写入
+        for (Field field : c.getFields()) {
+            if (ReflectUtils.isPublicInstanceField(field)) {
+                if (!isPublic(field.getDeclaringClass())) {
+                    return null;
+                }
+                String fn = field.getName();
+                c1.append("if (!$2.containsKey(\"").append(fn).append("\")) { Object v").append(count).append(" = ($w)w.").append(fn).append("; ");
+                c1.append("if (v").append(count).append(" != null) { $2.put(\"").append(fn).append("\", $3.generalize(v").append(count).append(")); } } ");
+                count++;
+            }
+        }
+        c1.append("}");
+
+        // `#realize(pojo, map, realizer)` 的代码，null 值不设置
+        StringBuilder c2 = new StringBuilder("public void realize(Object o, java.util.Map m, ").append(Realizer.class.getName()).append(" r){ ");
+        c2.append(name).append(" w = (").append(name).append(")$1; Object v; ");
+        Set<String> wps = new HashSet<String>();
+        List<Class<?>> pts = new ArrayList<Class<?>>();
+        List<Type> gts = new ArrayList<Type>();
+        for (Method method : c.getMethods()) {
+            if (ReflectUtils.isBeanPropertyWriteMethod(method) && !method.isBridge()) {
+                String pn = ReflectUtils.getPropertyNameFromBeanWriteMethod(method);
+                // 重载的 setter 需按值的类型选择，不支持
+                if (!isPublic(method.getDeclaringClass()) || !wps.add(pn)) {
+                    return null;
+                }
+                int i = pts.size();
+                pts.add(method.getParameterTypes()[0]);
+                gts.add(method.getGenericParameterTypes()[0]);
+                // setter 的异常，与反射设置一样包装，带上属性名和值
+                c2.append("v = $2.get(\"").append(pn).append("\"); if (v != null) { v = $3.realize(v, pts[").append(i).append("], gts[").append(i).append("]); ");
+                c2.append("try { w.").append(method.getName()).append("(").append(arg(method.getParameterTypes()[0], "v")).append("); } ");
+                c2.append("catch (Throwable e) { throw ").append(PojoConverter.class.getName()).append(".setFailed(w, \"").append(pn).append("\", v, e); } } ");
+            }
+        }
+        c2.append("}");
+
+        ClassGenerator cc = ClassGenerator.newInstance(ClassHelper.getClassLoader(c));
+        try {
+            cc.setClassName(PojoConverter.class.getName() + CONVERTER_CLASS_COUNTER.getAndIncrement());
+            cc.setSuperClass(PojoConverter.class);
+            cc.addDefaultConstructor();
+            cc.addField("public static Class[] pts;"); // setter parameter type array.
+            cc.addField("public static " + Type.class.getName() + "[] gts;"); // setter generic parameter type array.
+            cc.addField("public static " + Set.class.getName() + " wps;"); // write property name set.
+            cc.addMethod("public int getPropertyCount(){ return " + count + "; }");
+            cc.addMethod("public boolean hasWriteProperty(String n){ return wps.contains($1); }");
+            cc.addMethod(c1.toString());
+            cc.addMethod(c2.toString());
+
+            Class<?> pc = cc.toClass();
+            pc.getField("pts").set(null, pts.toArray(new Class<?>[0]));
+            pc.getField("gts").set(null, gts.toArray(new Type[0]));
+            pc.getField("wps").set(null, wps);
+            return (PojoConverter) pc.newInstance();
+        } catch (Throwable e) {
+            logger.warn("Failed to make pojo converter for " + c.getName() + ", fallback to reflection, cause: " + e.getMessage(), e);
+            return null;
+        } finally {
+            cc.release();
+        }
+    }
+
+    private static boolean isPublic(Class<?> c) {
+        for (Class<?> k = c; k != null; k = k.getDeclaringClass()) {
+            if (!Modifier.isPublic(k.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String arg(Class<?> cl, String name) {
+        if (cl.isPrimitive()) {
+            if (cl == Boolean.TYPE)
+                return "((Boolean)" + name + ").booleanValue()";
+            if (cl == Character.TYPE)
+                return "((Character)" + name + ").charValue()";
+            if (cl == Byte.TYPE)
+                return "((Number)" + name + ").byteValue()";
+            if (cl == Double.TYPE)
+                return "((Number)" + name + ").doubleValue()";
+            if (cl == Float.TYPE)
+                return "((Number)" + name + ").floatValue()";
+            if (cl == Integer.TYPE)
+                return "((Number)" + name + ").intValue()";
+            if (cl == Long.TYPE)
+                return "((Number)" + name + ").longValue()";
+            if (cl == Short.TYPE)
+                return "((Number)" + name + ").shortValue()";
+            throw new RuntimeException("Unknown primitive type: " + cl.getName());
+        }
+        return "(" + ReflectUtils.getName(cl) + ")" + name;
+    }
+
+    /**
+     * 供生成的代码调用，包装 setter 的异常
+     *
+     * @param pojo  POJO
+     * @param name  属性名
+     * @param value 属性值
+     * @param e     异常
+     * @return 包装的异常
+     */
+    public static RuntimeException setFailed(Object pojo, String name, Object value, Throwable e) {
+        return new RuntimeException("Failed to set pojo " + pojo.getClass().getSimpleName() + " property " + name
+                + " value " + value + "(" + (value == null ? null : value.getClass()) + "), cause: " + e.getMessage(), e);
+    }
+
+    /**
+     * 属性数量，用于预估 Map 的容量
+     */
+    public abstract int getPropertyCount();
+
+    /**
+     * 是否有该属性的 setter ，没有的属性由调用方反射处理
+     */
+    public abstract boolean hasWriteProperty(String name);
+
+    /**
+     * POJO 的属性写入 Map
+     */
+    public abstract void generalize(Object pojo, Map<Object, Object> map, Generalizer generalizer);
+
+    /**
+     * Map 中的值通过 setter 设置到 POJO
+     */
+    public abstract void realize(Object pojo, Map<Object, Object> map, Realizer realizer);
+
+    /**
+     * 属性值的转换
+     */
+    public interface Generalizer {
+
+        Object generalize(Object value);
+
+    }
+
+    /**
+     * 属性值的还原
+     */
+    public interface Realizer {
+
+        Object realize(Object value, Class<?> type, Type genericType);
+
+    }
+
+}
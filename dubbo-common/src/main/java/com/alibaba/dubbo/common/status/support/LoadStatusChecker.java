@@ -30,16 +30,22 @@ import java.lang.reflect.Method;
 @Activate
 public class LoadStatusChecker implements StatusChecker {
 
-    public Status check() {
+    /**
+     * @return 最近一分钟的系统平均负载，不支持时返回负数
+     */
+    public static double getSystemLoadAverage() {
         OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
-        double load;
         try {
             Method method = OperatingSystemMXBean.class.getMethod("getSystemLoadAverage", new Class<?>[0]);
-            load = (Double) method.invoke(operatingSystemMXBean, new Object[0]);
+            return (Double) method.invoke(operatingSystemMXBean, new Object[0]);
         } catch (Throwable e) {
-            load = -1;
+            return -1;
         }
-        int cpu = operatingSystemMXBean.getAvailableProcessors();
+    }
+
+    public Status check() {
+        double load = getSystemLoadAverage();
+        int cpu = ManagementFactory.getOperatingSystemMXBean().getAvailableProcessors();
         return new Status(load < 0 ? Status.Level.UNKNOWN : (load < cpu ? Status.Level.OK : Status.Level.WARN), (load < 0 ? "" : "load:" + load + ",") + "cpu:" + cpu);
     }
 
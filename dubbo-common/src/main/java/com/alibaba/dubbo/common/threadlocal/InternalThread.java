@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadlocal;
+
+/**
+ * InternalThread
+ * <p>
+ * 持有 {@link InternalThreadLocalMap} 的线程，{@link InternalThreadLocal} 在该线程上以数组下标直接访问，无需哈希查找。
+ */
+public class InternalThread extends Thread {
+
+    /**
+     * 线程变量集合
+     */
+    private InternalThreadLocalMap threadLocalMap;
+
+    public InternalThread() {
+    }
+
+    public InternalThread(Runnable target) {
+        super(target);
+    }
+
+    public InternalThread(ThreadGroup group, Runnable target) {
+        super(group, target);
+    }
+
+    public InternalThread(String name) {
+        super(name);
+    }
+
+    public InternalThread(ThreadGroup group, String name) {
+        super(group, name);
+    }
+
+    public InternalThread(Runnable target, String name) {
+        super(target, name);
+    }
+
+    public InternalThread(ThreadGroup group, Runnable target, String name) {
+        super(group, target, name);
+    }
+
+    public InternalThread(ThreadGroup group, Runnable target, String name, long stackSize) {
+        super(group, target, name, stackSize);
+    }
+
+    /**
+     * 仅由 {@link InternalThreadLocalMap} 调用
+     */
+    public final InternalThreadLocalMap threadLocalMap() {
+        return threadLocalMap;
+    }
+
+    /**
+     * 仅由 {@link InternalThreadLocalMap} 调用
+     */
+    public final void setThreadLocalMap(InternalThreadLocalMap threadLocalMap) {
+        this.threadLocalMap = threadLocalMap;
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadlocal;
+
+/**
+ * InternalThreadLocal
+ * <p>
+ * 以数组下标访问的线程变量，用法与 {@link ThreadLocal} 相同。
+ * <p>
+ * 在 {@link InternalThread} 上访问时，直接读取线程持有的 {@link InternalThreadLocalMap} 的数组，比 {@link ThreadLocal} 的哈希查找更快；
+ * 在其它线程上访问时，退化为一次 {@link ThreadLocal} 查找。
+ * <p>
+ * 每个实例占用一个全局的数组下标，且不回收，仅用于数量固定的静态变量，例如 RpcContext 。按需创建的实例应使用 {@link ThreadLocal} 。
+ *
+ * @see com.alibaba.dubbo.common.utils.NamedInternalThreadFactory
+ */
+public class InternalThreadLocal<V> {
+
+    /**
+     * 数组下标
+     */
+    private final int index;
+
+    public InternalThreadLocal() {
+        index = InternalThreadLocalMap.nextVariableIndex();
+    }
+
+    /**
+     * 移除当前线程的所有线程变量
+     */
+    public static void removeAll() {
+        InternalThreadLocalMap.remove();
+    }
+
+    @SuppressWarnings("unchecked")
+    public final V get() {
+        InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
+        Object v = threadLocalMap.indexedVariable(index);
+        if (v != InternalThreadLocalMap.UNSET) {
+            return (V) v;
+        }
+        return initialize(threadLocalMap);
+    }
+
+    public final void set(V value) {
+        InternalThreadLocalMap.get().setIndexedVariable(index, value);
+    }
+
+    public final void remove() {
+        InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.getIfSet();
+        if (threadLocalMap != null) {
+            threadLocalMap.removeIndexedVariable(index);
+        }
+    }
+
+    /**
+     * 初始值，默认为 null
+     */
+    protected V initialValue() {
+        return null;
+    }
+
+    private V initialize(InternalThreadLocalMap threadLocalMap) {
+        V v = initialValue();
+        threadLocalMap.setIndexedVariable(index, v);
+        return v;
+    }
+
+}
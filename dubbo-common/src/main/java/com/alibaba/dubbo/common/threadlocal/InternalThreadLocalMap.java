@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadlocal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InternalThreadLocalMap
+ * <p>
+ * 线程变量集合，每个 {@link InternalThreadLocal} 在创建时分配一个下标，变量值保存在数组的对应位置。
+ * <p>
+ * {@link InternalThread} 直接持有该集合；其它线程通过一个普通的 {@link ThreadLocal} 获得该集合。
+ */
+public final class InternalThreadLocalMap {
+
+    /**
+     * 未设置的占位对象
+     */
+    public static final Object UNSET = new Object();
+
+    /**
+     * 非 InternalThread 线程的线程变量集合
+     */
+    private static final ThreadLocal<InternalThreadLocalMap> slowThreadLocalMap = new ThreadLocal<InternalThreadLocalMap>();
+
+    /**
+     * 下标自增序列
+     */
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * 线程变量数组
+     */
+    private Object[] indexedVariables;
+
+    private InternalThreadLocalMap() {
+        indexedVariables = newIndexedVariableTable();
+    }
+
+    /**
+     * 获得当前线程的线程变量集合，不存在时返回 null
+     */
+    public static InternalThreadLocalMap getIfSet() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof InternalThread) {
+            return ((InternalThread) thread).threadLocalMap();
+        }
+        return slowThreadLocalMap.get();
+    }
+
+    /**
+     * 获得当前线程的线程变量集合，不存在时创建
+     */
+    public static InternalThreadLocalMap get() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof InternalThread) {
+            return fastGet((InternalThread) thread);
+        }
+        return slowGet();
+    }
+
+    /**
+     * 移除当前线程的线程变量集合
+     */
+    public static void remove() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof InternalThread) {
+            ((InternalThread) thread).setThreadLocalMap(null);
+        } else {
+            slowThreadLocalMap.remove();
+        }
+    }
+
+    public static int nextVariableIndex() {
+        int index = nextIndex.getAndIncrement();
+        if (index < 0) {
+            nextIndex.decrementAndGet();
+            throw new IllegalStateException("Too many thread-local indexed variables");
+        }
+        return index;
+    }
+
+    public Object indexedVariable(int index) {
+        Object[] lookup = indexedVariables;
+        return index < lookup.length ? lookup[index] : UNSET;
+    }
+
+    /**
+     * 设置变量值
+     *
+     * @return 是否新设置的值，即原值为 {@link #UNSET}
+     */
+    public boolean setIndexedVariable(int index, Object value) {
+        Object[] lookup = indexedVariables;
+        if (index < lookup.length) {
+            Object oldValue = lookup[index];
+            lookup[index] = value;
+            return oldValue == UNSET;
+        }
+        expandIndexedVariableTableAndSet(index, value);
+        return true;
+    }
+
+    public Object removeIndexedVariable(int index) {
+        Object[] lookup = indexedVariables;
+        if (index < lookup.length) {
+            Object v = lookup[index];
+            lookup[index] = UNSET;
+            return v;
+        }
+        return UNSET;
+    }
+
+    private static Object[] newIndexedVariableTable() {
+        Object[] array = new Object[INITIAL_CAPACITY];
+        Arrays.fill(array, UNSET);
+        return array;
+    }
+
+    private static InternalThreadLocalMap fastGet(InternalThread thread) {
+        InternalThreadLocalMap threadLocalMap = thread.threadLocalMap();
+        if (threadLocalMap == null) {
+            threadLocalMap = new InternalThreadLocalMap();
+            thread.setThreadLocalMap(threadLocalMap);
+        }
+        return threadLocalMap;
+    }
+
+    private static InternalThreadLocalMap slowGet() {
+        InternalThreadLocalMap ret = slowThreadLocalMap.get();
+        if (ret == null) {
+            ret = new InternalThreadLocalMap();
+            slowThreadLocalMap.set(ret);
+        }
+        return ret;
+    }
+
+    private void expandIndexedVariableTableAndSet(int index, Object value) {
+        Object[] oldArray = indexedVariables;
+        final int oldCapacity = oldArray.length;
+        // 扩容到大于 index 的最小 2 的幂
+        int newCapacity = index;
+        newCapacity |= newCapacity >>> 1;
+        newCapacity |= newCapacity >>> 2;
+        newCapacity |= newCapacity >>> 4;
+        newCapacity |= newCapacity >>> 8;
+        newCapacity |= newCapacity >>> 16;
+        newCapacity++;
+
+        Object[] newArray = Arrays.copyOf(oldArray, newCapacity);
+        Arrays.fill(newArray, oldCapacity, newArray.length, UNSET);
+        newArray[index] = value;
+        indexedVariables = newArray;
+    }
+
+}
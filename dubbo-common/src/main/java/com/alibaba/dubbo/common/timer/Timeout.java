@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.timer;
+
+/**
+ * A handle associated with a {@link TimerTask} that is returned by a {@link Timer}.
+ * <p>
+ * 定时任务的句柄，可以取消任务
+ */
+public interface Timeout {
+
+    /**
+     * @return the {@link Timer} that created this handle
+     */
+    Timer timer();
+
+    /**
+     * @return the {@link TimerTask} which is associated with this handle
+     */
+    TimerTask task();
+
+    /**
+     * @return true if and only if the {@link TimerTask} associated with this handle has been expired
+     */
+    boolean isExpired();
+
+    /**
+     * @return true if and only if the {@link TimerTask} associated with this handle has been cancelled
+     */
+    boolean isCancelled();
+
+    /**
+     * Attempts to cancel the {@link TimerTask} associated with this handle.
+     *
+     * @return true if the cancellation completed successfully, otherwise false
+     */
+    boolean cancel();
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import com.alibaba.dubbo.common.Constants;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LogBucketHistogram
+ * <p>
+ * 按对数分桶的直方图，内存固定，记录时无锁。
+ * 小于 16 的值每个值一个桶；其余按 2 的幂分段，每段再均分为 8 个桶，相对误差不超过 12.5% 。
+ * 桶的划分固定，不同实例（例如不同主机）的计数可直接按桶相加合并。
+ */
+public class LogBucketHistogram {
+
+    /**
+     * 每段的子桶数的位数
+     */
+    private static final int SUB_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * 线性桶的数量
+     */
+    private static final int LINEAR = SUB_BUCKETS << 1;
+
+    /**
+     * 可记录的最大值的位数，更大的值计入最后一个桶
+     */
+    private static final int MAX_BITS = 24;
+
+    /**
+     * 桶的数量
+     */
+    public static final int BUCKETS = LINEAR + (MAX_BITS - SUB_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值，负数按 0 记录
+     */
+    public void record(long value) {
+        buckets.incrementAndGet(index(value));
+    }
+
+    /**
+     * 记录多个相同的值
+     */
+    public void record(long value, long count) {
+        if (count > 0) {
+            buckets.addAndGet(index(value), count);
+        }
+    }
+
+    /**
+     * 合并计数
+     *
+     * @param counts 按桶的计数
+     */
+    public void merge(long[] counts) {
+        for (int i = 0; i < counts.length && i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                buckets.addAndGet(i, counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @return 按桶的计数
+     */
+    public long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * 取出按桶的计数并清零，并发记录的值保留到下次
+     *
+     * @return 按桶的计数
+     */
+    public long[] drain() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets.get(i) != 0) {
+                counts[i] = buckets.getAndSet(i, 0);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 获得值所在的桶
+     */
+    public static int index(long value) {
+        if (value < LINEAR) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - SUB_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return 桶内的最大值
+     */
+    public static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+        int sub = (index - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((SUB_BUCKETS + sub) * width) + width - 1;
+    }
+
+    /**
+     * 获得百分位数，返回所在桶的最大值
+     *
+     * @param counts   按桶的计数
+     * @param quantile 分位，取值 [0, 1]
+     * @return 百分位数，无记录时返回 0
+     */
+    public static long percentile(long[] counts, double quantile) {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * 编码为紧凑的字符串，只包含非零的桶，例如：<code>3:10,17:2</code>
+     *
+     * @param counts 按桶的计数
+     * @return 编码，无记录时返回空字符串
+     */
+    public static String encode(long[] counts) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                if (buf.length() > 0) {
+                    buf.append(',');
+                }
+                buf.append(i).append(':').append(counts[i]);
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * 解码 {@link #encode(long[])} 的结果
+     *
+     * @param value 编码
+     * @return 按桶的计数
+     */
+    public static long[] decode(String value) {
+        long[] counts = new long[BUCKETS];
+        if (value == null || value.length() == 0) {
+            return counts;
+        }
+        for (String pair : Constants.COMMA_SPLIT_PATTERN.split(value)) {
+            int i = pair.indexOf(':');
+            if (i <= 0) {
+                throw new IllegalArgumentException("Illegal histogram: " + value);
+            }
+            int index = Integer.parseInt(pair.substring(0, i).trim());
+            if (index < 0 || index >= BUCKETS) {
+                throw new IllegalArgumentException("Illegal histogram bucket " + index + ": " + value);
+            }
+            counts[index] += Long.parseLong(pair.substring(i + 1).trim());
+        }
+        return counts;
+    }
+
+}
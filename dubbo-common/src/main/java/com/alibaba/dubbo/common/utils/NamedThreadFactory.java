@@ -26,13 +26,13 @@ public class NamedThreadFactory implements ThreadFactory {
 
     private static final AtomicInteger POOL_SEQ = new AtomicInteger(1);
 
-    private final AtomicInteger mThreadNum = new AtomicInteger(1);
+    protected final AtomicInteger mThreadNum = new AtomicInteger(1);
 
-    private final String mPrefix;
+    protected final String mPrefix;
 
-    private final boolean mDaemon;
+    protected final boolean mDaemon;
 
-    private final ThreadGroup mGroup;
+    protected final ThreadGroup mGroup;
 
     public NamedThreadFactory() {
         this("pool-" + POOL_SEQ.getAndIncrement(), false);
@@ -16,6 +16,8 @@
  */
 package com.alibaba.dubbo.common.utils;
 
+import com.alibaba.dubbo.common.bytecode.PojoConverter;
+
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -90,11 +92,11 @@ public class PojoUtils {
     }
 
     public static Object generalize(Object pojo) {
-        return generalize(pojo, new IdentityHashMap<Object, Object>());
+        return generalize(pojo, new History());
     }
 
     @SuppressWarnings("unchecked")
-    private static Object generalize(Object pojo, Map<Object, Object> history) {
+    private static Object generalize(Object pojo, History history) {
         if (pojo == null) {
             return null;
         }
@@ -154,6 +156,20 @@ public class PojoUtils {
             }
             return dest;
         }
+        // 使用生成的转换器，避免反射
+        PojoConverter converter = PojoConverter.getConverter(pojo.getClass());
+        if (converter != null) {
+            Map<Object, Object> map = new HashMap<Object, Object>((converter.getPropertyCount() + 1) * 4 / 3 + 1);
+            history.put(pojo, map);
+            map.put("class", pojo.getClass().getName());
+            // getter 的异常，与反射调用一样包装
+            try {
+                converter.generalize(pojo, map, history);
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            return map;
+        }
         Map<String, Object> map = new HashMap<String, Object>();
         history.put(pojo, map);
         map.put("class", pojo.getClass().getName());
@@ -190,11 +206,11 @@ public class PojoUtils {
     }
 
     public static Object realize(Object pojo, Class<?> type) {
-        return realize0(pojo, type, null, new IdentityHashMap<Object, Object>());
+        return realize0(pojo, type, null, new History());
     }
 
     public static Object realize(Object pojo, Class<?> type, Type genericType) {
-        return realize0(pojo, type, genericType, new IdentityHashMap<Object, Object>());
+        return realize0(pojo, type, genericType, new History());
     }
 
     private static class PojoInvocationHandler implements InvocationHandler {
@@ -220,7 +236,7 @@ public class PojoUtils {
                 value = map.get(methodName.substring(0, 1).toLowerCase() + methodName.substring(1));
             }
             if (value instanceof Map<?, ?> && !Map.class.isAssignableFrom(method.getReturnType())) {
-                value = realize0((Map<String, Object>) value, method.getReturnType(), null, new IdentityHashMap<Object, Object>());
+                value = realize0((Map<String, Object>) value, method.getReturnType(), null, new History());
             }
             return value;
         }
@@ -286,7 +302,7 @@ public class PojoUtils {
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private static Object realize0(Object pojo, Class<?> type, Type genericType, final Map<Object, Object> history) {
+    private static Object realize0(Object pojo, Class<?> type, Type genericType, final History history) {
         if (pojo == null) {
             return null;
         }
@@ -436,9 +452,14 @@ public class PojoUtils {
             } else {
                 Object dest = newInstance(type);
                 history.put(pojo, dest);
+                // 使用生成的转换器设置有 setter 的属性，其余属性反射设置
+                PojoConverter converter = PojoConverter.getConverter(dest.getClass());
+                if (converter != null) {
+                    converter.realize(dest, map, history);
+                }
                 for (Map.Entry<Object, Object> entry : map.entrySet()) {
                     Object key = entry.getKey();
-                    if (key instanceof String) {
+                    if (key instanceof String && (converter == null || !converter.hasWriteProperty((String) key))) {
                         String name = (String) key;
                         Object value = entry.getValue();
                         if (value != null) {
@@ -584,6 +605,23 @@ public class PojoUtils {
         return result;
     }
 
+    /**
+     * 已转换对象的记录，同时作为转换器的属性值转换回调
+     */
+    private static class History extends IdentityHashMap<Object, Object> implements PojoConverter.Generalizer, PojoConverter.Realizer {
+
+        private static final long serialVersionUID = 1L;
+
+        public Object generalize(Object value) {
+            return PojoUtils.generalize(value, this);
+        }
+
+        public Object realize(Object value, Class<?> type, Type genericType) {
+            return realize0(value, type, genericType, this);
+        }
+
+    }
+
     public static boolean isPojo(Class<?> cls) {
         return !ReflectUtils.isPrimitives(cls)
                 && !Collection.class.isAssignableFrom(cls)
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RollingCounter
+ * <p>
+ * 滚动窗口计数器。窗口由环形的多个时间片组成，每个时间片是一组 {@link StripedCounter} ，每个计数项一个。
+ * 记录时无锁，只累加一个分片计数器；过期的时间片在下次写入时清零复用，方式同 {@link RollingHistogram} 。
+ * <p>
+ * 只需要次数与总和、不需要分布时使用，比 {@link RollingHistogram} 的记录与读取都更轻。
+ */
+public class RollingCounter {
+
+    /**
+     * 时间片清零中的编号
+     */
+    private static final long RESETTING = -2;
+
+    private final Slot[] slots;
+
+    private final long slotMillis;
+
+    /**
+     * @param fields 计数项的数量
+     */
+    public RollingCounter(int fields) {
+        this(fields, RollingHistogram.DEFAULT_SLOTS, RollingHistogram.DEFAULT_SLOT_MILLIS);
+    }
+
+    public RollingCounter(int fields, int slots, long slotMillis) {
+        if (fields <= 0 || slots <= 0 || slotMillis <= 0) {
+            throw new IllegalArgumentException("fields, slots and slotMillis must be positive");
+        }
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new Slot(fields);
+        }
+        this.slotMillis = slotMillis;
+    }
+
+    /**
+     * 累加计数项
+     *
+     * @param field 计数项的下标
+     * @param delta 增量
+     */
+    public void add(int field, long delta) {
+        add(field, delta, System.currentTimeMillis());
+    }
+
+    public void increment(int field) {
+        add(field, 1L, System.currentTimeMillis());
+    }
+
+    void add(int field, long delta, long now) {
+        long epoch = now / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+        for (; ; ) {
+            long current = slot.epoch.get();
+            // 当前时间片，或已被更晚的时间复用（线程延迟），直接记录
+            if (current >= epoch) {
+                break;
+            }
+            // 时间片已过期，由一个线程清零后复用，其它线程等待清零完成
+            if (current != RESETTING && slot.epoch.compareAndSet(current, RESETTING)) {
+                slot.reset();
+                slot.epoch.set(epoch);
+                break;
+            }
+            Thread.yield();
+        }
+        slot.counters[field].add(delta);
+    }
+
+    /**
+     * @param field 计数项的下标
+     * @return 当前窗口内计数项的和
+     */
+    public long sum(int field) {
+        return sum(field, System.currentTimeMillis());
+    }
+
+    long sum(int field, long now) {
+        long epoch = now / slotMillis;
+        long sum = 0;
+        for (Slot slot : slots) {
+            long e = slot.epoch.get();
+            // 仅合并窗口内的时间片
+            if (e > epoch - slots.length && e <= epoch) {
+                sum += slot.counters[field].sum();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 时间片
+     */
+    private static final class Slot {
+
+        /**
+         * 时间片编号，即开始时间 / 时间片时长
+         */
+        private final AtomicLong epoch = new AtomicLong(-1);
+
+        private final StripedCounter[] counters;
+
+        private Slot(int fields) {
+            counters = new StripedCounter[fields];
+            for (int i = 0; i < fields; i++) {
+                counters[i] = new StripedCounter();
+            }
+        }
+
+        private void reset() {
+            for (StripedCounter counter : counters) {
+                counter.reset();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RollingHistogram
+ * <p>
+ * 滚动窗口直方图。窗口由环形的多个时间片组成，每个时间片是一组按对数分桶的计数器，
+ * 记录时无锁，过期的时间片在下次写入时清零复用。
+ * <p>
+ * 记录只累加一个桶与分片的和，次数由各桶的计数合并得到。时间片的桶在首次写入时才创建，空闲的实例只占用很少的内存。
+ * 清零时时间片编号置为 {@link #RESETTING} ，同一时间片的写入等待清零完成，不会被清零覆盖。
+ * <p>
+ * 分桶见 {@link LogBucketHistogram} 。
+ */
+public class RollingHistogram {
+
+    /**
+     * 默认时间片数
+     */
+    public static final int DEFAULT_SLOTS = 10;
+
+    /**
+     * 默认时间片时长，单位：毫秒
+     */
+    public static final long DEFAULT_SLOT_MILLIS = 1000;
+
+    /**
+     * 时间片清零中的编号
+     */
+    private static final long RESETTING = -2;
+
+    private final Slot[] slots;
+
+    private final long slotMillis;
+
+    public RollingHistogram() {
+        this(DEFAULT_SLOTS, DEFAULT_SLOT_MILLIS);
+    }
+
+    public RollingHistogram(int slots, long slotMillis) {
+        if (slots <= 0 || slotMillis <= 0) {
+            throw new IllegalArgumentException("slots and slotMillis must be positive");
+        }
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.slotMillis = slotMillis;
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值，负数按 0 记录
+     */
+    public void record(long value) {
+        record(value, System.currentTimeMillis());
+    }
+
+    void record(long value, long now) {
+        long epoch = now / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+        for (; ; ) {
+            long current = slot.epoch.get();
+            // 当前时间片，或已被更晚的时间复用（线程延迟），直接记录
+            if (current >= epoch) {
+                break;
+            }
+            // 时间片已过期，由一个线程清零后复用，其它线程等待清零完成
+            if (current != RESETTING && slot.epoch.compareAndSet(current, RESETTING)) {
+                slot.reset();
+                slot.epoch.set(epoch);
+                break;
+            }
+            Thread.yield();
+        }
+        value = Math.max(0, value);
+        slot.buckets.incrementAndGet(LogBucketHistogram.index(value));
+        slot.sum.add(value);
+    }
+
+    /**
+     * @return 当前窗口的快照
+     */
+    public Snapshot snapshot() {
+        return snapshot(System.currentTimeMillis());
+    }
+
+    Snapshot snapshot(long now) {
+        long epoch = now / slotMillis;
+        long[] counts = new long[LogBucketHistogram.BUCKETS];
+        long count = 0;
+        long sum = 0;
+        for (Slot slot : slots) {
+            long e = slot.epoch.get();
+            // 仅合并窗口内的时间片
+            if (e > epoch - slots.length && e <= epoch) {
+                AtomicLongArray buckets = slot.buckets;
+                for (int i = 0; i < LogBucketHistogram.BUCKETS; i++) {
+                    long c = buckets.get(i);
+                    counts[i] += c;
+                    count += c;
+                }
+                sum += slot.sum.sum();
+            }
+        }
+        // 当前时间片只经过了一部分
+        long window = (slots.length - 1) * slotMillis + now % slotMillis + 1;
+        return new Snapshot(counts, count, sum, window);
+    }
+
+    /**
+     * 时间片
+     */
+    private static final class Slot {
+
+        /**
+         * 时间片编号，即开始时间 / 时间片时长
+         */
+        private final AtomicLong epoch = new AtomicLong(-1);
+
+        /**
+         * 各桶的计数，首次使用时创建。在编号设置前赋值，读到有效编号时可见
+         */
+        private volatile AtomicLongArray buckets;
+
+        private final StripedCounter sum = new StripedCounter();
+
+        private void reset() {
+            AtomicLongArray as = buckets;
+            if (as == null) {
+                buckets = new AtomicLongArray(LogBucketHistogram.BUCKETS);
+            } else {
+                for (int i = 0; i < LogBucketHistogram.BUCKETS; i++) {
+                    as.set(i, 0);
+                }
+            }
+            sum.reset();
+        }
+
+    }
+
+    /**
+     * 窗口快照
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        /**
+         * 窗口时长，单位：毫秒
+         */
+        private final long window;
+
+        Snapshot(long[] counts, long count, long sum, long window) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.window = window;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * @return 每秒记录数
+         */
+        public long getRate() {
+            return count * 1000 / window;
+        }
+
+        /**
+         * 获得百分位数，返回所在桶的最大值
+         *
+         * @param quantile 分位，取值 [0, 1]
+         * @return 百分位数，无记录时返回 0
+         */
+        public long getPercentile(double quantile) {
+            return LogBucketHistogram.percentile(counts, quantile);
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedCounter
+ * <p>
+ * 分片计数器。无竞争时只累加 base ；CAS 失败后才创建分片，线程按编号散列到不同分片累加，求和时合并。
+ * 适用于写多读少的统计场景，读取的和不是原子快照。
+ */
+public class StripedCounter extends Number {
+
+    private static final long serialVersionUID = 2744931596829440585L;
+
+    /**
+     * 分片数，2 的幂
+     */
+    private static final int STRIPES;
+
+    /**
+     * 分片间隔的 long 数量，避免伪共享
+     */
+    private static final int PAD = 8;
+
+    static {
+        int n = Math.min(16, Runtime.getRuntime().availableProcessors());
+        int highest = Integer.highestOneBit(Math.max(1, n));
+        STRIPES = highest == n ? n : highest << 1;
+    }
+
+    private final AtomicLong base = new AtomicLong();
+
+    private volatile AtomicLongArray cells;
+
+    public void add(long x) {
+        AtomicLongArray as = cells;
+        if (as == null) {
+            long b = base.get();
+            if (base.compareAndSet(b, b + x)) {
+                return;
+            }
+            // 出现竞争，创建分片
+            as = inflate();
+        }
+        as.getAndAdd((probe() & (STRIPES - 1)) * PAD, x);
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * @return 当前的和
+     */
+    public long sum() {
+        long sum = base.get();
+        AtomicLongArray as = cells;
+        if (as != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                sum += as.get(i * PAD);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 清零，并发累加时结果不精确
+     */
+    public void reset() {
+        base.set(0L);
+        AtomicLongArray as = cells;
+        if (as != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                as.set(i * PAD, 0L);
+            }
+        }
+    }
+
+    private synchronized AtomicLongArray inflate() {
+        if (cells == null) {
+            cells = new AtomicLongArray(STRIPES * PAD);
+        }
+        return cells;
+    }
+
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32));
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int intValue() {
+        return (int) sum();
+    }
+
+    @Override
+    public long longValue() {
+        return sum();
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    @Override
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+}
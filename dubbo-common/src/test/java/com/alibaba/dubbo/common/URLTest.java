@@ -637,4 +637,14 @@ public class URLTest {
         parameters.put("version", null);
         url.addParameters(parameters);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetMethodParameterCachedNumber() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880?sayHello.rate=0.25&sayHello.weight=1.5&sayHello.size=8589934592");
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0.25, url.getMethodParameter("sayHello", "rate", 0.0), 0.0);
+            assertEquals(1.5f, url.getMethodParameter("sayHello", "weight", 0.0f), 0.0f);
+            assertEquals(8589934592L, url.getMethodParameter("sayHello", "size", 0L));
+        }
+    }
+}
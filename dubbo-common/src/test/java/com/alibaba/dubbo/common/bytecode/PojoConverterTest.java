@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.bytecode;
+
+import com.alibaba.dubbo.common.utils.PojoUtils;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PojoConverterTest {
+
+    @Test
+    public void testGeneralize() throws Exception {
+        PojoConverter converter = PojoConverter.getConverter(Bean.class);
+        assertNotNull(converter);
+        assertSame(converter, PojoConverter.getConverter(Bean.class));
+        assertEquals(6, converter.getPropertyCount());
+
+        Bean bean = new Bean();
+        bean.setName("dubbo");
+        bean.setAge(7);
+        bean.setTags(Arrays.asList("a", "b"));
+        bean.code = "c";
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        converter.generalize(bean, map, new PojoConverter.Generalizer() {
+            public Object generalize(Object value) {
+                return value;
+            }
+        });
+        assertEquals("dubbo", map.get("name"));
+        assertEquals(7, map.get("age"));
+        assertEquals(Boolean.FALSE, map.get("valid"));
+        assertEquals(Arrays.asList("a", "b"), map.get("tags"));
+        assertEquals("c", map.get("code"));
+        assertFalse(map.containsKey("nil"));
+    }
+
+    @Test
+    public void testRealize() throws Exception {
+        PojoConverter converter = PojoConverter.getConverter(Bean.class);
+        assertTrue(converter.hasWriteProperty("name"));
+        assertFalse(converter.hasWriteProperty("code"));
+
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        map.put("name", "dubbo");
+        map.put("age", 7L);
+        map.put("valid", true);
+        Bean bean = new Bean();
+        converter.realize(bean, map, new PojoConverter.Realizer() {
+            public Object realize(Object value, Class<?> type, Type genericType) {
+                return value;
+            }
+        });
+        assertEquals("dubbo", bean.getName());
+        assertEquals(7, bean.getAge());
+        assertTrue(bean.isValid());
+        assertNull(bean.getTags());
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        assertNull(PojoConverter.getConverter(Hidden.class));
+        assertNull(PojoConverter.getConverter(Overloaded.class));
+        assertNull(PojoConverter.getConverter(Runnable.class));
+    }
+
+    @Test
+    public void testPojoUtils() throws Exception {
+        Bean bean = new Bean();
+        bean.setName("dubbo");
+        bean.setAge(7);
+        bean.setTags(Arrays.asList("a", "b"));
+        bean.code = "c";
+        Object generic = PojoUtils.generalize(bean);
+        assertTrue(generic instanceof Map);
+        assertEquals(Bean.class.getName(), ((Map<?, ?>) generic).get("class"));
+
+        Bean realized = (Bean) PojoUtils.realize(generic, Bean.class);
+        assertEquals("dubbo", realized.getName());
+        assertEquals(7, realized.getAge());
+        assertEquals(Arrays.asList("a", "b"), realized.getTags());
+        assertEquals("c", realized.code);
+    }
+
+    @Test
+    public void testExceptions() throws Exception {
+        // 还原的值为 null ，不能设置到基本类型的属性
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        map.put("age", "x");
+        try {
+            PojoConverter.getConverter(Bean.class).realize(new Bean(), map, new PojoConverter.Realizer() {
+                public Object realize(Object value, Class<?> type, Type genericType) {
+                    return null;
+                }
+            });
+            fail();
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage().contains("property age"));
+        }
+        // setter 、getter 的异常被包装
+        map = new HashMap<Object, Object>();
+        map.put("class", Failing.class.getName());
+        map.put("value", "v");
+        try {
+            PojoUtils.realize(map, Failing.class);
+            fail();
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage().contains("property value"));
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        try {
+            PojoUtils.generalize(new Failing());
+            fail();
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    public static class Bean {
+
+        public String code;
+
+        public String nil;
+
+        private String name;
+
+        private int age;
+
+        private boolean valid;
+
+        private List<String> tags;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public void setValid(boolean valid) {
+            this.valid = valid;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+    }
+
+    static class Hidden {
+
+        public String getName() {
+            return null;
+        }
+
+    }
+
+    public static class Failing {
+
+        public String getValue() {
+            throw new IllegalStateException("get");
+        }
+
+        public void setValue(String value) {
+            throw new IllegalStateException("set");
+        }
+
+    }
+
+    public static class Overloaded {
+
+        public void setValue(String value) {
+        }
+
+        public void setValue(int value) {
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadlocal;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+
+import org.junit.Test;
+
+/**
+ * 对比 {@link ThreadLocal} 与 {@link InternalThreadLocal} 在普通线程和 {@link InternalThread} 上的读取耗时
+ * <p>
+ * 只有 {@link InternalThread} （即 Dubbo 线程池创建的线程）走数组下标读取，普通线程仍然经过一次 {@link ThreadLocal} 查找。
+ * <p>
+ * mvn test -Dtest=InternalThreadLocalPerformanceTest -Dbenchmark=true -Dcount=10000000 -Dlocals=16
+ */
+public class InternalThreadLocalPerformanceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InternalThreadLocalPerformanceTest.class);
+
+    @Test
+    public void testPerformance() throws Exception {
+        if (!Boolean.getBoolean("benchmark")) {
+            logger.warn("Please set -Dbenchmark=true");
+            return;
+        }
+        final int count = Integer.getInteger("count", 10000000);
+        // 线程上同时存在的变量个数，ThreadLocalMap 越满，哈希查找越慢
+        final int locals = Integer.getInteger("locals", 16);
+        final ThreadLocal<String>[] threadLocals = newThreadLocals(locals);
+        final InternalThreadLocal<String>[] internalThreadLocals = newInternalThreadLocals(locals);
+        Runnable benchmark = new Runnable() {
+            @Override
+            public void run() {
+                String name = Thread.currentThread().getClass().getSimpleName();
+                measure(name + " ThreadLocal", threadLocals, count);
+                measure(name + " InternalThreadLocal", internalThreadLocals, count);
+            }
+        };
+        Thread thread = new Thread(benchmark);
+        thread.start();
+        thread.join();
+        Thread internalThread = new InternalThread(benchmark);
+        internalThread.start();
+        internalThread.join();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ThreadLocal<String>[] newThreadLocals(int size) {
+        ThreadLocal<String>[] threadLocals = new ThreadLocal[size];
+        for (int i = 0; i < size; i++) {
+            threadLocals[i] = new ThreadLocal<String>();
+        }
+        return threadLocals;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static InternalThreadLocal<String>[] newInternalThreadLocals(int size) {
+        InternalThreadLocal<String>[] threadLocals = new InternalThreadLocal[size];
+        for (int i = 0; i < size; i++) {
+            threadLocals[i] = new InternalThreadLocal<String>();
+        }
+        return threadLocals;
+    }
+
+    private static void measure(String name, ThreadLocal<String>[] threadLocals, int count) {
+        for (int i = 0; i < threadLocals.length; i++) {
+            threadLocals[i].set("value-" + i);
+        }
+        // 预热
+        long hash = read(threadLocals, count / 10);
+        long start = System.nanoTime();
+        hash += read(threadLocals, count);
+        long elapsed = System.nanoTime() - start;
+        System.out.println(name + ": " + count + " reads, " + (elapsed * 1000 / count) + " ps/read (" + hash + ")");
+    }
+
+    private static void measure(String name, InternalThreadLocal<String>[] threadLocals, int count) {
+        for (int i = 0; i < threadLocals.length; i++) {
+            threadLocals[i].set("value-" + i);
+        }
+        // 预热
+        long hash = read(threadLocals, count / 10);
+        long start = System.nanoTime();
+        hash += read(threadLocals, count);
+        long elapsed = System.nanoTime() - start;
+        System.out.println(name + ": " + count + " reads, " + (elapsed * 1000 / count) + " ps/read (" + hash + ")");
+    }
+
+    private static long read(ThreadLocal<String>[] threadLocals, int count) {
+        long hash = 0;
+        for (int i = 0; i < count; i++) {
+            hash += threadLocals[i % threadLocals.length].get().length();
+        }
+        return hash;
+    }
+
+    private static long read(InternalThreadLocal<String>[] threadLocals, int count) {
+        long hash = 0;
+        for (int i = 0; i < count; i++) {
+            hash += threadLocals[i % threadLocals.length].get().length();
+        }
+        return hash;
+    }
+
+}
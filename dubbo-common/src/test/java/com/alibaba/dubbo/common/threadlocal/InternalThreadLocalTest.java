@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadlocal;
+
+import com.alibaba.dubbo.common.utils.NamedInternalThreadFactory;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InternalThreadLocalTest {
+
+    @Test
+    public void test_initialValue() throws Exception {
+        InternalThreadLocal<Object> local = new InternalThreadLocal<Object>() {
+            @Override
+            protected Object initialValue() {
+                return "init";
+            }
+        };
+        assertEquals("init", local.get());
+        local.set("value");
+        assertEquals("value", local.get());
+        local.remove();
+        assertEquals("init", local.get());
+    }
+
+    @Test
+    public void test_setNull() throws Exception {
+        InternalThreadLocal<String> local = new InternalThreadLocal<String>();
+        assertNull(local.get());
+        local.set("value");
+        local.set(null);
+        assertNull(local.get());
+    }
+
+    @Test
+    public void test_expand() throws Exception {
+        List<InternalThreadLocal<Integer>> locals = new ArrayList<InternalThreadLocal<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            InternalThreadLocal<Integer> local = new InternalThreadLocal<Integer>();
+            local.set(i);
+            locals.add(local);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), locals.get(i).get());
+        }
+    }
+
+    @Test
+    public void test_removeAll() throws Exception {
+        InternalThreadLocal<String> local = new InternalThreadLocal<String>();
+        local.set("value");
+        InternalThreadLocal.removeAll();
+        assertNull(local.get());
+    }
+
+    @Test
+    public void test_internalThread() throws Exception {
+        final InternalThreadLocal<String> local = new InternalThreadLocal<String>();
+        local.set("main");
+        final AtomicReference<Object> before = new AtomicReference<Object>();
+        final AtomicReference<Object> after = new AtomicReference<Object>();
+        final AtomicReference<Object> map = new AtomicReference<Object>();
+        Thread thread = new NamedInternalThreadFactory("test").newThread(new Runnable() {
+            public void run() {
+                before.set(local.get());
+                local.set("internal");
+                after.set(local.get());
+                map.set(((InternalThread) Thread.currentThread()).threadLocalMap());
+            }
+        });
+        assertTrue(thread instanceof InternalThread);
+        thread.start();
+        thread.join();
+        assertNull(before.get());
+        assertEquals("internal", after.get());
+        assertSame(((InternalThread) thread).threadLocalMap(), map.get());
+        assertEquals("main", local.get());
+    }
+
+}
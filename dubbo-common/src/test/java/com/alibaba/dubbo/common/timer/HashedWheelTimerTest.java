@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.timer;
+
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer = new HashedWheelTimer(new NamedThreadFactory("timer-test", true), 10, TimeUnit.MILLISECONDS, 8, 3);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final long start = System.currentTimeMillis();
+        TimerTask task = new TimerTask() {
+            public void run(Timeout timeout) {
+                latch.countDown();
+            }
+        };
+        timer.newTimeout(task, 20, TimeUnit.MILLISECONDS);
+        // 超过一圈的任务
+        Timeout timeout = timer.newTimeout(task, 200, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+        Assert.assertTrue(timeout.isExpired());
+        Assert.assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Timeout timeout = timer.newTimeout(new TimerTask() {
+            public void run(Timeout timeout) {
+                count.incrementAndGet();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertFalse(timeout.cancel());
+        Thread.sleep(150);
+        Assert.assertEquals(0, count.get());
+        Assert.assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    public void testMaxPendingTimeouts() {
+        TimerTask task = new TimerTask() {
+            public void run(Timeout timeout) {
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            timer.newTimeout(task, 1, TimeUnit.SECONDS);
+        }
+        try {
+            timer.newTimeout(task, 1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        // 停止时返回未执行的任务
+        Assert.assertEquals(3, timer.stop().size());
+        try {
+            timer.newTimeout(task, 1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+}
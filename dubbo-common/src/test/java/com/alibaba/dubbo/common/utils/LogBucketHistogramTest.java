@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogBucketHistogramTest {
+
+    @Test
+    public void testIndex() {
+        for (long value = 0; value < (1L << 24); value = value * 2 + 1) {
+            int index = LogBucketHistogram.index(value);
+            Assert.assertTrue(LogBucketHistogram.upperBound(index) >= value);
+            // 相对误差不超过 12.5%
+            Assert.assertTrue(LogBucketHistogram.upperBound(index) - value <= value / 8 + 1);
+        }
+        Assert.assertEquals(0, LogBucketHistogram.index(-1));
+        Assert.assertEquals(LogBucketHistogram.BUCKETS - 1, LogBucketHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testDrainAndMerge() {
+        LogBucketHistogram histogram = new LogBucketHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(1000, 10);
+        long[] counts = histogram.drain();
+        Assert.assertTrue(LogBucketHistogram.percentile(counts, 0.5) >= 55);
+        Assert.assertTrue(LogBucketHistogram.percentile(counts, 0.99) >= 1000);
+        Assert.assertEquals(0, LogBucketHistogram.percentile(histogram.snapshot(), 0.99));
+        // 合并后计数相加
+        histogram.merge(counts);
+        histogram.merge(counts);
+        long[] merged = histogram.snapshot();
+        for (int i = 0; i < LogBucketHistogram.BUCKETS; i++) {
+            Assert.assertEquals(counts[i] * 2, merged[i]);
+        }
+    }
+
+    @Test
+    public void testEncode() {
+        LogBucketHistogram histogram = new LogBucketHistogram();
+        histogram.record(3, 10);
+        histogram.record(17, 2);
+        long[] counts = histogram.snapshot();
+        String encoded = LogBucketHistogram.encode(counts);
+        Assert.assertEquals("3:10,16:2", encoded);
+        Assert.assertArrayEquals(counts, LogBucketHistogram.decode(encoded));
+        Assert.assertEquals("", LogBucketHistogram.encode(new long[LogBucketHistogram.BUCKETS]));
+        Assert.assertEquals(0, LogBucketHistogram.percentile(LogBucketHistogram.decode(""), 0.5));
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RollingCounterTest {
+
+    @Test
+    public void testRolling() {
+        RollingCounter counter = new RollingCounter(2, 10, 1000);
+        long now = 100000;
+        for (int i = 0; i < 10; i++) {
+            counter.add(0, 1, now + i * 1000);
+            counter.add(1, 100, now + i * 1000);
+        }
+        Assert.assertEquals(10, counter.sum(0, now + 9999));
+        Assert.assertEquals(1000, counter.sum(1, now + 9999));
+        // 最早的时间片滑出窗口，并在写入时被复用
+        Assert.assertEquals(9, counter.sum(0, now + 10000));
+        counter.add(0, 5, now + 10000);
+        Assert.assertEquals(14, counter.sum(0, now + 10000));
+        Assert.assertEquals(900, counter.sum(1, now + 10000));
+        // 整个窗口过期
+        Assert.assertEquals(0, counter.sum(0, now + 30000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalFields() {
+        new RollingCounter(0);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+public class RollingHistogramTest {
+
+    @Test
+    public void testPercentile() {
+        RollingHistogram histogram = new RollingHistogram(10, 1000);
+        long now = 100000;
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, now);
+        }
+        RollingHistogram.Snapshot snapshot = histogram.snapshot(now);
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(500, snapshot.getMean());
+        assertNear(500, snapshot.getPercentile(0.5));
+        assertNear(990, snapshot.getPercentile(0.99));
+        assertNear(999, snapshot.getPercentile(0.999));
+        Assert.assertEquals(0, new RollingHistogram().snapshot().getPercentile(0.99));
+    }
+
+    @Test
+    public void testRolling() {
+        RollingHistogram histogram = new RollingHistogram(10, 1000);
+        long now = 100000;
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100, now + i * 1000);
+        }
+        RollingHistogram.Snapshot snapshot = histogram.snapshot(now + 9999);
+        Assert.assertEquals(10, snapshot.getCount());
+        Assert.assertEquals(1, snapshot.getRate());
+        // 最早的时间片滑出窗口，并在写入时被复用
+        Assert.assertEquals(9, histogram.snapshot(now + 10000).getCount());
+        histogram.record(1, now + 10000);
+        snapshot = histogram.snapshot(now + 10000);
+        Assert.assertEquals(10, snapshot.getCount());
+        Assert.assertEquals(1, snapshot.getPercentile(0));
+    }
+
+    @Test
+    public void testConcurrentReset() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final RollingHistogram histogram = new RollingHistogram(10, 1000);
+            final long now = 100000;
+            histogram.record(100, now);
+            // 所有线程同时写入已过期的时间片，清零不能覆盖其它线程的写入
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch latch = new CountDownLatch(8);
+            for (int i = 0; i < 8; i++) {
+                new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int j = 0; j < 1000; j++) {
+                            histogram.record(1, now + 10000);
+                        }
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            start.countDown();
+            latch.await();
+            RollingHistogram.Snapshot snapshot = histogram.snapshot(now + 10000);
+            Assert.assertEquals(8000, snapshot.getCount());
+            Assert.assertEquals(8000, snapshot.getSum());
+        }
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assert.assertTrue("expected " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 8);
+    }
+
+}
@@ -62,6 +62,18 @@ public interface MonitorService {
 
     String MAX_CONCURRENT = "max.concurrent";
 
+    /**
+     * Elapsed histogram, non-empty buckets of {@link com.alibaba.dubbo.common.utils.LogBucketHistogram} encoded as
+     * <code>bucket:count,bucket:count</code>. Histograms of different hosts can be merged by adding counts of
+     * the same bucket, and percentiles are calculated on the merged result.
+     */
+    String ELAPSED_HISTOGRAM = "elapsed.histogram";
+
+    /**
+     * Retries rejected by the exhausted retry budget, counted on the provider of the last failed attempt.
+     */
+    String RETRY_REJECTED = "retry.rejected";
+
     /**
      * Collect monitor data
      * 1. support invocation count: count://host/interface?application=foo&method=foo&provider=10.20.153.11:20880&success=12&failure=2&elapsed=135423423
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.monitor;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.LogBucketHistogram;
+import com.alibaba.dubbo.common.utils.StripedCounter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StatisticsCell. (ThreadSafe)
+ * <p>
+ * Invocation data of one statistics key, updated with striped counters and drained on every send.
+ * Elapsed distribution is kept in a constant-size {@link LogBucketHistogram}.
+ * <p>
+ * A cell lives as long as the monitor draining it keeps it, holders must resolve the cell again once it is destroyed.
+ */
+public class StatisticsCell {
+
+    public static final int SUCCESS = 0;
+
+    public static final int FAILURE = 1;
+
+    public static final int INPUT = 2;
+
+    public static final int OUTPUT = 3;
+
+    public static final int ELAPSED = 4;
+
+    public static final int CONCURRENT = 5;
+
+    public static final int MAX_INPUT = 6;
+
+    public static final int MAX_OUTPUT = 7;
+
+    public static final int MAX_ELAPSED = 8;
+
+    public static final int MAX_CONCURRENT = 9;
+
+    public static final int RETRY_REJECTED = 10;
+
+    public static final int LENGTH = 11;
+
+    private final URL url;
+
+    private final StripedCounter success = new StripedCounter();
+
+    private final StripedCounter failure = new StripedCounter();
+
+    private final StripedCounter input = new StripedCounter();
+
+    private final StripedCounter output = new StripedCounter();
+
+    private final StripedCounter elapsed = new StripedCounter();
+
+    /**
+     * sum of concurrent samples, averaged by invocation count on drain
+     */
+    private final StripedCounter concurrent = new StripedCounter();
+
+    /**
+     * retries rejected by the exhausted retry budget
+     */
+    private final StripedCounter retryRejected = new StripedCounter();
+
+    private final AtomicLong maxInput = new AtomicLong();
+
+    private final AtomicLong maxOutput = new AtomicLong();
+
+    private final AtomicLong maxElapsed = new AtomicLong();
+
+    private final AtomicLong maxConcurrent = new AtomicLong();
+
+    private final LogBucketHistogram elapsedHistogram = new LogBucketHistogram();
+
+    private volatile boolean destroyed;
+
+    public StatisticsCell(URL url) {
+        this.url = url;
+    }
+
+    /**
+     * @return statistics key
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Record one invocation.
+     */
+    public void collect(boolean error, long elapsed, int concurrent, long input, long output) {
+        collect(error ? 0 : 1, error ? 1 : 0, elapsed, concurrent, input, output);
+        elapsedHistogram.record(elapsed);
+    }
+
+    /**
+     * Record aggregated invocations, without elapsed distribution.
+     *
+     * @see #collectHistogram(long[])
+     */
+    public void collect(long success, long failure, long elapsed, long concurrent, long input, long output) {
+        if (success > 0) {
+            this.success.add(success);
+        }
+        if (failure > 0) {
+            this.failure.add(failure);
+        }
+        this.elapsed.add(elapsed);
+        this.concurrent.add(concurrent * Math.max(1, success + failure));
+        updateMax(maxElapsed, elapsed);
+        updateMax(maxConcurrent, concurrent);
+        if (input > 0) {
+            this.input.add(input);
+            updateMax(maxInput, input);
+        }
+        if (output > 0) {
+            this.output.add(output);
+            updateMax(maxOutput, output);
+        }
+    }
+
+    /**
+     * Record retries rejected by the exhausted retry budget.
+     */
+    public void collectRetryRejected(long count) {
+        if (count > 0) {
+            retryRejected.add(count);
+        }
+    }
+
+    /**
+     * Merge elapsed distribution of aggregated invocations.
+     *
+     * @param counts counts by bucket of {@link LogBucketHistogram}
+     */
+    public void collectHistogram(long[] counts) {
+        elapsedHistogram.merge(counts);
+    }
+
+    /**
+     * Take the elapsed distribution recorded since last drain and reset it.
+     *
+     * @return counts by bucket of {@link LogBucketHistogram}
+     */
+    public long[] drainHistogram() {
+        return elapsedHistogram.drain();
+    }
+
+    /**
+     * Take the data recorded since last drain and reset it. Invocations recorded concurrently are kept for next drain.
+     *
+     * @return data indexed by {@link #SUCCESS} ... {@link #RETRY_REJECTED}
+     */
+    public long[] drain() {
+        long[] numbers = new long[LENGTH];
+        numbers[SUCCESS] = drain(success);
+        numbers[FAILURE] = drain(failure);
+        numbers[INPUT] = drain(input);
+        numbers[OUTPUT] = drain(output);
+        numbers[ELAPSED] = drain(elapsed);
+        long count = numbers[SUCCESS] + numbers[FAILURE];
+        long concurrentSum = drain(concurrent);
+        numbers[CONCURRENT] = count == 0 ? 0 : concurrentSum / count;
+        numbers[MAX_INPUT] = maxInput.getAndSet(0);
+        numbers[MAX_OUTPUT] = maxOutput.getAndSet(0);
+        numbers[MAX_ELAPSED] = maxElapsed.getAndSet(0);
+        numbers[MAX_CONCURRENT] = maxConcurrent.getAndSet(0);
+        numbers[RETRY_REJECTED] = drain(retryRejected);
+        return numbers;
+    }
+
+    private static long drain(StripedCounter counter) {
+        long value = counter.sum();
+        counter.add(-value);
+        return value;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (current < value && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Mark the cell dropped by its monitor, data collected afterwards is not sent.
+     */
+    public void destroy() {
+        destroyed = true;
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    @Override
+    public String toString() {
+        return url.toString();
+    }
+
+}
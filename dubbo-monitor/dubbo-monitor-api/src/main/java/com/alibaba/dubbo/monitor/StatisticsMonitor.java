@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.monitor;
+
+import com.alibaba.dubbo.common.URL;
+
+/**
+ * StatisticsMonitor. (SPI, Prototype, ThreadSafe)
+ * <p>
+ * Monitor which accepts invocation data through resolved {@link StatisticsCell}s, so that callers don't need to build
+ * a statistics {@link URL} for every invocation.
+ *
+ * @see com.alibaba.dubbo.monitor.support.MonitorFilter
+ */
+public interface StatisticsMonitor extends Monitor {
+
+    /**
+     * Get the cell of the statistics key. The cell is created on first access and reported on every send.
+     *
+     * @param statistics statistics key: count://host/interface?application=foo&method=foo&provider=10.20.153.11:20880
+     * @return statistics cell
+     */
+    StatisticsCell getStatisticsCell(URL statistics);
+
+}
@@ -25,28 +25,65 @@ import com.alibaba.dubbo.common.utils.NetUtils;
 import com.alibaba.dubbo.monitor.Monitor;
 import com.alibaba.dubbo.monitor.MonitorFactory;
 import com.alibaba.dubbo.monitor.MonitorService;
+import com.alibaba.dubbo.monitor.StatisticsCell;
+import com.alibaba.dubbo.monitor.StatisticsMonitor;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcStatus;
 import com.alibaba.dubbo.rpc.support.RpcUtils;
 
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MonitorFilter. (SPI, Singleton, ThreadSafe)
+ * <p>
+ * Async consumer invocations whose future is a {@link ResultFuture} are collected in the result callback.
+ * <p>
+ * Retries rejected by the retry budget are recorded in {@link RpcStatus} of the provider by the cluster,
+ * and taken into the statistics of that provider on its next collect.
+ * <p>
+ * Resolved cells belong to the monitor that drains them, a cell destroyed by its monitor is resolved again.
+ * Statistics not collected for {@link #IDLE_TIMEOUT}, e.g. of destroyed invokers, and destroyed cells,
+ * e.g. of gone remote hosts, are swept every {@link #SWEEP_INTERVAL}.
  */
 @Activate(group = {Constants.PROVIDER, Constants.CONSUMER})
 public class MonitorFilter implements Filter {
 
     private static final Logger logger = LoggerFactory.getLogger(MonitorFilter.class);
 
+    /**
+     * statistics of invoker and method not collected for this long are evicted
+     */
+    static final long IDLE_TIMEOUT = 10 * 60 * 1000;
+
+    static final long SWEEP_INTERVAL = 60 * 1000;
+
     private final ConcurrentMap<String, AtomicInteger> concurrents = new ConcurrentHashMap<String, AtomicInteger>();
 
+    /**
+     * resolved statistics per invoker and method
+     * <p>
+     * key1: invoker url identity
+     * key2: method name
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, MethodStatistics>> statistics = new ConcurrentHashMap<String, ConcurrentMap<String, MethodStatistics>>();
+
+    /**
+     * time of next sweep, taken by the invocation which wins the CAS
+     */
+    private final AtomicLong nextSweep = new AtomicLong(System.currentTimeMillis() + SWEEP_INTERVAL);
+
     private MonitorFactory monitorFactory;
 
     public void setMonitorFactory(MonitorFactory monitorFactory) {
@@ -59,74 +96,195 @@ public class MonitorFilter implements Filter {
             RpcContext context = RpcContext.getContext(); // provider must fetch context before invoke() gets called
             String remoteHost = context.getRemoteHost();
             long start = System.currentTimeMillis(); // record start timestamp
-            getConcurrent(invoker, invocation).incrementAndGet(); // count up
+            MethodStatistics methodStatistics = getMethodStatistics(invoker, invocation);
+            methodStatistics.touch(start);
+            sweep(start);
+            methodStatistics.concurrent.incrementAndGet(); // count up
+            boolean async = false;
             try {
                 Result result = invoker.invoke(invocation); // proceed invocation chain
-                collect(invoker, invocation, result, remoteHost, start, false);
+                async = collectOnCallback(invoker, invocation, methodStatistics, remoteHost, start);
+                if (!async) {
+                    collect(invoker, invocation, methodStatistics, result, remoteHost, start, false);
+                }
                 return result;
             } catch (RpcException e) {
-                collect(invoker, invocation, null, remoteHost, start, true);
+                collect(invoker, invocation, methodStatistics, null, remoteHost, start, true);
                 throw e;
             } finally {
-                getConcurrent(invoker, invocation).decrementAndGet(); // count down
+                if (!async) {
+                    methodStatistics.concurrent.decrementAndGet(); // count down
+                }
             }
         } else {
             return invoker.invoke(invocation);
         }
     }
 
+    // collect info of async consumer invocation when the result arrives, returns whether the callback is set
+    private boolean collectOnCallback(final Invoker<?> invoker, final Invocation invocation, final MethodStatistics methodStatistics,
+                                      final String remoteHost, final long start) {
+        if (!Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY))
+                || !RpcUtils.isAsync(invoker.getUrl(), invocation)) {
+            return false;
+        }
+        Object future = RpcContext.getContext().getFuture();
+        if (!(future instanceof ResultFuture)) {
+            return false;
+        }
+        ((ResultFuture<?>) future).addCallback(new ResultCallback() {
+            @Override
+            public void done(Result result) {
+                try {
+                    collect(invoker, invocation, methodStatistics, result, remoteHost, start, false);
+                } finally {
+                    methodStatistics.concurrent.decrementAndGet(); // count down
+                }
+            }
+
+            @Override
+            public void caught(Throwable exception) {
+                try {
+                    // 消费者取消的调用（例如对冲未胜出）不计入统计
+                    if (!(exception instanceof CancellationException)) {
+                        collect(invoker, invocation, methodStatistics, null, remoteHost, start, true);
+                    }
+                } finally {
+                    methodStatistics.concurrent.decrementAndGet(); // count down
+                }
+            }
+        });
+        return true;
+    }
+
     // collect info
-    private void collect(Invoker<?> invoker, Invocation invocation, Result result, String remoteHost, long start, boolean error) {
+    private void collect(Invoker<?> invoker, Invocation invocation, MethodStatistics methodStatistics, Result result, String remoteHost, long start, boolean error) {
         try {
             // ---- service statistics ----
             long elapsed = System.currentTimeMillis() - start; // invocation cost
-            int concurrent = getConcurrent(invoker, invocation).get(); // current concurrent count
-            String application = invoker.getUrl().getParameter(Constants.APPLICATION_KEY);
-            String service = invoker.getInterface().getName(); // service name
-            String method = RpcUtils.getMethodName(invocation); // method name
+            int concurrent = methodStatistics.concurrent.get(); // current concurrent count
+            String input = invocation.getAttachment(Constants.INPUT_KEY);
+            String output = result == null ? null : result.getAttachment(Constants.OUTPUT_KEY);
+            boolean consumer = Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY));
+            // ---- direct path: update the resolved cell ----
+            String remoteValue = consumer ? invoker.getUrl().getAddress() : remoteHost;
+            StatisticsCell cell = remoteValue == null ? null : methodStatistics.cells.get(remoteValue);
+            if (cell != null && !cell.isDestroyed()) {
+                cell.collect(error, elapsed, concurrent, parseLong(input), parseLong(output));
+                cell.collectRetryRejected(drainRetryRejected(methodStatistics));
+                return;
+            }
+            // not resolved yet, or destroyed by its monitor, go back through the monitor factory
             URL url = invoker.getUrl().getUrlParameter(Constants.MONITOR_KEY);
             Monitor monitor = monitorFactory.getMonitor(url);
             if (monitor == null) {
                 return;
             }
+            long retryRejected = drainRetryRejected(methodStatistics);
+            String application = invoker.getUrl().getParameter(Constants.APPLICATION_KEY);
+            String service = invoker.getInterface().getName(); // service name
+            String method = methodStatistics.method; // method name
             int localPort;
             String remoteKey;
-            String remoteValue;
-            if (Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY))) {
+            if (consumer) {
                 // ---- for service consumer ----
                 localPort = 0;
                 remoteKey = MonitorService.PROVIDER;
-                remoteValue = invoker.getUrl().getAddress();
             } else {
                 // ---- for service provider ----
                 localPort = invoker.getUrl().getPort();
                 remoteKey = MonitorService.CONSUMER;
-                remoteValue = remoteHost;
             }
-            String input = "", output = "";
-            if (invocation.getAttachment(Constants.INPUT_KEY) != null) {
-                input = invocation.getAttachment(Constants.INPUT_KEY);
-            }
-            if (result != null && result.getAttachment(Constants.OUTPUT_KEY) != null) {
-                output = result.getAttachment(Constants.OUTPUT_KEY);
-            }
-            monitor.collect(new URL(Constants.COUNT_PROTOCOL,
+            URL statisticsUrl = new URL(Constants.COUNT_PROTOCOL,
                     NetUtils.getLocalHost(), localPort,
                     service + "/" + method,
                     MonitorService.APPLICATION, application,
                     MonitorService.INTERFACE, service,
                     MonitorService.METHOD, method,
-                    remoteKey, remoteValue,
+                    remoteKey, remoteValue);
+            // resolve the cell once, later invocations update it directly until the monitor destroys it
+            if (monitor instanceof StatisticsMonitor && remoteValue != null) {
+                cell = ((StatisticsMonitor) monitor).getStatisticsCell(statisticsUrl);
+                methodStatistics.cells.put(remoteValue, cell);
+                cell.collect(error, elapsed, concurrent, parseLong(input), parseLong(output));
+                cell.collectRetryRejected(retryRejected);
+                return;
+            }
+            if (retryRejected > 0) {
+                statisticsUrl = statisticsUrl.addParameter(MonitorService.RETRY_REJECTED, retryRejected);
+            }
+            monitor.collect(statisticsUrl.addParameters(
                     error ? MonitorService.FAILURE : MonitorService.SUCCESS, "1",
                     MonitorService.ELAPSED, String.valueOf(elapsed),
                     MonitorService.CONCURRENT, String.valueOf(concurrent),
-                    Constants.INPUT_KEY, input,
-                    Constants.OUTPUT_KEY, output));
+                    Constants.INPUT_KEY, input == null ? "" : input,
+                    Constants.OUTPUT_KEY, output == null ? "" : output));
         } catch (Throwable t) {
             logger.error("Failed to monitor count service " + invoker.getUrl() + ", cause: " + t.getMessage(), t);
         }
     }
 
+    private static long drainRetryRejected(MethodStatistics methodStatistics) {
+        return methodStatistics.status == null ? 0 : methodStatistics.status.drainRetryRejected();
+    }
+
+    // evict idle statistics and destroyed cells
+    void sweep(long now) {
+        long next = nextSweep.get();
+        if (now < next || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+            return;
+        }
+        for (Iterator<ConcurrentMap<String, MethodStatistics>> it = statistics.values().iterator(); it.hasNext(); ) {
+            ConcurrentMap<String, MethodStatistics> methods = it.next();
+            for (Iterator<MethodStatistics> methodIt = methods.values().iterator(); methodIt.hasNext(); ) {
+                MethodStatistics methodStatistics = methodIt.next();
+                if (now - methodStatistics.lastCollect > IDLE_TIMEOUT) {
+                    methodIt.remove();
+                    continue;
+                }
+                for (Iterator<StatisticsCell> cellIt = methodStatistics.cells.values().iterator(); cellIt.hasNext(); ) {
+                    if (cellIt.next().isDestroyed()) {
+                        cellIt.remove();
+                    }
+                }
+            }
+            if (methods.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null || value.length() == 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // resolved statistics of invoker and method
+    private MethodStatistics getMethodStatistics(Invoker<?> invoker, Invocation invocation) {
+        String identity = invoker.getUrl().toIdentityString();
+        ConcurrentMap<String, MethodStatistics> methods = statistics.get(identity);
+        if (methods == null) {
+            statistics.putIfAbsent(identity, new ConcurrentHashMap<String, MethodStatistics>());
+            methods = statistics.get(identity);
+        }
+        String method = RpcUtils.getMethodName(invocation);
+        MethodStatistics methodStatistics = methods.get(method);
+        if (methodStatistics == null) {
+            // retries rejected by the retry budget are recorded on consumer side only
+            RpcStatus status = Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY))
+                    ? RpcStatus.getStatus(invoker.getUrl(), method) : null;
+            methods.putIfAbsent(method, new MethodStatistics(method, getConcurrent(invoker, invocation), status));
+            methodStatistics = methods.get(method);
+        }
+        return methodStatistics;
+    }
+
     // concurrent counter
     private AtomicInteger getConcurrent(Invoker<?> invoker, Invocation invocation) {
         String key = invoker.getInterface().getName() + "." + invocation.getMethodName();
@@ -138,4 +296,42 @@ public class MonitorFilter implements Filter {
         return concurrent;
     }
 
-}
\ No newline at end of file
+    /**
+     * statistics of invoker and method
+     */
+    private static class MethodStatistics {
+
+        private final String method;
+
+        private final AtomicInteger concurrent;
+
+        /**
+         * status of the provider and method on consumer side, null on provider side
+         */
+        private final RpcStatus status;
+
+        /**
+         * key: remote address
+         */
+        private final ConcurrentMap<String, StatisticsCell> cells = new ConcurrentHashMap<String, StatisticsCell>();
+
+        /**
+         * time of last collect, updated at most once a second
+         */
+        private volatile long lastCollect = System.currentTimeMillis();
+
+        private MethodStatistics(String method, AtomicInteger concurrent, RpcStatus status) {
+            this.method = method;
+            this.concurrent = concurrent;
+            this.status = status;
+        }
+
+        private void touch(long now) {
+            if (now - lastCollect >= 1000) {
+                lastCollect = now;
+            }
+        }
+
+    }
+
+}
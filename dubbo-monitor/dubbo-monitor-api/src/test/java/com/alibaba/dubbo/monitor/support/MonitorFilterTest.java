@@ -22,12 +22,15 @@ import com.alibaba.dubbo.common.utils.NetUtils;
 import com.alibaba.dubbo.monitor.Monitor;
 import com.alibaba.dubbo.monitor.MonitorFactory;
 import com.alibaba.dubbo.monitor.MonitorService;
+import com.alibaba.dubbo.monitor.StatisticsCell;
+import com.alibaba.dubbo.monitor.StatisticsMonitor;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcStatus;
 
 import junit.framework.Assert;
 import org.junit.Test;
@@ -36,6 +39,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * MonitorFilterTest
@@ -141,4 +146,119 @@ public class MonitorFilterTest {
         Assert.assertEquals(invocation, lastInvocation);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRetryRejected() throws Exception {
+        MonitorFilter monitorFilter = new MonitorFilter();
+        monitorFilter.setMonitorFactory(monitorFactory);
+        Invocation invocation = new RpcInvocation("rejected", new Class<?>[0], new Object[0]);
+        // 集群放弃的重试，记在服务提供者的 RpcStatus 上
+        RpcStatus.getStatus(serviceInvoker.getUrl(), "rejected").addRetryRejected();
+        RpcStatus.getStatus(serviceInvoker.getUrl(), "rejected").addRetryRejected();
+        monitorFilter.invoke(serviceInvoker, invocation);
+        Assert.assertEquals(2, lastStatistics.getParameter(MonitorService.RETRY_REJECTED, 0));
+        // 已取走，不重复上报
+        monitorFilter.invoke(serviceInvoker, invocation);
+        Assert.assertNull(lastStatistics.getParameter(MonitorService.RETRY_REJECTED));
+        RpcStatus.removeStatus(serviceInvoker.getUrl(), "rejected");
+    }
+
+    @Test
+    public void testStatisticsMonitor() throws Exception {
+        final AtomicInteger resolved = new AtomicInteger();
+        final StatisticsCell cell = new StatisticsCell(URL.valueOf("count://127.0.0.1/test"));
+        MonitorFilter monitorFilter = new MonitorFilter();
+        monitorFilter.setMonitorFactory(new MonitorFactory() {
+            public Monitor getMonitor(final URL url) {
+                return new StatisticsMonitor() {
+                    public StatisticsCell getStatisticsCell(URL statistics) {
+                        resolved.incrementAndGet();
+                        lastStatistics = statistics;
+                        return cell;
+                    }
+
+                    public URL getUrl() {
+                        return url;
+                    }
+
+                    public boolean isAvailable() {
+                        return true;
+                    }
+
+                    public void destroy() {
+                    }
+
+                    public void collect(URL statistics) {
+                        throw new IllegalStateException("should collect through cell");
+                    }
+
+                    public List<URL> lookup(URL query) {
+                        return null;
+                    }
+                };
+            }
+        });
+        Invocation invocation = new RpcInvocation("aaa", new Class<?>[0], new Object[0]);
+        for (int i = 0; i < 3; i++) {
+            monitorFilter.invoke(serviceInvoker, invocation);
+        }
+        Assert.assertEquals(1, resolved.get());
+        Assert.assertEquals("aaa", lastStatistics.getParameter(MonitorService.METHOD));
+        Assert.assertEquals(NetUtils.getLocalHost() + ":20880", lastStatistics.getParameter(MonitorService.PROVIDER));
+        long[] numbers = cell.drain();
+        Assert.assertEquals(3, numbers[StatisticsCell.SUCCESS]);
+        Assert.assertEquals(0, numbers[StatisticsCell.FAILURE]);
+        Assert.assertEquals(1, numbers[StatisticsCell.CONCURRENT]);
+        Assert.assertEquals(0, cell.drain()[StatisticsCell.SUCCESS]);
+    }
+
+    @Test
+    public void testResolveAgain() throws Exception {
+        final AtomicInteger resolved = new AtomicInteger();
+        final AtomicReference<StatisticsCell> last = new AtomicReference<StatisticsCell>();
+        MonitorFilter monitorFilter = new MonitorFilter();
+        monitorFilter.setMonitorFactory(new MonitorFactory() {
+            public Monitor getMonitor(final URL url) {
+                return new StatisticsMonitor() {
+                    public StatisticsCell getStatisticsCell(URL statistics) {
+                        resolved.incrementAndGet();
+                        last.set(new StatisticsCell(statistics));
+                        return last.get();
+                    }
+
+                    public URL getUrl() {
+                        return url;
+                    }
+
+                    public boolean isAvailable() {
+                        return true;
+                    }
+
+                    public void destroy() {
+                    }
+
+                    public void collect(URL statistics) {
+                        throw new IllegalStateException("should collect through cell");
+                    }
+
+                    public List<URL> lookup(URL query) {
+                        return null;
+                    }
+                };
+            }
+        });
+        Invocation invocation = new RpcInvocation("bbb", new Class<?>[0], new Object[0]);
+        monitorFilter.invoke(serviceInvoker, invocation);
+        StatisticsCell first = last.get();
+        // 监控销毁了统计单元，重新经过 MonitorFactory 获取
+        first.destroy();
+        monitorFilter.invoke(serviceInvoker, invocation);
+        Assert.assertEquals(2, resolved.get());
+        Assert.assertEquals(1, first.drain()[StatisticsCell.SUCCESS]);
+        Assert.assertEquals(1, last.get().drain()[StatisticsCell.SUCCESS]);
+        // 空闲的统计被清除，之后重新获取
+        monitorFilter.sweep(System.currentTimeMillis() + MonitorFilter.IDLE_TIMEOUT + MonitorFilter.SWEEP_INTERVAL);
+        monitorFilter.invoke(serviceInvoker, invocation);
+        Assert.assertEquals(3, resolved.get());
+    }
+
+}
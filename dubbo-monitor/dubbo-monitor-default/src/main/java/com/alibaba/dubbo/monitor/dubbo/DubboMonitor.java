@@ -19,9 +19,11 @@ package com.alibaba.dubbo.monitor.dubbo;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.LogBucketHistogram;
 import com.alibaba.dubbo.common.utils.NamedThreadFactory;
-import com.alibaba.dubbo.monitor.Monitor;
 import com.alibaba.dubbo.monitor.MonitorService;
+import com.alibaba.dubbo.monitor.StatisticsCell;
+import com.alibaba.dubbo.monitor.StatisticsMonitor;
 import com.alibaba.dubbo.rpc.Invoker;
 
 import java.util.List;
@@ -32,17 +34,14 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DubboMonitor
  */
-public class DubboMonitor implements Monitor {
+public class DubboMonitor implements StatisticsMonitor {
 
     private static final Logger logger = LoggerFactory.getLogger(DubboMonitor.class);
 
-    private static final int LENGTH = 10;
-
     private final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(3, new NamedThreadFactory("DubboMonitorSendTimer", true));
 
     private final ScheduledFuture<?> sendFuture;
@@ -53,7 +52,7 @@ public class DubboMonitor implements Monitor {
 
     private final long monitorInterval;
 
-    private final ConcurrentMap<Statistics, AtomicReference<long[]>> statisticsMap = new ConcurrentHashMap<Statistics, AtomicReference<long[]>>();
+    private final ConcurrentMap<Statistics, StatisticsCell> statisticsMap = new ConcurrentHashMap<Statistics, StatisticsCell>();
 
     public DubboMonitor(Invoker<MonitorService> monitorInvoker, MonitorService monitorService) {
         this.monitorInvoker = monitorInvoker;
@@ -77,62 +76,46 @@ public class DubboMonitor implements Monitor {
             logger.info("Send statistics to monitor " + getUrl());
         }
         String timestamp = String.valueOf(System.currentTimeMillis());
-        for (Map.Entry<Statistics, AtomicReference<long[]>> entry : statisticsMap.entrySet()) {
-            // get statistics data
+        for (Map.Entry<Statistics, StatisticsCell> entry : statisticsMap.entrySet()) {
+            // get and reset statistics data
             Statistics statistics = entry.getKey();
-            AtomicReference<long[]> reference = entry.getValue();
-            long[] numbers = reference.get();
-            long success = numbers[0];
-            long failure = numbers[1];
-            long input = numbers[2];
-            long output = numbers[3];
-            long elapsed = numbers[4];
-            long concurrent = numbers[5];
-            long maxInput = numbers[6];
-            long maxOutput = numbers[7];
-            long maxElapsed = numbers[8];
-            long maxConcurrent = numbers[9];
+            long[] numbers = entry.getValue().drain();
+            String histogram = LogBucketHistogram.encode(entry.getValue().drainHistogram());
 
             // send statistics data
             URL url = statistics.getUrl()
                     .addParameters(MonitorService.TIMESTAMP, timestamp,
-                            MonitorService.SUCCESS, String.valueOf(success),
-                            MonitorService.FAILURE, String.valueOf(failure),
-                            MonitorService.INPUT, String.valueOf(input),
-                            MonitorService.OUTPUT, String.valueOf(output),
-                            MonitorService.ELAPSED, String.valueOf(elapsed),
-                            MonitorService.CONCURRENT, String.valueOf(concurrent),
-                            MonitorService.MAX_INPUT, String.valueOf(maxInput),
-                            MonitorService.MAX_OUTPUT, String.valueOf(maxOutput),
-                            MonitorService.MAX_ELAPSED, String.valueOf(maxElapsed),
-                            MonitorService.MAX_CONCURRENT, String.valueOf(maxConcurrent)
+                            MonitorService.SUCCESS, String.valueOf(numbers[StatisticsCell.SUCCESS]),
+                            MonitorService.FAILURE, String.valueOf(numbers[StatisticsCell.FAILURE]),
+                            MonitorService.INPUT, String.valueOf(numbers[StatisticsCell.INPUT]),
+                            MonitorService.OUTPUT, String.valueOf(numbers[StatisticsCell.OUTPUT]),
+                            MonitorService.ELAPSED, String.valueOf(numbers[StatisticsCell.ELAPSED]),
+                            MonitorService.CONCURRENT, String.valueOf(numbers[StatisticsCell.CONCURRENT]),
+                            MonitorService.MAX_INPUT, String.valueOf(numbers[StatisticsCell.MAX_INPUT]),
+                            MonitorService.MAX_OUTPUT, String.valueOf(numbers[StatisticsCell.MAX_OUTPUT]),
+                            MonitorService.MAX_ELAPSED, String.valueOf(numbers[StatisticsCell.MAX_ELAPSED]),
+                            MonitorService.MAX_CONCURRENT, String.valueOf(numbers[StatisticsCell.MAX_CONCURRENT])
                     );
+            if (numbers[StatisticsCell.RETRY_REJECTED] > 0) {
+                url = url.addParameter(MonitorService.RETRY_REJECTED, numbers[StatisticsCell.RETRY_REJECTED]);
+            }
+            if (histogram.length() > 0) {
+                url = url.addParameter(MonitorService.ELAPSED_HISTOGRAM, histogram);
+            }
             monitorService.collect(url);
-
-            // reset
-            long[] current;
-            long[] update = new long[LENGTH];
-            do {
-                current = reference.get();
-                if (current == null) {
-                    update[0] = 0;
-                    update[1] = 0;
-                    update[2] = 0;
-                    update[3] = 0;
-                    update[4] = 0;
-                    update[5] = 0;
-                } else {
-                    update[0] = current[0] - success;
-                    update[1] = current[1] - failure;
-                    update[2] = current[2] - input;
-                    update[3] = current[3] - output;
-                    update[4] = current[4] - elapsed;
-                    update[5] = current[5] - concurrent;
-                }
-            } while (!reference.compareAndSet(current, update));
+            // nothing collected in the whole interval, e.g. the remote host is gone, drop the cell
+            if (isIdle(numbers)) {
+                entry.getValue().destroy();
+                statisticsMap.remove(statistics, entry.getValue());
+            }
         }
     }
 
+    private static boolean isIdle(long[] numbers) {
+        return numbers[StatisticsCell.SUCCESS] == 0 && numbers[StatisticsCell.FAILURE] == 0
+                && numbers[StatisticsCell.RETRY_REJECTED] == 0;
+    }
+
     public void collect(URL url) {
         // data to collect from url
         int success = url.getParameter(MonitorService.SUCCESS, 0);
@@ -141,42 +124,29 @@ public class DubboMonitor implements Monitor {
         int output = url.getParameter(MonitorService.OUTPUT, 0);
         int elapsed = url.getParameter(MonitorService.ELAPSED, 0);
         int concurrent = url.getParameter(MonitorService.CONCURRENT, 0);
-        // init atomic reference
+        // sum into the cell
+        StatisticsCell cell = getStatisticsCell(url);
+        cell.collect(success, failure, elapsed, concurrent, input, output);
+        cell.collectRetryRejected(url.getParameter(MonitorService.RETRY_REJECTED, 0L));
+        // merge elapsed distribution, or take the average elapsed of all invocations
+        String histogram = url.getParameter(MonitorService.ELAPSED_HISTOGRAM);
+        if (histogram != null && histogram.length() > 0) {
+            cell.collectHistogram(LogBucketHistogram.decode(histogram));
+        } else if (success + failure > 0) {
+            long[] counts = new long[LogBucketHistogram.BUCKETS];
+            counts[LogBucketHistogram.index(elapsed / (success + failure))] = success + failure;
+            cell.collectHistogram(counts);
+        }
+    }
+
+    public StatisticsCell getStatisticsCell(URL url) {
         Statistics statistics = new Statistics(url);
-        AtomicReference<long[]> reference = statisticsMap.get(statistics);
-        if (reference == null) {
-            statisticsMap.putIfAbsent(statistics, new AtomicReference<long[]>());
-            reference = statisticsMap.get(statistics);
+        StatisticsCell cell = statisticsMap.get(statistics);
+        if (cell == null) {
+            statisticsMap.putIfAbsent(statistics, new StatisticsCell(url));
+            cell = statisticsMap.get(statistics);
         }
-        // use CompareAndSet to sum
-        long[] current;
-        long[] update = new long[LENGTH];
-        do {
-            current = reference.get();
-            if (current == null) {
-                update[0] = success;
-                update[1] = failure;
-                update[2] = input;
-                update[3] = output;
-                update[4] = elapsed;
-                update[5] = concurrent;
-                update[6] = input;
-                update[7] = output;
-                update[8] = elapsed;
-                update[9] = concurrent;
-            } else {
-                update[0] = current[0] + success;
-                update[1] = current[1] + failure;
-                update[2] = current[2] + input;
-                update[3] = current[3] + output;
-                update[4] = current[4] + elapsed;
-                update[5] = (current[5] + concurrent) / 2;
-                update[6] = current[6] > input ? current[6] : input;
-                update[7] = current[7] > output ? current[7] : output;
-                update[8] = current[8] > elapsed ? current[8] : elapsed;
-                update[9] = current[9] > concurrent ? current[9] : concurrent;
-            }
-        } while (!reference.compareAndSet(current, update));
+        return cell;
     }
 
     public List<URL> lookup(URL query) {
@@ -198,6 +168,11 @@ public class DubboMonitor implements Monitor {
             logger.error("Unexpected error occur at cancel sender timer, cause: " + t.getMessage(), t);
         }
         monitorInvoker.destroy();
+        // cells held by MonitorFilter are resolved again from the new monitor
+        for (StatisticsCell cell : statisticsMap.values()) {
+            cell.destroy();
+        }
+        statisticsMap.clear();
     }
 
 }
\ No newline at end of file
@@ -18,9 +18,11 @@ package com.alibaba.dubbo.monitor.dubbo;
 
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.utils.LogBucketHistogram;
 import com.alibaba.dubbo.monitor.Monitor;
 import com.alibaba.dubbo.monitor.MonitorFactory;
 import com.alibaba.dubbo.monitor.MonitorService;
+import com.alibaba.dubbo.monitor.StatisticsCell;
 import com.alibaba.dubbo.rpc.Exporter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
@@ -61,6 +63,28 @@ public class DubboMonitorTest {
         }
     };
 
+    // never sends by timer, so that tests can drain and send by themselves
+    private final Invoker<MonitorService> manualInvoker = new Invoker<MonitorService>() {
+        public Class<MonitorService> getInterface() {
+            return MonitorService.class;
+        }
+
+        public URL getUrl() {
+            return URL.valueOf("dubbo://127.0.0.1:7070?interval=3600000");
+        }
+
+        public boolean isAvailable() {
+            return false;
+        }
+
+        public Result invoke(Invocation invocation) throws RpcException {
+            return null;
+        }
+
+        public void destroy() {
+        }
+    };
+
     private volatile URL lastStatistics;
 
     private final MonitorService monitorService = new MonitorService() {
@@ -109,6 +133,92 @@ public class DubboMonitorTest {
         monitor.destroy();
     }
 
+    @Test
+    public void testStatisticsCell() throws Exception {
+        DubboMonitor monitor = new DubboMonitor(manualInvoker, monitorService);
+        try {
+            URL statistics = new URL("dubbo", "10.20.153.10", 0)
+                    .addParameter(MonitorService.APPLICATION, "morgan")
+                    .addParameter(MonitorService.INTERFACE, "MemberService")
+                    .addParameter(MonitorService.METHOD, "findPerson")
+                    .addParameter(MonitorService.CONSUMER, "10.20.153.11");
+            StatisticsCell cell = monitor.getStatisticsCell(statistics);
+            Assert.assertSame(cell, monitor.getStatisticsCell(statistics));
+            cell.collect(false, 3, 1, 0, 0);
+            cell.collect(false, 5, 3, 0, 0);
+            cell.collect(true, 10, 2, 0, 0);
+            long[] numbers = cell.drain();
+            Assert.assertEquals(2, numbers[StatisticsCell.SUCCESS]);
+            Assert.assertEquals(1, numbers[StatisticsCell.FAILURE]);
+            Assert.assertEquals(18, numbers[StatisticsCell.ELAPSED]);
+            Assert.assertEquals(2, numbers[StatisticsCell.CONCURRENT]);
+            Assert.assertEquals(10, numbers[StatisticsCell.MAX_ELAPSED]);
+            Assert.assertEquals(3, numbers[StatisticsCell.MAX_CONCURRENT]);
+            // reset after drain
+            numbers = cell.drain();
+            Assert.assertEquals(0, numbers[StatisticsCell.SUCCESS]);
+            Assert.assertEquals(0, numbers[StatisticsCell.MAX_ELAPSED]);
+        } finally {
+            monitor.destroy();
+        }
+    }
+
+    @Test
+    public void testElapsedHistogram() throws Exception {
+        DubboMonitor monitor = new DubboMonitor(manualInvoker, monitorService);
+        try {
+            URL statistics = new URL("dubbo", "10.20.153.10", 0)
+                    .addParameter(MonitorService.APPLICATION, "morgan")
+                    .addParameter(MonitorService.INTERFACE, "MemberService")
+                    .addParameter(MonitorService.METHOD, "findPerson")
+                    .addParameter(MonitorService.CONSUMER, "10.20.153.11");
+            StatisticsCell cell = monitor.getStatisticsCell(statistics);
+            for (int i = 1; i <= 100; i++) {
+                cell.collect(false, i, 1, 0, 0);
+            }
+            // aggregated data of another host
+            long[] other = new long[LogBucketHistogram.BUCKETS];
+            other[LogBucketHistogram.index(1000)] = 100;
+            monitor.collect(statistics.addParameter(MonitorService.SUCCESS, 100)
+                    .addParameter(MonitorService.ELAPSED, 100000)
+                    .addParameter(MonitorService.ELAPSED_HISTOGRAM, LogBucketHistogram.encode(other)));
+            lastStatistics = null;
+            monitor.send();
+            long[] counts = LogBucketHistogram.decode(lastStatistics.getParameter(MonitorService.ELAPSED_HISTOGRAM));
+            Assert.assertTrue(LogBucketHistogram.percentile(counts, 0.25) <= 57);
+            Assert.assertTrue(LogBucketHistogram.percentile(counts, 0.99) >= 1000);
+            Assert.assertEquals("200", lastStatistics.getParameter(MonitorService.SUCCESS));
+            // reset after send
+            lastStatistics = null;
+            monitor.send();
+            Assert.assertNull(lastStatistics.getParameter(MonitorService.ELAPSED_HISTOGRAM));
+        } finally {
+            monitor.destroy();
+        }
+    }
+
+    @Test
+    public void testIdleCell() throws Exception {
+        DubboMonitor monitor = new DubboMonitor(manualInvoker, monitorService);
+        URL statistics = new URL("dubbo", "10.20.153.10", 0)
+                .addParameter(MonitorService.APPLICATION, "morgan")
+                .addParameter(MonitorService.INTERFACE, "MemberService")
+                .addParameter(MonitorService.METHOD, "findPerson")
+                .addParameter(MonitorService.CONSUMER, "10.20.153.11");
+        StatisticsCell cell = monitor.getStatisticsCell(statistics);
+        cell.collect(false, 1, 1, 0, 0);
+        monitor.send();
+        Assert.assertFalse(cell.isDestroyed());
+        Assert.assertSame(cell, monitor.getStatisticsCell(statistics));
+        // a whole interval without data, dropped after sent
+        monitor.send();
+        Assert.assertTrue(cell.isDestroyed());
+        StatisticsCell other = monitor.getStatisticsCell(statistics);
+        Assert.assertNotSame(cell, other);
+        monitor.destroy();
+        Assert.assertTrue(other.isDestroyed());
+    }
+
     @Test
     public void testMonitorFactory() throws Exception {
         MockMonitorService monitorService = new MockMonitorService();
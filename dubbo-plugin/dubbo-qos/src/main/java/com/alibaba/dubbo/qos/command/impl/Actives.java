@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.qos.command.impl;
+
+import com.alibaba.dubbo.qos.command.BaseCommand;
+import com.alibaba.dubbo.qos.command.CommandContext;
+import com.alibaba.dubbo.qos.command.annotation.Cmd;
+import com.alibaba.dubbo.qos.textui.TTable;
+import com.alibaba.dubbo.rpc.ActiveLimitQueue;
+import com.alibaba.dubbo.rpc.RpcStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+@Cmd(name = "actives", summary = "show waiting queues of consumer methods limited by actives", example = {
+        "actives",
+        "actives com.alibaba.dubbo.demo.DemoService"
+})
+public class Actives implements BaseCommand {
+
+    @Override
+    public String execute(CommandContext commandContext, String[] args) {
+        String service = args != null && args.length > 0 ? args[0] : null;
+
+        TTable tTable = new TTable(new TTable.ColumnDefine[]{
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE)
+        });
+
+        //Header
+        tTable.addRow("Provider", "Method", "Actives", "Acquired", "Queue", "Waited", "AvgWait(ms)", "MaxWait(ms)", "Timeouts");
+
+        //Content
+        for (Map.Entry<String, ConcurrentMap<String, RpcStatus>> entry : RpcStatus.getMethodStatuses().entrySet()) {
+            if (service != null && !entry.getKey().contains(service)) {
+                continue;
+            }
+            for (Map.Entry<String, RpcStatus> method : entry.getValue().entrySet()) {
+                ActiveLimitQueue queue = method.getValue().getActiveLimitQueue();
+                if (queue == null) {
+                    continue;
+                }
+                tTable.addRow(entry.getKey(), method.getKey(), queue.getMax(), queue.getAcquired(), queue.getQueueLength(),
+                        queue.getWaited(), queue.getAverageWaitElapsed(), queue.getMaxWaitElapsed(), queue.getTimeouts());
+            }
+        }
+
+        return "As Consumer side:\n" + tTable.rendering();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.qos.command.impl;
+
+import com.alibaba.dubbo.common.utils.LogBucketHistogram;
+import com.alibaba.dubbo.qos.command.BaseCommand;
+import com.alibaba.dubbo.qos.command.CommandContext;
+import com.alibaba.dubbo.qos.command.annotation.Cmd;
+import com.alibaba.dubbo.qos.textui.TTable;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyStatistics;
+
+@Cmd(name = "latency", summary = "show sampled per-phase request latency, enabled by latency.sample", example = {
+        "latency",
+        "latency com.alibaba.dubbo.demo.DemoService"
+})
+public class Latency implements BaseCommand {
+
+    @Override
+    public String execute(CommandContext commandContext, String[] args) {
+        String service = args != null && args.length > 0 ? args[0] : null;
+
+        TTable tTable = new TTable(new TTable.ColumnDefine[]{
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE)
+        });
+
+        //Header
+        tTable.addRow("Side", "Service.Method", "Phase", "Samples", "P50(us)", "P99(us)", "P999(us)", "Timeouts");
+
+        //Content
+        for (LatencyStatistics statistics : LatencyStatistics.getAllStatistics()) {
+            if (service != null && !statistics.getKey().contains(service)) {
+                continue;
+            }
+            String side = statistics.isConsumer() ? "consumer" : "provider";
+            for (String phase : statistics.getPhaseNames()) {
+                long[] counts = statistics.getHistogram(phase);
+                long samples = 0;
+                for (long count : counts) {
+                    samples += count;
+                }
+                tTable.addRow(side, statistics.getKey(), phase, samples,
+                        LogBucketHistogram.percentile(counts, 0.5), LogBucketHistogram.percentile(counts, 0.99),
+                        LogBucketHistogram.percentile(counts, 0.999), statistics.getTimeouts());
+            }
+        }
+
+        return tTable.rendering();
+    }
+}
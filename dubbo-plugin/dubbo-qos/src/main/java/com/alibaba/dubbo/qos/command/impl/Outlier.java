@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.qos.command.impl;
+
+import com.alibaba.dubbo.qos.command.BaseCommand;
+import com.alibaba.dubbo.qos.command.CommandContext;
+import com.alibaba.dubbo.qos.command.annotation.Cmd;
+import com.alibaba.dubbo.qos.textui.TTable;
+import com.alibaba.dubbo.rpc.OutlierStatus;
+
+@Cmd(name = "outlier", summary = "show outlier detection status of providers", example = {
+        "outlier",
+        "outlier com.alibaba.dubbo.demo.DemoService"
+})
+public class Outlier implements BaseCommand {
+
+    @Override
+    public String execute(CommandContext commandContext, String[] args) {
+        String service = args != null && args.length > 0 ? args[0] : null;
+
+        TTable tTable = new TTable(new TTable.ColumnDefine[]{
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE)
+        });
+
+        //Header
+        tTable.addRow("Service Name", "Provider", "Requests", "Failures", "AvgElapsed(ms)", "Ejections", "Ejected(ms)");
+
+        //Content
+        long now = System.currentTimeMillis();
+        for (OutlierStatus status : OutlierStatus.getStatuses()) {
+            if (service != null && !status.getService().contains(service)) {
+                continue;
+            }
+            long requests = status.getRecentRequests();
+            tTable.addRow(status.getService(), status.getAddress(), requests, status.getRecentFailures(),
+                    requests == 0 ? 0 : status.getRecentElapsed() / requests, status.getEjections(),
+                    status.isEjected(now) ? status.getEjectedUntil() - now : 0);
+        }
+
+        return "As Consumer side:\n" + tTable.rendering();
+    }
+}
@@ -398,6 +398,8 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             // 若服务引用多 group ，则按照 method + group 聚合 Invoker 集合
             this.methodInvokerMap = multiGroup ? toMergeMethodInvokerMap(newMethodInvokerMap) : newMethodInvokerMap;
             this.urlInvokerMap = newUrlInvokerMap;
+            // 清空路由结果缓存
+            invalidateRouteCache();
             // 销毁不再使用的 Invoker 集合
             try {
                 destroyUnusedInvokers(oldUrlInvokerMap, newUrlInvokerMap); // Close the unused Invoker
@@ -723,6 +725,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         }
         // methodInvokerMap 置空
         methodInvokerMap = null;
+        invalidateRouteCache();
     }
 
     /**
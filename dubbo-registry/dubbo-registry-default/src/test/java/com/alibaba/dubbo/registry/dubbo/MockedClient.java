@@ -97,6 +97,9 @@ public class MockedClient implements ExchangeClient {
 
             public void setCallback(ResponseCallback callback) {
             }
+
+            public void addCallback(ResponseCallback callback) {
+            }
         };
     }
 
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange;
+
+/**
+ * Event data handled on the IO thread. (API, Prototype, ThreadSafe)
+ * <p>
+ * 事件请求的数据实现该接口，且 {@link #isDirect()} 返回 true 时，由 IO 线程直接处理，不派发到线程池。
+ * 用于处理很快、且线程池耗尽时也必须送达的控制类事件，例如流式调用的信用帧。
+ *
+ * @see com.alibaba.dubbo.remoting.exchange.support.header.HeartbeatHandler
+ */
+public interface DirectEvent {
+
+    /**
+     * @return 是否由 IO 线程处理
+     */
+    boolean isDirect();
+
+}
@@ -17,6 +17,7 @@
 package com.alibaba.dubbo.remoting.exchange;
 
 import com.alibaba.dubbo.common.utils.StringUtils;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyPhases;
 
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -77,6 +78,11 @@ public class Request {
      */
     private Object mData;
 
+    /**
+     * 各阶段的时间戳，仅采样的请求有
+     */
+    private LatencyPhases mPhases;
+
     public Request() {
         mId = newId();
     }
@@ -131,6 +137,15 @@ public class Request {
         mData = event;
     }
 
+    /**
+     * 标记为事件，数据通过 {@link #setData(Object)} 设置。例如，流式调用的帧。
+     *
+     * @param event 是否事件
+     */
+    public void setEvent(boolean event) {
+        mEvent = event;
+    }
+
     public boolean isBroken() {
         return mBroken;
     }
@@ -157,6 +172,14 @@ public class Request {
         }
     }
 
+    public LatencyPhases getPhases() {
+        return mPhases;
+    }
+
+    public void setPhases(LatencyPhases phases) {
+        mPhases = phases;
+    }
+
     @Override
     public String toString() {
         return "Request [id=" + mId + ", version=" + mVersion + ", twoway=" + mTwoWay + ", event=" + mEvent
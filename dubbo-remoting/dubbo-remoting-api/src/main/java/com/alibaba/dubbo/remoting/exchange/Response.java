@@ -16,6 +16,8 @@
  */
 package com.alibaba.dubbo.remoting.exchange;
 
+import com.alibaba.dubbo.remoting.exchange.support.LatencyPhases;
+
 /**
  * Response
  * <p>
@@ -115,6 +117,11 @@ public class Response {
      */
     private Object mResult;
 
+    /**
+     * 各阶段的时间戳，仅采样的请求有
+     */
+    private LatencyPhases mPhases;
+
     public Response() {
     }
 
@@ -187,6 +194,14 @@ public class Response {
         mErrorMsg = msg;
     }
 
+    public LatencyPhases getPhases() {
+        return mPhases;
+    }
+
+    public void setPhases(LatencyPhases phases) {
+        mPhases = phases;
+    }
+
     @Override
     public String toString() {
         return "Response [id=" + mId + ", version=" + mVersion + ", status=" + mStatus + ", event=" + mEvent
@@ -46,13 +46,21 @@ public interface ResponseFuture {
     Object get(int timeoutInMillis) throws RemotingException;
 
     /**
-     * set callback.
-     * 设置回调
+     * set callback, replacing the one set before.
+     * 设置回调，重复设置时覆盖之前设置的回调；若已完成，则立即调用
      *
      * @param callback 回调
      */
     void setCallback(ResponseCallback callback);
 
+    /**
+     * add callback, kept alongside the one set by {@link #setCallback(ResponseCallback)}.
+     * 添加回调，不影响 {@link #setCallback(ResponseCallback)} 设置的回调。可多次添加，完成时按添加顺序依次调用，之后再调用设置的回调；若已完成，则立即调用
+     *
+     * @param callback 回调
+     */
+    void addCallback(ResponseCallback callback);
+
     /**
      * check is done.
      * 是否完成
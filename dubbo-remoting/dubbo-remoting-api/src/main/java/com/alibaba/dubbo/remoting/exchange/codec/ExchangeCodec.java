@@ -33,6 +33,7 @@ import com.alibaba.dubbo.remoting.buffer.ChannelBufferOutputStream;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyPhases;
 import com.alibaba.dubbo.remoting.telnet.codec.TelnetCodec;
 import com.alibaba.dubbo.remoting.transport.CodecSupport;
 import com.alibaba.dubbo.remoting.transport.ExceedPayloadLimitException;
@@ -135,8 +136,14 @@ public class ExchangeCodec extends TelnetCodec {
         // 解析 Header + Body
         // limit input stream.
         ChannelBufferInputStream is = new ChannelBufferInputStream(buffer, len);
+        // 开启采样时，记录解码开始时间
+        long decodeStart = LatencyPhases.getSampleRate(channel) > 0 ? System.nanoTime() : 0;
         try {
-            return decodeBody(channel, is, header);
+            Object msg = decodeBody(channel, is, header);
+            if (decodeStart != 0) {
+                markDecoded(channel, msg, decodeStart);
+            }
+            return msg;
         } finally {
             // skip 未读完的流，并打印错误日志
             if (is.available() > 0) {
@@ -224,6 +231,48 @@ public class ExchangeCodec extends TelnetCodec {
         }
     }
 
+    /**
+     * 记录采样请求的解码时间戳
+     * <p>
+     * 响应，复用请求的 LatencyPhases 对象；请求，按服务提供者采样后创建。
+     *
+     * @param channel     通道
+     * @param msg         Request 或 Response
+     * @param decodeStart 解码开始时间
+     */
+    private void markDecoded(Channel channel, Object msg, long decodeStart) {
+        LatencyPhases phases = null;
+        if (msg instanceof Response) {
+            Response res = (Response) msg;
+            DefaultFuture future = DefaultFuture.getFuture(res.getId());
+            if (!res.isEvent() && future != null && future.getRequest() != null) {
+                phases = future.getRequest().getPhases();
+                res.setPhases(phases);
+            }
+        } else if (msg instanceof Request) {
+            Request req = (Request) msg;
+            if (!req.isEvent() && !req.isBroken() && LatencyPhases.sample(channel)) {
+                phases = new LatencyPhases(false);
+                phases.setSource(req.getData());
+                req.setPhases(phases);
+            }
+        }
+        if (phases != null) {
+            phases.mark(LatencyPhases.DECODE_START, decodeStart);
+            phases.mark(LatencyPhases.DECODE_END);
+        }
+    }
+
+    /**
+     * 获得采样统计的维度，默认为数据的类名
+     *
+     * @param data 请求数据
+     * @return 维度
+     */
+    protected String getPhaseKey(Object data) {
+        return data == null ? "null" : data.getClass().getSimpleName();
+    }
+
     protected Object getRequestData(long id) {
         DefaultFuture future = DefaultFuture.getFuture(id);
         if (future == null) {
@@ -245,6 +294,11 @@ public class ExchangeCodec extends TelnetCodec {
      * @throws IOException 当发生 IO 异常时
      */
     protected void encodeRequest(Channel channel, ChannelBuffer buffer, Request req) throws IOException {
+        LatencyPhases phases = req.getPhases();
+        if (phases != null) {
+            phases.mark(LatencyPhases.ENCODE_START);
+            phases.setKey(getPhaseKey(req.getData()));
+        }
         Serialization serialization = getSerialization(channel);
         // `[0, 15]`：Magic Number
         // header.
@@ -294,6 +348,9 @@ public class ExchangeCodec extends TelnetCodec {
         buffer.writerIndex(savedWriteIndex);
         buffer.writeBytes(header); // write header.
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
+        if (phases != null) {
+            phases.mark(LatencyPhases.ENCODE_END);
+        }
     }
 
     /**
@@ -306,6 +363,10 @@ public class ExchangeCodec extends TelnetCodec {
      */
     protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response res) throws IOException {
         int savedWriteIndex = buffer.writerIndex();
+        LatencyPhases phases = res.getPhases();
+        if (phases != null) {
+            phases.mark(LatencyPhases.ENCODE_START);
+        }
         try {
             Serialization serialization = getSerialization(channel);
             // `[0, 15]`：Magic Number
@@ -363,6 +424,12 @@ public class ExchangeCodec extends TelnetCodec {
             buffer.writerIndex(savedWriteIndex);
             buffer.writeBytes(header); // write header.
             buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
+            // 服务提供者，记录采样请求的各阶段耗时
+            if (phases != null) {
+                phases.mark(LatencyPhases.ENCODE_END);
+                phases.setKey(getPhaseKey(phases.getSource()));
+                phases.finish();
+            }
         } catch (Throwable t) {
             // clear buffer
             // 重置写入进度，下面新的 Response 需要用到。
@@ -28,8 +28,11 @@ import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
 import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -112,10 +115,22 @@ public class DefaultFuture implements ResponseFuture {
     private volatile Response response;
 
     /**
-     * 回调
+     * 是否已取消
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * 回调，{@link #setCallback(ResponseCallback)} 设置，重复设置时覆盖
      */
     private volatile ResponseCallback callback;
 
+    /**
+     * 附加回调集合，{@link #addCallback(ResponseCallback)} 添加，按添加顺序调用
+     * <p>
+     * 由 {@link #lock} 保护；完成后不再变更
+     */
+    private List<ResponseCallback> callbacks;
+
     public DefaultFuture(Channel channel, Request request, int timeout) {
         this.channel = channel;
         this.request = request;
@@ -163,6 +178,12 @@ public class DefaultFuture implements ResponseFuture {
             DefaultFuture future = FUTURES.remove(response.getId());
             // 接收结果
             if (future != null) {
+                // 记录采样请求的各阶段耗时
+                LatencyPhases phases = future.getRequest().getPhases();
+                if (phases != null && !response.isEvent()) {
+                    phases.mark(LatencyPhases.RECEIVED);
+                    phases.finish();
+                }
                 future.doReceived(response);
             } else {
                 logger.warn("The timeout response finally returned at "
@@ -213,12 +234,24 @@ public class DefaultFuture implements ResponseFuture {
         return returnFromResponse();
     }
 
+    /**
+     * 取消请求。之后返回的响应被丢弃；唤醒等待的线程，回调收到 {@link CancellationException}
+     */
     public void cancel() {
+        // 与接收响应竞争，只有一方完成
+        if (FUTURES.remove(id) == null) {
+            return;
+        }
+        CHANNELS.remove(id);
+        cancelled = true;
         Response errorResult = new Response(id);
+        errorResult.setStatus(Response.CLIENT_ERROR);
         errorResult.setErrorMessage("request future has been canceled.");
-        response = errorResult;
-        FUTURES.remove(id);
-        CHANNELS.remove(id);
+        doReceived(errorResult);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
     }
 
     @Override
@@ -228,6 +261,15 @@ public class DefaultFuture implements ResponseFuture {
 
     @Override
     public void setCallback(ResponseCallback callback) {
+        registerCallback(callback, false);
+    }
+
+    @Override
+    public void addCallback(ResponseCallback callback) {
+        registerCallback(callback, true);
+    }
+
+    private void registerCallback(ResponseCallback callback, boolean append) {
         // 已完成，调用回调
         if (isDone()) {
             invokeCallback(callback);
@@ -238,7 +280,14 @@ public class DefaultFuture implements ResponseFuture {
             try {
                 // 未完成，设置回调
                 if (!isDone()) {
-                    this.callback = callback;
+                    if (!append) {
+                        this.callback = callback;
+                    } else {
+                        if (callbacks == null) {
+                            callbacks = new ArrayList<ResponseCallback>(2);
+                        }
+                        callbacks.add(callback);
+                    }
                 } else {
                     isdone = true;
                 }
@@ -278,6 +327,13 @@ public class DefaultFuture implements ResponseFuture {
             } catch (Exception e) {
                 logger.error("callback invoke error ,url:" + channel.getUrl(), e);
             }
+            // 取消，处理 CancellationException 异常
+        } else if (cancelled) {
+            try {
+                callbackCopy.caught(new CancellationException(res.getErrorMessage()));
+            } catch (Exception e) {
+                logger.error("callback invoke error ,url:" + channel.getUrl(), e);
+            }
             // 其他，处理 RemotingException 异常
         } else {
             try {
@@ -344,6 +400,8 @@ public class DefaultFuture implements ResponseFuture {
     }
 
     private void doReceived(Response res) {
+        ResponseCallback callbackCopy;
+        List<ResponseCallback> copy;
         // 锁定
         lock.lock();
         try {
@@ -353,13 +411,21 @@ public class DefaultFuture implements ResponseFuture {
             if (done != null) {
                 done.signal();
             }
+            // 完成后回调不再变更，锁外调用即可
+            callbackCopy = callback;
+            copy = callbacks;
         } finally {
             // 释放锁定
             lock.unlock();
         }
-        // 调用回调
-        if (callback != null) {
-            invokeCallback(callback);
+        // 先调用附加回调，再调用设置的回调
+        if (copy != null) {
+            for (ResponseCallback c : copy) {
+                invokeCallback(c);
+            }
+        }
+        if (callbackCopy != null) {
+            invokeCallback(callbackCopy);
         }
     }
 
@@ -407,6 +473,11 @@ public class DefaultFuture implements ResponseFuture {
                             // set timeout status.
                             timeoutResponse.setStatus(future.isSent() ? Response.SERVER_TIMEOUT : Response.CLIENT_TIMEOUT);
                             timeoutResponse.setErrorMessage(future.getTimeoutMessage(true));
+                            // 记录采样请求已完成的阶段耗时
+                            LatencyPhases phases = future.getRequest().getPhases();
+                            if (phases != null) {
+                                phases.timeout();
+                            }
                             // 响应结果
                             // handle response.
                             DefaultFuture.received(future.getChannel(), timeoutResponse);
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange.support;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.threadlocal.InternalThreadLocal;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 一次请求在本端各阶段的时间戳，单位：纳秒
+ * <p>
+ * 仅采样的请求创建，由 {@link Request} 和对应的 {@link Response} 共享。请求完成或超时时，计入 {@link LatencyStatistics} 。
+ * <p>
+ * 时间戳由调用线程、IO 线程和线程池分别写入，使用 {@link AtomicLongArray} 保证完成时可见。
+ *
+ * @see Constants#LATENCY_SAMPLE_KEY
+ */
+public class LatencyPhases {
+
+    /**
+     * 调用 Channel#send 发送
+     */
+    public static final int SEND = 0;
+
+    /**
+     * 开始编码
+     */
+    public static final int ENCODE_START = 1;
+
+    /**
+     * 编码完成
+     */
+    public static final int ENCODE_END = 2;
+
+    /**
+     * 开始解码
+     */
+    public static final int DECODE_START = 3;
+
+    /**
+     * 解码完成
+     */
+    public static final int DECODE_END = 4;
+
+    /**
+     * 派发到线程池
+     */
+    public static final int DISPATCH = 5;
+
+    /**
+     * 线程池开始执行
+     */
+    public static final int EXECUTE_START = 6;
+
+    /**
+     * 消费者收到响应，即 {@link DefaultFuture#received}
+     */
+    public static final int RECEIVED = 7;
+
+    static final int LENGTH = 8;
+
+    /**
+     * 未编码即超时的请求的统计维度
+     */
+    static final String UNSENT_KEY = "unsent";
+
+    /**
+     * 通道属性：采样间隔，避免每次编解码都解析 URL 参数
+     */
+    private static final String SAMPLE_RATE_ATTRIBUTE = LatencyPhases.class.getName() + ".SAMPLE_RATE";
+
+    /**
+     * 每个线程的采样计数
+     */
+    private static final InternalThreadLocal<int[]> SAMPLE_COUNTER = new InternalThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    /**
+     * 是否消费者
+     */
+    private final boolean consumer;
+
+    private final AtomicLongArray stamps = new AtomicLongArray(LENGTH);
+
+    /**
+     * 是否已计入统计，完成与超时只计入一次
+     */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * 统计维度，一般为 服务名.方法名
+     */
+    private volatile String key;
+
+    /**
+     * 请求数据，用于延迟获得 {@link #key}
+     */
+    private volatile Object source;
+
+    public LatencyPhases(boolean consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * 是否采样，每个线程每 N 个请求采样一个
+     *
+     * @param url 通道 URL
+     * @return 是否采样
+     */
+    public static boolean sample(URL url) {
+        return sample(url == null ? 0 : url.getParameter(Constants.LATENCY_SAMPLE_KEY, 0));
+    }
+
+    /**
+     * 是否采样，采样间隔缓存在通道属性中
+     *
+     * @param channel 通道
+     * @return 是否采样
+     */
+    public static boolean sample(Channel channel) {
+        return sample(getSampleRate(channel));
+    }
+
+    /**
+     * 获得通道的采样间隔，首次获取时从 URL 解析并缓存在通道属性中
+     *
+     * @param channel 通道
+     * @return 采样间隔，未开启时为 0
+     */
+    public static int getSampleRate(Channel channel) {
+        Object rate = channel.getAttribute(SAMPLE_RATE_ATTRIBUTE);
+        if (rate == null) {
+            URL url = channel.getUrl();
+            rate = url == null ? 0 : url.getParameter(Constants.LATENCY_SAMPLE_KEY, 0);
+            channel.setAttribute(SAMPLE_RATE_ATTRIBUTE, rate);
+        }
+        return (Integer) rate;
+    }
+
+    private static boolean sample(int rate) {
+        if (rate <= 0) {
+            return false;
+        }
+        int[] counter = SAMPLE_COUNTER.get();
+        if (++counter[0] >= rate) {
+            counter[0] = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获得消息的 LatencyPhases
+     *
+     * @param message 消息
+     * @return LatencyPhases ，未采样时返回 null
+     */
+    public static LatencyPhases of(Object message) {
+        if (message instanceof Request) {
+            return ((Request) message).getPhases();
+        }
+        if (message instanceof Response) {
+            return ((Response) message).getPhases();
+        }
+        return null;
+    }
+
+    /**
+     * 记录消息的阶段时间戳，未采样时忽略
+     *
+     * @param message 消息
+     * @param phase   阶段
+     */
+    public static void mark(Object message, int phase) {
+        LatencyPhases phases = of(message);
+        if (phases != null) {
+            phases.mark(phase);
+        }
+    }
+
+    public void mark(int phase) {
+        stamps.set(phase, System.nanoTime());
+    }
+
+    public void mark(int phase, long nanos) {
+        stamps.set(phase, nanos);
+    }
+
+    public long getStamp(int phase) {
+        return stamps.get(phase);
+    }
+
+    public boolean isConsumer() {
+        return consumer;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    public void setSource(Object source) {
+        this.source = source;
+    }
+
+    /**
+     * 请求完成，计入统计
+     */
+    public void finish() {
+        if (finished.compareAndSet(false, true)) {
+            LatencyStatistics.getStatistics(consumer, key).record(this);
+        }
+    }
+
+    /**
+     * 请求超时，计入统计。未编码即超时的请求，计入 {@link #UNSENT_KEY}
+     */
+    public void timeout() {
+        if (finished.compareAndSet(false, true)) {
+            LatencyStatistics.getStatistics(consumer, key != null ? key : UNSENT_KEY).recordTimeout(this);
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange.support;
+
+import com.alibaba.dubbo.common.utils.LogBucketHistogram;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 服务名.方法名 维度，采样请求各阶段耗时的直方图，单位：微秒
+ * <p>
+ * 消费者阶段：outbound（发送到开始编码）、encode 、remote（编码完成到开始解码响应，即网络和服务提供者）、decode 、
+ * queue（派发到线程池开始执行）、execute（开始执行到收到响应）、total 。
+ * <p>
+ * 服务提供者阶段：decode 、queue 、execute（开始执行到发送响应）、outbound 、encode 、total 。
+ * <p>
+ * 超时的请求单独计数，只记录已完成的阶段，不计入以收到响应结束的阶段（execute 、total）。
+ *
+ * @see LatencyPhases
+ */
+public class LatencyStatistics {
+
+    public static final String OUTBOUND = "outbound";
+
+    public static final String ENCODE = "encode";
+
+    public static final String REMOTE = "remote";
+
+    public static final String DECODE = "decode";
+
+    public static final String QUEUE = "queue";
+
+    public static final String EXECUTE = "execute";
+
+    public static final String TOTAL = "total";
+
+    private static final String[] CONSUMER_NAMES = {OUTBOUND, ENCODE, REMOTE, DECODE, QUEUE, EXECUTE, TOTAL};
+
+    /**
+     * 消费者各阶段的开始、结束时间戳
+     */
+    private static final int[][] CONSUMER_INTERVALS = {
+            {LatencyPhases.SEND, LatencyPhases.ENCODE_START},
+            {LatencyPhases.ENCODE_START, LatencyPhases.ENCODE_END},
+            {LatencyPhases.ENCODE_END, LatencyPhases.DECODE_START},
+            {LatencyPhases.DECODE_START, LatencyPhases.DECODE_END},
+            {LatencyPhases.DISPATCH, LatencyPhases.EXECUTE_START},
+            {LatencyPhases.EXECUTE_START, LatencyPhases.RECEIVED},
+            {LatencyPhases.SEND, LatencyPhases.RECEIVED}
+    };
+
+    private static final String[] PROVIDER_NAMES = {DECODE, QUEUE, EXECUTE, OUTBOUND, ENCODE, TOTAL};
+
+    /**
+     * 服务提供者各阶段的开始、结束时间戳
+     */
+    private static final int[][] PROVIDER_INTERVALS = {
+            {LatencyPhases.DECODE_START, LatencyPhases.DECODE_END},
+            {LatencyPhases.DISPATCH, LatencyPhases.EXECUTE_START},
+            {LatencyPhases.EXECUTE_START, LatencyPhases.SEND},
+            {LatencyPhases.SEND, LatencyPhases.ENCODE_START},
+            {LatencyPhases.ENCODE_START, LatencyPhases.ENCODE_END},
+            {LatencyPhases.DECODE_START, LatencyPhases.ENCODE_END}
+    };
+
+    /**
+     * key：consumer|provider:服务名.方法名
+     */
+    private static final ConcurrentMap<String, LatencyStatistics> STATISTICS = new ConcurrentHashMap<String, LatencyStatistics>();
+
+    private final boolean consumer;
+
+    private final String key;
+
+    private final String[] names;
+
+    private final int[][] intervals;
+
+    private final LogBucketHistogram[] histograms;
+
+    /**
+     * 超时次数
+     */
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private LatencyStatistics(boolean consumer, String key) {
+        this.consumer = consumer;
+        this.key = key;
+        this.names = consumer ? CONSUMER_NAMES : PROVIDER_NAMES;
+        this.intervals = consumer ? CONSUMER_INTERVALS : PROVIDER_INTERVALS;
+        this.histograms = new LogBucketHistogram[names.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LogBucketHistogram();
+        }
+    }
+
+    /**
+     * 获得 LatencyStatistics 对象，不存在时创建
+     *
+     * @param consumer 是否消费者
+     * @param key      服务名.方法名
+     * @return LatencyStatistics 对象
+     */
+    public static LatencyStatistics getStatistics(boolean consumer, String key) {
+        String k = (consumer ? "consumer:" : "provider:") + key;
+        LatencyStatistics statistics = STATISTICS.get(k);
+        if (statistics == null) {
+            STATISTICS.putIfAbsent(k, new LatencyStatistics(consumer, key));
+            statistics = STATISTICS.get(k);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return 所有 LatencyStatistics 对象
+     */
+    public static Collection<LatencyStatistics> getAllStatistics() {
+        return Collections.unmodifiableCollection(STATISTICS.values());
+    }
+
+    /**
+     * 记录各阶段耗时，缺少开始或结束时间戳的阶段不记录
+     */
+    void record(LatencyPhases phases) {
+        record(phases, false);
+    }
+
+    /**
+     * 记录超时请求已完成的阶段耗时，并计数
+     */
+    void recordTimeout(LatencyPhases phases) {
+        timeouts.incrementAndGet();
+        record(phases, true);
+    }
+
+    private void record(LatencyPhases phases, boolean timeout) {
+        for (int i = 0; i < intervals.length; i++) {
+            if (timeout && intervals[i][1] == LatencyPhases.RECEIVED) {
+                continue;
+            }
+            long start = phases.getStamp(intervals[i][0]);
+            long end = phases.getStamp(intervals[i][1]);
+            if (start != 0 && end != 0) {
+                histograms[i].record((end - start) / 1000);
+            }
+        }
+    }
+
+    public boolean isConsumer() {
+        return consumer;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return 阶段名，例如 {@link #ENCODE}
+     */
+    public String[] getPhaseNames() {
+        return names.clone();
+    }
+
+    /**
+     * @return 超时次数
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * 获得阶段耗时的百分位数
+     *
+     * @param phase    阶段名
+     * @param quantile 分位，取值 [0, 1]
+     * @return 百分位数，单位：微秒；阶段不存在或无记录时返回 0
+     */
+    public long getPercentile(String phase, double quantile) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(phase)) {
+                return LogBucketHistogram.percentile(histograms[i].snapshot(), quantile);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 获得阶段耗时按桶的计数
+     *
+     * @param phase 阶段名
+     * @return 按桶的计数，阶段不存在时返回 null
+     */
+    public long[] getHistogram(String phase) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(phase)) {
+                return histograms[i].snapshot();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append(consumer ? "consumer " : "provider ").append(key).append(" p50/p99(us):");
+        for (int i = 0; i < names.length; i++) {
+            long[] counts = histograms[i].snapshot();
+            buf.append(' ').append(names[i]).append('=')
+                    .append(LogBucketHistogram.percentile(counts, 0.5)).append('/')
+                    .append(LogBucketHistogram.percentile(counts, 0.99));
+        }
+        return buf.toString();
+    }
+
+}
@@ -44,6 +44,10 @@ public class SimpleFuture implements ResponseFuture {
         callback.done(value);
     }
 
+    public void addCallback(ResponseCallback callback) {
+        callback.done(value);
+    }
+
     public boolean isDone() {
         return true;
     }
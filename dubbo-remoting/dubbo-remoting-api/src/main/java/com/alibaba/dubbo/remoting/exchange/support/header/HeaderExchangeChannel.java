@@ -29,6 +29,7 @@ import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
 import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyPhases;
 
 import java.net.InetSocketAddress;
 
@@ -132,6 +133,10 @@ final class HeaderExchangeChannel implements ExchangeChannel {
         req.setVersion("2.0.0");
         req.setTwoWay(true); // 需要响应
         req.setData(request);
+        // 采样，记录各阶段耗时
+        if (LatencyPhases.sample(channel)) {
+            req.setPhases(new LatencyPhases(true));
+        }
         // 创建 DefaultFuture 对象
         DefaultFuture future = new DefaultFuture(channel, req, timeout);
         try {
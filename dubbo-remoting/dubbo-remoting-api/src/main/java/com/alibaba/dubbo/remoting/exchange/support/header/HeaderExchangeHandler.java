@@ -99,6 +99,7 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
      */
     Response handleRequest(ExchangeChannel channel, Request req) {
         Response res = new Response(req.getId(), req.getVersion());
+        res.setPhases(req.getPhases());
         // 请求无法解析，返回 BAD_REQUEST 响应
         if (req.isBroken()) {
             Object data = req.getData();
@@ -211,6 +212,10 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
                 // 处理事件请求
                 if (request.isEvent()) {
                     handlerEvent(channel, request);
+                    // 携带对象（非字符串）数据的事件，提交给装饰的 `handler`，继续处理。例如，流式调用的帧。
+                    if (request.getData() != null && !(request.getData() instanceof String)) {
+                        handler.received(exchangeChannel, request.getData());
+                    }
                 } else {
                     // 处理普通请求
                     if (request.isTwoWay()) {
@@ -23,6 +23,7 @@ import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.DirectEvent;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.transport.AbstractChannelHandlerDelegate;
@@ -97,6 +98,11 @@ public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
             }
             return;
         }
+        // 如果是 IO 线程处理的事件，直接提交给最内层的 `handler` ，不派发到线程池
+        if (isDirectEvent(message)) {
+            getHandler().received(channel, ((Request) message).getData());
+            return;
+        }
         // 提交给装饰的 `handler`，继续处理
         handler.received(channel, message);
     }
@@ -121,6 +127,14 @@ public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
         return message instanceof Request && ((Request) message).isHeartbeat();
     }
 
+    private boolean isDirectEvent(Object message) {
+        if (!(message instanceof Request) || !((Request) message).isEvent()) {
+            return false;
+        }
+        Object data = ((Request) message).getData();
+        return data instanceof DirectEvent && ((DirectEvent) data).isDirect();
+    }
+
     private boolean isHeartbeatResponse(Object message) {
         return message instanceof Response && ((Response) message).isHeartbeat();
     }
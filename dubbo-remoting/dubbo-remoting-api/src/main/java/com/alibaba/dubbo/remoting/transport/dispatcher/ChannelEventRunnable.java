@@ -20,6 +20,7 @@ import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.ChannelHandler;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyPhases;
 
 /**
  * 通道事件 Runnable
@@ -84,6 +85,7 @@ public class ChannelEventRunnable implements Runnable {
                 }
                 break;
             case RECEIVED:
+                LatencyPhases.mark(message, LatencyPhases.EXECUTE_START);
                 try {
                     handler.received(channel, message);
                 } catch (Exception e) {
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange.support;
+
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.remoting.handler.MockedChannel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DefaultFutureTest {
+
+    @Test
+    public void testCancel() throws Exception {
+        MockedChannel channel = new MockedChannel();
+        Request request = new Request();
+        DefaultFuture future = new DefaultFuture(channel, request, 1000);
+        final AtomicReference<Throwable> caught = new AtomicReference<Throwable>();
+        future.setCallback(new ResponseCallback() {
+            public void done(Object response) {
+            }
+
+            public void caught(Throwable exception) {
+                caught.set(exception);
+            }
+        });
+        future.cancel();
+        Assert.assertTrue(future.isDone());
+        Assert.assertTrue(future.isCancelled());
+        // 回调收到取消，等待的线程立即返回
+        Assert.assertTrue(caught.get() instanceof CancellationException);
+        try {
+            future.get();
+            Assert.fail();
+        } catch (RemotingException expected) {
+        }
+        // 之后返回的响应被丢弃
+        Assert.assertNull(DefaultFuture.getFuture(request.getId()));
+        Response response = new Response(request.getId());
+        response.setResult("late");
+        DefaultFuture.received(channel, response);
+        Assert.assertTrue(future.isCancelled());
+        // 已完成的请求不能取消
+        DefaultFuture received = new DefaultFuture(channel, new Request(), 1000);
+        Response ok = new Response(received.getRequest().getId());
+        ok.setResult("ok");
+        DefaultFuture.received(channel, ok);
+        received.cancel();
+        Assert.assertFalse(received.isCancelled());
+        Assert.assertEquals("ok", received.get());
+    }
+
+    @Test
+    public void testSetAndAddCallback() throws Exception {
+        MockedChannel channel = new MockedChannel();
+        DefaultFuture future = new DefaultFuture(channel, new Request(), 1000);
+        List<String> invoked = new ArrayList<String>();
+        future.setCallback(new RecordingCallback("replaced", invoked));
+        future.addCallback(new RecordingCallback("added1", invoked));
+        future.setCallback(new RecordingCallback("set", invoked));
+        future.addCallback(new RecordingCallback("added2", invoked));
+        Response response = new Response(future.getRequest().getId());
+        response.setResult("ok");
+        DefaultFuture.received(channel, response);
+        // setCallback 覆盖之前设置的回调，addCallback 添加的回调按顺序调用，最后调用设置的回调
+        Assert.assertEquals(Arrays.asList("added1", "added2", "set"), invoked);
+        // 已完成，立即调用
+        future.addCallback(new RecordingCallback("late", invoked));
+        Assert.assertEquals("late", invoked.get(invoked.size() - 1));
+    }
+
+    private static class RecordingCallback implements ResponseCallback {
+
+        private final String name;
+
+        private final List<String> invoked;
+
+        RecordingCallback(String name, List<String> invoked) {
+            this.name = name;
+            this.invoked = invoked;
+        }
+
+        public void done(Object response) {
+            invoked.add(name);
+        }
+
+        public void caught(Throwable exception) {
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange.support;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.codec.AbstractMockChannel;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyStatisticsTest {
+
+    private static final long MICROS = 1000L;
+
+    @Test
+    public void testSample() {
+        Assert.assertFalse(LatencyPhases.sample(URL.valueOf("dubbo://localhost:20880")));
+        Assert.assertFalse(LatencyPhases.sample(URL.valueOf("dubbo://localhost:20880?latency.sample=0")));
+
+        URL url = URL.valueOf("dubbo://localhost:20880?latency.sample=4");
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (LatencyPhases.sample(url)) {
+                sampled++;
+            }
+        }
+        Assert.assertEquals(25, sampled);
+    }
+
+    @Test
+    public void testSampleRateCachedOnChannel() {
+        AbstractMockChannel channel = new AbstractMockChannel() {
+            @Override
+            public URL getUrl() {
+                return URL.valueOf("dubbo://localhost:20880?latency.sample=4");
+            }
+        };
+        Assert.assertEquals(4, LatencyPhases.getSampleRate(channel));
+        channel.setAttribute(LatencyPhases.class.getName() + ".SAMPLE_RATE", 0);
+        Assert.assertEquals(0, LatencyPhases.getSampleRate(channel));
+        Assert.assertFalse(LatencyPhases.sample(channel));
+    }
+
+    @Test
+    public void testTimeout() {
+        LatencyPhases phases = new LatencyPhases(true);
+        phases.setKey("DemoService.timeout");
+        phases.mark(LatencyPhases.SEND, 1000 * MICROS);
+        phases.mark(LatencyPhases.ENCODE_START, 1010 * MICROS);
+        phases.mark(LatencyPhases.ENCODE_END, 1030 * MICROS);
+        phases.timeout();
+        // 超时后收到的响应不再计入
+        phases.mark(LatencyPhases.RECEIVED, 2000 * MICROS);
+        phases.finish();
+
+        LatencyStatistics statistics = LatencyStatistics.getStatistics(true, "DemoService.timeout");
+        Assert.assertEquals(1, statistics.getTimeouts());
+        assertPhase(statistics, LatencyStatistics.OUTBOUND, 10);
+        assertPhase(statistics, LatencyStatistics.ENCODE, 20);
+        Assert.assertEquals(0, count(statistics.getHistogram(LatencyStatistics.TOTAL)));
+
+        // 未编码即超时
+        new LatencyPhases(true).timeout();
+        Assert.assertTrue(LatencyStatistics.getStatistics(true, LatencyPhases.UNSENT_KEY).getTimeouts() >= 1);
+    }
+
+    @Test
+    public void testMarkMessage() {
+        Request req = new Request();
+        LatencyPhases.mark(req, LatencyPhases.SEND);
+        Assert.assertNull(LatencyPhases.of(req));
+
+        LatencyPhases phases = new LatencyPhases(true);
+        req.setPhases(phases);
+        LatencyPhases.mark(req, LatencyPhases.SEND);
+        Assert.assertTrue(phases.getStamp(LatencyPhases.SEND) > 0);
+
+        Response res = new Response(req.getId());
+        res.setPhases(phases);
+        Assert.assertSame(phases, LatencyPhases.of(res));
+        Assert.assertNull(LatencyPhases.of("telnet"));
+    }
+
+    @Test
+    public void testConsumerPhases() {
+        LatencyPhases phases = new LatencyPhases(true);
+        phases.setKey("DemoService.consumer");
+        phases.mark(LatencyPhases.SEND, 1000 * MICROS);
+        phases.mark(LatencyPhases.ENCODE_START, 1010 * MICROS);
+        phases.mark(LatencyPhases.ENCODE_END, 1030 * MICROS);
+        phases.mark(LatencyPhases.DECODE_START, 1530 * MICROS);
+        phases.mark(LatencyPhases.DECODE_END, 1550 * MICROS);
+        phases.mark(LatencyPhases.DISPATCH, 1551 * MICROS);
+        phases.mark(LatencyPhases.EXECUTE_START, 1600 * MICROS);
+        phases.mark(LatencyPhases.RECEIVED, 1602 * MICROS);
+        phases.finish();
+
+        LatencyStatistics statistics = LatencyStatistics.getStatistics(true, "DemoService.consumer");
+        Assert.assertTrue(statistics.isConsumer());
+        assertPhase(statistics, LatencyStatistics.OUTBOUND, 10);
+        assertPhase(statistics, LatencyStatistics.ENCODE, 20);
+        assertPhase(statistics, LatencyStatistics.REMOTE, 500);
+        assertPhase(statistics, LatencyStatistics.DECODE, 20);
+        assertPhase(statistics, LatencyStatistics.QUEUE, 49);
+        assertPhase(statistics, LatencyStatistics.EXECUTE, 2);
+        assertPhase(statistics, LatencyStatistics.TOTAL, 602);
+        Assert.assertTrue(LatencyStatistics.getAllStatistics().contains(statistics));
+    }
+
+    @Test
+    public void testProviderPhasesSkipMissing() {
+        LatencyPhases phases = new LatencyPhases(false);
+        phases.setKey("DemoService.provider");
+        phases.mark(LatencyPhases.DECODE_START, 1000 * MICROS);
+        phases.mark(LatencyPhases.DECODE_END, 1005 * MICROS);
+        // direct 派发，无 DISPATCH 和 EXECUTE_START
+        phases.mark(LatencyPhases.SEND, 1100 * MICROS);
+        phases.mark(LatencyPhases.ENCODE_START, 1101 * MICROS);
+        phases.mark(LatencyPhases.ENCODE_END, 1110 * MICROS);
+        phases.finish();
+
+        LatencyStatistics statistics = LatencyStatistics.getStatistics(false, "DemoService.provider");
+        Assert.assertFalse(statistics.isConsumer());
+        assertPhase(statistics, LatencyStatistics.DECODE, 5);
+        assertPhase(statistics, LatencyStatistics.OUTBOUND, 1);
+        assertPhase(statistics, LatencyStatistics.ENCODE, 9);
+        assertPhase(statistics, LatencyStatistics.TOTAL, 110);
+        Assert.assertEquals(0, count(statistics.getHistogram(LatencyStatistics.QUEUE)));
+        Assert.assertEquals(0, count(statistics.getHistogram(LatencyStatistics.EXECUTE)));
+        Assert.assertNull(statistics.getHistogram(LatencyStatistics.REMOTE));
+        Assert.assertNotSame(statistics, LatencyStatistics.getStatistics(true, "DemoService.provider"));
+    }
+
+    private static void assertPhase(LatencyStatistics statistics, String phase, long micros) {
+        Assert.assertEquals(phase, 1, count(statistics.getHistogram(phase)));
+        long p50 = statistics.getPercentile(phase, 0.5);
+        // 对数分桶，误差在 1/8 以内
+        Assert.assertTrue(phase + " " + p50, p50 >= micros && p50 <= micros + micros / 8 + 1);
+    }
+
+    private static long count(long[] counts) {
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        return sum;
+    }
+
+}
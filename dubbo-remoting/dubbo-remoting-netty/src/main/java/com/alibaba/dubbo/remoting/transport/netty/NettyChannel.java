@@ -22,6 +22,7 @@ import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyPhases;
 import com.alibaba.dubbo.remoting.transport.AbstractChannel;
 
 import org.jboss.netty.channel.ChannelFuture;
@@ -117,6 +118,7 @@ final class NettyChannel extends AbstractChannel {
         int timeout = 0;
         try {
             // 发送消息
+            LatencyPhases.mark(message, LatencyPhases.SEND);
             ChannelFuture future = channel.write(message);
             // 等待发送成功
             if (sent) {
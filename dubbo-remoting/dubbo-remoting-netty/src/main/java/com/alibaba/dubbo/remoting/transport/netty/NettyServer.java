@@ -80,6 +80,8 @@ public class NettyServer extends AbstractServer implements Server {
         ChannelFactory channelFactory = new NioServerSocketChannelFactory(boss, worker, getUrl().getPositiveParameter(Constants.IO_THREADS_KEY, Constants.DEFAULT_IO_THREADS));
         // 实例化 ServerBootstrap
         bootstrap = new ServerBootstrap(channelFactory);
+        // 关闭 Nagle 算法，避免连续推送的小消息（例如，流式调用的帧）被延迟发送
+        bootstrap.setOption("child.tcpNoDelay", true);
 
         // 创建 NettyHandler 对象
         final NettyHandler nettyHandler = new NettyHandler(getUrl(), this);
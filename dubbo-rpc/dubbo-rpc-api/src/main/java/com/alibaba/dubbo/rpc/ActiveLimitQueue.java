@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Waiting queue used to control concurrency limit set by `actives`
+ * <p>
+ * 服务调用的等待队列，在 {@link com.alibaba.dubbo.rpc.filter.ActiveLimitFilter} 中使用。
+ * <p>
+ * 超过最大并发调用数时，调用方进入等待队列并限时挂起；调用完成时，许可直接移交给队列中的下一个等待者，
+ * 避免被唤醒后与新到达的调用方再次竞争。
+ */
+public class ActiveLimitQueue {
+
+    /**
+     * 最大并发调用数
+     */
+    private volatile int max;
+
+    /**
+     * 是否后进先出
+     */
+    private final boolean lifo;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 已分配的许可数
+     */
+    private int acquired;
+
+    /**
+     * 等待者队列，始终从队首移交许可
+     */
+    private final LinkedList<Waiter> waiters = new LinkedList<Waiter>();
+
+    /**
+     * 总等待次数
+     */
+    private final AtomicLong waited = new AtomicLong();
+
+    /**
+     * 总等待时长，单位：纳秒
+     */
+    private final AtomicLong waitedNanos = new AtomicLong();
+
+    /**
+     * 最大等待时长，单位：纳秒
+     */
+    private final AtomicLong maxWaitedNanos = new AtomicLong();
+
+    /**
+     * 等待超时次数
+     */
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public ActiveLimitQueue(int max, boolean lifo) {
+        this.max = max;
+        this.lifo = lifo;
+    }
+
+    /**
+     * 获得许可，超过最大并发调用数时排队等待
+     *
+     * @param timeout 最大等待时长，单位：毫秒
+     * @return 是否获得许可，等待超时返回 false
+     */
+    public boolean acquire(long timeout) {
+        Waiter waiter;
+        lock.lock();
+        try {
+            // 无人排队且未超过限制，直接获得
+            if (waiters.isEmpty() && acquired < max) {
+                acquired++;
+                return true;
+            }
+            waiter = new Waiter(Thread.currentThread());
+            if (lifo) {
+                waiters.addFirst(waiter);
+            } else {
+                waiters.addLast(waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // 限时挂起，直到被移交许可或超时
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        boolean interrupted = false;
+        try {
+            while (!waiter.granted) {
+                long remain = deadline - System.nanoTime();
+                if (remain <= 0) {
+                    lock.lock();
+                    try {
+                        // 超时的同时被移交了许可，视为获得
+                        if (!waiter.granted) {
+                            waiters.remove(waiter);
+                            timeouts.incrementAndGet();
+                            return false;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    break;
+                }
+                LockSupport.parkNanos(this, remain);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+            return true;
+        } finally {
+            record(System.nanoTime() - start);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 释放许可，有等待者时直接移交给队首的等待者
+     */
+    public void release() {
+        Waiter waiter = null;
+        lock.lock();
+        try {
+            // 最大并发调用数调小后，先回收多余的许可
+            if (acquired > max || waiters.isEmpty()) {
+                acquired--;
+            } else {
+                waiter = waiters.removeFirst();
+                waiter.granted = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (waiter != null) {
+            LockSupport.unpark(waiter.thread);
+        }
+    }
+
+    /**
+     * 设置最大并发调用数，调大时立即移交许可给等待者
+     *
+     * @param max 最大并发调用数
+     */
+    public void setMax(int max) {
+        if (this.max == max) {
+            return;
+        }
+        lock.lock();
+        try {
+            this.max = max;
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (acquired < max && iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                iterator.remove();
+                acquired++;
+                waiter.granted = true;
+                LockSupport.unpark(waiter.thread);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(long nanos) {
+        waited.incrementAndGet();
+        waitedNanos.addAndGet(nanos);
+        long maxNanos = maxWaitedNanos.get();
+        while (nanos > maxNanos && !maxWaitedNanos.compareAndSet(maxNanos, nanos)) {
+            maxNanos = maxWaitedNanos.get();
+        }
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public boolean isLifo() {
+        return lifo;
+    }
+
+    /**
+     * @return 已分配的许可数
+     */
+    public int getAcquired() {
+        lock.lock();
+        try {
+            return acquired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 等待队列长度
+     */
+    public int getQueueLength() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 总等待次数
+     */
+    public long getWaited() {
+        return waited.get();
+    }
+
+    /**
+     * @return 平均等待时长，单位：毫秒
+     */
+    public long getAverageWaitElapsed() {
+        long count = waited.get();
+        if (count == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(waitedNanos.get() / count);
+    }
+
+    /**
+     * @return 最大等待时长，单位：毫秒
+     */
+    public long getMaxWaitElapsed() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitedNanos.get());
+    }
+
+    /**
+     * @return 等待超时次数
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * 等待者
+     */
+    private static final class Waiter {
+
+        private final Thread thread;
+
+        /**
+         * 是否已被移交许可
+         */
+        private volatile boolean granted;
+
+        private Waiter(Thread thread) {
+            this.thread = thread;
+        }
+
+    }
+
+}
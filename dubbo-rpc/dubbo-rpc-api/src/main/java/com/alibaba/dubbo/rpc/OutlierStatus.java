@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.RollingCounter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Outlier status of a provider. (API, Cached, ThreadSafe)
+ * <p>
+ * 服务消费者视角的服务提供者离群状态：最近窗口的调用次数、失败次数、调用时长，以及摘除状态。
+ * 由 {@link com.alibaba.dubbo.rpc.filter.OutlierDetectionFilter} 记录，由集群的离群检测摘除与恢复，Invoker 销毁时移除。
+ *
+ * @see com.alibaba.dubbo.rpc.filter.OutlierDetectionFilter
+ */
+public class OutlierStatus {
+
+    /**
+     * 基于服务 URL 为维度的 OutlierStatus 集合
+     * <p>
+     * key：URL
+     */
+    private static final ConcurrentMap<String, OutlierStatus> STATUSES = new ConcurrentHashMap<String, OutlierStatus>();
+
+    /**
+     * 计数项：调用次数
+     */
+    private static final int REQUESTS = 0;
+
+    /**
+     * 计数项：失败次数
+     */
+    private static final int FAILURES = 1;
+
+    /**
+     * 计数项：调用时长，单位：毫秒
+     */
+    private static final int ELAPSED = 2;
+
+    private final String service;
+
+    private final String address;
+
+    /**
+     * 最近 10 秒的调用次数、失败次数、调用时长
+     */
+    private final RollingCounter counter = new RollingCounter(3);
+
+    /**
+     * 摘除到期时间，不大于当前时间表示未摘除
+     */
+    private volatile long ejectedUntil;
+
+    /**
+     * 连续摘除的次数，摘除时长按该次数翻倍
+     */
+    private volatile int ejections;
+
+    private OutlierStatus(URL url) {
+        this.service = url.getServiceKey();
+        this.address = url.getAddress();
+    }
+
+    /**
+     * 获得 OutlierStatus 对象
+     *
+     * @param url URL
+     * @return status
+     */
+    public static OutlierStatus getStatus(URL url) {
+        String uri = url.toIdentityString();
+        OutlierStatus status = STATUSES.get(uri);
+        if (status == null) {
+            STATUSES.putIfAbsent(uri, new OutlierStatus(url));
+            status = STATUSES.get(uri);
+        }
+        return status;
+    }
+
+    public static void removeStatus(URL url) {
+        STATUSES.remove(url.toIdentityString());
+    }
+
+    /**
+     * @return 所有 OutlierStatus 对象
+     */
+    public static Collection<OutlierStatus> getStatuses() {
+        return Collections.unmodifiableCollection(STATUSES.values());
+    }
+
+    /**
+     * 记录一次调用
+     *
+     * @param elapsed 时长，毫秒
+     * @param failed  是否失败
+     */
+    public void record(long elapsed, boolean failed) {
+        counter.increment(REQUESTS);
+        counter.add(ELAPSED, Math.max(elapsed, 0L));
+        if (failed) {
+            counter.increment(FAILURES);
+        }
+    }
+
+    /**
+     * @return 最近窗口的调用次数
+     */
+    public long getRecentRequests() {
+        return counter.sum(REQUESTS);
+    }
+
+    /**
+     * @return 最近窗口的失败次数
+     */
+    public long getRecentFailures() {
+        return counter.sum(FAILURES);
+    }
+
+    /**
+     * @return 最近窗口的调用时长之和，单位：毫秒
+     */
+    public long getRecentElapsed() {
+        return counter.sum(ELAPSED);
+    }
+
+    /**
+     * 摘除，时长为 基础时长 * 2 ^ 连续摘除的次数 ，不超过最大时长
+     *
+     * @param now      当前时间
+     * @param baseTime 基础摘除时长
+     * @param maxTime  最大摘除时长
+     * @return 摘除时长
+     */
+    public synchronized long eject(long now, long baseTime, long maxTime) {
+        long duration = Math.min(baseTime << Math.min(ejections, 30), maxTime);
+        ejections++;
+        ejectedUntil = now + duration;
+        return duration;
+    }
+
+    /**
+     * 恢复后持续健康，重置连续摘除的次数
+     *
+     * @param now         当前时间
+     * @param healthyTime 持续健康的时长
+     */
+    public synchronized void resetIfHealthy(long now, long healthyTime) {
+        if (ejections > 0 && now - ejectedUntil >= healthyTime) {
+            ejections = 0;
+        }
+    }
+
+    public boolean isEjected(long now) {
+        return ejectedUntil > now;
+    }
+
+    public long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    public int getEjections() {
+        return ejections;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+}
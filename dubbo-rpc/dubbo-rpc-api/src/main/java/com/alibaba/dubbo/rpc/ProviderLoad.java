@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc;
+
+import com.alibaba.dubbo.common.Constants;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Load reported by the provider. (API, Immutable, ThreadSafe)
+ * <p>
+ * 服务提供者反馈的负载，随响应的隐式传参 {@link Constants#LOAD_ATTACHMENT_KEY} 返回，格式为 "queue,active,threads,cpu" 。
+ * 按服务提供者地址记录最新的一份，同一个地址的服务共用一个线程池。
+ *
+ * @see com.alibaba.dubbo.rpc.filter.LoadFeedbackFilter
+ */
+public final class ProviderLoad {
+
+    /**
+     * 最低的剩余容量，避免负载高的提供者完全收不到请求，从而无法更新负载
+     */
+    private static final double MIN_HEADROOM = 0.05D;
+
+    /**
+     * 基于服务提供者地址的 ProviderLoad 集合
+     * <p>
+     * key：host:port
+     */
+    private static final ConcurrentMap<String, ProviderLoad> LOADS = new ConcurrentHashMap<String, ProviderLoad>();
+
+    /**
+     * 线程池等待队列中的任务数
+     */
+    private final int queue;
+
+    /**
+     * 线程池执行中的线程数
+     */
+    private final int active;
+
+    /**
+     * 线程池最大线程数，0 表示没有线程池
+     */
+    private final int threads;
+
+    /**
+     * 每个 CPU 的系统平均负载，百分比，负数表示未知
+     */
+    private final int cpu;
+
+    /**
+     * 收到的时间
+     */
+    private final long timestamp;
+
+    public ProviderLoad(int queue, int active, int threads, int cpu, long timestamp) {
+        this.queue = queue;
+        this.active = active;
+        this.threads = threads;
+        this.cpu = cpu;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * 解析负载
+     *
+     * @param value     "queue,active,threads,cpu"
+     * @param timestamp 收到的时间
+     * @return 负载，格式错误时返回 null
+     */
+    public static ProviderLoad parse(String value, long timestamp) {
+        if (value == null) {
+            return null;
+        }
+        String[] values = Constants.COMMA_SPLIT_PATTERN.split(value);
+        if (values.length < 4) {
+            return null;
+        }
+        try {
+            return new ProviderLoad(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+                    Integer.parseInt(values[2]), Integer.parseInt(values[3]), timestamp);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 记录服务提供者反馈的负载
+     *
+     * @param address 服务提供者地址
+     * @param value   "queue,active,threads,cpu"
+     */
+    public static void update(String address, String value) {
+        ProviderLoad load = parse(value, System.currentTimeMillis());
+        if (load != null) {
+            LOADS.put(address, load);
+        }
+    }
+
+    /**
+     * @param address 服务提供者地址
+     * @return 最新的负载，没有反馈时返回 null
+     */
+    public static ProviderLoad getLoad(String address) {
+        return LOADS.get(address);
+    }
+
+    /**
+     * 移除服务提供者反馈的负载，在 Invoker 销毁时调用
+     *
+     * @param address 服务提供者地址
+     */
+    public static void removeLoad(String address) {
+        LOADS.remove(address);
+    }
+
+    public int getQueue() {
+        return queue;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getCpu() {
+        return cpu;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 剩余容量，取线程池和 CPU 中更繁忙的一个：1 - max((执行中的线程数 + 等待的任务数) / 最大线程数, CPU 负载) ，
+     * 不低于 {@link #MIN_HEADROOM}
+     *
+     * @return 剩余容量，(0, 1]
+     */
+    public double getHeadroom() {
+        double pressure = threads > 0 ? (double) (active + queue) / threads : 0D;
+        if (cpu > 0) {
+            pressure = Math.max(pressure, cpu / 100D);
+        }
+        return Math.max(1D - pressure, MIN_HEADROOM);
+    }
+
+    /**
+     * @return "queue,active,threads,cpu"
+     */
+    @Override
+    public String toString() {
+        return queue + "," + active + "," + threads + "," + cpu;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc;
+
+import java.util.concurrent.Future;
+
+/**
+ * Future of an async invocation, which can be completed through a callback without blocking a thread.
+ * <p>
+ * 异步调用时，{@link RpcContext#getFuture()} 返回的 Future 若实现该接口，可以设置回调，无需阻塞线程等待结果。
+ *
+ * @param <V> value type
+ */
+public interface ResultFuture<V> extends Future<V> {
+
+    /**
+     * set callback, replacing the one set before, invoked at once if the future is done.
+     * 设置回调，重复设置时覆盖之前设置的回调；若已完成，则立即回调
+     *
+     * @param callback 回调
+     */
+    void setCallback(ResultCallback callback);
+
+    /**
+     * add callback, kept alongside the one set by {@link #setCallback(ResultCallback)}, invoked at once if the future is done.
+     * 添加回调，不影响 {@link #setCallback(ResultCallback)} 设置的回调，供过滤器、集群等框架内部使用。可多次添加，完成时按添加顺序依次调用
+     *
+     * @param callback 回调
+     */
+    void addCallback(ResultCallback callback);
+
+}
@@ -18,6 +18,7 @@ package com.alibaba.dubbo.rpc;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.threadlocal.InternalThreadLocal;
 import com.alibaba.dubbo.common.utils.NetUtils;
 
 import java.net.InetSocketAddress;
@@ -58,9 +59,9 @@ import java.util.concurrent.TimeoutException;
 public class RpcContext {
 
     /**
-     * RpcContext 线程变量
+     * RpcContext 线程变量，在 Dubbo 线程池的线程上以数组下标访问
      */
-    private static final ThreadLocal<RpcContext> LOCAL = new ThreadLocal<RpcContext>() {
+    private static final InternalThreadLocal<RpcContext> LOCAL = new InternalThreadLocal<RpcContext>() {
 
         @Override
         protected RpcContext initialValue() {
@@ -117,6 +118,13 @@ public class RpcContext {
      */
     private InetSocketAddress remoteAddress;
 
+    /**
+     * 调用截止时间，单位：毫秒。0 表示没有截止时间
+     * <p>
+     * 服务提供者接收请求时，根据服务消费者传递的剩余时间计算。嵌套调用的超时时间，不超过剩余的时间预算。
+     */
+    private long deadline;
+
     @Deprecated // DUBBO-325 废弃的，使用 urls 属性替代
     private List<Invoker<?>> invokers;
 
@@ -483,6 +491,26 @@ public class RpcContext {
         return remoteAddress == null ? 0 : remoteAddress.getPort();
     }
 
+    /**
+     * get deadline.
+     *
+     * @return deadline in milliseconds, 0 if no deadline
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * set deadline.
+     *
+     * @param deadline deadline in milliseconds, 0 if no deadline
+     * @return context
+     */
+    public RpcContext setDeadline(long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     /**
      * get attachment.
      *
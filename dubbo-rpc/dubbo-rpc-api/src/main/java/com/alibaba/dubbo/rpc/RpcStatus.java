@@ -18,12 +18,17 @@ package com.alibaba.dubbo.rpc;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.RollingHistogram;
+import com.alibaba.dubbo.common.utils.StripedCounter;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * URL statistics. (API, Cached, ThreadSafe)
@@ -36,6 +41,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * @see com.alibaba.dubbo.rpc.filter.ActiveLimitFilter
  * @see com.alibaba.dubbo.rpc.filter.ExecuteLimitFilter
  * @see .com.alibaba.dubbo.rpc.cluster.loadbalance.LeastActiveLoadBalance
+ * @see .com.alibaba.dubbo.rpc.cluster.loadbalance.P2CLoadBalance
  */
 public class RpcStatus {
 
@@ -54,6 +60,11 @@ public class RpcStatus {
      */
     private static final ConcurrentMap<String, ConcurrentMap<String, RpcStatus>> METHOD_STATISTICS = new ConcurrentHashMap<String, ConcurrentMap<String, RpcStatus>>();
 
+    /**
+     * 调用时长峰值 EWMA 的衰减时间，单位：毫秒
+     */
+    private static final double LATENCY_DECAY_TIME = 10000D;
+
     // 目前没有用到
     private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<String, Object>();
 
@@ -65,22 +76,22 @@ public class RpcStatus {
     /**
      * 总调用次数
      */
-    private final AtomicLong total = new AtomicLong();
+    private final StripedCounter total = new StripedCounter();
 
     /**
      * 总调用失败次数
      */
-    private final AtomicInteger failed = new AtomicInteger();
+    private final StripedCounter failed = new StripedCounter();
 
     /**
      * 总调用时长，单位：毫秒
      */
-    private final AtomicLong totalElapsed = new AtomicLong();
+    private final StripedCounter totalElapsed = new StripedCounter();
 
     /**
      * 总调用失败时长，单位：毫秒
      */
-    private final AtomicLong failedElapsed = new AtomicLong();
+    private final StripedCounter failedElapsed = new StripedCounter();
 
     /**
      * 最大调用时长，单位：毫秒
@@ -97,6 +108,21 @@ public class RpcStatus {
      */
     private final AtomicLong succeededMaxElapsed = new AtomicLong();
 
+    /**
+     * 最近 10 秒的调用时长分布，单位：毫秒。仅基于服务 URL + 方法维度记录
+     */
+    private final RollingHistogram elapsedHistogram = new RollingHistogram();
+
+    /**
+     * 调用时长的峰值 EWMA ，及其最近一次更新的时间。不可变对象，通过 CAS 整体替换，避免在调用结束时加锁
+     */
+    private final AtomicReference<Latency> latency = new AtomicReference<Latency>(Latency.ZERO);
+
+    /**
+     * 重试预算耗尽而放弃的重试次数，记在最后一次调用的服务提供者上，由监控取走后清零
+     */
+    private final AtomicLong retryRejected = new AtomicLong();
+
     /**
      * Semaphore used to control concurrency limit set by `executes`
      * <p>
@@ -109,6 +135,13 @@ public class RpcStatus {
      */
     private volatile int executesPermits;
 
+    /**
+     * Waiting queue used to control concurrency limit set by `actives`
+     * <p>
+     * 服务调用等待队列，在 {@link com.alibaba.dubbo.rpc.filter.ActiveLimitFilter} 中使用
+     */
+    private volatile ActiveLimitQueue activesLimit;
+
     private RpcStatus() {
     }
 
@@ -176,6 +209,13 @@ public class RpcStatus {
         }
     }
 
+    /**
+     * @return 所有基于服务 URL + 方法维度的 RpcStatus 对象，key1：URL，key2：方法名
+     */
+    public static Map<String, ConcurrentMap<String, RpcStatus>> getMethodStatuses() {
+        return Collections.unmodifiableMap(METHOD_STATISTICS);
+    }
+
     /**
      * 服务调用开始的计数
      *
@@ -203,33 +243,76 @@ public class RpcStatus {
      */
     public static void endCount(URL url, String methodName, long elapsed, boolean succeeded) {
         // `SERVICE_STATISTICS` 的计数
-        endCount(getStatus(url), elapsed, succeeded);
+        endCount(getStatus(url), elapsed, succeeded, false);
         // `METHOD_STATISTICS` 的计数
-        endCount(getStatus(url, methodName), elapsed, succeeded);
+        endCount(getStatus(url, methodName), elapsed, succeeded, true);
     }
 
-    private static void endCount(RpcStatus status, long elapsed, boolean succeeded) {
+    private static void endCount(RpcStatus status, long elapsed, boolean succeeded, boolean histogram) {
         // 次数计数
         status.active.decrementAndGet();
-        status.total.incrementAndGet();
-        status.totalElapsed.addAndGet(elapsed);
-        // 时长计数
-        if (status.maxElapsed.get() < elapsed) {
-            status.maxElapsed.set(elapsed);
+        status.total.increment();
+        status.totalElapsed.add(elapsed);
+        // 调用时长分布只在方法维度记录
+        if (histogram) {
+            status.elapsedHistogram.record(elapsed);
         }
+        // 时长计数
+        updateMax(status.maxElapsed, elapsed);
+        status.observeLatency(elapsed, System.currentTimeMillis());
         if (succeeded) {
-            if (status.succeededMaxElapsed.get() < elapsed) {
-                status.succeededMaxElapsed.set(elapsed);
-            }
+            updateMax(status.succeededMaxElapsed, elapsed);
         } else {
-            status.failed.incrementAndGet(); // 失败次数
-            status.failedElapsed.addAndGet(elapsed);
-            if (status.failedMaxElapsed.get() < elapsed) {
-                status.failedMaxElapsed.set(elapsed);
+            status.failed.increment(); // 失败次数
+            status.failedElapsed.add(elapsed);
+            updateMax(status.failedMaxElapsed, elapsed);
+        }
+    }
+
+    /**
+     * 更新调用时长的峰值 EWMA
+     * <p>
+     * 样本大于当前值时直接取样本，使变慢的提供者立即被感知；否则按距上次更新的时间衰减，平滑地回落
+     */
+    private void observeLatency(long elapsed, long now) {
+        for (; ; ) {
+            Latency current = latency.get();
+            double ewma;
+            if (elapsed > current.ewma) {
+                ewma = elapsed;
+            } else {
+                double w = Math.exp(-Math.max(now - current.stamp, 0L) / LATENCY_DECAY_TIME);
+                ewma = current.ewma * w + elapsed * (1 - w);
+            }
+            if (latency.compareAndSet(current, new Latency(ewma, now))) {
+                return;
             }
         }
     }
 
+    private static void updateMax(AtomicLong max, long elapsed) {
+        long current = max.get();
+        while (current < elapsed && !max.compareAndSet(current, elapsed)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 记录一次重试预算耗尽而放弃的重试
+     */
+    public void addRetryRejected() {
+        retryRejected.incrementAndGet();
+    }
+
+    /**
+     * 取走重试预算耗尽而放弃的重试次数，并清零
+     *
+     * @return 上次取走后的次数
+     */
+    public long drainRetryRejected() {
+        return retryRejected.get() == 0 ? 0 : retryRejected.getAndSet(0);
+    }
+
     /**
      * set value.
      *
@@ -265,7 +348,7 @@ public class RpcStatus {
      * @return total
      */
     public long getTotal() {
-        return total.longValue();
+        return total.sum();
     }
 
     /**
@@ -274,7 +357,7 @@ public class RpcStatus {
      * @return total elapsed
      */
     public long getTotalElapsed() {
-        return totalElapsed.get();
+        return totalElapsed.sum();
     }
 
     /**
@@ -305,7 +388,7 @@ public class RpcStatus {
      * @return failed
      */
     public int getFailed() {
-        return failed.get();
+        return failed.intValue();
     }
 
     /**
@@ -314,7 +397,7 @@ public class RpcStatus {
      * @return failed elapsed
      */
     public long getFailedElapsed() {
-        return failedElapsed.get();
+        return failedElapsed.sum();
     }
 
     /**
@@ -391,6 +474,52 @@ public class RpcStatus {
         return getTotal();
     }
 
+    /**
+     * Get the elapsed distribution of the recent window.
+     * <p>
+     * 获得最近窗口的调用时长分布，可计算 p50 / p99 / p999 及最近的 TPS 。基于服务 URL 维度的 RpcStatus 不记录，为空
+     *
+     * @return snapshot
+     */
+    public RollingHistogram.Snapshot getRecentElapsed() {
+        return elapsedHistogram.snapshot();
+    }
+
+    /**
+     * Get the elapsed percentile of the recent window.
+     *
+     * @param quantile quantile, between 0 and 1
+     * @return elapsed percentile
+     */
+    public long getRecentElapsedPercentile(double quantile) {
+        return elapsedHistogram.snapshot().getPercentile(quantile);
+    }
+
+    /**
+     * Calculate TPS of the recent window.
+     *
+     * @return tps
+     */
+    public long getRecentTps() {
+        return elapsedHistogram.snapshot().getRate();
+    }
+
+    /**
+     * Get the peak EWMA of elapsed.
+     * <p>
+     * 获得调用时长的峰值 EWMA ，单位：毫秒。长时间没有调用时向 0 衰减，使空闲的提供者重新被尝试
+     *
+     * @return peak EWMA of elapsed
+     */
+    public double getLatencyEwma() {
+        Latency current = latency.get();
+        if (current.ewma == 0) {
+            return 0;
+        }
+        long idle = System.currentTimeMillis() - current.stamp;
+        return idle > 0 ? current.ewma * Math.exp(-idle / LATENCY_DECAY_TIME) : current.ewma;
+    }
+
     /**
      * Get the semaphore for thread number. Semaphore's permits is decided by {@link Constants#EXECUTES_KEY}
      *
@@ -414,4 +543,62 @@ public class RpcStatus {
         return executesLimit;
     }
 
-}
\ No newline at end of file
+    /**
+     * Get the waiting queue for concurrent invokes. Queue's permits is decided by {@link Constants#ACTIVES_KEY}
+     *
+     * @param maxActives value of {@link Constants#ACTIVES_KEY}
+     * @param lifo       whether the queue is LIFO, decided by {@link Constants#ACTIVES_QUEUE_KEY}
+     * @return waiting queue
+     */
+    public ActiveLimitQueue getActiveLimitQueue(int maxActives, boolean lifo) {
+        if (maxActives <= 0) {
+            return null;
+        }
+        // 若等待队列不存在，或者策略改变，创建新的等待队列
+        ActiveLimitQueue queue = activesLimit;
+        if (queue == null || queue.isLifo() != lifo) {
+            synchronized (this) {
+                queue = activesLimit;
+                if (queue == null || queue.isLifo() != lifo) {
+                    queue = new ActiveLimitQueue(maxActives, lifo);
+                    activesLimit = queue;
+                }
+            }
+        }
+        // 大小改变，调整许可数
+        queue.setMax(maxActives);
+        return queue;
+    }
+
+    /**
+     * @return 服务调用等待队列，未开启 `actives` 时返回 null
+     */
+    public ActiveLimitQueue getActiveLimitQueue() {
+        return activesLimit;
+    }
+
+    /**
+     * 调用时长的峰值 EWMA ，及其最近一次更新的时间
+     */
+    private static final class Latency {
+
+        static final Latency ZERO = new Latency(0D, 0L);
+
+        /**
+         * 调用时长的峰值 EWMA ，单位：毫秒
+         */
+        final double ewma;
+
+        /**
+         * 最近一次更新的时间
+         */
+        final long stamp;
+
+        Latency(double ewma, long stamp) {
+            this.ewma = ewma;
+            this.stamp = stamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc;
+
+/**
+ * Stream observer. (API, Prototype, NonThreadSafe)
+ * <p>
+ * 流式调用的数据接收器。
+ * <p>
+ * Server streaming: <code>void list(Query query, StreamObserver&lt;Row&gt; rows)</code> ，服务提供者通过 `rows` 推送多个数据项。
+ * <p>
+ * Bidirectional streaming: <code>StreamObserver&lt;Req&gt; chat(StreamObserver&lt;Resp&gt; responses)</code> ，
+ * 服务消费者通过返回的 StreamObserver 推送请求项，服务提供者通过 `responses` 推送响应项。
+ * <p>
+ * 远程的 StreamObserver 按 `stream.window` 做基于信用( credit )的流控，当接收方未消费时，{@link #onNext(Object)} 会阻塞等待。
+ *
+ * @param <T> item type
+ */
+public interface StreamObserver<T> {
+
+    /**
+     * Receive the next item.
+     *
+     * @param item item
+     */
+    void onNext(T item);
+
+    /**
+     * Receive an error, the stream is terminated.
+     *
+     * @param t error
+     */
+    void onError(Throwable t);
+
+    /**
+     * The stream is completed normally.
+     */
+    void onCompleted();
+
+}
@@ -17,33 +17,22 @@
 package com.alibaba.dubbo.rpc.filter;
 
 import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.Activate;
-import com.alibaba.fastjson.JSON;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
-import com.alibaba.dubbo.common.utils.ConcurrentHashSet;
 import com.alibaba.dubbo.common.utils.ConfigUtils;
-import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.filter.log.AccessLogRecord;
+import com.alibaba.dubbo.rpc.filter.log.AccessLogWriter;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Record access log for the service.
@@ -89,75 +78,32 @@ public class AccessLogFilter implements Filter {
     private static final String ACCESS_LOG_KEY = "dubbo.accesslog";
 
     /**
-     * 访问日志的文件后缀
-     */
-    private static final String FILE_DATE_FORMAT = "yyyyMMdd";
-
-    /**
-     * 日历的时间格式化
-     */
-    private static final String MESSAGE_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
-
-    /**
-     * 队列大小，即 {@link #logQueue} 值的大小
-     */
-    private static final int LOG_MAX_BUFFER = 5000;
-
-    /**
-     * 日志输出频率，单位：毫秒。仅适用于 {@link #logFuture}
-     */
-    private static final long LOG_OUTPUT_INTERVAL = 5000;
-
-    /**
-     * 日志队列
+     * 访问日志写入器集合
      *
      * key：访问日志名
-     * value：日志集合
-     */
-    private final ConcurrentMap<String, Set<String>> logQueue = new ConcurrentHashMap<String, Set<String>>();
-
-    /**
-     * 定时任务线程池
      */
-    private final ScheduledExecutorService logScheduled = Executors.newScheduledThreadPool(2, new NamedThreadFactory("Dubbo-Access-Log", true));
-
-    /**
-     * 记录日志任务
-     */
-    private volatile ScheduledFuture<?> logFuture = null;
-
-    /**
-     * 初始化任务
-     */
-    private void init() {
-        if (logFuture == null) {
-            synchronized (logScheduled) {
-                if (logFuture == null) { // 双重锁，避免重复初始化
-                    logFuture = logScheduled.scheduleWithFixedDelay(new LogTask(), LOG_OUTPUT_INTERVAL, LOG_OUTPUT_INTERVAL, TimeUnit.MILLISECONDS);
-                }
-            }
-        }
-    }
+    private final ConcurrentMap<String, AccessLogWriter> logWriters = new ConcurrentHashMap<String, AccessLogWriter>();
 
     /**
-     * 添加日志内容到日志队列
+     * 获得访问日志写入器，不存在时创建并启动
      *
      * @param accesslog 日志文件
-     * @param logmessage 日志内容
+     * @param url       服务 URL
+     * @return 写入器
      */
-    private void log(String accesslog, String logmessage) {
-        // 初始化
-        init();
-        // 获得队列，以文件名为 Key
-        Set<String> logSet = logQueue.get(accesslog);
-        if (logSet == null) {
-            logQueue.putIfAbsent(accesslog, new ConcurrentHashSet<String>());
-            logSet = logQueue.get(accesslog);
-        }
-        // 若未超过队列大小，添加到队列中
-        if (logSet.size() < LOG_MAX_BUFFER) {
-            logSet.add(logmessage);
+    private AccessLogWriter getWriter(String accesslog, URL url) {
+        AccessLogWriter writer = logWriters.get(accesslog);
+        if (writer == null) {
+            AccessLogWriter created = new AccessLogWriter(accesslog,
+                    url.getParameter(Constants.ACCESS_LOG_BUFFER_KEY, Constants.DEFAULT_ACCESS_LOG_BUFFER),
+                    url.getParameter(Constants.ACCESS_LOG_MAX_FILE_SIZE_KEY, Constants.DEFAULT_ACCESS_LOG_MAX_FILE_SIZE));
+            writer = logWriters.putIfAbsent(accesslog, created);
+            if (writer == null) {
+                writer = created;
+                writer.start();
+            }
         }
+        return writer;
     }
 
     @Override
@@ -167,51 +113,22 @@ public class AccessLogFilter implements Filter {
             // 记录访问日志的文件名
             String accesslog = invoker.getUrl().getParameter(Constants.ACCESS_LOG_KEY);
             if (ConfigUtils.isNotEmpty(accesslog)) {
-                // 服务的名字、版本、分组信息
-                RpcContext context = RpcContext.getContext();
-                String serviceName = invoker.getInterface().getName();
-                String version = invoker.getUrl().getParameter(Constants.VERSION_KEY);
-                String group = invoker.getUrl().getParameter(Constants.GROUP_KEY);
-                // 拼接日志内容
-                StringBuilder sn = new StringBuilder();
-                sn.append("[").append(new SimpleDateFormat(MESSAGE_DATE_FORMAT).format(new Date())).append("] ") // 时间
-                        .append(context.getRemoteHost()).append(":").append(context.getRemotePort()) // 调用方地址
-                        .append(" -> ").append(context.getLocalHost()).append(":").append(context.getLocalPort()) // 本地地址
-                        .append(" - ");
-                if (null != group && group.length() > 0) { // 分组
-                    sn.append(group).append("/");
-                }
-                sn.append(serviceName); // 服务名
-                if (null != version && version.length() > 0) { // 版本
-                    sn.append(":").append(version);
-                }
-                sn.append(" ");
-                sn.append(inv.getMethodName()); // 方法名
-                sn.append("(");
-                Class<?>[] types = inv.getParameterTypes(); // 参数类型
-                if (types != null && types.length > 0) {
-                    boolean first = true;
-                    for (Class<?> type : types) {
-                        if (first) {
-                            first = false;
-                        } else {
-                            sn.append(",");
-                        }
-                        sn.append(type.getName());
-                    }
-                }
-                sn.append(") ");
-                Object[] args = inv.getArguments(); // 参数值
-                if (args != null && args.length > 0) {
-                    sn.append(JSON.toJSONString(args));
-                }
-                String msg = sn.toString();
                 // 【方式一】使用日志组件，例如 Log4j 等写
                 if (ConfigUtils.isDefault(accesslog)) {
-                    LoggerFactory.getLogger(ACCESS_LOG_KEY + "." + invoker.getInterface().getName()).info(msg);
-                    // 【方式二】异步输出到指定文件
+                    AccessLogRecord record = new AccessLogRecord();
+                    fill(record, invoker, inv);
+                    LoggerFactory.getLogger(ACCESS_LOG_KEY + "." + invoker.getInterface().getName()).info(record.toString());
+                    // 【方式二】异步输出到指定文件，缓冲区满时丢弃
                 } else {
-                    log(accesslog, msg);
+                    AccessLogWriter writer = getWriter(accesslog, invoker.getUrl());
+                    AccessLogRecord record = writer.claim();
+                    if (record != null) {
+                        try {
+                            fill(record, invoker, inv);
+                        } finally {
+                            writer.publish(record); // 必须发布，否则阻塞写线程
+                        }
+                    }
                 }
             }
         } catch (Throwable t) {
@@ -222,57 +139,17 @@ public class AccessLogFilter implements Filter {
     }
 
     /**
-     * 日志任务
+     * 填充访问日志记录，参数值在调用线程编码，其余格式化由写线程完成
      */
-    private class LogTask implements Runnable {
-
-        @Override
-        public void run() {
-            try {
-                if (logQueue.size() > 0) {
-                    for (Map.Entry<String, Set<String>> entry : logQueue.entrySet()) {
-                        try {
-                            String accesslog = entry.getKey();
-                            Set<String> logSet = entry.getValue();
-                            // 获得日志文件
-                            File file = new File(accesslog);
-                            File dir = file.getParentFile();
-                            if (null != dir && !dir.exists()) {
-                                dir.mkdirs();
-                            }
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("Append log to " + accesslog);
-                            }
-                            // 归档历史日志文件，例如： `accesslog` => `access.20181023`
-                            if (file.exists()) {
-                                String now = new SimpleDateFormat(FILE_DATE_FORMAT).format(new Date());
-                                String last = new SimpleDateFormat(FILE_DATE_FORMAT).format(new Date(file.lastModified())); // 最后修改时间
-                                if (!now.equals(last)) {
-                                    File archive = new File(file.getAbsolutePath() + "." + last);
-                                    file.renameTo(archive);
-                                }
-                            }
-                            // 输出日志到指定文件
-                            FileWriter writer = new FileWriter(file, true);
-                            try {
-                                for (Iterator<String> iterator = logSet.iterator(); iterator.hasNext(); iterator.remove()) {
-                                    writer.write(iterator.next()); // 写入一行日志
-                                    writer.write("\r\n"); // 换行
-                                }
-                                writer.flush(); // 刷盘
-                            } finally {
-                                writer.close(); // 关闭
-                            }
-                        } catch (Exception e) {
-                            logger.error(e.getMessage(), e);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                logger.error(e.getMessage(), e);
-            }
-        }
-
+    private void fill(AccessLogRecord record, Invoker<?> invoker, Invocation inv) {
+        // 服务的名字、版本、分组信息
+        RpcContext context = RpcContext.getContext();
+        URL url = invoker.getUrl();
+        record.set(System.currentTimeMillis(),
+                context.getRemoteHost(), context.getRemotePort(), // 调用方地址
+                context.getLocalHost(), context.getLocalPort(), // 本地地址
+                url.getParameter(Constants.GROUP_KEY), invoker.getInterface().getName(), url.getParameter(Constants.VERSION_KEY),
+                inv.getMethodName(), inv.getParameterTypes(), inv.getArguments());
     }
 
-}
\ No newline at end of file
+}
@@ -19,59 +19,74 @@ package com.alibaba.dubbo.rpc.filter;
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.ActiveLimitQueue;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
+import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcStatus;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * LimitInvokerFilter
  * <p>
  * 每服务消费者每服务每方法最大并发调用数限制的过滤器实现类
+ * <p>
+ * 配置 `loadbalance` 时也激活，为 leastactive 、p2c 等负载均衡统计调用中的次数和调用时长。
+ * 负载均衡不读取 {@link RpcStatus} 时（例如 random ），直接调用，不统计。自定义的负载均衡读取 {@link RpcStatus} 时，
+ * 配置 `active.status=true` 开启统计
+ * <p>
+ * 异步调用的 Future 为 {@link ResultFuture} 时，在结果回调中结束计数、释放许可，调用中的次数包含未返回的异步调用
  */
-@Activate(group = Constants.CONSUMER, value = Constants.ACTIVES_KEY)
+@Activate(group = Constants.CONSUMER, value = {Constants.ACTIVES_KEY, Constants.LOADBALANCE_KEY, Constants.ACTIVE_STATUS_KEY})
 public class ActiveLimitFilter implements Filter {
 
+    /**
+     * 读取 {@link RpcStatus} 的负载均衡
+     */
+    private static final Set<String> STATUS_LOADBALANCES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            Constants.LEASTACTIVE_LOADBALANCE, Constants.P2C_LOADBALANCE)));
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
         URL url = invoker.getUrl();
         String methodName = invocation.getMethodName();
         // 获得服务提供者每服务每方法最大可并行执行请求数
         int max = invoker.getUrl().getMethodParameter(methodName, Constants.ACTIVES_KEY, 0);
+        // 未限制并发，且负载均衡不读取 RpcStatus 时，无需统计
+        if (max <= 0 && !isStatusLoadBalance(url, methodName)) {
+            return invoker.invoke(invocation);
+        }
         // 获得 RpcStatus 对象，基于服务 URL + 方法维度
         RpcStatus count = RpcStatus.getStatus(invoker.getUrl(), invocation.getMethodName());
-        if (max > 0) {
+        // 获得等待队列，未开启时为 null
+        boolean lifo = Constants.LIFO.equals(url.getMethodParameter(methodName, Constants.ACTIVES_QUEUE_KEY, Constants.FIFO));
+        ActiveLimitQueue queue = count.getActiveLimitQueue(max, lifo);
+        if (queue != null) {
             // 获得超时值
-            long timeout = invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.TIMEOUT_KEY, 0);
+            long timeout = invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
             long start = System.currentTimeMillis();
-            long remain = timeout; // 剩余可等待时间
-            int active = count.getActive();
-            // 超过最大可并行执行请求数，等待
-            if (active >= max) {
-                synchronized (count) { // 通过锁，有且仅有一个在等待。
-                    // 循环，等待可并行执行请求数
-                    while ((active = count.getActive()) >= max) {
-                        // 等待，直到超时，或者被唤醒
-                        try {
-                            count.wait(remain);
-                        } catch (InterruptedException e) {
-                        }
-                        // 判断是否没有剩余时长了，抛出 RpcException 异常
-                        long elapsed = System.currentTimeMillis() - start; // 本地等待时长
-                        remain = timeout - elapsed;
-                        if (remain <= 0) {
-                            throw new RpcException("Waiting concurrent invoke timeout in client-side for service:  "
-                                    + invoker.getInterface().getName() + ", method: "
-                                    + invocation.getMethodName() + ", elapsed: " + elapsed
-                                    + ", timeout: " + timeout + ". concurrent invokes: " + active
-                                    + ". max concurrent invoke limit: " + max);
-                        }
-                    }
-                }
+            // 超过最大可并行执行请求数，排队等待，直到被移交许可，或者超时
+            if (!queue.acquire(timeout)) {
+                long elapsed = System.currentTimeMillis() - start; // 本地等待时长
+                throw new RpcException("Waiting concurrent invoke timeout in client-side for service:  "
+                        + invoker.getInterface().getName() + ", method: "
+                        + invocation.getMethodName() + ", elapsed: " + elapsed
+                        + ", timeout: " + timeout + ". concurrent invokes: " + count.getActive()
+                        + ". max concurrent invoke limit: " + max
+                        + ". waiting queue length: " + queue.getQueueLength());
             }
         }
+        boolean async = false;
         try {
             long begin = System.currentTimeMillis();
             // 调用开始的计数
@@ -79,8 +94,12 @@ public class ActiveLimitFilter implements Filter {
             try {
                 // 服务调用
                 Result result = invoker.invoke(invocation);
-                // 调用结束的计数（成功）
-                RpcStatus.endCount(url, methodName, System.currentTimeMillis() - begin, true);
+                // 异步调用，在结果回调中结束计数
+                async = endOnCallback(url, methodName, invocation, begin, queue);
+                if (!async) {
+                    // 调用结束的计数（成功）
+                    RpcStatus.endCount(url, methodName, System.currentTimeMillis() - begin, true);
+                }
                 return result;
             } catch (RuntimeException t) {
                 // 调用结束的计数（失败）
@@ -88,13 +107,59 @@ public class ActiveLimitFilter implements Filter {
                 throw t;
             }
         } finally {
-            // 唤醒等待的相同服务的相同方法的请求
-            if (max > 0) {
-                synchronized (count) {
-                    count.notify();
+            // 释放许可，移交给等待的相同服务的相同方法的请求
+            if (queue != null && !async) {
+                queue.release();
+            }
+        }
+    }
+
+    /**
+     * 异步调用的 Future 支持回调时，在回调中结束计数、释放许可
+     *
+     * @return 是否已设置回调
+     */
+    private static boolean endOnCallback(final URL url, final String methodName, Invocation invocation,
+                                         final long begin, final ActiveLimitQueue queue) {
+        if (!RpcUtils.isAsync(url, invocation)) {
+            return false;
+        }
+        Object future = RpcContext.getContext().getFuture();
+        if (!(future instanceof ResultFuture)) {
+            return false;
+        }
+        ((ResultFuture<?>) future).addCallback(new ResultCallback() {
+            @Override
+            public void done(Result result) {
+                end(true);
+            }
+
+            @Override
+            public void caught(Throwable exception) {
+                end(false);
+            }
+
+            private void end(boolean succeeded) {
+                RpcStatus.endCount(url, methodName, System.currentTimeMillis() - begin, succeeded);
+                if (queue != null) {
+                    queue.release();
                 }
             }
+        });
+        return true;
+    }
+
+    private static boolean isStatusLoadBalance(URL url, String methodName) {
+        if (url.getMethodParameter(methodName, Constants.ACTIVE_STATUS_KEY, false)) {
+            return true;
+        }
+        String loadbalance = url.getMethodParameter(methodName, Constants.LOADBALANCE_KEY, Constants.DEFAULT_LOADBALANCE);
+        if (STATUS_LOADBALANCES.contains(loadbalance)) {
+            return true;
         }
+        // consistenthash 配置 `hash.balance` 时，按调用中的次数限制每个提供者的负载
+        return Constants.CONSISTENT_HASH_LOADBALANCE.equals(loadbalance)
+                && url.getMethodParameter(methodName, Constants.HASH_BALANCE_KEY, 0D) > 0;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.common.utils.ConfigUtils;
+import com.alibaba.dubbo.rpc.Filter;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.filter.limit.AdaptiveLimiter;
+
+/**
+ * AdaptiveLimitFilter
+ * <p>
+ * 服务提供者每服务每方法自适应并发限制的过滤器实现类，超过限制的请求立即拒绝
+ *
+ * @see AdaptiveLimiter
+ */
+@Activate(group = Constants.PROVIDER, value = Constants.ADAPTIVE_LIMIT_KEY)
+public class AdaptiveLimitFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String methodName = invocation.getMethodName();
+        // 获得算法，未开启则直接调用
+        String algorithm = url.getMethodParameter(methodName, Constants.ADAPTIVE_LIMIT_KEY);
+        if (ConfigUtils.isEmpty(algorithm)) {
+            return invoker.invoke(invocation);
+        }
+        AdaptiveLimiter limiter = AdaptiveLimiter.getLimiter(url, methodName, algorithm);
+        if (!limiter.tryAcquire()) {
+            throw new RpcException("Failed to invoke method " + methodName + " in provider " + url + ", cause: The service using threads greater than the adaptive concurrency limit " + limiter.getLimit() + ".");
+        }
+        long begin = System.nanoTime();
+        boolean isSuccess = false;
+        try {
+            Result result = invoker.invoke(invocation);
+            isSuccess = !result.hasException();
+            return result;
+        } finally {
+            limiter.release(System.nanoTime() - begin, isSuccess);
+        }
+    }
+
+}
@@ -46,6 +46,11 @@ public class ConsumerContextFilter implements Filter {
         // 设置 RpcInvocation 对象的 `invoker` 属性
         if (invocation instanceof RpcInvocation) {
             ((RpcInvocation) invocation).setInvoker(invoker);
+            // 传递服务消费者的应用名，用于服务提供者按应用限流
+            String application = invoker.getUrl().getParameter(Constants.APPLICATION_KEY);
+            if (application != null && invocation.getAttachment(Constants.APPLICATION_KEY) == null) {
+                ((RpcInvocation) invocation).setAttachment(Constants.APPLICATION_KEY, application);
+            }
         }
         // 服务调用
         try {
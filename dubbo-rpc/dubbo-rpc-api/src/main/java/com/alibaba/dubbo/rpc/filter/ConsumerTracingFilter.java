@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Filter;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.filter.trace.Span;
+import com.alibaba.dubbo.rpc.filter.trace.SpanCollector;
+import com.alibaba.dubbo.rpc.filter.trace.TraceContext;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+
+/**
+ * 服务消费者的链路追踪过滤器
+ * <p>
+ * 在当前线程的链路上创建子 Span ，不存在时按采样率创建新链路，通过隐式参数传递给服务提供者。
+ * 采样的调用记录 Span 到 {@link SpanCollector} ，异步调用只记录发起的耗时。
+ *
+ * @see TracingFilter
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.TRACING_KEY, order = -9500)
+public class ConsumerTracingFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String method = RpcUtils.getMethodName(invocation);
+        TraceContext context = TraceContext.fork(url, method);
+        // 未采样时同样传递，保证下游不重复采样
+        if (invocation instanceof RpcInvocation) {
+            ((RpcInvocation) invocation).setAttachment(Constants.TRACE_ATTACHMENT_KEY, context.encode());
+        }
+        long startTime = System.currentTimeMillis();
+        long begin = System.nanoTime();
+        Result result = null;
+        Throwable error = null;
+        try {
+            result = invoker.invoke(invocation);
+            return result;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            if (context.isSampled()) {
+                SpanCollector.collect(url, new Span(context, Span.CONSUMER, invoker.getInterface().getName(), method,
+                        url.getAddress(), startTime, (System.nanoTime() - begin) / 1000,
+                        TracingFilter.getError(result, error)));
+            }
+        }
+    }
+
+}
@@ -49,6 +49,8 @@ public class ContextFilter implements Filter {
             attachments.remove(Constants.DUBBO_VERSION_KEY);
             attachments.remove(Constants.TOKEN_KEY);
             attachments.remove(Constants.TIMEOUT_KEY);
+            attachments.remove(Constants.TIMEOUT_ATTACHMENT_KEY);
+            attachments.remove(Constants.TRACE_ATTACHMENT_KEY); // 由 TracingFilter 解析，避免传递给下游调用
             attachments.remove(Constants.ASYNC_KEY); // Remove async property to avoid being passed to the following invoke chain.
             // 清空消费端的异步参数
         }
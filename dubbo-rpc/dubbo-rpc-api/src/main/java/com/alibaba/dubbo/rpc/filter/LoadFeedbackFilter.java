@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Filter;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.ProviderLoad;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+
+/**
+ * LoadFeedbackFilter
+ * <p>
+ * 使用 `feedback` 负载均衡时，请求携带 {@link Constants#LOAD_ATTACHMENT_KEY} ，向服务提供者索取负载，
+ * 并记录响应中返回的负载到 {@link ProviderLoad} 。异步调用的响应不经过此处，不记录。
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.LOADBALANCE_KEY)
+public class LoadFeedbackFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        if (!(invocation instanceof RpcInvocation)
+                || !Constants.LOAD_FEEDBACK_LOADBALANCE.equals(url.getMethodParameter(invocation.getMethodName(), Constants.LOADBALANCE_KEY))) {
+            return invoker.invoke(invocation);
+        }
+        ((RpcInvocation) invocation).setAttachment(Constants.LOAD_ATTACHMENT_KEY, Boolean.TRUE.toString());
+        Result result = invoker.invoke(invocation);
+        // 服务提供者按间隔反馈，多数响应不携带
+        String load = result.getAttachment(Constants.LOAD_ATTACHMENT_KEY);
+        if (load != null) {
+            ProviderLoad.update(url.getAddress(), load);
+        }
+        return result;
+    }
+
+}
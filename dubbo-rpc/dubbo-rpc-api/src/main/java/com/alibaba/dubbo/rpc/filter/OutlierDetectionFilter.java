@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Filter;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.OutlierStatus;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * OutlierDetectionFilter
+ * <p>
+ * 记录每个服务提供者的调用时长和失败到 {@link OutlierStatus} ，供集群的离群检测使用。
+ * 失败仅指 {@link RpcException} ，例如超时、网络异常、服务提供者线程池满，业务异常不计入。
+ * 异步调用的 Future 为 {@link ResultFuture} 时，在结果回调中记录，回调的异常（例如超时）均计为失败，
+ * 消费者取消的调用（例如对冲未胜出）不记录；
+ * 单向调用没有结果，不记录。
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.OUTLIER_DETECTION_KEY)
+public class OutlierDetectionFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (RpcUtils.isOneway(invoker.getUrl(), invocation)) {
+            return invoker.invoke(invocation);
+        }
+        final OutlierStatus status = OutlierStatus.getStatus(invoker.getUrl());
+        final long begin = System.currentTimeMillis();
+        try {
+            Result result = invoker.invoke(invocation);
+            if (RpcUtils.isAsync(invoker.getUrl(), invocation)) {
+                // 异步调用，在结果回调中记录
+                Object future = RpcContext.getContext().getFuture();
+                if (future instanceof ResultFuture) {
+                    ((ResultFuture<?>) future).addCallback(new ResultCallback() {
+                        @Override
+                        public void done(Result result) {
+                            status.record(System.currentTimeMillis() - begin, result.getException() instanceof RpcException);
+                        }
+
+                        @Override
+                        public void caught(Throwable exception) {
+                            if (!(exception instanceof CancellationException)) {
+                                status.record(System.currentTimeMillis() - begin, true);
+                            }
+                        }
+                    });
+                }
+                return result;
+            }
+            status.record(System.currentTimeMillis() - begin, result.getException() instanceof RpcException);
+            return result;
+        } catch (RpcException e) {
+            status.record(System.currentTimeMillis() - begin, true);
+            throw e;
+        }
+    }
+
+}
@@ -18,6 +18,7 @@
 package com.alibaba.dubbo.rpc.filter;
 
 import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.Activate;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
@@ -25,6 +26,7 @@ import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.filter.tps.DefaultTPSLimiter;
+import com.alibaba.dubbo.rpc.filter.tps.StripedTPSLimiter;
 import com.alibaba.dubbo.rpc.filter.tps.TPSLimiter;
 
 /**
@@ -32,14 +34,20 @@ import com.alibaba.dubbo.rpc.filter.tps.TPSLimiter;
  * <p>
  * TPS 限流过滤器实现类
  */
-@Activate(group = Constants.PROVIDER, value = Constants.TPS_LIMIT_RATE_KEY)
+@Activate(group = Constants.PROVIDER, value = {Constants.TPS_LIMIT_RATE_KEY, Constants.TPS_LIMIT_QUOTA_KEY})
 public class TpsLimitFilter implements Filter {
 
     private final TPSLimiter tpsLimiter = new DefaultTPSLimiter();
 
+    private final TPSLimiter stripedTpsLimiter = new StripedTPSLimiter();
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
-        if (!tpsLimiter.isAllowable(invoker.getUrl(), invocation)) {
+        // 固定窗口且无应用配额，使用默认 TPS 限制器；否则，使用分片 TPS 限制器
+        URL url = invoker.getUrl();
+        TPSLimiter limiter = Constants.DEFAULT_TPS_LIMIT_STRATEGY.equals(url.getParameter(Constants.TPS_LIMIT_STRATEGY_KEY, Constants.DEFAULT_TPS_LIMIT_STRATEGY))
+                && !url.hasParameter(Constants.TPS_LIMIT_QUOTA_KEY) ? tpsLimiter : stripedTpsLimiter;
+        if (!limiter.isAllowable(url, invocation)) {
             throw new RpcException(
                     new StringBuilder(64)
                             .append("Failed to invoke service ")
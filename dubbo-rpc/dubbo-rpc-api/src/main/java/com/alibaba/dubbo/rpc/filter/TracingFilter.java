@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Filter;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.filter.trace.Span;
+import com.alibaba.dubbo.rpc.filter.trace.SpanCollector;
+import com.alibaba.dubbo.rpc.filter.trace.TraceContext;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+
+/**
+ * 服务提供者的链路追踪过滤器
+ * <p>
+ * 从隐式参数解析调用方的 {@link TraceContext} ，不存在时按采样率创建新链路；处理期间设置为当前线程的上下文，
+ * 使得嵌套的下游调用成为子 Span 。采样的调用记录 Span 到 {@link SpanCollector} 。
+ *
+ * @see ConsumerTracingFilter
+ */
+@Activate(group = Constants.PROVIDER, value = Constants.TRACING_KEY, order = -9500)
+public class TracingFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String method = RpcUtils.getMethodName(invocation);
+        TraceContext context = TraceContext.join(invocation.getAttachment(Constants.TRACE_ATTACHMENT_KEY), url, method);
+        TraceContext previous = TraceContext.getCurrent();
+        TraceContext.setCurrent(context);
+        // 嵌套的下游调用会改写 RpcContext ，调用前记录调用方地址
+        String remoteAddress = RpcContext.getContext().getRemoteAddressString();
+        long startTime = System.currentTimeMillis();
+        long begin = System.nanoTime();
+        Result result = null;
+        Throwable error = null;
+        try {
+            result = invoker.invoke(invocation);
+            return result;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            TraceContext.setCurrent(previous);
+            if (context.isSampled()) {
+                SpanCollector.collect(url, new Span(context, Span.PROVIDER, invoker.getInterface().getName(), method,
+                        remoteAddress, startTime,
+                        (System.nanoTime() - begin) / 1000, getError(result, error)));
+            }
+        }
+    }
+
+    /**
+     * @return 异常类名，成功时返回 null
+     */
+    static String getError(Result result, Throwable error) {
+        if (error == null && result != null) {
+            error = result.getException();
+        }
+        return error == null ? null : error.getClass().getName();
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.limit;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.listener.ExporterListenerAdapter;
+
+/**
+ * AdaptiveLimitExporterListener
+ * <p>
+ * 服务取消暴露时，移除服务的所有 {@link AdaptiveLimiter} 对象
+ */
+@Activate(Constants.ADAPTIVE_LIMIT_KEY)
+public class AdaptiveLimitExporterListener extends ExporterListenerAdapter {
+
+    @Override
+    public void unexported(Exporter<?> exporter) throws RpcException {
+        AdaptiveLimiter.removeLimiters(exporter.getInvoker().getUrl());
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.limit;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 自适应并发限制器
+ * <p>
+ * 按服务 URL + 方法维度，根据采样窗口的平均耗时与无负载时的基准耗时（窗口内的最小耗时）之比，调整允许的并发数。
+ * 具体的调整算法由子类实现。
+ *
+ * @see com.alibaba.dubbo.rpc.filter.AdaptiveLimitFilter
+ */
+public abstract class AdaptiveLimiter {
+
+    /**
+     * 梯度算法
+     */
+    public static final String GRADIENT = "gradient";
+
+    /**
+     * Vegas 算法
+     */
+    public static final String VEGAS = "vegas";
+
+    /**
+     * 基于服务 URL + 方法维度的 AdaptiveLimiter 集合
+     * <p>
+     * key1：URL
+     * key2：方法名
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, AdaptiveLimiter>> LIMITERS = new ConcurrentHashMap<String, ConcurrentMap<String, AdaptiveLimiter>>();
+
+    /**
+     * 采样窗口的最小时长
+     */
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 采样窗口的最少样本数
+     */
+    private static final int WINDOW_SAMPLES = 10;
+
+    /**
+     * 每隔多少个窗口，重新探测基准耗时
+     */
+    private static final int PROBE_WINDOWS = 300;
+
+    private final String service;
+
+    private final String method;
+
+    private final String algorithm;
+
+    private final int maxLimit;
+
+    /**
+     * 当前限制，浮点数便于平滑调整
+     */
+    private volatile double estimatedLimit;
+
+    /**
+     * 当前限制，取整
+     */
+    private volatile int limit;
+
+    /**
+     * 执行中的请求数
+     */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * 当前窗口的最大执行中请求数，用于判断是否有足够的负载
+     */
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    /**
+     * 基准耗时，单位：纳秒
+     */
+    private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * 当前窗口的耗时总和、样本数
+     */
+    private final AtomicLong sampleSum = new AtomicLong();
+
+    private final AtomicInteger sampleCount = new AtomicInteger();
+
+    /**
+     * 当前窗口的开始时间
+     */
+    private volatile long windowStart = System.nanoTime();
+
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private int windows;
+
+    /**
+     * 拒绝次数
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    AdaptiveLimiter(String service, String method, String algorithm, int initialLimit, int maxLimit) {
+        this.service = service;
+        this.method = method;
+        this.algorithm = algorithm;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * 获得 AdaptiveLimiter 对象，不存在或算法变更时创建
+     *
+     * @param url       服务 URL
+     * @param method    方法名
+     * @param algorithm 算法
+     * @return AdaptiveLimiter 对象
+     */
+    public static AdaptiveLimiter getLimiter(URL url, String method, String algorithm) {
+        String uri = url.toIdentityString();
+        ConcurrentMap<String, AdaptiveLimiter> map = LIMITERS.get(uri);
+        if (map == null) {
+            LIMITERS.putIfAbsent(uri, new ConcurrentHashMap<String, AdaptiveLimiter>());
+            map = LIMITERS.get(uri);
+        }
+        AdaptiveLimiter limiter = map.get(method);
+        if (limiter != null && limiter.algorithm.equals(algorithm)) {
+            return limiter;
+        }
+        int initialLimit = url.getMethodPositiveParameter(method, Constants.ADAPTIVE_LIMIT_INITIAL_KEY, Constants.DEFAULT_ADAPTIVE_LIMIT_INITIAL);
+        int maxLimit = url.getMethodPositiveParameter(method, Constants.ADAPTIVE_LIMIT_MAX_KEY, Constants.DEFAULT_ADAPTIVE_LIMIT_MAX);
+        AdaptiveLimiter created = VEGAS.equals(algorithm)
+                ? new VegasLimiter(url.getServiceKey(), method, algorithm, Math.min(initialLimit, maxLimit), maxLimit)
+                : new GradientLimiter(url.getServiceKey(), method, GRADIENT, Math.min(initialLimit, maxLimit), maxLimit);
+        if (limiter == null) {
+            limiter = map.putIfAbsent(method, created);
+            return limiter == null ? created : limiter;
+        }
+        map.replace(method, limiter, created);
+        return map.get(method);
+    }
+
+    /**
+     * @return 所有 AdaptiveLimiter 对象
+     */
+    public static Collection<AdaptiveLimiter> getLimiters() {
+        List<AdaptiveLimiter> limiters = new ArrayList<AdaptiveLimiter>();
+        for (ConcurrentMap<String, AdaptiveLimiter> map : LIMITERS.values()) {
+            limiters.addAll(map.values());
+        }
+        return Collections.unmodifiableCollection(limiters);
+    }
+
+    public static void removeLimiter(URL url, String method) {
+        ConcurrentMap<String, AdaptiveLimiter> map = LIMITERS.get(url.toIdentityString());
+        if (map != null) {
+            map.remove(method);
+        }
+    }
+
+    /**
+     * 移除服务的所有 AdaptiveLimiter 对象，在服务取消暴露时由 {@link AdaptiveLimitExporterListener} 调用
+     *
+     * @param url 服务 URL
+     */
+    public static void removeLimiters(URL url) {
+        LIMITERS.remove(url.toIdentityString());
+    }
+
+    /**
+     * 获得执行许可
+     *
+     * @return 是否获得，超过限制时立即返回 false
+     */
+    public boolean tryAcquire() {
+        for (; ; ) {
+            int current = inflight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                // 记录窗口内的最大执行中请求数
+                int max = maxInflight.get();
+                while (current + 1 > max && !maxInflight.compareAndSet(max, current + 1)) {
+                    max = maxInflight.get();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放执行许可，并记录样本
+     *
+     * @param rttNanos 耗时，单位：纳秒
+     * @param success  是否成功，失败的调用不作为样本
+     */
+    public void release(long rttNanos, boolean success) {
+        inflight.decrementAndGet();
+        if (!success) {
+            return;
+        }
+        // 更新基准耗时
+        long min = minRtt.get();
+        while (rttNanos < min && !minRtt.compareAndSet(min, rttNanos)) {
+            min = minRtt.get();
+        }
+        sampleSum.addAndGet(rttNanos);
+        int count = sampleCount.incrementAndGet();
+        // 窗口结束，由一个线程调整限制
+        long now = System.nanoTime();
+        if (count >= WINDOW_SAMPLES && now - windowStart >= WINDOW_NANOS && updating.compareAndSet(false, true)) {
+            try {
+                count = sampleCount.getAndSet(0);
+                long sum = sampleSum.getAndSet(0);
+                int max = maxInflight.getAndSet(inflight.get());
+                windowStart = now;
+                if (count > 0) {
+                    long rtt = sum / count;
+                    double current = estimatedLimit;
+                    // 负载不足一半时，不提高限制
+                    boolean appLimited = max < current / 2;
+                    double next = update(current, rtt, Math.max(1, minRtt.get()), appLimited);
+                    estimatedLimit = Math.max(1, Math.min(maxLimit, next));
+                    limit = (int) estimatedLimit;
+                    // 定期以当前窗口的耗时作为基准，重新探测
+                    if (++windows % PROBE_WINDOWS == 0) {
+                        minRtt.set(rtt);
+                    }
+                }
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    /**
+     * 计算新的限制
+     *
+     * @param limit      当前限制
+     * @param rtt        窗口的平均耗时
+     * @param minRtt     基准耗时
+     * @param appLimited 负载是否不足
+     * @return 新的限制
+     */
+    protected abstract double update(double limit, long rtt, long minRtt, boolean appLimited);
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * @return 基准耗时，单位：纳秒，尚无样本时返回 0
+     */
+    public long getMinRtt() {
+        long min = minRtt.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.limit;
+
+/**
+ * 梯度算法
+ * <p>
+ * 新限制 = 当前限制 * 梯度 + 排队余量，梯度 = 基准耗时 * 容忍度 / 平均耗时，取值 [0.5, 1]；新旧限制平滑过渡。
+ */
+class GradientLimiter extends AdaptiveLimiter {
+
+    /**
+     * 耗时容忍度，平均耗时不超过基准耗时的该倍数时，梯度为 1
+     */
+    private static final double TOLERANCE = 1.5;
+
+    /**
+     * 平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    GradientLimiter(String service, String method, String algorithm, int initialLimit, int maxLimit) {
+        super(service, method, algorithm, initialLimit, maxLimit);
+    }
+
+    @Override
+    protected double update(double limit, long rtt, long minRtt, boolean appLimited) {
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * minRtt / rtt));
+        double next = limit * gradient + Math.sqrt(limit);
+        if (appLimited && next > limit) {
+            return limit;
+        }
+        return limit * (1 - SMOOTHING) + next * SMOOTHING;
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.limit;
+
+/**
+ * Vegas 算法
+ * <p>
+ * 估算排队数 = 当前限制 * (1 - 基准耗时 / 平均耗时)，排队数较少时增加限制，较多时减少限制，增减量为 log10(限制)。
+ */
+class VegasLimiter extends AdaptiveLimiter {
+
+    VegasLimiter(String service, String method, String algorithm, int initialLimit, int maxLimit) {
+        super(service, method, algorithm, initialLimit, maxLimit);
+    }
+
+    @Override
+    protected double update(double limit, long rtt, long minRtt, boolean appLimited) {
+        double queue = limit * (1 - (double) minRtt / rtt);
+        double step = Math.max(1, Math.log10(limit));
+        // 排队较少，增加限制
+        if (queue <= 3 * step) {
+            return appLimited ? limit : limit + step;
+        }
+        // 排队较多，减少限制
+        if (queue >= 6 * step) {
+            return limit - step;
+        }
+        return limit;
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.log;
+
+import com.alibaba.fastjson.JSON;
+
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 访问日志记录
+ * <p>
+ * 调用方只将参数值编码为 JSON 字节，不持有参数对象，避免写出前参数被业务修改或长期不能回收；其余部分的格式化在 {@link AccessLogWriter} 的写线程中完成。
+ * 在 {@link AccessLogWriter} 的环形缓冲区中复用，写出后清空引用。
+ */
+public class AccessLogRecord {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 日历的时间格式化
+     */
+    private static final String MESSAGE_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 按秒缓存的格式化时间
+     */
+    private static volatile CachedDate cachedDate = new CachedDate(-1, null);
+
+    /**
+     * 发布序号，用于 {@link AccessLogWriter} 的环形缓冲区
+     */
+    volatile long sequence;
+
+    /**
+     * 申请到的序号，仅由申请者读写
+     */
+    long claimed;
+
+    private long timestamp;
+    private String remoteHost;
+    private int remotePort;
+    private String localHost;
+    private int localPort;
+    private String group;
+    private String service;
+    private String version;
+    private String method;
+    private Class<?>[] types;
+    /**
+     * 参数值的 JSON 编码，UTF-8
+     */
+    private byte[] arguments;
+
+    public AccessLogRecord() {
+    }
+
+    AccessLogRecord(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public void set(long timestamp, String remoteHost, int remotePort, String localHost, int localPort,
+                    String group, String service, String version, String method, Class<?>[] types, Object[] args) {
+        this.timestamp = timestamp;
+        this.remoteHost = remoteHost;
+        this.remotePort = remotePort;
+        this.localHost = localHost;
+        this.localPort = localPort;
+        this.group = group;
+        this.service = service;
+        this.version = version;
+        this.method = method;
+        this.types = types;
+        this.arguments = null;
+        if (args != null && args.length > 0) { // 参数值，在调用线程编码
+            this.arguments = JSON.toJSONBytes(args);
+        }
+    }
+
+    /**
+     * 清空引用，避免缓冲区持有参数对象
+     */
+    void clear() {
+        set(0, null, 0, null, 0, null, null, null, null, null, null);
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return 参数值的 JSON 编码，无参数时为 null
+     */
+    byte[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * 拼接日志内容，不包括参数值
+     *
+     * @param sn StringBuilder
+     * @return sn
+     * @see #getArguments()
+     */
+    StringBuilder appendHeaderTo(StringBuilder sn) {
+        sn.append("[").append(formatDate(timestamp)).append("] ") // 时间
+                .append(remoteHost).append(":").append(remotePort) // 调用方地址
+                .append(" -> ").append(localHost).append(":").append(localPort) // 本地地址
+                .append(" - ");
+        if (null != group && group.length() > 0) { // 分组
+            sn.append(group).append("/");
+        }
+        sn.append(service); // 服务名
+        if (null != version && version.length() > 0) { // 版本
+            sn.append(":").append(version);
+        }
+        sn.append(" ");
+        sn.append(method); // 方法名
+        sn.append("(");
+        if (types != null && types.length > 0) { // 参数类型
+            boolean first = true;
+            for (Class<?> type : types) {
+                if (first) {
+                    first = false;
+                } else {
+                    sn.append(",");
+                }
+                sn.append(type.getName());
+            }
+        }
+        sn.append(") ");
+        return sn;
+    }
+
+    /**
+     * 拼接日志内容
+     *
+     * @param sn StringBuilder
+     * @return sn
+     */
+    public StringBuilder appendTo(StringBuilder sn) {
+        appendHeaderTo(sn);
+        if (arguments != null) { // 参数值
+            sn.append(new String(arguments, UTF_8));
+        }
+        return sn;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(256)).toString();
+    }
+
+    /**
+     * 格式化时间，同一秒内复用结果
+     */
+    static String formatDate(long timestamp) {
+        long second = timestamp / 1000;
+        CachedDate cached = cachedDate;
+        if (cached.second != second) {
+            cached = new CachedDate(second, new SimpleDateFormat(MESSAGE_DATE_FORMAT).format(new Date(timestamp)));
+            cachedDate = cached;
+        }
+        return cached.text;
+    }
+
+    private static final class CachedDate {
+
+        private final long second;
+
+        private final String text;
+
+        private CachedDate(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+
+    }
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.log;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.ConcurrentHashSet;
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志的异步写入器，每个日志文件一个
+ * <p>
+ * 调用方从有界的环形缓冲区申请一个 {@link AccessLogRecord} 槽位，填充后发布；缓冲区满时丢弃并计数，不阻塞调用方。
+ * 单个写线程按顺序取出记录、格式化，通过长期打开的 {@link FileChannel} 追加到文件，按日期和大小归档。
+ * <p>
+ * JVM 关闭时，由关闭钩子停止写线程，写出缓冲区中剩余的记录后关闭文件。
+ */
+public class AccessLogWriter implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final NamedThreadFactory THREAD_FACTORY = new NamedThreadFactory("Dubbo-Access-Log-Writer", true);
+
+    /**
+     * 访问日志的文件后缀
+     */
+    private static final String FILE_DATE_FORMAT = "yyyyMMdd";
+
+    private static final byte[] LINE_SEPARATOR = new byte[]{'\r', '\n'};
+
+    /**
+     * 缓冲区为空时，写线程的休眠时长
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 丢弃数量的报告间隔，单位：毫秒
+     */
+    private static final long DROP_REPORT_INTERVAL = 60000;
+
+    /**
+     * 关闭时等待写线程写出的最大时长，单位：毫秒
+     */
+    private static final long SHUTDOWN_TIMEOUT = 3000;
+
+    /**
+     * 已启动的写入器集合
+     */
+    private static final Set<AccessLogWriter> WRITERS = new ConcurrentHashSet<AccessLogWriter>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                for (AccessLogWriter writer : WRITERS) {
+                    writer.shutdown(SHUTDOWN_TIMEOUT);
+                }
+            }
+        }, "DubboAccessLogShutdownHook"));
+    }
+
+    private final File file;
+
+    private final long maxFileSize;
+
+    /**
+     * 环形缓冲区
+     */
+    private final AccessLogRecord[] ring;
+
+    private final int mask;
+
+    /**
+     * 下一个申请的序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个写出的序号，仅写线程读写
+     */
+    private long head;
+
+    /**
+     * 丢弃数量
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 写出数量
+     */
+    private final AtomicLong written = new AtomicLong();
+
+    private final StringBuilder line = new StringBuilder(512);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    private final SimpleDateFormat fileDateFormat = new SimpleDateFormat(FILE_DATE_FORMAT);
+
+    private FileChannel channel;
+
+    /**
+     * 当前文件大小
+     */
+    private long fileSize;
+
+    /**
+     * 当前文件的日期
+     */
+    private String fileDate;
+
+    /**
+     * 下次按日期归档的时间
+     */
+    private long nextRollTime;
+
+    private long reportedDropped;
+
+    private long lastReportTime;
+
+    private volatile Thread thread;
+
+    /**
+     * 是否停止。不使用中断，中断会关闭 {@link FileChannel}
+     */
+    private volatile boolean stopped;
+
+    public AccessLogWriter(String path, int bufferSize, long maxFileSize) {
+        this.file = new File(path);
+        this.maxFileSize = maxFileSize;
+        int size = Integer.highestOneBit(Math.max(2, bufferSize));
+        this.ring = new AccessLogRecord[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new AccessLogRecord(i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 启动写线程
+     */
+    public void start() {
+        thread = THREAD_FACTORY.newThread(this);
+        WRITERS.add(this);
+        thread.start();
+    }
+
+    /**
+     * 停止写线程，写出剩余的记录并关闭文件
+     *
+     * @param timeout 最大等待时长，单位：毫秒
+     */
+    public void shutdown(long timeout) {
+        stopped = true;
+        Thread t = thread;
+        if (t == null) {
+            return;
+        }
+        LockSupport.unpark(t);
+        try {
+            t.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 申请一个槽位，申请成功后必须调用 {@link #publish(AccessLogRecord)}
+     *
+     * @return 槽位，缓冲区满时返回 null
+     */
+    public AccessLogRecord claim() {
+        for (; ; ) {
+            long t = tail.get();
+            AccessLogRecord record = ring[(int) t & mask];
+            long sequence = record.sequence;
+            if (sequence == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    record.claimed = t;
+                    return record;
+                }
+            } else if (sequence < t) {
+                // 槽位尚未被写出，缓冲区已满
+                dropped.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 发布填充好的槽位
+     */
+    public void publish(AccessLogRecord record) {
+        record.sequence = record.claimed + 1;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!stopped) {
+                if (drain() == 0) {
+                    flush();
+                    reportDropped();
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+            }
+            // 写出剩余的记录
+            while (drain() > 0) {
+            }
+        } finally {
+            close();
+            WRITERS.remove(this);
+        }
+    }
+
+    /**
+     * 写出已发布的记录
+     *
+     * @return 写出数量
+     */
+    int drain() {
+        int count = 0;
+        while (count < ring.length) {
+            AccessLogRecord record = ring[(int) head & mask];
+            if (record.sequence != head + 1) {
+                break;
+            }
+            write(record);
+            record.clear();
+            // 槽位可被下一轮申请
+            record.sequence = head + ring.length;
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    private void write(AccessLogRecord record) {
+        try {
+            roll(record.getTimestamp());
+            line.setLength(0);
+            byte[] bytes = record.appendHeaderTo(line).toString().getBytes("UTF-8");
+            byte[] arguments = record.getArguments();
+            int length = bytes.length + (arguments != null ? arguments.length : 0) + LINE_SEPARATOR.length;
+            if (buffer.remaining() < length) {
+                flush();
+            }
+            if (buffer.remaining() < length) {
+                writeFully(ByteBuffer.wrap(bytes));
+                if (arguments != null) {
+                    writeFully(ByteBuffer.wrap(arguments));
+                }
+                writeFully(ByteBuffer.wrap(LINE_SEPARATOR));
+            } else {
+                buffer.put(bytes);
+                if (arguments != null) {
+                    buffer.put(arguments);
+                }
+                buffer.put(LINE_SEPARATOR);
+            }
+            fileSize += length;
+            written.incrementAndGet();
+        } catch (Throwable t) {
+            logger.warn("Failed to write access log to " + file + ", cause: " + t.getMessage(), t);
+        }
+    }
+
+    /**
+     * 打开文件，或按日期、大小归档
+     */
+    private void roll(long timestamp) throws IOException {
+        if (channel != null) {
+            if (timestamp >= nextRollTime) {
+                // 归档历史日志文件，例如： `accesslog` => `accesslog.20181023`
+                close();
+                rename(new File(file.getAbsolutePath() + "." + fileDate));
+            } else if (fileSize >= maxFileSize) {
+                // 超过大小，例如： `accesslog` => `accesslog.20181023.1`
+                close();
+                int index = 1;
+                File archive;
+                do {
+                    archive = new File(file.getAbsolutePath() + "." + fileDate + "." + index++);
+                } while (archive.exists());
+                rename(archive);
+            }
+        }
+        if (channel == null) {
+            open(timestamp);
+        }
+    }
+
+    private void open(long timestamp) throws IOException {
+        File dir = file.getParentFile();
+        if (null != dir && !dir.exists()) {
+            dir.mkdirs();
+        }
+        fileDate = fileDateFormat.format(new Date(timestamp));
+        // 启动前遗留的历史日志文件
+        if (file.exists()) {
+            String last = fileDateFormat.format(new Date(file.lastModified())); // 最后修改时间
+            if (!fileDate.equals(last)) {
+                rename(new File(file.getAbsolutePath() + "." + last));
+            }
+        }
+        channel = new FileOutputStream(file, true).getChannel();
+        fileSize = channel.size();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        nextRollTime = calendar.getTimeInMillis();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Append access log to " + file);
+        }
+    }
+
+    private void rename(File archive) {
+        if (!file.renameTo(archive)) {
+            logger.warn("Failed to archive access log " + file + " to " + archive);
+        }
+    }
+
+    private void flush() {
+        if (buffer.position() == 0 || channel == null) {
+            return;
+        }
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } catch (IOException e) {
+            logger.warn("Failed to write access log to " + file + ", cause: " + e.getMessage(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+
+    private void close() {
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn(e.getMessage(), e);
+            }
+            channel = null;
+        }
+    }
+
+    private void reportDropped() {
+        long now = System.currentTimeMillis();
+        if (now - lastReportTime < DROP_REPORT_INTERVAL) {
+            return;
+        }
+        lastReportTime = now;
+        long total = dropped.get();
+        if (total > reportedDropped) {
+            logger.warn("Dropped " + (total - reportedDropped) + " access logs of " + file
+                    + " since the buffer(" + ring.length + ") is full, total dropped: " + total);
+            reportedDropped = total;
+        }
+    }
+
+    /**
+     * @return 丢弃数量
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return 写出数量
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+}
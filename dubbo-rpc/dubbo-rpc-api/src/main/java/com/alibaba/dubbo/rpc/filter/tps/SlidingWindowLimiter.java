@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.tps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口限流器
+ * <p>
+ * 每个分片将周期划分为多个桶，桶以一个 long 保存（高 32 位为桶的序号，低 32 位为计数），
+ * 桶的过期重置与计数在同一次 CAS 中完成。统计时只累加周期内的桶，不存在固定窗口边界的突发。
+ * <p>
+ * 先在当前桶中计数占位，再统计周期内的总数，超出限额时撤销占位。
+ * 每个通过的请求统计到的总数都包含了在它之前的所有占位，因此并发时也不会超出限额。
+ */
+class SlidingWindowLimiter extends StripedRateLimiter {
+
+    /**
+     * 每个周期的桶数
+     */
+    static final int BUCKETS = 10;
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * 每个桶的时长，单位：毫秒
+     */
+    private final long bucketMillis;
+
+    /**
+     * 分片间隔
+     */
+    private final int stride;
+
+    /**
+     * 桶数组
+     */
+    private final AtomicLongArray cells;
+
+    SlidingWindowLimiter(String strategy, int rate, long interval) {
+        super(strategy, rate, interval, rate);
+        this.bucketMillis = Math.max(1, interval / BUCKETS);
+        this.stride = BUCKETS + PAD;
+        this.cells = new AtomicLongArray(stripes * stride);
+    }
+
+    @Override
+    protected boolean tryAcquire(int stripe) {
+        int epoch = (int) (System.currentTimeMillis() / bucketMillis);
+        int base = stripe * stride;
+        int share = share(rate, stripe);
+        // 已耗尽时直接拒绝，不修改桶
+        if (count(base, epoch) >= share) {
+            return false;
+        }
+        // 计数占位，桶已过期时重置
+        int index = base + (int) ((epoch & 0x7FFFFFFFL) % BUCKETS);
+        for (; ; ) {
+            long cell = cells.get(index);
+            long next = (int) (cell >>> 32) == epoch ? cell + 1 : ((long) epoch << 32) | 1;
+            if (cells.compareAndSet(index, cell, next)) {
+                break;
+            }
+        }
+        // 再次统计，包含本次占位
+        if (count(base, epoch) <= share) {
+            return true;
+        }
+        // 超出限额，撤销占位。桶已被后续周期重置时，占位已随之清除
+        for (; ; ) {
+            long cell = cells.get(index);
+            if ((int) (cell >>> 32) != epoch || (cell & COUNT_MASK) == 0) {
+                return false;
+            }
+            if (cells.compareAndSet(index, cell, cell - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 累加周期内的桶
+     */
+    private long count(int base, int epoch) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long cell = cells.get(base + i);
+            int age = epoch - (int) (cell >>> 32);
+            if (age >= 0 && age < BUCKETS) {
+                count += cell & COUNT_MASK;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.tps;
+
+/**
+ * 分片限流器
+ * <p>
+ * 限额平均分到多个分片，线程按编号散列到分片，避免所有线程 CAS 同一个变量。
+ * 所在分片耗尽时，依次尝试其它分片，因此总体通过数不超过限额。
+ */
+abstract class StripedRateLimiter {
+
+    /**
+     * 分片数上限
+     */
+    private static final int MAX_STRIPES = Math.min(64, ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors() * 2));
+
+    /**
+     * 分片间隔的 long 数量，避免伪共享
+     */
+    static final int PAD = 16;
+
+    /**
+     * 算法
+     */
+    private final String strategy;
+
+    /**
+     * 限制大小
+     */
+    final int rate;
+
+    /**
+     * 周期，单位：毫秒
+     */
+    final long interval;
+
+    /**
+     * 容量
+     */
+    final int burst;
+
+    /**
+     * 分片数，2 的幂
+     */
+    final int stripes;
+
+    StripedRateLimiter(String strategy, int rate, long interval, int burst) {
+        this.strategy = strategy;
+        this.rate = rate;
+        this.interval = interval;
+        this.burst = burst;
+        this.stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, Math.min(rate, burst))));
+    }
+
+    /**
+     * 获得一个许可
+     *
+     * @return 是否通过
+     */
+    boolean tryAcquire() {
+        int mask = stripes - 1;
+        int probe = probe() & mask;
+        if (tryAcquire(probe)) {
+            return true;
+        }
+        // 所在分片已耗尽，尝试其它分片
+        for (int i = 1; i < stripes; i++) {
+            if (tryAcquire((probe + i) & mask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从指定分片获得一个许可
+     */
+    protected abstract boolean tryAcquire(int stripe);
+
+    /**
+     * 分片的限额，余数分给前面的分片
+     */
+    int share(int total, int stripe) {
+        return total / stripes + (stripe < total % stripes ? 1 : 0);
+    }
+
+    boolean matches(String strategy, int rate, long interval, int burst) {
+        return this.strategy.equals(strategy) && this.rate == rate && this.interval == interval && this.burst == burst;
+    }
+
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32));
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int ceilingPowerOfTwo(int n) {
+        int highest = Integer.highestOneBit(Math.max(1, n));
+        return highest == n ? n : highest << 1;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [rate = " + rate + ", interval = " + interval + ", burst = " + burst + ", stripes = " + stripes + "]";
+    }
+
+}
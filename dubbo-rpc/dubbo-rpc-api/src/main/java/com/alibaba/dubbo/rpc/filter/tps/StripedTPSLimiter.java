@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.tps;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.StringUtils;
+import com.alibaba.dubbo.rpc.Invocation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 分片 TPS 限制器实现类
+ * <p>
+ * 支持令牌桶（token）与滑动窗口（sliding）两种算法，以及按服务消费者应用（`application` 隐式参数）的配额。
+ * 应用配额与服务的 TPS 限制同时生效。
+ */
+public class StripedTPSLimiter implements TPSLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedTPSLimiter.class);
+
+    /**
+     * 令牌桶算法
+     */
+    public static final String TOKEN_BUCKET = "token";
+
+    /**
+     * 滑动窗口算法
+     */
+    public static final String SLIDING_WINDOW = "sliding";
+
+    /**
+     * 其它应用的配额
+     */
+    private static final String ANY_APPLICATION = "*";
+
+    /**
+     * 未在配额中列出的应用的限流器数量上限。
+     * <p>
+     * 应用名由服务消费者传入，超出上限后，新出现的应用共享同一个 `*` 限流器，避免限流器集合无限增长。
+     */
+    static final int MAX_APPLICATION_LIMITERS = 1024;
+
+    /**
+     * 限流器集合
+     * <p>
+     * key：服务名，或 服务名#应用名
+     */
+    private final ConcurrentMap<String, StripedRateLimiter> limiters = new ConcurrentHashMap<String, StripedRateLimiter>();
+
+    /**
+     * 解析后的配额配置
+     * <p>
+     * key：配额配置项
+     */
+    private final ConcurrentMap<String, Map<String, Integer>> quotas = new ConcurrentHashMap<String, Map<String, Integer>>();
+
+    /**
+     * 已告警的未知算法
+     */
+    private final Set<String> unknownStrategies = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Override
+    public boolean isAllowable(URL url, Invocation invocation) {
+        String strategy = getStrategy(url);
+        long interval = url.getParameter(Constants.TPS_LIMIT_INTERVAL_KEY, Constants.DEFAULT_TPS_LIMIT_INTERVAL);
+        String serviceKey = url.getServiceKey();
+        // 应用配额
+        String quota = url.getParameter(Constants.TPS_LIMIT_QUOTA_KEY);
+        if (!StringUtils.isEmpty(quota)) {
+            String application = invocation.getAttachment(Constants.APPLICATION_KEY, "");
+            Map<String, Integer> map = getQuota(quota);
+            Integer applicationRate = map.get(application);
+            String key = serviceKey + "#" + application;
+            if (applicationRate == null) {
+                applicationRate = map.get(ANY_APPLICATION);
+                // 未列出的应用过多时，共享 `*` 限流器
+                if (applicationRate != null && !limiters.containsKey(key) && limiters.size() >= MAX_APPLICATION_LIMITERS) {
+                    key = serviceKey + "#" + ANY_APPLICATION;
+                }
+            }
+            if (applicationRate != null && applicationRate > 0
+                    && !getLimiter(key, strategy, applicationRate, interval, applicationRate).tryAcquire()) {
+                return false;
+            }
+        }
+        // 服务 TPS 限制
+        int rate = url.getParameter(Constants.TPS_LIMIT_RATE_KEY, -1);
+        if (rate > 0) {
+            int burst = url.getParameter(Constants.TPS_LIMIT_BURST_KEY, rate);
+            return getLimiter(serviceKey, strategy, rate, interval, burst).tryAcquire();
+        }
+        return true;
+    }
+
+    private StripedRateLimiter getLimiter(String key, String strategy, int rate, long interval, int burst) {
+        StripedRateLimiter limiter = limiters.get(key);
+        if (limiter != null && limiter.matches(strategy, rate, interval, burst)) {
+            return limiter;
+        }
+        // 不存在，或配置变更，则进行创建
+        StripedRateLimiter created = TOKEN_BUCKET.equals(strategy) ? new TokenBucketLimiter(strategy, rate, interval, burst)
+                : new SlidingWindowLimiter(strategy, rate, interval);
+        if (limiter == null) {
+            limiter = limiters.putIfAbsent(key, created);
+            return limiter == null ? created : limiter;
+        }
+        limiters.replace(key, limiter, created);
+        return limiters.get(key);
+    }
+
+    private String getStrategy(URL url) {
+        String strategy = url.getParameter(Constants.TPS_LIMIT_STRATEGY_KEY, SLIDING_WINDOW);
+        if (TOKEN_BUCKET.equals(strategy) || SLIDING_WINDOW.equals(strategy)) {
+            return strategy;
+        }
+        if (unknownStrategies.add(strategy)) {
+            logger.warn("Unknown " + Constants.TPS_LIMIT_STRATEGY_KEY + " \"" + strategy + "\" of service " + url.getServiceKey()
+                    + ", expect " + TOKEN_BUCKET + " or " + SLIDING_WINDOW + ", use " + SLIDING_WINDOW + " instead.");
+        }
+        return SLIDING_WINDOW;
+    }
+
+    private Map<String, Integer> getQuota(String quota) {
+        Map<String, Integer> map = quotas.get(quota);
+        if (map == null) {
+            map = parseQuota(quota);
+            quotas.putIfAbsent(quota, map);
+        }
+        return map;
+    }
+
+    /**
+     * @return 限流器数量
+     */
+    int size() {
+        return limiters.size();
+    }
+
+    private static Map<String, Integer> parseQuota(String quota) {
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        for (String item : Constants.COMMA_SPLIT_PATTERN.split(quota)) {
+            int i = item.lastIndexOf(':');
+            if (i <= 0) {
+                throw new IllegalArgumentException("Illegal " + Constants.TPS_LIMIT_QUOTA_KEY + " item \"" + item + "\", expect application:rate");
+            }
+            map.put(item.substring(0, i).trim(), Integer.parseInt(item.substring(i + 1).trim()));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+}
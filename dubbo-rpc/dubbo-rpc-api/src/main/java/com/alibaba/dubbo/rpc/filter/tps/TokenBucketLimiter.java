@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.tps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 令牌桶限流器
+ * <p>
+ * 每个分片使用 GCRA 算法，以一个“理论到达时间”表示桶的状态，一次 CAS 完成补充与获取令牌。
+ */
+class TokenBucketLimiter extends StripedRateLimiter {
+
+    /**
+     * 每个分片，发放一个令牌的间隔，单位：纳秒
+     */
+    private final long emissionNanos;
+
+    /**
+     * 每个分片，桶容量对应的时间，单位：纳秒
+     */
+    private final long[] capacityNanos;
+
+    /**
+     * 每个分片的理论到达时间
+     */
+    private final AtomicLongArray tats;
+
+    TokenBucketLimiter(String strategy, int rate, long interval, int burst) {
+        super(strategy, rate, interval, burst);
+        this.emissionNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(interval) * stripes / rate);
+        this.capacityNanos = new long[stripes];
+        this.tats = new AtomicLongArray(stripes * PAD);
+        // 初始为满桶
+        long now = System.nanoTime();
+        for (int i = 0; i < stripes; i++) {
+            capacityNanos[i] = emissionNanos * Math.max(1, share(burst, i));
+            tats.set(i * PAD, now - capacityNanos[i]);
+        }
+    }
+
+    @Override
+    protected boolean tryAcquire(int stripe) {
+        int index = stripe * PAD;
+        long now = System.nanoTime();
+        for (; ; ) {
+            long tat = tats.get(index);
+            long next = (tat - now > 0 ? tat : now) + emissionNanos;
+            // 桶已空
+            if (next - now > capacityNanos[stripe]) {
+                return false;
+            }
+            if (tats.compareAndSet(index, tat, next)) {
+                return true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 使用日志组件输出 Span ，每行一个
+ * <p>
+ * 日志名为 <code><b>dubbo.trace</b></code> ，可在日志组件中配置输出到独立的文件。
+ */
+public class LogSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger("dubbo.trace");
+
+    @Override
+    public void export(List<Span> spans) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        for (Span span : spans) {
+            logger.info(span.toString());
+        }
+    }
+
+}
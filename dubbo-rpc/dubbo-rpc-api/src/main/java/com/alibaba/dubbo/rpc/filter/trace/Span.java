@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+/**
+ * 一次调用在本端的记录
+ */
+public class Span {
+
+    /**
+     * 服务消费者
+     */
+    public static final String CONSUMER = "consumer";
+
+    /**
+     * 服务提供者
+     */
+    public static final String PROVIDER = "provider";
+
+    private final long traceId;
+
+    private final long spanId;
+
+    private final long parentId;
+
+    /**
+     * {@link #CONSUMER} 或 {@link #PROVIDER}
+     */
+    private final String kind;
+
+    private final String service;
+
+    private final String method;
+
+    /**
+     * 对端地址
+     */
+    private final String remote;
+
+    /**
+     * 开始时间，单位：毫秒
+     */
+    private final long startTime;
+
+    /**
+     * 耗时，单位：微秒
+     */
+    private final long duration;
+
+    /**
+     * 异常类名，成功时为 null
+     */
+    private final String error;
+
+    public Span(TraceContext context, String kind, String service, String method, String remote,
+                long startTime, long duration, String error) {
+        this.traceId = context.getTraceId();
+        this.spanId = context.getSpanId();
+        this.parentId = context.getParentId();
+        this.kind = kind;
+        this.service = service;
+        this.method = method;
+        this.remote = remote;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.error = error;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    public long getParentId() {
+        return parentId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRemote() {
+        return remote;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * 格式：traceId spanId parentId kind service.method remote startTime durationUs error
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(160);
+        buf.append(TraceContext.toHex(traceId)).append(' ')
+                .append(TraceContext.toHex(spanId)).append(' ')
+                .append(parentId == 0 ? "-" : TraceContext.toHex(parentId)).append(' ')
+                .append(kind).append(' ')
+                .append(service).append('.').append(method).append(' ')
+                .append(remote).append(' ')
+                .append(startTime).append(' ')
+                .append(duration).append("us ")
+                .append(error == null ? "ok" : error);
+        return buf.toString();
+    }
+
+}
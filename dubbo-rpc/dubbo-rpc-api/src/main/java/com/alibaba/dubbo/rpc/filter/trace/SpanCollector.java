@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.ConfigUtils;
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Span 收集器，每个 {@link SpanExporter} 一个
+ * <p>
+ * 调用方将 Span 放入有界的无锁环形缓冲区，缓冲区满时丢弃并计数，不阻塞调用方。
+ * 单个导出线程定时取出，按批调用 {@link SpanExporter#export(List)} 。
+ */
+public class SpanCollector implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanCollector.class);
+
+    private static final NamedThreadFactory THREAD_FACTORY = new NamedThreadFactory("Dubbo-Trace-Exporter", true);
+
+    /**
+     * 每批导出的最大数量
+     */
+    static final int BATCH_SIZE = 512;
+
+    /**
+     * 导出间隔
+     */
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /**
+     * 收集器集合
+     *
+     * key：导出器名
+     */
+    private static final ConcurrentMap<String, SpanCollector> COLLECTORS = new ConcurrentHashMap<String, SpanCollector>();
+
+    private final SpanExporter exporter;
+
+    private final AtomicReferenceArray<Span> ring;
+
+    /**
+     * 槽位的序号。等于申请序号时可写入，等于申请序号 + 1 时可取出
+     */
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /**
+     * 下一个写入的序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个取出的序号，仅导出线程读写
+     */
+    private long head;
+
+    private final List<Span> batch = new ArrayList<Span>(BATCH_SIZE);
+
+    /**
+     * 丢弃数量
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 导出数量
+     */
+    private final AtomicLong exported = new AtomicLong();
+
+    SpanCollector(SpanExporter exporter, int bufferSize) {
+        this.exporter = exporter;
+        int size = Integer.highestOneBit(Math.max(2, bufferSize));
+        this.ring = new AtomicReferenceArray<Span>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 获得收集器，不存在时创建并启动导出线程
+     *
+     * @param exporter   导出器名
+     * @param bufferSize 缓冲区大小
+     * @return 收集器
+     */
+    public static SpanCollector getCollector(String exporter, int bufferSize) {
+        SpanCollector collector = COLLECTORS.get(exporter);
+        if (collector == null) {
+            SpanCollector created = new SpanCollector(ExtensionLoader.getExtensionLoader(SpanExporter.class).getExtension(exporter), bufferSize);
+            collector = COLLECTORS.putIfAbsent(exporter, created);
+            if (collector == null) {
+                collector = created;
+                THREAD_FACTORY.newThread(collector).start();
+            }
+        }
+        return collector;
+    }
+
+    /**
+     * 放入 Span 到服务 URL 配置的导出器的收集器
+     *
+     * @param url  服务 URL
+     * @param span Span
+     */
+    public static void collect(URL url, Span span) {
+        String exporter = url.getParameter(Constants.TRACING_KEY);
+        if (ConfigUtils.isDefault(exporter)) {
+            exporter = ExtensionLoader.getExtensionLoader(SpanExporter.class).getDefaultExtensionName();
+        }
+        getCollector(exporter, url.getParameter(Constants.TRACE_BUFFER_KEY, Constants.DEFAULT_TRACE_BUFFER)).offer(span);
+    }
+
+    /**
+     * 放入 Span
+     *
+     * @param span Span
+     * @return 是否成功，缓冲区满时返回 false
+     */
+    public boolean offer(Span span) {
+        for (; ; ) {
+            long t = tail.get();
+            int index = (int) t & mask;
+            long sequence = sequences.get(index);
+            if (sequence == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    ring.lazySet(index, span);
+                    sequences.lazySet(index, t + 1);
+                    return true;
+                }
+            } else if (sequence < t) {
+                // 槽位尚未被取出，缓冲区已满
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            flush();
+            LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+        }
+    }
+
+    /**
+     * 按批导出已放入的 Span
+     *
+     * @return 导出数量
+     */
+    int flush() {
+        int count = 0;
+        for (; ; ) {
+            int index = (int) head & mask;
+            if (sequences.get(index) == head + 1) {
+                batch.add(ring.get(index));
+                ring.lazySet(index, null);
+                // 槽位可被下一轮写入
+                sequences.lazySet(index, head + ring.length());
+                head++;
+                if (batch.size() < BATCH_SIZE) {
+                    continue;
+                }
+            }
+            if (batch.isEmpty()) {
+                return count;
+            }
+            count += batch.size();
+            export();
+        }
+    }
+
+    private void export() {
+        try {
+            exporter.export(batch);
+            exported.addAndGet(batch.size());
+        } catch (Throwable t) {
+            logger.warn("Failed to export " + batch.size() + " spans by " + exporter.getClass().getName() + ", cause: " + t.getMessage(), t);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getExported() {
+        return exported.get();
+    }
+
+}
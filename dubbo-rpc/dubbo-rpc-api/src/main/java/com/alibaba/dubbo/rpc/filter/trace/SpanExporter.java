@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+import com.alibaba.dubbo.common.extension.SPI;
+
+import java.util.List;
+
+/**
+ * Span 导出器，由 {@link SpanCollector} 的导出线程批量调用
+ */
+@SPI("log")
+public interface SpanExporter {
+
+    /**
+     * 导出一批 Span
+     *
+     * @param spans Span 集合，调用结束后会被复用，不要持有
+     */
+    void export(List<Span> spans);
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.threadlocal.InternalThreadLocal;
+
+import java.util.Random;
+
+/**
+ * 链路追踪上下文，不可变
+ * <p>
+ * 通过一个定长的隐式参数 {@link Constants#TRACE_ATTACHMENT_KEY} 传递：16 位十六进制的 traceId + 16 位十六进制的 spanId + 1 位采样标记。
+ * 未采样的链路同样传递，保证下游与上游的采样决定一致。
+ */
+public final class TraceContext {
+
+    /**
+     * 编码后的长度
+     */
+    static final int ENCODED_LENGTH = 33;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 当前线程正在处理的服务提供者调用的上下文
+     */
+    private static final InternalThreadLocal<TraceContext> CURRENT = new InternalThreadLocal<TraceContext>();
+
+    private static final InternalThreadLocal<Random> RANDOM = new InternalThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private final long traceId;
+
+    private final long spanId;
+
+    /**
+     * 父 Span 编号，根 Span 为 0
+     */
+    private final long parentId;
+
+    private final boolean sampled;
+
+    TraceContext(long traceId, long spanId, long parentId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * @return 当前线程的上下文，不在服务提供者调用中时返回 null
+     */
+    public static TraceContext getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 设置当前线程的上下文
+     *
+     * @param context 上下文，为 null 时清除
+     */
+    public static void setCurrent(TraceContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    /**
+     * 服务提供者，加入调用方的链路，不存在时创建新链路
+     *
+     * @param attachment 隐式参数 {@link Constants#TRACE_ATTACHMENT_KEY}
+     * @param url        服务 URL
+     * @param method     方法名
+     * @return 本次调用的上下文
+     */
+    public static TraceContext join(String attachment, URL url, String method) {
+        TraceContext parent = decode(attachment);
+        return parent != null ? parent.newChild() : newRoot(url, method);
+    }
+
+    /**
+     * 服务消费者，在当前线程的链路上发起下游调用，不存在时创建新链路
+     *
+     * @param url    服务 URL
+     * @param method 方法名
+     * @return 本次调用的上下文
+     */
+    public static TraceContext fork(URL url, String method) {
+        TraceContext current = getCurrent();
+        return current != null ? current.newChild() : newRoot(url, method);
+    }
+
+    /**
+     * 创建根上下文，按 traceId 采样
+     *
+     * @param url    服务 URL
+     * @param method 方法名
+     * @return 根上下文
+     */
+    static TraceContext newRoot(URL url, String method) {
+        long traceId = nextId();
+        return new TraceContext(traceId, nextId(), 0, isSampled(url, method, traceId));
+    }
+
+    /**
+     * 是否采样。采样率按方法、服务的顺序取 {@link Constants#TRACE_SAMPLE_KEY} ，按 traceId 决定，同一链路结果相同
+     */
+    static boolean isSampled(URL url, String method, long traceId) {
+        double rate = url.getMethodParameter(method, Constants.TRACE_SAMPLE_KEY, Constants.DEFAULT_TRACE_SAMPLE);
+        if (rate <= 0) {
+            return false;
+        }
+        if (rate >= 1) {
+            return true;
+        }
+        // 取高 53 位，映射到 [0, 1)
+        return (traceId >>> 11) * 0x1.0p-53 < rate;
+    }
+
+    static long nextId() {
+        long id;
+        do {
+            id = RANDOM.get().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * @return 子上下文，用于发起下游调用或处理本次调用
+     */
+    TraceContext newChild() {
+        return new TraceContext(traceId, nextId(), spanId, sampled);
+    }
+
+    /**
+     * 编码为隐式参数
+     */
+    public String encode() {
+        char[] chars = new char[ENCODED_LENGTH];
+        writeHex(chars, 0, traceId);
+        writeHex(chars, 16, spanId);
+        chars[32] = sampled ? '1' : '0';
+        return new String(chars);
+    }
+
+    /**
+     * 解码隐式参数，返回调用方的上下文
+     *
+     * @param value 隐式参数
+     * @return 上下文，格式不正确时返回 null
+     */
+    static TraceContext decode(String value) {
+        if (value == null || value.length() != ENCODED_LENGTH) {
+            return null;
+        }
+        long traceId = readHex(value, 0);
+        long spanId = readHex(value, 16);
+        if (traceId == 0 || spanId == 0) {
+            return null;
+        }
+        return new TraceContext(traceId, spanId, 0, value.charAt(32) == '1');
+    }
+
+    private static void writeHex(char[] chars, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) value & 0xf];
+            value >>>= 4;
+        }
+    }
+
+    private static long readHex(String value, int offset) {
+        long result = 0;
+        for (int i = 0; i < 16; i++) {
+            int digit = Character.digit(value.charAt(offset + i), 16);
+            if (digit < 0) {
+                return 0;
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+
+    static String toHex(long value) {
+        char[] chars = new char[16];
+        writeHex(chars, 0, value);
+        return new String(chars);
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    public long getParentId() {
+        return parentId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * @return 十六进制的 traceId ，可用于日志
+     */
+    public String getTraceIdString() {
+        return toHex(traceId);
+    }
+
+    @Override
+    public String toString() {
+        return toHex(traceId) + "/" + toHex(spanId) + (sampled ? "" : " (not sampled)");
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.listener;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.OutlierStatus;
+
+/**
+ * OutlierDetectionInvokerListener
+ * <p>
+ * 服务提供者的 Invoker 销毁时，移除其 {@link OutlierStatus} ，重新引用时重新统计
+ */
+@Activate(Constants.OUTLIER_DETECTION_KEY)
+public class OutlierDetectionInvokerListener extends InvokerListenerAdapter {
+
+    @Override
+    public void destroyed(Invoker<?> invoker) {
+        OutlierStatus.removeStatus(invoker.getUrl());
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+public class ActiveLimitQueueTest {
+
+    @Test
+    public void testAcquireTimeout() {
+        ActiveLimitQueue queue = new ActiveLimitQueue(1, false);
+        Assert.assertTrue(queue.acquire(10));
+        Assert.assertFalse(queue.acquire(10));
+        Assert.assertEquals(0, queue.getQueueLength());
+        Assert.assertEquals(1, queue.getTimeouts());
+        Assert.assertTrue(queue.getMaxWaitElapsed() >= 10);
+        queue.release();
+        Assert.assertEquals(0, queue.getAcquired());
+        Assert.assertTrue(queue.acquire(10));
+    }
+
+    @Test
+    public void testFifo() throws Exception {
+        Assert.assertEquals(Arrays.asList(0, 1, 2), handoff(false));
+    }
+
+    @Test
+    public void testLifo() throws Exception {
+        Assert.assertEquals(Arrays.asList(2, 1, 0), handoff(true));
+    }
+
+    @Test
+    public void testSetMax() throws Exception {
+        final ActiveLimitQueue queue = new ActiveLimitQueue(1, false);
+        Assert.assertTrue(queue.acquire(10));
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (queue.acquire(5000)) {
+                    latch.countDown();
+                }
+            }
+        }).start();
+        waitQueueLength(queue, 1);
+        // 调大后立即移交许可
+        queue.setMax(2);
+        latch.await();
+        Assert.assertEquals(2, queue.getAcquired());
+        // 调小后，释放的许可不再移交
+        queue.setMax(1);
+        queue.release();
+        Assert.assertEquals(1, queue.getAcquired());
+        Assert.assertFalse(queue.acquire(10));
+    }
+
+    /**
+     * 依次排入三个等待者，逐个释放许可，返回获得许可的顺序
+     */
+    private List<Integer> handoff(boolean lifo) throws Exception {
+        final ActiveLimitQueue queue = new ActiveLimitQueue(1, lifo);
+        Assert.assertTrue(queue.acquire(10));
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+        Thread[] threads = new Thread[3];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (queue.acquire(5000)) {
+                        order.add(index);
+                        queue.release();
+                    }
+                }
+            });
+            threads[i].start();
+            waitQueueLength(queue, i + 1);
+        }
+        queue.release();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, queue.getAcquired());
+        Assert.assertEquals(0, queue.getQueueLength());
+        return order;
+    }
+
+    private void waitQueueLength(ActiveLimitQueue queue, int length) throws InterruptedException {
+        while (queue.getQueueLength() < length) {
+            Thread.sleep(1);
+        }
+    }
+
+}
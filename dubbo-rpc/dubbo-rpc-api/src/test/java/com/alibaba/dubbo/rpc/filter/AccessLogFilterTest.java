@@ -57,7 +57,7 @@ public class AccessLogFilterTest {
 
     @Test
     public void testCustom() {
-        URL url = URL.valueOf("test://test:11/test?accesslog=alibaba");
+        URL url = URL.valueOf("test://test:11/test?accesslog=target/accesslog/alibaba");
         Invoker<AccessLogFilterTest> invoker = new MyInvoker<AccessLogFilterTest>(url);
         Invocation invocation = new MockInvocation();
         accessLogFilter.invoke(invoker, invocation);
@@ -20,15 +20,25 @@ import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
+import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.RpcStatus;
 import com.alibaba.dubbo.rpc.support.BlockMyInvoker;
 import com.alibaba.dubbo.rpc.support.MockInvocation;
 import com.alibaba.dubbo.rpc.support.MyInvoker;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 
 /**
@@ -48,6 +58,49 @@ public class ActiveLimitFilterTest {
         activeLimitFilter.invoke(invoker, invocation);
     }
 
+    @Test
+    public void testStatusOnlyForStatusLoadBalance() {
+        URL url = URL.valueOf("test://test:11/testStatus?loadbalance=random");
+        activeLimitFilter.invoke(new MyInvoker<ActiveLimitFilterTest>(url), new MockInvocation());
+        // random 不读取 RpcStatus ，不统计
+        assertEquals(0, RpcStatus.getStatus(url, "echo").getTotal());
+
+        url = URL.valueOf("test://test:11/testStatus?loadbalance=p2c");
+        activeLimitFilter.invoke(new MyInvoker<ActiveLimitFilterTest>(url), new MockInvocation());
+        assertEquals(1, RpcStatus.getStatus(url, "echo").getTotal());
+        RpcStatus.removeStatus(url, "echo");
+
+        // 自定义的负载均衡，配置开启统计
+        url = URL.valueOf("test://test:11/testStatus?loadbalance=custom&active.status=true");
+        activeLimitFilter.invoke(new MyInvoker<ActiveLimitFilterTest>(url), new MockInvocation());
+        assertEquals(1, RpcStatus.getStatus(url, "echo").getTotal());
+        RpcStatus.removeStatus(url, "echo");
+    }
+
+    @Test
+    public void testAsyncEndsOnCallback() {
+        URL url = URL.valueOf("test://test:11/testAsync?loadbalance=p2c&async=true");
+        final TestFuture future = new TestFuture();
+        Invoker<ActiveLimitFilterTest> invoker = new MyInvoker<ActiveLimitFilterTest>(url) {
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                RpcContext.getContext().setFuture(future);
+                return new RpcResult();
+            }
+        };
+        activeLimitFilter.invoke(invoker, new MockInvocation());
+        RpcStatus status = RpcStatus.getStatus(url, "echo");
+        // 异步调用返回时，仍在调用中
+        assertEquals(1, status.getActive());
+        assertEquals(0, status.getTotal());
+
+        future.complete(new RpcResult("done"));
+        assertEquals(0, status.getActive());
+        assertEquals(1, status.getTotal());
+        RpcStatus.removeStatus(url, "echo");
+        RpcContext.getContext().setFuture(null);
+    }
+
     @Test
     public void testInvokeLessActives() {
         URL url = URL.valueOf("test://test:11/test?accesslog=true&group=dubbo&version=1.1&actives=10");
@@ -91,4 +144,45 @@ public class ActiveLimitFilterTest {
         }
         assertNotSame(0, count);
     }
+
+    private static class TestFuture implements ResultFuture<Object> {
+
+        private final List<ResultCallback> callbacks = new ArrayList<ResultCallback>();
+
+        public void setCallback(ResultCallback callback) {
+            // 框架内部只使用 addCallback ，不覆盖使用方设置的回调
+            throw new UnsupportedOperationException();
+        }
+
+        public void addCallback(ResultCallback callback) {
+            callbacks.add(callback);
+        }
+
+        void complete(Result result) {
+            for (ResultCallback callback : callbacks) {
+                callback.done(result);
+            }
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return false;
+        }
+
+        public boolean isDone() {
+            return false;
+        }
+
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.filter.limit.AdaptiveLimiter;
+import com.alibaba.dubbo.rpc.support.BlockMyInvoker;
+import com.alibaba.dubbo.rpc.support.MockInvocation;
+import com.alibaba.dubbo.rpc.support.MyInvoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptiveLimitFilterTest {
+
+    private AdaptiveLimitFilter filter = new AdaptiveLimitFilter();
+
+    @Test
+    public void testWithoutLimit() {
+        URL url = URL.valueOf("test://test/com.alibaba.dubbo.rpc.LimitService");
+        Invoker<AdaptiveLimitFilterTest> invoker = new MyInvoker<AdaptiveLimitFilterTest>(url);
+        Invocation invocation = new MockInvocation();
+        filter.invoke(invoker, invocation);
+    }
+
+    @Test
+    public void testExceptionResultNotSampled() {
+        URL url = URL.valueOf("test://test/com.alibaba.dubbo.rpc.LimitService?" + Constants.ADAPTIVE_LIMIT_KEY + "=gradient");
+        Invoker<AdaptiveLimitFilterTest> invoker = new MyInvoker<AdaptiveLimitFilterTest>(url, true);
+        Invocation invocation = new MockInvocation();
+        Assert.assertTrue(filter.invoke(invoker, invocation).hasException());
+        AdaptiveLimiter limiter = AdaptiveLimiter.getLimiter(url, invocation.getMethodName(), AdaptiveLimiter.GRADIENT);
+        Assert.assertEquals(0, limiter.getInflight());
+        Assert.assertEquals(0, limiter.getMinRtt());
+        AdaptiveLimiter.removeLimiters(url);
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        URL url = URL.valueOf("test://test/com.alibaba.dubbo.rpc.LimitService?" + Constants.ADAPTIVE_LIMIT_KEY + "=gradient&"
+                + Constants.ADAPTIVE_LIMIT_INITIAL_KEY + "=2");
+        final Invoker<AdaptiveLimitFilterTest> invoker = new BlockMyInvoker<AdaptiveLimitFilterTest>(url, 500);
+        final Invocation invocation = new MockInvocation();
+        final AtomicInteger rejected = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        filter.invoke(invoker, invocation);
+                    } catch (RpcException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        latch.await();
+        Assert.assertEquals(3, rejected.get());
+        AdaptiveLimiter limiter = AdaptiveLimiter.getLimiter(url, invocation.getMethodName(), AdaptiveLimiter.GRADIENT);
+        Assert.assertEquals(0, limiter.getInflight());
+        Assert.assertEquals(3, limiter.getRejected());
+        AdaptiveLimiter.removeLimiter(url, invocation.getMethodName());
+    }
+
+}
@@ -16,12 +16,15 @@
  */
 package com.alibaba.dubbo.rpc.filter;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
 import com.alibaba.dubbo.rpc.RpcResult;
 import com.alibaba.dubbo.rpc.support.DemoService;
 import com.alibaba.dubbo.rpc.support.MockInvocation;
@@ -30,6 +33,8 @@ import com.alibaba.dubbo.rpc.support.MyInvoker;
 import org.easymock.EasyMock;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.Assert.assertNull;
 
 /**
@@ -74,4 +79,21 @@ public class ContextFilterTest {
         Result result = contextFilter.invoke(invoker, invocation);
         assertNull(RpcContext.getContext().getInvoker());
     }
+
+    @Test
+    public void testRemoveTraceAttachment() {
+        URL url = URL.valueOf("test://test:11/test?group=dubbo&version=1.1");
+        final AtomicReference<String> trace = new AtomicReference<String>("unset");
+        Invoker<DemoService> invoker = new MyInvoker<DemoService>(url) {
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                trace.set(RpcContext.getContext().getAttachment(Constants.TRACE_ATTACHMENT_KEY));
+                return super.invoke(invocation);
+            }
+        };
+        RpcInvocation invocation = new RpcInvocation("sayHello", new Class<?>[0], new Object[0]);
+        invocation.setAttachment(Constants.TRACE_ATTACHMENT_KEY, "0000000000000001000000000000000101");
+        contextFilter.invoke(invoker, invocation);
+        assertNull(trace.get());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Filter;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.filter.trace.TraceContext;
+import com.alibaba.dubbo.rpc.support.DemoService;
+import com.alibaba.dubbo.rpc.support.MyInvoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TracingFilterTest {
+
+    private final Filter consumerFilter = new ConsumerTracingFilter();
+
+    private final Filter providerFilter = new TracingFilter();
+
+    private final URL url = URL.valueOf("test://127.0.0.1:20880/" + DemoService.class.getName() + "?tracing=true&trace.sample=1");
+
+    @Test
+    public void testPropagation() {
+        final AtomicReference<String> upstream = new AtomicReference<String>();
+        final AtomicReference<TraceContext> current = new AtomicReference<TraceContext>();
+        final AtomicReference<String> downstream = new AtomicReference<String>();
+        // 服务提供者处理时，发起一次下游调用
+        final Invoker<DemoService> provider = new MyInvoker<DemoService>(url) {
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                current.set(TraceContext.getCurrent());
+                RpcInvocation nested = new RpcInvocation("echo", new Class<?>[0], new Object[0]);
+                consumerFilter.invoke(new MyInvoker<DemoService>(url), nested);
+                downstream.set(nested.getAttachment(Constants.TRACE_ATTACHMENT_KEY));
+                return super.invoke(invocation);
+            }
+        };
+        // 服务消费者调用，隐式参数传递给服务提供者
+        Invoker<DemoService> consumer = new MyInvoker<DemoService>(url) {
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                upstream.set(invocation.getAttachment(Constants.TRACE_ATTACHMENT_KEY));
+                return providerFilter.invoke(provider, invocation);
+            }
+        };
+        RpcInvocation invocation = new RpcInvocation("sayHello", new Class<?>[0], new Object[0]);
+        Result result = consumerFilter.invoke(consumer, invocation);
+        Assert.assertEquals("alibaba", result.getValue());
+
+        String traceId = upstream.get().substring(0, 16);
+        String consumerSpan = upstream.get().substring(16, 32);
+        Assert.assertTrue(upstream.get().endsWith("1"));
+        Assert.assertEquals(traceId, current.get().getTraceIdString());
+        Assert.assertEquals(consumerSpan, String.format("%016x", current.get().getParentId()));
+        Assert.assertTrue(downstream.get().startsWith(traceId));
+        // 下游调用是服务提供者 Span 的子 Span
+        Assert.assertFalse(downstream.get().substring(16, 32).equals(String.format("%016x", current.get().getSpanId())));
+        Assert.assertFalse(downstream.get().substring(16, 32).equals(consumerSpan));
+        // 处理完成后清除
+        Assert.assertNull(TraceContext.getCurrent());
+    }
+
+    @Test
+    public void testNotSampled() {
+        URL unsampled = url.addParameter(Constants.TRACE_SAMPLE_KEY, "0");
+        RpcInvocation invocation = new RpcInvocation("sayHello", new Class<?>[0], new Object[0]);
+        consumerFilter.invoke(new MyInvoker<DemoService>(unsampled), invocation);
+        Assert.assertTrue(invocation.getAttachment(Constants.TRACE_ATTACHMENT_KEY).endsWith("0"));
+    }
+
+    @Test
+    public void testException() {
+        Invoker<DemoService> invoker = new MyInvoker<DemoService>(url) {
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                throw new RpcException("mocked");
+            }
+        };
+        try {
+            providerFilter.invoke(invoker, new RpcInvocation("sayHello", new Class<?>[0], new Object[0]));
+            Assert.fail();
+        } catch (RpcException expected) {
+        }
+        Assert.assertNull(TraceContext.getCurrent());
+        Assert.assertNull(TracingFilter.getError(null, null));
+        Assert.assertEquals(RpcException.class.getName(), TracingFilter.getError(null, new RpcException()));
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.limit;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.ExporterListener;
+import com.alibaba.dubbo.rpc.listener.ListenerExporterWrapper;
+import com.alibaba.dubbo.rpc.protocol.AbstractExporter;
+import com.alibaba.dubbo.rpc.support.DemoService;
+import com.alibaba.dubbo.rpc.support.MyInvoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void testGetLimiter() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/com.alibaba.dubbo.rpc.LimitService?" + Constants.ADAPTIVE_LIMIT_INITIAL_KEY + "=5");
+        AdaptiveLimiter limiter = AdaptiveLimiter.getLimiter(url, "echo", AdaptiveLimiter.GRADIENT);
+        Assert.assertTrue(limiter instanceof GradientLimiter);
+        Assert.assertEquals(5, limiter.getLimit());
+        Assert.assertSame(limiter, AdaptiveLimiter.getLimiter(url, "echo", AdaptiveLimiter.GRADIENT));
+        Assert.assertTrue(AdaptiveLimiter.getLimiters().contains(limiter));
+        // 算法变更时重新创建
+        AdaptiveLimiter vegas = AdaptiveLimiter.getLimiter(url, "echo", AdaptiveLimiter.VEGAS);
+        Assert.assertTrue(vegas instanceof VegasLimiter);
+        Assert.assertFalse(AdaptiveLimiter.getLimiters().contains(limiter));
+        AdaptiveLimiter.removeLimiter(url, "echo");
+        Assert.assertFalse(AdaptiveLimiter.getLimiters().contains(vegas));
+        // 取消暴露时移除服务的所有限制器
+        AdaptiveLimiter echo = AdaptiveLimiter.getLimiter(url, "echo", AdaptiveLimiter.GRADIENT);
+        AdaptiveLimiter hello = AdaptiveLimiter.getLimiter(url, "hello", AdaptiveLimiter.GRADIENT);
+        AdaptiveLimiter.removeLimiters(url);
+        Assert.assertFalse(AdaptiveLimiter.getLimiters().contains(echo));
+        Assert.assertFalse(AdaptiveLimiter.getLimiters().contains(hello));
+    }
+
+    @Test
+    public void testRemoveOnUnexport() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/com.alibaba.dubbo.rpc.LimitService?echo." + Constants.ADAPTIVE_LIMIT_KEY + "=" + AdaptiveLimiter.GRADIENT);
+        AdaptiveLimiter limiter = AdaptiveLimiter.getLimiter(url, "echo", AdaptiveLimiter.GRADIENT);
+        List<ExporterListener> listeners = ExtensionLoader.getExtensionLoader(ExporterListener.class)
+                .getActivateExtension(url, Constants.EXPORTER_LISTENER_KEY);
+        Exporter<DemoService> exporter = new ListenerExporterWrapper<DemoService>(new AbstractExporter<DemoService>(new MyInvoker<DemoService>(url)) {
+        }, listeners);
+        exporter.unexport();
+        Assert.assertFalse(AdaptiveLimiter.getLimiters().contains(limiter));
+    }
+
+    @Test
+    public void testAcquireAndRelease() {
+        AdaptiveLimiter limiter = new GradientLimiter("LimitService", "echo", AdaptiveLimiter.GRADIENT, 2, 10);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertEquals(2, limiter.getInflight());
+        Assert.assertEquals(1, limiter.getRejected());
+        limiter.release(2000, true);
+        Assert.assertEquals(1, limiter.getInflight());
+        Assert.assertEquals(2000, limiter.getMinRtt());
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.release(1000, false);
+        Assert.assertEquals(2000, limiter.getMinRtt());
+    }
+
+    @Test
+    public void testGradient() {
+        AdaptiveLimiter limiter = new GradientLimiter("LimitService", "echo", AdaptiveLimiter.GRADIENT, 100, 1000);
+        // 耗时在容忍范围内，增加限制
+        Assert.assertTrue(limiter.update(100, 12, 10, false) > 100);
+        // 负载不足，不增加限制
+        Assert.assertEquals(100, limiter.update(100, 12, 10, true), 0);
+        // 耗时增加，减少限制，梯度最小为 0.5
+        double next = limiter.update(100, 100, 10, false);
+        Assert.assertTrue(next < 100);
+        Assert.assertTrue(next >= 100 * 0.8 + (50 + 10) * 0.2);
+    }
+
+    @Test
+    public void testVegas() {
+        AdaptiveLimiter limiter = new VegasLimiter("LimitService", "echo", AdaptiveLimiter.VEGAS, 100, 1000);
+        // 无排队，增加限制
+        Assert.assertEquals(102, limiter.update(100, 10, 10, false), 0);
+        Assert.assertEquals(100, limiter.update(100, 10, 10, true), 0);
+        // 排队 100 * (1 - 10 / 11) ≈ 9，不变
+        Assert.assertEquals(100, limiter.update(100, 11, 10, false), 0);
+        // 排队较多，减少限制
+        Assert.assertEquals(98, limiter.update(100, 20, 10, false), 0);
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.log;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccessLogWriterTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        dir = new File(System.getProperty("java.io.tmpdir"), "dubbo-accesslog-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        AccessLogWriter writer = new AccessLogWriter(new File(dir, "access.log").getPath(), 4, Long.MAX_VALUE);
+        for (int i = 0; i < 4; i++) {
+            AccessLogRecord record = writer.claim();
+            Assert.assertNotNull(record);
+            writer.publish(record);
+        }
+        Assert.assertNull(writer.claim());
+        Assert.assertEquals(1, writer.getDropped());
+        // 写出后可再次申请
+        Assert.assertEquals(4, writer.drain());
+        Assert.assertNotNull(writer.claim());
+    }
+
+    @Test
+    public void testWriteInOrder() throws Exception {
+        File file = new File(dir, "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, Long.MAX_VALUE);
+        writer.start();
+        for (int i = 0; i < 100; i++) {
+            log(writer, "sayHello" + i);
+        }
+        List<String> lines = waitLines(writer, file, 100);
+        Assert.assertEquals(100, lines.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(lines.get(i), lines.get(i).contains("dubbo/com.alibaba.dubbo.rpc.DemoService:1.0 sayHello" + i + "(java.lang.String) [\"dubbo\"]"));
+        }
+    }
+
+    @Test
+    public void testRollBySize() throws Exception {
+        File file = new File(dir, "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, 100);
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            log(writer, "sayHello");
+        }
+        waitLines(writer, file, 5);
+        // 每行超过 100 字节，每次写入前都归档
+        Assert.assertEquals(5, dir.listFiles().length);
+        Assert.assertEquals(1, read(file).size());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        File file = new File(dir, "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 128, Long.MAX_VALUE);
+        writer.start();
+        for (int i = 0; i < 100; i++) {
+            log(writer, "sayHello" + i);
+        }
+        // 停止时写出剩余的记录并刷盘
+        writer.shutdown(5000);
+        Assert.assertEquals(100, read(file).size());
+    }
+
+    @Test
+    public void testArgumentsEncodedOnCaller() throws Exception {
+        File file = new File(dir, "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, Long.MAX_VALUE);
+        List<String> argument = new ArrayList<String>();
+        argument.add("dubbo");
+        AccessLogRecord record = writer.claim();
+        record.set(System.currentTimeMillis(), "127.0.0.1", 12345, "127.0.0.1", 20880, null,
+                "com.alibaba.dubbo.rpc.DemoService", null, "sayHello", new Class<?>[]{List.class}, new Object[]{argument});
+        writer.publish(record);
+        // 发布后修改参数，不影响日志内容
+        argument.add("changed");
+        writer.start();
+        writer.shutdown(5000);
+        List<String> lines = read(file);
+        Assert.assertEquals(1, lines.size());
+        Assert.assertTrue(lines.get(0), lines.get(0).endsWith("sayHello(java.util.List) [[\"dubbo\"]]"));
+    }
+
+    private void log(AccessLogWriter writer, String method) throws InterruptedException {
+        AccessLogRecord record;
+        while ((record = writer.claim()) == null) {
+            Thread.sleep(1);
+        }
+        record.set(System.currentTimeMillis(), "127.0.0.1", 12345, "127.0.0.1", 20880, "dubbo",
+                "com.alibaba.dubbo.rpc.DemoService", "1.0", method, new Class<?>[]{String.class}, new Object[]{"dubbo"});
+        writer.publish(record);
+    }
+
+    private List<String> waitLines(AccessLogWriter writer, File file, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getWritten() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // 等待空闲时刷盘
+        Thread.sleep(100);
+        return read(file);
+    }
+
+    private List<String> read(File file) throws Exception {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.tps;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StripedTPSLimiterTest {
+
+    private final StripedTPSLimiter limiter = new StripedTPSLimiter();
+
+    private final URL url = URL.valueOf("test://localhost/com.alibaba.dubbo.rpc.file.TpsService");
+
+    @Test
+    public void testTokenBucket() throws Exception {
+        URL url = this.url.addParameter(Constants.TPS_LIMIT_STRATEGY_KEY, StripedTPSLimiter.TOKEN_BUCKET)
+                .addParameter(Constants.TPS_LIMIT_RATE_KEY, 5);
+        assertAllowed(url, new RpcInvocation(), 5);
+    }
+
+    @Test
+    public void testTokenBucketRefill() throws Exception {
+        URL url = this.url.addParameter(Constants.TPS_LIMIT_STRATEGY_KEY, StripedTPSLimiter.TOKEN_BUCKET)
+                .addParameter(Constants.TPS_LIMIT_RATE_KEY, 2)
+                .addParameter(Constants.TPS_LIMIT_INTERVAL_KEY, 200);
+        assertAllowed(url, new RpcInvocation(), 2);
+        Thread.sleep(250);
+        assertTrue(limiter.isAllowable(url, new RpcInvocation()));
+    }
+
+    @Test
+    public void testSlidingWindow() throws Exception {
+        URL url = this.url.addParameter(Constants.TPS_LIMIT_STRATEGY_KEY, StripedTPSLimiter.SLIDING_WINDOW)
+                .addParameter(Constants.TPS_LIMIT_RATE_KEY, 5)
+                .addParameter(Constants.TPS_LIMIT_INTERVAL_KEY, 500);
+        assertAllowed(url, new RpcInvocation(), 5);
+        Thread.sleep(600);
+        assertAllowed(url, new RpcInvocation(), 5);
+    }
+
+    @Test
+    public void testApplicationQuota() throws Exception {
+        URL url = this.url.addParameter(Constants.TPS_LIMIT_QUOTA_KEY, "app1:2,*:3");
+        RpcInvocation app1 = new RpcInvocation();
+        app1.setAttachment(Constants.APPLICATION_KEY, "app1");
+        RpcInvocation app2 = new RpcInvocation();
+        app2.setAttachment(Constants.APPLICATION_KEY, "app2");
+        assertAllowed(url, app1, 2);
+        assertAllowed(url, app2, 3);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final URL url = this.url.addParameter(Constants.TPS_LIMIT_STRATEGY_KEY, StripedTPSLimiter.TOKEN_BUCKET)
+                .addParameter(Constants.TPS_LIMIT_RATE_KEY, 10000)
+                .addParameter(Constants.TPS_LIMIT_INTERVAL_KEY, 3600 * 1000);
+        final AtomicInteger allowed = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 5000; j++) {
+                        if (limiter.isAllowable(url, new RpcInvocation())) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(10000, allowed.get());
+    }
+
+    @Test
+    public void testSlidingWindowConcurrent() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            URL url = this.url.setPath(this.url.getPath() + round)
+                    .addParameter(Constants.TPS_LIMIT_STRATEGY_KEY, StripedTPSLimiter.SLIDING_WINDOW)
+                    .addParameter(Constants.TPS_LIMIT_RATE_KEY, 100000)
+                    .addParameter(Constants.TPS_LIMIT_INTERVAL_KEY, 3600 * 1000);
+            int allowed = acquireConcurrently(url, 16, 12500);
+            assertTrue("over-admitted " + allowed, allowed <= 100000);
+            assertTrue(allowed > 0);
+        }
+    }
+
+    private int acquireConcurrently(final URL url, int threads, final int times) throws InterruptedException {
+        final AtomicInteger allowed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < times; j++) {
+                        if (limiter.isAllowable(url, new RpcInvocation())) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        latch.await();
+        return allowed.get();
+    }
+
+    @Test
+    public void testApplicationLimitersBounded() throws Exception {
+        URL url = this.url.addParameter(Constants.TPS_LIMIT_QUOTA_KEY, "app1:2,*:1");
+        for (int i = 0; i < StripedTPSLimiter.MAX_APPLICATION_LIMITERS * 2; i++) {
+            RpcInvocation invocation = new RpcInvocation();
+            invocation.setAttachment(Constants.APPLICATION_KEY, "app-" + i);
+            limiter.isAllowable(url, invocation);
+        }
+        assertTrue(limiter.size() <= StripedTPSLimiter.MAX_APPLICATION_LIMITERS + 1);
+        // 配置中列出的应用不受上限影响
+        RpcInvocation app1 = new RpcInvocation();
+        app1.setAttachment(Constants.APPLICATION_KEY, "app1");
+        assertAllowed(url, app1, 2);
+    }
+
+    private void assertAllowed(URL url, RpcInvocation invocation, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(limiter.isAllowable(url, invocation));
+        }
+        assertFalse(limiter.isAllowable(url, invocation));
+    }
+
+}
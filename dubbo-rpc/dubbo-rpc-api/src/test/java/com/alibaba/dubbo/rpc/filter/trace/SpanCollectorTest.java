@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpanCollectorTest {
+
+    private static Span newSpan(long spanId) {
+        return new Span(new TraceContext(1, spanId, 0, true), Span.CONSUMER, "DemoService", "sayHello",
+                "127.0.0.1:20880", System.currentTimeMillis(), 10, null);
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        RecordingExporter exporter = new RecordingExporter();
+        SpanCollector collector = new SpanCollector(exporter, 4);
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertTrue(collector.offer(newSpan(i)));
+        }
+        Assert.assertFalse(collector.offer(newSpan(5)));
+        Assert.assertEquals(1, collector.getDropped());
+
+        Assert.assertEquals(4, collector.flush());
+        Assert.assertEquals(4, collector.getExported());
+        Assert.assertEquals(1, exporter.spans.get(0).getSpanId());
+        Assert.assertEquals(4, exporter.spans.get(3).getSpanId());
+        // 导出后可再次放入
+        Assert.assertTrue(collector.offer(newSpan(6)));
+        Assert.assertEquals(1, collector.flush());
+        Assert.assertEquals(6, exporter.spans.get(4).getSpanId());
+    }
+
+    @Test
+    public void testFlushInBatches() {
+        RecordingExporter exporter = new RecordingExporter();
+        SpanCollector collector = new SpanCollector(exporter, 4096);
+        int count = SpanCollector.BATCH_SIZE * 2 + 3;
+        for (int i = 1; i <= count; i++) {
+            collector.offer(newSpan(i));
+        }
+        Assert.assertEquals(count, collector.flush());
+        Assert.assertEquals(3, exporter.batches);
+        Assert.assertEquals(count, exporter.spans.size());
+        Assert.assertEquals(0, collector.flush());
+    }
+
+    @Test
+    public void testExporterFailure() {
+        SpanCollector collector = new SpanCollector(new SpanExporter() {
+            @Override
+            public void export(List<Span> spans) {
+                throw new IllegalStateException("unavailable");
+            }
+        }, 4);
+        collector.offer(newSpan(1));
+        Assert.assertEquals(1, collector.flush());
+        Assert.assertEquals(0, collector.getExported());
+        Assert.assertTrue(collector.offer(newSpan(2)));
+    }
+
+    @Test
+    public void testSpanToString() {
+        Span span = new Span(new TraceContext(1, 2, 3, true), Span.PROVIDER, "DemoService", "sayHello",
+                "127.0.0.1:20880", 1000, 25, "java.lang.IllegalStateException");
+        Assert.assertEquals("0000000000000001 0000000000000002 0000000000000003 provider DemoService.sayHello "
+                + "127.0.0.1:20880 1000 25us java.lang.IllegalStateException", span.toString());
+    }
+
+    private static class RecordingExporter implements SpanExporter {
+
+        private final List<Span> spans = new ArrayList<Span>();
+
+        private int batches;
+
+        @Override
+        public void export(List<Span> batch) {
+            batches++;
+            spans.addAll(batch);
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.filter.trace;
+
+import com.alibaba.dubbo.common.URL;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TraceContextTest {
+
+    @After
+    public void tearDown() {
+        TraceContext.setCurrent(null);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        TraceContext context = new TraceContext(0x0123456789abcdefL, -2L, 7L, true);
+        String encoded = context.encode();
+        Assert.assertEquals("0123456789abcdeffffffffffffffffe1", encoded);
+
+        TraceContext decoded = TraceContext.decode(encoded);
+        Assert.assertEquals(context.getTraceId(), decoded.getTraceId());
+        Assert.assertEquals(context.getSpanId(), decoded.getSpanId());
+        Assert.assertTrue(decoded.isSampled());
+        Assert.assertFalse(TraceContext.decode(new TraceContext(1, 2, 0, false).encode()).isSampled());
+    }
+
+    @Test
+    public void testDecodeInvalid() {
+        Assert.assertNull(TraceContext.decode(null));
+        Assert.assertNull(TraceContext.decode("0123"));
+        Assert.assertNull(TraceContext.decode("0123456789abcdefxfffffffffffffff1"));
+        Assert.assertNull(TraceContext.decode("00000000000000000000000000000001" + "1"));
+    }
+
+    @Test
+    public void testJoin() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/DemoService?trace.sample=0");
+        TraceContext parent = new TraceContext(11, 22, 0, true);
+        TraceContext child = TraceContext.join(parent.encode(), url, "sayHello");
+        Assert.assertEquals(11, child.getTraceId());
+        Assert.assertEquals(22, child.getParentId());
+        Assert.assertTrue(child.getSpanId() != 22);
+        // 沿用上游的采样决定
+        Assert.assertTrue(child.isSampled());
+
+        TraceContext root = TraceContext.join(null, url, "sayHello");
+        Assert.assertEquals(0, root.getParentId());
+        Assert.assertFalse(root.isSampled());
+    }
+
+    @Test
+    public void testFork() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/DemoService?trace.sample=1");
+        TraceContext root = TraceContext.fork(url, "sayHello");
+        Assert.assertTrue(root.isSampled());
+        Assert.assertEquals(0, root.getParentId());
+
+        TraceContext.setCurrent(new TraceContext(11, 22, 0, false));
+        TraceContext child = TraceContext.fork(url, "sayHello");
+        Assert.assertEquals(11, child.getTraceId());
+        Assert.assertEquals(22, child.getParentId());
+        Assert.assertFalse(child.isSampled());
+    }
+
+    @Test
+    public void testSampleRate() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/DemoService?trace.sample=0.25&echo.trace.sample=0");
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            long traceId = TraceContext.nextId();
+            if (TraceContext.isSampled(url, "sayHello", traceId)) {
+                sampled++;
+            }
+            // 同一 traceId 的决定不变
+            Assert.assertEquals(TraceContext.isSampled(url, "sayHello", traceId), TraceContext.isSampled(url, "sayHello", traceId));
+            Assert.assertFalse(TraceContext.isSampled(url, "echo", traceId));
+        }
+        Assert.assertTrue(String.valueOf(sampled), sampled > 2000 && sampled < 3000);
+    }
+
+}
@@ -254,6 +254,10 @@ class CallbackServiceCodec {
         byte callbackStatus = isCallBack(url, inv.getMethodName(), paraIndex);
         Object[] args = inv.getArguments();
         Class<?>[] pts = inv.getParameterTypes();
+        // stream observer argument, items are pushed back as stream frames
+        if (args[paraIndex] != null && DubboStreams.isStream(pts[paraIndex])) {
+            return DubboStreams.encodeInvocationArgument(channel, inv, paraIndex);
+        }
         switch (callbackStatus) {
             case CallbackServiceCodec.CALLBACK_NONE:
                 return args[paraIndex];
@@ -269,6 +273,9 @@ class CallbackServiceCodec {
     }
 
     public static Object decodeInvocationArgument(Channel channel, RpcInvocation inv, Class<?>[] pts, int paraIndex, Object inObject) throws IOException {
+        if (DubboStreams.isStreamArgument(inv, paraIndex)) {
+            return DubboStreams.decodeInvocationArgument(channel, inv, paraIndex);
+        }
         // if it's a callback, create proxy on client side, callback interface on client side can be invoked through channel
         // need get URL from channel and env when decode
         URL url;
@@ -69,6 +69,11 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
      */
     private volatile boolean hasDecoded;
 
+    /**
+     * 接收时间，在 IO 线程创建时记录，包含在线程池中排队的时间
+     */
+    private final long receivedTime = System.currentTimeMillis();
+
     public DecodeableRpcInvocation(Channel channel, Request request, InputStream is, byte id) {
         Assert.notNull(channel, "channel == null");
         Assert.notNull(request, "request == null");
@@ -79,6 +84,10 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
         this.serializationType = id;
     }
 
+    public long getReceivedTime() {
+        return receivedTime;
+    }
+
     @Override
     public void decode() {
         if (!hasDecoded && channel != null && inputStream != null) {
@@ -105,17 +114,28 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
     public Object decode(Channel channel, InputStream input) throws IOException {
         ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType).deserialize(channel.getUrl(), input);
 
+        // 使用符号表编码的请求
+        String dubboVersion = in.readUTF();
+        SymbolTable symbols = null;
+        if (SymbolTable.SYMBOL_MARKER.equals(dubboVersion)) {
+            symbols = SymbolTable.getSymbolTable(channel);
+            if (symbols == null) {
+                throw new IOException("Received a request encoded with symbols, but the symbol table is disabled by " + Constants.SYMBOL_TABLE_KEY + "=0");
+            }
+            dubboVersion = symbols.readSymbol(in);
+        }
+
         // 解码 `dubbo` `path` `version`
-        setAttachment(Constants.DUBBO_VERSION_KEY, in.readUTF());
-        setAttachment(Constants.PATH_KEY, in.readUTF());
-        setAttachment(Constants.VERSION_KEY, in.readUTF());
+        setAttachment(Constants.DUBBO_VERSION_KEY, dubboVersion);
+        setAttachment(Constants.PATH_KEY, readString(in, symbols));
+        setAttachment(Constants.VERSION_KEY, readString(in, symbols));
 
         // 解码方法、方法签名、方法参数集合
-        setMethodName(in.readUTF());
+        setMethodName(readString(in, symbols));
         try {
             Object[] args;
             Class<?>[] pts;
-            String desc = in.readUTF();
+            String desc = readString(in, symbols);
             if (desc.length() == 0) {
                 pts = DubboCodec.EMPTY_CLASS_ARRAY;
                 args = DubboCodec.EMPTY_OBJECT_ARRAY;
@@ -135,7 +155,23 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
             setParameterTypes(pts);
 
             // 解码隐式传参集合
-            Map<String, String> map = (Map<String, String>) in.readObject(Map.class);
+            Map<String, String> map;
+            if (symbols != null) {
+                map = symbols.readAttachments(in);
+            } else {
+                map = (Map<String, String>) in.readObject(Map.class);
+                // 对方支持符号表，响应时确认
+                if (map != null && map.remove(Constants.SYMBOL_ATTACHMENT_KEY) != null) {
+                    SymbolTable table = SymbolTable.getSymbolTable(channel);
+                    if (table != null) {
+                        table.setPeerCapable();
+                    }
+                }
+            }
+            // 对方索取负载，开启负载反馈
+            if (map != null && map.remove(Constants.LOAD_ATTACHMENT_KEY) != null) {
+                LoadFeedback.enable(channel);
+            }
             if (map != null && map.size() > 0) {
                 Map<String, String> attachment = getAttachments();
                 if (attachment == null) {
@@ -161,4 +197,8 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
         return this;
     }
 
+    private static String readString(ObjectInput in, SymbolTable symbols) throws IOException {
+        return symbols == null ? in.readUTF() : symbols.readSymbol(in);
+    }
+
 }
@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.util.Map;
 
 /**
  * 可解码的 RpcResult 实现类
@@ -90,21 +91,43 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Object decode(Channel channel, InputStream input) throws IOException {
         ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType).deserialize(channel.getUrl(), input);
 
         // 读取标记位
         byte flag = in.readByte();
+        // 带隐式传参
+        boolean hasAttachments = flag >= DubboCodec.RESPONSE_ATTACHMENTS_OFFSET;
+        if (hasAttachments) {
+            flag -= DubboCodec.RESPONSE_ATTACHMENTS_OFFSET;
+        }
+        // 符号表确认
+        SymbolTable symbols = SymbolTable.getSymbolTable(channel);
+        if (flag >= DubboCodec.RESPONSE_SYMBOL_OFFSET) {
+            int watermark = in.readInt();
+            if (symbols != null) {
+                symbols.acknowledge(watermark);
+            }
+            flag -= DubboCodec.RESPONSE_SYMBOL_OFFSET;
+        } else if (symbols != null) {
+            symbols.reject();
+        }
         switch (flag) {
             case DubboCodec.RESPONSE_NULL_VALUE: // 无返回值
                 break;
             case DubboCodec.RESPONSE_VALUE: // 有返回值
                 try {
                     Type[] returnType = RpcUtils.getReturnTypes(invocation);
-                    setValue(returnType == null || returnType.length == 0 ? in.readObject() :
-                            (returnType.length == 1 ? in.readObject((Class<?>) returnType[0])
-                                    // 返回结果:Type[]{method.getReturnType(), method.getGenericReturnType()}
-                                    : in.readObject((Class<?>) returnType[0], returnType[1])));
+                    // 返回的 StreamObserver ，读取 OPEN 帧，并创建发送方
+                    if (returnType != null && returnType.length > 0 && DubboStreams.isStream((Class<?>) returnType[0])) {
+                        setValue(DubboStreams.decodeResult(channel, in.readObject(StreamFrame.class)));
+                    } else {
+                        setValue(returnType == null || returnType.length == 0 ? in.readObject() :
+                                (returnType.length == 1 ? in.readObject((Class<?>) returnType[0])
+                                        // 返回结果:Type[]{method.getReturnType(), method.getGenericReturnType()}
+                                        : in.readObject((Class<?>) returnType[0], returnType[1])));
+                    }
                 } catch (ClassNotFoundException e) {
                     throw new IOException(StringUtils.toString("Read response data failed.", e));
                 }
@@ -123,6 +146,13 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
             default:
                 throw new IOException("Unknown result flag, expect '0' '1' '2', get " + flag);
         }
+        if (hasAttachments) {
+            try {
+                setAttachments((Map<String, String>) in.readObject(Map.class));
+            } catch (ClassNotFoundException e) {
+                throw new IOException(StringUtils.toString("Read response attachments failed.", e));
+            }
+        }
         if (in instanceof Cleanable) {
             ((Cleanable) in).cleanup();
         }
@@ -37,9 +37,12 @@ import com.alibaba.dubbo.remoting.transport.CodecSupport;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.StreamObserver;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Dubbo codec.
@@ -75,6 +78,20 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
      */
     public static final byte RESPONSE_NULL_VALUE = 2;
 
+    /**
+     * 响应 - 带符号表确认，标记位加上该偏移，随后写入连续已定义的最大编号
+     *
+     * @see SymbolTable
+     */
+    public static final byte RESPONSE_SYMBOL_OFFSET = 3;
+
+    /**
+     * 响应 - 带隐式传参，标记位加上该偏移，在返回值或异常之后写入隐式传参集合。仅向索取负载的请求方发送
+     *
+     * @see LoadFeedback
+     */
+    public static final byte RESPONSE_ATTACHMENTS_OFFSET = 6;
+
     /**
      * 方法参数 - 空（参数）
      */
@@ -201,10 +218,34 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         return new byte[]{};
     }
 
+    @Override
+    protected String getPhaseKey(Object data) {
+        // 服务名.方法名
+        if (data instanceof Invocation) {
+            Invocation inv = (Invocation) data;
+            return inv.getAttachment(Constants.PATH_KEY) + "." + inv.getMethodName();
+        }
+        return super.getPhaseKey(data);
+    }
+
     @Override
     protected void encodeRequestData(Channel channel, ObjectOutput out, Object data) throws IOException {
         RpcInvocation inv = (RpcInvocation) data;
 
+        // 使用符号表编码
+        SymbolTable symbols = SymbolTable.getSymbolTable(channel);
+        if (symbols != null && symbols.isEnabled()) {
+            out.writeUTF(SymbolTable.SYMBOL_MARKER);
+            symbols.writeSymbol(out, inv.getAttachment(Constants.DUBBO_VERSION_KEY, DUBBO_VERSION));
+            symbols.writeSymbol(out, inv.getAttachment(Constants.PATH_KEY));
+            symbols.writeSymbol(out, inv.getAttachment(Constants.VERSION_KEY));
+            symbols.writeSymbol(out, inv.getMethodName());
+            symbols.writeSymbol(out, ReflectUtils.getDesc(inv.getParameterTypes()));
+            encodeArguments(channel, out, inv);
+            symbols.writeAttachments(out, inv.getAttachments());
+            return;
+        }
+
         // 写入 `dubbo` `path` `version`
         out.writeUTF(inv.getAttachment(Constants.DUBBO_VERSION_KEY, DUBBO_VERSION));
         out.writeUTF(inv.getAttachment(Constants.PATH_KEY));
@@ -213,38 +254,76 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         // 写入方法、方法签名、方法参数集合
         out.writeUTF(inv.getMethodName());
         out.writeUTF(ReflectUtils.getDesc(inv.getParameterTypes()));
+        encodeArguments(channel, out, inv);
+
+        // 写入隐式传参集合
+        Map<String, String> attachments = inv.getAttachments();
+        // 协商中，告知对方支持符号表
+        if (symbols != null && symbols.isNegotiating()) {
+            attachments = new HashMap<String, String>(attachments);
+            attachments.put(Constants.SYMBOL_ATTACHMENT_KEY, Boolean.TRUE.toString());
+        }
+        out.writeObject(attachments);
+    }
+
+    private void encodeArguments(Channel channel, ObjectOutput out, RpcInvocation inv) throws IOException {
         Object[] args = inv.getArguments();
         if (args != null) {
             for (int i = 0; i < args.length; i++) {
                 out.writeObject(CallbackServiceCodec.encodeInvocationArgument(channel, inv, i));
             }
         }
-
-        // 写入隐式传参集合
-        out.writeObject(inv.getAttachments());
     }
 
     @Override
     protected void encodeResponseData(Channel channel, ObjectOutput out, Object data) throws IOException {
         Result result = (Result) data;
+        // 对方支持符号表，标记位加上偏移，并写入确认的编号
+        SymbolTable symbols = SymbolTable.getSymbolTable(channel);
+        byte offset = symbols != null && symbols.isPeerCapable() ? RESPONSE_SYMBOL_OFFSET : 0;
+        // 对方支持响应的隐式传参，按间隔附带负载。只携带负载，不携带结果的其它隐式传参
+        Map<String, String> attachments = null;
+        LoadFeedback feedback = LoadFeedback.getLoadFeedback(channel);
+        if (feedback != null) {
+            String load = feedback.acquire(channel);
+            if (load != null) {
+                attachments = new HashMap<String, String>(2);
+                attachments.put(Constants.LOAD_ATTACHMENT_KEY, load);
+                offset += RESPONSE_ATTACHMENTS_OFFSET;
+            }
+        }
 
         Throwable th = result.getException();
         // 正常
         if (th == null) {
             Object ret = result.getValue();
+            // 返回的 StreamObserver ，登记为流
+            if (ret instanceof StreamObserver) {
+                ret = DubboStreams.encodeResult(channel, (StreamObserver<?>) ret);
+            }
             // 空返回
             if (ret == null) {
-                out.writeByte(RESPONSE_NULL_VALUE);
+                writeResponseFlag(out, (byte) (RESPONSE_NULL_VALUE + offset), symbols);
                 // 有返回
             } else {
-                out.writeByte(RESPONSE_VALUE);
+                writeResponseFlag(out, (byte) (RESPONSE_VALUE + offset), symbols);
                 out.writeObject(ret);
             }
             // 异常
         } else {
-            out.writeByte(RESPONSE_WITH_EXCEPTION);
+            writeResponseFlag(out, (byte) (RESPONSE_WITH_EXCEPTION + offset), symbols);
             out.writeObject(th);
         }
+        if (attachments != null) {
+            out.writeObject(attachments);
+        }
+    }
+
+    private void writeResponseFlag(ObjectOutput out, byte flag, SymbolTable symbols) throws IOException {
+        out.writeByte(flag);
+        if (flag % RESPONSE_ATTACHMENTS_OFFSET >= RESPONSE_SYMBOL_OFFSET) {
+            out.writeInt(symbols.getWatermark());
+        }
     }
 
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import com.alibaba.dubbo.remoting.exchange.ExchangeClient;
 import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.ProviderLoad;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
@@ -105,6 +106,17 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
             boolean isOneway = RpcUtils.isOneway(getUrl(), invocation);
             // 获得超时时间
             int timeout = getUrl().getMethodParameter(methodName, Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+            // 嵌套调用，超时时间不超过上游调用剩余的时间预算
+            long deadline = RpcContext.getContext().getDeadline();
+            if (deadline > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Invoke remote method timeout. method: " + invocation.getMethodName() + ", provider: " + getUrl() + ", cause: the deadline of the upstream invocation has been exceeded");
+                }
+                timeout = (int) Math.min(timeout, remaining);
+            }
+            // 传递剩余的时间预算，服务提供者据此跳过已过期的请求
+            inv.setAttachment(Constants.TIMEOUT_ATTACHMENT_KEY, String.valueOf(timeout));
             // 单向调用
             if (isOneway) {
                 boolean isSent = getUrl().getMethodParameter(methodName, Constants.SENT_KEY, false);
@@ -113,13 +125,13 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
                 return new RpcResult();
                 // 异步调用
             } else if (isAsync) {
-                ResponseFuture future = currentClient.request(inv, timeout);
+                ResponseFuture future = DubboStreams.watch(currentClient, inv, currentClient.request(inv, timeout));
                 RpcContext.getContext().setFuture(new FutureAdapter<Object>(future));
                 return new RpcResult();
                 // 同步调用
             } else {
                 RpcContext.getContext().setFuture(null);
-                return (Result) currentClient.request(inv, timeout).get();
+                return (Result) DubboStreams.watch(currentClient, inv, currentClient.request(inv, timeout)).get();
             }
         } catch (TimeoutException e) {
             throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Invoke remote method timeout. method: " + invocation.getMethodName() + ", provider: " + getUrl() + ", cause: " + e.getMessage(), e);
@@ -168,6 +180,8 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
                         logger.warn(t.getMessage(), t);
                     }
                 }
+                // 移除服务提供者反馈的负载，其它相同地址的 Invoker 在下次反馈时重新记录
+                ProviderLoad.removeLoad(getUrl().getAddress());
             } finally {
                 // 释放锁
                 destroyLock.unlock();
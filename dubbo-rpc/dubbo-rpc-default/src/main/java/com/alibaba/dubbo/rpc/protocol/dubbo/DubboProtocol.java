@@ -38,6 +38,7 @@ import com.alibaba.dubbo.rpc.Exporter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Protocol;
+import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcInvocation;
@@ -126,8 +127,21 @@ public class DubboProtocol extends AbstractProtocol {
                 }
                 // 设置调用方的地址
                 RpcContext.getContext().setRemoteAddress(channel.getRemoteAddress());
+                // 超过服务消费者的剩余时间，服务消费者已放弃等待，不再执行
+                long deadline = getDeadline(inv);
+                if (deadline > 0 && deadline <= System.currentTimeMillis()) {
+                    throw new RemotingException(channel, "Skip the expired invocation " + inv.getMethodName() + " of " + invoker.getUrl().getServiceKey()
+                            + ", waited " + (System.currentTimeMillis() - ((DecodeableRpcInvocation) inv).getReceivedTime()) + " ms more than the consumer timeout "
+                            + inv.getAttachment(Constants.TIMEOUT_ATTACHMENT_KEY) + " ms, channel: consumer: " + channel.getRemoteAddress() + " --> provider: " + channel.getLocalAddress());
+                }
+                RpcContext.getContext().setDeadline(deadline);
                 // 执行调用
-                return invoker.invoke(inv);
+                Result result = invoker.invoke(inv);
+                // 调用异常，结束流式参数
+                if (result.hasException()) {
+                    DubboStreams.terminateArguments(inv, result.getException());
+                }
+                return result;
             }
             throw new RemotingException(channel, message.getClass().getName() + ": " + message
                     + ", channel: consumer: " + channel.getRemoteAddress() + " --> provider: " + channel.getLocalAddress());
@@ -137,6 +151,8 @@ public class DubboProtocol extends AbstractProtocol {
         public void received(Channel channel, Object message) throws RemotingException {
             if (message instanceof Invocation) {
                 this.reply((ExchangeChannel) channel, message);
+            } else if (message instanceof StreamFrame) {
+                DubboStreams.received(channel, (StreamFrame) message);
             } else {
                 super.received(channel, message);
             }
@@ -152,6 +168,7 @@ public class DubboProtocol extends AbstractProtocol {
             if (logger.isInfoEnabled()) {
                 logger.info("disconected from " + channel.getRemoteAddress() + ",url:" + channel.getUrl());
             }
+            DubboStreams.disconnected(channel);
             this.invoke(channel, Constants.ON_DISCONNECT_KEY);
         }
 
@@ -259,6 +276,20 @@ public class DubboProtocol extends AbstractProtocol {
         return exporter.getInvoker();
     }
 
+    /**
+     * 获得调用截止时间
+     *
+     * @param inv Invocation
+     * @return 截止时间，0 表示没有截止时间
+     */
+    private static long getDeadline(Invocation inv) {
+        String timeout = inv.getAttachment(Constants.TIMEOUT_ATTACHMENT_KEY);
+        if (!(inv instanceof DecodeableRpcInvocation) || !StringUtils.isInteger(timeout)) {
+            return 0;
+        }
+        return ((DecodeableRpcInvocation) inv).getReceivedTime() + Integer.parseInt(timeout);
+    }
+
     public Collection<Invoker<?>> getInvokers() {
         return Collections.unmodifiableCollection(invokers);
     }
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.Version;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * stream helper
+ * <p>
+ * 流式调用：StreamObserver 参数或返回值不做序列化，而是在通道上登记一个流，数据项以 {@link StreamFrame} 单向事件的方式推送。
+ * <p>
+ * 1. 服务消费者的 StreamObserver 参数，登记为接收方( {@link InboundStream} )，服务提供者得到发送方( {@link OutboundStream} )。
+ * 2. 服务提供者返回的 StreamObserver ，登记为接收方，服务消费者得到发送方。
+ */
+final class DubboStreams {
+
+    private static final Logger logger = LoggerFactory.getLogger(DubboStreams.class);
+
+    private static final String INV_ATT_STREAM_KEY = "sys_stream_arg-";
+
+    /**
+     * 流编号自增序列
+     */
+    private static final AtomicLong STREAM_ID = new AtomicLong();
+
+    private DubboStreams() {
+    }
+
+    static boolean isStream(Class<?> type) {
+        return type != null && StreamObserver.class.isAssignableFrom(type);
+    }
+
+    /**
+     * 服务消费者，将 StreamObserver 参数登记为接收方
+     */
+    static Object encodeInvocationArgument(Channel channel, RpcInvocation inv, int paraIndex) {
+        URL url = inv.getInvoker() == null ? channel.getUrl() : inv.getInvoker().getUrl();
+        int window = url.getMethodPositiveParameter(inv.getMethodName(), Constants.STREAM_WINDOW_KEY, Constants.DEFAULT_STREAM_WINDOW);
+        InboundStream stream = new InboundStream(channel, STREAM_ID.incrementAndGet(), (StreamObserver<?>) inv.getArguments()[paraIndex], window);
+        getInboundStreams(channel).put(stream.getId(), stream);
+        inv.setAttachment(INV_ATT_STREAM_KEY + paraIndex, String.valueOf(stream.getId()));
+        inv.setAttachment(Constants.STREAM_WINDOW_KEY, String.valueOf(window));
+        return null;
+    }
+
+    static boolean isStreamArgument(Invocation inv, int paraIndex) {
+        return inv.getAttachment(INV_ATT_STREAM_KEY + paraIndex) != null;
+    }
+
+    /**
+     * 服务提供者，为 StreamObserver 参数创建发送方
+     */
+    static Object decodeInvocationArgument(Channel channel, RpcInvocation inv, int paraIndex) {
+        long id = Long.parseLong(inv.getAttachment(INV_ATT_STREAM_KEY + paraIndex));
+        int window = Integer.parseInt(inv.getAttachment(Constants.STREAM_WINDOW_KEY, String.valueOf(Constants.DEFAULT_STREAM_WINDOW)));
+        OutboundStream stream = new OutboundStream(channel, id, window);
+        getOutboundStreams(channel).put(id, stream);
+        return stream;
+    }
+
+    /**
+     * 服务提供者，将返回的 StreamObserver 登记为接收方，并返回 OPEN 帧
+     */
+    static Object encodeResult(Channel channel, StreamObserver<?> observer) {
+        int window = channel.getUrl().getPositiveParameter(Constants.STREAM_WINDOW_KEY, Constants.DEFAULT_STREAM_WINDOW);
+        InboundStream stream = new InboundStream(channel, STREAM_ID.incrementAndGet(), observer, window);
+        getInboundStreams(channel).put(stream.getId(), stream);
+        return new StreamFrame(StreamFrame.OPEN, stream.getId(), 0, window);
+    }
+
+    /**
+     * 服务消费者，为 OPEN 帧创建发送方
+     */
+    static Object decodeResult(Channel channel, StreamFrame open) {
+        OutboundStream stream = new OutboundStream(channel, open.getStreamId(), (Integer) open.getData());
+        getOutboundStreams(channel).put(stream.getId(), stream);
+        return stream;
+    }
+
+    /**
+     * 服务提供者调用异常时，异常结束 StreamObserver 参数，避免服务消费者一直等待
+     */
+    static void terminateArguments(Invocation inv, Throwable t) {
+        Object[] args = inv.getArguments();
+        if (args == null) {
+            return;
+        }
+        for (Object arg : args) {
+            if (arg instanceof OutboundStream) {
+                try {
+                    ((OutboundStream) arg).onError(t);
+                } catch (RpcException e) {
+                    logger.warn(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 服务消费者的调用失败、超时，或被服务提供者丢弃时，取消 StreamObserver 参数登记的接收方。
+     * 调用成功时，流由服务提供者结束，或通道断开时结束。
+     *
+     * @param channel 通道
+     * @param inv     Invocation 对象
+     * @param t       异常
+     */
+    static void callFailed(Channel channel, Invocation inv, Throwable t) {
+        Object[] args = inv.getArguments();
+        if (args == null) {
+            return;
+        }
+        for (int i = 0; i < args.length; i++) {
+            String id = inv.getAttachment(INV_ATT_STREAM_KEY + i);
+            if (id == null) {
+                continue;
+            }
+            InboundStream stream = getInboundStreams(channel).get(Long.parseLong(id));
+            if (stream != null) {
+                stream.cancel(t);
+            }
+        }
+    }
+
+    /**
+     * 服务消费者，监听有 StreamObserver 参数的调用，失败时取消流
+     *
+     * @param channel 通道
+     * @param inv     Invocation 对象
+     * @param future  调用的 Future
+     * @return Future ，回调可叠加设置，使用方的回调不会覆盖取消流的回调
+     */
+    static ResponseFuture watch(Channel channel, Invocation inv, ResponseFuture future) {
+        if (hasStreamArguments(inv)) {
+            future.addCallback(new StreamCallCallback(channel, inv));
+        }
+        return future;
+    }
+
+    /**
+     * 是否有 StreamObserver 参数
+     */
+    static boolean hasStreamArguments(Invocation inv) {
+        Class<?>[] pts = inv.getParameterTypes();
+        if (pts == null) {
+            return false;
+        }
+        for (Class<?> pt : pts) {
+            if (isStream(pt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 接收帧
+     */
+    static void received(Channel channel, StreamFrame frame) {
+        if (frame.isControl()) {
+            OutboundStream stream = getOutboundStreams(channel).get(frame.getStreamId());
+            if (stream == null) {
+                return;
+            }
+            if (frame.getType() == StreamFrame.CREDIT) {
+                stream.grant((Integer) frame.getData());
+            } else {
+                stream.close("stream " + frame.getStreamId() + " has been cancelled by receiver " + channel.getRemoteAddress());
+            }
+        } else {
+            InboundStream stream = getInboundStreams(channel).get(frame.getStreamId());
+            if (stream == null) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Not found stream for " + frame + ", channel: " + channel.getLocalAddress() + " <- " + channel.getRemoteAddress());
+                }
+                return;
+            }
+            stream.received(frame);
+        }
+    }
+
+    /**
+     * 通道断开，结束所有流
+     */
+    static void disconnected(Channel channel) {
+        for (InboundStream stream : new ArrayList<InboundStream>(getInboundStreams(channel).values())) {
+            stream.terminate(new RpcException(RpcException.NETWORK_EXCEPTION, "Stream " + stream.getId() + " terminated, channel "
+                    + channel.getLocalAddress() + " -> " + channel.getRemoteAddress() + " is disconnected"));
+        }
+        for (OutboundStream stream : new ArrayList<OutboundStream>(getOutboundStreams(channel).values())) {
+            stream.close("channel " + channel.getLocalAddress() + " -> " + channel.getRemoteAddress() + " is disconnected");
+        }
+    }
+
+    static void removeInbound(Channel channel, long id) {
+        getInboundStreams(channel).remove(id);
+    }
+
+    static void removeOutbound(Channel channel, long id) {
+        getOutboundStreams(channel).remove(id);
+    }
+
+    static void send(Channel channel, StreamFrame frame) throws RemotingException {
+        Request request = new Request();
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(false);
+        request.setEvent(true);
+        request.setData(frame);
+        channel.send(request);
+    }
+
+    static void sendQuietly(Channel channel, StreamFrame frame) {
+        try {
+            send(channel, frame);
+        } catch (RemotingException e) {
+            logger.warn("Failed to send " + frame + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 调用失败时取消流
+     */
+    private static final class StreamCallCallback implements ResponseCallback {
+
+        private final Channel channel;
+
+        private final Invocation inv;
+
+        private StreamCallCallback(Channel channel, Invocation inv) {
+            this.channel = channel;
+            this.inv = inv;
+        }
+
+        @Override
+        public void done(Object response) {
+            // 服务提供者调用异常时，已发送 ERROR 帧，这里兜底取消
+            if (response instanceof Result && ((Result) response).hasException()) {
+                callFailed(channel, inv, ((Result) response).getException());
+            }
+        }
+
+        @Override
+        public void caught(Throwable exception) {
+            callFailed(channel, inv, exception);
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Long, InboundStream> getInboundStreams(Channel channel) {
+        ConcurrentMap<Long, InboundStream> streams = (ConcurrentMap<Long, InboundStream>) channel.getAttribute(Constants.CHANNEL_INBOUND_STREAMS_KEY);
+        if (streams == null) {
+            synchronized (DubboStreams.class) {
+                streams = (ConcurrentMap<Long, InboundStream>) channel.getAttribute(Constants.CHANNEL_INBOUND_STREAMS_KEY);
+                if (streams == null) {
+                    streams = new ConcurrentHashMap<Long, InboundStream>();
+                    channel.setAttribute(Constants.CHANNEL_INBOUND_STREAMS_KEY, streams);
+                }
+            }
+        }
+        return streams;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Long, OutboundStream> getOutboundStreams(Channel channel) {
+        ConcurrentMap<Long, OutboundStream> streams = (ConcurrentMap<Long, OutboundStream>) channel.getAttribute(Constants.CHANNEL_OUTBOUND_STREAMS_KEY);
+        if (streams == null) {
+            synchronized (DubboStreams.class) {
+                streams = (ConcurrentMap<Long, OutboundStream>) channel.getAttribute(Constants.CHANNEL_OUTBOUND_STREAMS_KEY);
+                if (streams == null) {
+                    streams = new ConcurrentHashMap<Long, OutboundStream>();
+                    channel.setAttribute(Constants.CHANNEL_OUTBOUND_STREAMS_KEY, streams);
+                }
+            }
+        }
+        return streams;
+    }
+
+}
@@ -18,12 +18,16 @@ package com.alibaba.dubbo.rpc.protocol.dubbo;
 
 import com.alibaba.dubbo.common.utils.StringUtils;
 import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
 import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
 import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.ResultCallback;
+import com.alibaba.dubbo.rpc.ResultFuture;
 import com.alibaba.dubbo.rpc.RpcException;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -32,7 +36,7 @@ import java.util.concurrent.TimeoutException;
  * <p>
  * 适配 ResponseFuture 。通过这样的方式，对上层调用方，透明化 ResponseFuture 的存在。
  */
-public class FutureAdapter<V> implements Future<V> {
+public class FutureAdapter<V> implements ResultFuture<V> {
 
     private final ResponseFuture future;
 
@@ -44,14 +48,43 @@ public class FutureAdapter<V> implements Future<V> {
         return future;
     }
 
+    @Override
+    public void setCallback(ResultCallback callback) {
+        future.setCallback(adapt(callback));
+    }
+
+    @Override
+    public void addCallback(ResultCallback callback) {
+        future.addCallback(adapt(callback));
+    }
+
+    private static ResponseCallback adapt(final ResultCallback callback) {
+        return new ResponseCallback() {
+            @Override
+            public void done(Object response) {
+                callback.done((Result) response);
+            }
+
+            @Override
+            public void caught(Throwable exception) {
+                callback.caught(exception);
+            }
+        };
+    }
+
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        return false;
+        // 取消 DefaultFuture ，丢弃之后返回的响应，服务提供者仍会执行完成
+        if (!(future instanceof DefaultFuture) || future.isDone()) {
+            return false;
+        }
+        ((DefaultFuture) future).cancel();
+        return isCancelled();
     }
 
     @Override
     public boolean isCancelled() {
-        return false;
+        return future instanceof DefaultFuture && ((DefaultFuture) future).isCancelled();
     }
 
     @Override
@@ -62,6 +95,9 @@ public class FutureAdapter<V> implements Future<V> {
     @Override
     @SuppressWarnings("unchecked")
     public V get() throws InterruptedException, ExecutionException {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
         try {
             return (V) (((Result) future.get()).recreate());
         } catch (RemotingException e) {
@@ -75,6 +111,9 @@ public class FutureAdapter<V> implements Future<V> {
     @SuppressWarnings("unchecked")
     public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
         int timeoutInMillis = (int) unit.convert(timeout, TimeUnit.MILLISECONDS);
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
         try {
             return (V) (((Result) future.get(timeoutInMillis)).recreate());
         } catch (com.alibaba.dubbo.remoting.TimeoutException e) {
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.StreamObserver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 流的接收方，将 {@link StreamFrame} 按序交付给本地的 StreamObserver 。
+ * <p>
+ * 帧可能被线程池乱序处理，按 `seq` 重新排序后，由单个线程依次交付。每消费半个窗口，向发送方授予对应的信用。
+ */
+class InboundStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboundStream.class);
+
+    /**
+     * 通道
+     */
+    private final Channel channel;
+
+    /**
+     * 流编号
+     */
+    private final long id;
+
+    /**
+     * 本地的 StreamObserver
+     */
+    @SuppressWarnings("rawtypes")
+    private final StreamObserver observer;
+
+    /**
+     * 信用窗口
+     */
+    private final int window;
+
+    /**
+     * 未按序到达的帧
+     * <p>
+     * key：帧序号
+     */
+    private final Map<Long, StreamFrame> pending = new HashMap<Long, StreamFrame>();
+
+    /**
+     * 下一个交付的帧序号
+     */
+    private long expected;
+
+    /**
+     * 是否有线程正在交付
+     */
+    private boolean delivering;
+
+    /**
+     * 已消费，未授予的信用
+     */
+    private int consumed;
+
+    /**
+     * 是否已结束
+     */
+    private volatile boolean terminated;
+
+    InboundStream(Channel channel, long id, StreamObserver<?> observer, int window) {
+        this.channel = channel;
+        this.id = id;
+        this.observer = observer;
+        this.window = window;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    int getWindow() {
+        return window;
+    }
+
+    /**
+     * 接收帧
+     *
+     * @param frame 帧
+     */
+    void received(StreamFrame frame) {
+        synchronized (this) {
+            if (terminated) {
+                return;
+            }
+            pending.put(frame.getSeq(), frame);
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        // 按序交付
+        while (true) {
+            StreamFrame next;
+            synchronized (this) {
+                next = terminated ? null : pending.remove(expected);
+                if (next == null) {
+                    delivering = false;
+                    return;
+                }
+                expected++;
+            }
+            deliver(next);
+        }
+    }
+
+    /**
+     * 通道断开等原因，异常结束
+     *
+     * @param t 异常
+     */
+    void terminate(Throwable t) {
+        if (markTerminated()) {
+            try {
+                observer.onError(t);
+            } catch (Throwable e) {
+                logger.warn("Failed to notify stream " + id + " error, cause: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 本端取消，通知服务提供者停止发送
+     *
+     * @param t 异常
+     */
+    void cancel(Throwable t) {
+        if (markTerminated()) {
+            DubboStreams.sendQuietly(channel, new StreamFrame(StreamFrame.CANCEL, id, 0, null));
+            try {
+                observer.onError(t);
+            } catch (Throwable e) {
+                logger.warn("Failed to notify stream " + id + " error, cause: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(StreamFrame frame) {
+        switch (frame.getType()) {
+            case StreamFrame.DATA:
+                try {
+                    observer.onNext(frame.getData());
+                } catch (Throwable t) {
+                    // 本地消费失败，取消流
+                    logger.warn("Failed to consume stream " + id + " item, cancel the stream, cause: " + t.getMessage(), t);
+                    if (markTerminated()) {
+                        DubboStreams.sendQuietly(channel, new StreamFrame(StreamFrame.CANCEL, id, 0, null));
+                    }
+                    return;
+                }
+                grant();
+                break;
+            case StreamFrame.COMPLETE:
+                if (markTerminated()) {
+                    observer.onCompleted();
+                }
+                break;
+            case StreamFrame.ERROR:
+                if (markTerminated()) {
+                    Object data = frame.getData();
+                    observer.onError(data instanceof Throwable ? (Throwable) data
+                            : new RpcException("Stream " + id + " terminated by remote error: " + data));
+                }
+                break;
+            default:
+                logger.warn("Unexpected stream frame " + frame + " from " + channel.getRemoteAddress());
+        }
+    }
+
+    /**
+     * 每消费半个窗口，授予信用
+     */
+    private void grant() {
+        int n;
+        synchronized (this) {
+            consumed++;
+            if (consumed < Math.max(1, window / 2)) {
+                return;
+            }
+            n = consumed;
+            consumed = 0;
+        }
+        DubboStreams.sendQuietly(channel, new StreamFrame(StreamFrame.CREDIT, id, 0, n));
+    }
+
+    private boolean markTerminated() {
+        synchronized (this) {
+            if (terminated) {
+                return false;
+            }
+            terminated = true;
+            pending.clear();
+        }
+        DubboStreams.removeInbound(channel, id);
+        return true;
+    }
+
+}
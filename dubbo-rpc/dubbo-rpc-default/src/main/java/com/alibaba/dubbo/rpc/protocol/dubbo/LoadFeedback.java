@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.status.support.LoadStatusChecker;
+import com.alibaba.dubbo.common.store.DataStore;
+import com.alibaba.dubbo.remoting.Channel;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * load feedback
+ * <p>
+ * 每个连接一份的负载反馈状态。请求方在隐式传参中携带 {@link Constants#LOAD_ATTACHMENT_KEY} 后创建，
+ * 之后每隔 {@link Constants#LOAD_FEEDBACK_INTERVAL_KEY} 毫秒，在一个响应的隐式传参中附带服务提供者的负载：
+ * 线程池等待队列中的任务数、执行中的线程数、最大线程数，以及每个 CPU 的系统平均负载（百分比）。
+ *
+ * @see com.alibaba.dubbo.rpc.ProviderLoad
+ */
+final class LoadFeedback {
+
+    private static final int PROCESSORS = ManagementFactory.getOperatingSystemMXBean().getAvailableProcessors();
+
+    /**
+     * 反馈间隔，单位：毫秒
+     */
+    private final long interval;
+
+    /**
+     * 最近一次反馈的时间
+     */
+    private final AtomicLong lastFeedback = new AtomicLong();
+
+    LoadFeedback(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * 获得通道的负载反馈状态
+     *
+     * @param channel 通道
+     * @return 负载反馈状态，请求方未索取时返回 null
+     */
+    static LoadFeedback getLoadFeedback(Channel channel) {
+        return (LoadFeedback) channel.getAttribute(Constants.CHANNEL_LOAD_FEEDBACK_KEY);
+    }
+
+    /**
+     * 请求方索取负载，开启通道的负载反馈
+     *
+     * @param channel 通道
+     */
+    static void enable(Channel channel) {
+        if (channel.getAttribute(Constants.CHANNEL_LOAD_FEEDBACK_KEY) == null) {
+            long interval = channel.getUrl().getParameter(Constants.LOAD_FEEDBACK_INTERVAL_KEY, Constants.DEFAULT_LOAD_FEEDBACK_INTERVAL);
+            channel.setAttribute(Constants.CHANNEL_LOAD_FEEDBACK_KEY, new LoadFeedback(interval));
+        }
+    }
+
+    /**
+     * 距上次反馈超过间隔时，获得当前负载
+     *
+     * @param channel 通道
+     * @return "queue,active,threads,cpu" ，未到间隔时返回 null
+     */
+    String acquire(Channel channel) {
+        long now = System.currentTimeMillis();
+        long last = lastFeedback.get();
+        if (now - last < interval || !lastFeedback.compareAndSet(last, now)) {
+            return null;
+        }
+        int queue = 0;
+        int active = 0;
+        int threads = 0;
+        DataStore dataStore = ExtensionLoader.getExtensionLoader(DataStore.class).getDefaultExtension();
+        Object executor = dataStore.get(Constants.EXECUTOR_SERVICE_COMPONENT_KEY, Integer.toString(channel.getUrl().getPort()));
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor tp = (ThreadPoolExecutor) executor;
+            queue = tp.getQueue().size();
+            active = tp.getActiveCount();
+            threads = tp.getMaximumPoolSize();
+        }
+        double load = LoadStatusChecker.getSystemLoadAverage();
+        int cpu = load < 0 ? -1 : (int) (load * 100 / PROCESSORS);
+        return queue + "," + active + "," + threads + "," + cpu;
+    }
+
+}
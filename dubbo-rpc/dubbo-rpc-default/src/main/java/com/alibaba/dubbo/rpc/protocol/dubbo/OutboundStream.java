@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.StreamObserver;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流的发送方，将数据项以 {@link StreamFrame} 发往通道的另一端。
+ * <p>
+ * 每发送一个数据项消耗一个信用，信用耗尽时 {@link #onNext(Object)} 阻塞，直到接收方授予信用或超时。
+ * <p>
+ * 检查是否关闭与发送帧在同一把锁内完成，保证结束帧（ERROR / COMPLETE）之后不会再发出 DATA 帧。
+ */
+class OutboundStream implements StreamObserver<Object> {
+
+    /**
+     * 通道
+     */
+    private final Channel channel;
+
+    /**
+     * 流编号
+     */
+    private final long id;
+
+    /**
+     * 信用
+     */
+    private final Semaphore credits;
+
+    /**
+     * 等待信用的超时时间，单位：毫秒
+     */
+    private final int timeout;
+
+    /**
+     * 帧序号
+     */
+    private final AtomicLong seq = new AtomicLong();
+
+    /**
+     * 关闭原因。非空时，表示已关闭
+     * <p>
+     * 由 this 保护写入
+     */
+    private volatile String closedReason;
+
+    OutboundStream(Channel channel, long id, int window) {
+        this.channel = channel;
+        this.id = id;
+        this.credits = new Semaphore(window);
+        this.timeout = channel.getUrl().getPositiveParameter(Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    @Override
+    public void onNext(Object item) {
+        checkClosed();
+        // 获得信用
+        try {
+            if (!credits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Waiting stream credit timeout. stream: " + id
+                        + ", timeout: " + timeout + " ms, channel: " + channel.getLocalAddress() + " -> " + channel.getRemoteAddress());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException("Interrupted while waiting stream credit. stream: " + id, e);
+        }
+        // 等待期间可能被关闭，检查与发送不能被关闭打断
+        synchronized (this) {
+            checkClosed();
+            send(StreamFrame.DATA, item);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        terminate("stream " + id + " has been terminated by error", StreamFrame.ERROR, t);
+    }
+
+    @Override
+    public void onCompleted() {
+        terminate("stream " + id + " has been completed", StreamFrame.COMPLETE, null);
+    }
+
+    /**
+     * 接收方授予信用
+     *
+     * @param n 信用数量
+     */
+    void grant(int n) {
+        credits.release(n);
+    }
+
+    /**
+     * 关闭流，唤醒等待信用的线程
+     *
+     * @param reason 原因
+     * @return 是否由本次调用关闭
+     */
+    boolean close(String reason) {
+        synchronized (this) {
+            if (closedReason != null) {
+                return false;
+            }
+            closedReason = reason;
+        }
+        release();
+        return true;
+    }
+
+    /**
+     * 关闭流，并发送结束帧
+     *
+     * @param reason 原因
+     * @param type   帧类型
+     * @param data   数据
+     */
+    private synchronized void terminate(String reason, byte type, Object data) {
+        if (closedReason != null) {
+            return;
+        }
+        closedReason = reason;
+        try {
+            send(type, data);
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        DubboStreams.removeOutbound(channel, id);
+        credits.release(Integer.MAX_VALUE / 2);
+    }
+
+    private void checkClosed() {
+        String reason = closedReason;
+        if (reason != null) {
+            throw new RpcException(RpcException.NETWORK_EXCEPTION, "Failed to send stream item, cause: " + reason);
+        }
+    }
+
+    private void send(byte type, Object data) {
+        try {
+            DubboStreams.send(channel, new StreamFrame(type, id, seq.getAndIncrement(), data));
+        } catch (RemotingException e) {
+            close(e.getMessage());
+            throw new RpcException(RpcException.NETWORK_EXCEPTION, "Failed to send stream item, stream: " + id + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.remoting.exchange.DirectEvent;
+
+import java.io.Serializable;
+
+/**
+ * 流式调用的帧。
+ * <p>
+ * 以单向的事件请求( Request )发送，同一个流的帧共享 `streamId` 。
+ * DATA / COMPLETE / ERROR 由发送方发往接收方，按 `seq` 顺序交付；CREDIT / CANCEL 由接收方发往发送方。
+ * <p>
+ * CREDIT / CANCEL 在 IO 线程处理：发送方可能占满线程池等待信用，派发到线程池会无法送达。
+ */
+public class StreamFrame implements Serializable, DirectEvent {
+
+    private static final long serialVersionUID = -2370683580766446390L;
+
+    /**
+     * 打开流，作为返回值写回服务消费者，`data` 为初始信用窗口
+     */
+    public static final byte OPEN = 0;
+
+    /**
+     * 数据项
+     */
+    public static final byte DATA = 1;
+
+    /**
+     * 正常结束
+     */
+    public static final byte COMPLETE = 2;
+
+    /**
+     * 异常结束，`data` 为异常
+     */
+    public static final byte ERROR = 3;
+
+    /**
+     * 授予信用，`data` 为信用数量
+     */
+    public static final byte CREDIT = 4;
+
+    /**
+     * 接收方取消
+     */
+    public static final byte CANCEL = 5;
+
+    /**
+     * 帧类型
+     */
+    private byte type;
+
+    /**
+     * 流编号，在通道内唯一
+     */
+    private long streamId;
+
+    /**
+     * 帧序号，仅 DATA / COMPLETE / ERROR 使用
+     */
+    private long seq;
+
+    /**
+     * 数据
+     */
+    private Object data;
+
+    public StreamFrame() {
+    }
+
+    public StreamFrame(byte type, long streamId, long seq, Object data) {
+        this.type = type;
+        this.streamId = streamId;
+        this.seq = seq;
+        this.data = data;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * @return 是否由接收方发往发送方的控制帧
+     */
+    public boolean isControl() {
+        return type == CREDIT || type == CANCEL;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return isControl();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamFrame [type=" + type + ", streamId=" + streamId + ", seq=" + seq + "]";
+    }
+
+}
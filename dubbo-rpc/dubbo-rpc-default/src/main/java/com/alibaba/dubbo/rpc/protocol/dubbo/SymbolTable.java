@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.serialize.ObjectInput;
+import com.alibaba.dubbo.common.serialize.ObjectOutput;
+import com.alibaba.dubbo.remoting.Channel;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * symbol table
+ * <p>
+ * 每个连接一份的符号表，将请求中重复出现的元数据字符串（服务名、方法名、方法签名、隐式传参的键等）替换为整数编号。
+ * <p>
+ * 1. 协商：请求方在隐式传参中携带 {@link Constants#SYMBOL_ATTACHMENT_KEY} ，支持的响应方以带符号表标记的响应回复，
+ *    请求方收到后启用符号表；收到普通响应，则不再启用。
+ * 2. 编号由请求方分配，首次使用时以负数编号附带字符串定义，响应方确认后（响应中携带连续已定义的最大编号）仅发送编号。
+ *    因此请求的编码、解码顺序不要求与分配顺序一致。
+ * 3. 编号以 {@link ObjectOutput#writeInt(int)} 写入，序列化实现对小整数使用变长编码。
+ */
+final class SymbolTable {
+
+    /**
+     * 请求中，符号表编码的标记，替代 `dubbo` 版本号的位置
+     */
+    static final String SYMBOL_MARKER = "#";
+
+    /**
+     * 值也使用符号表编码的隐式传参的键
+     */
+    private static final Set<String> SYMBOL_VALUE_KEYS = new HashSet<String>(Arrays.asList(Constants.PATH_KEY, Constants.INTERFACE_KEY,
+            Constants.VERSION_KEY, Constants.GROUP_KEY, Constants.TIMEOUT_KEY, Constants.DUBBO_VERSION_KEY, Constants.APPLICATION_KEY));
+
+    /**
+     * 协商中
+     */
+    private static final int NEGOTIATING = 0;
+
+    /**
+     * 已启用
+     */
+    private static final int ENABLED = 1;
+
+    /**
+     * 对方不支持
+     */
+    private static final int DISABLED = 2;
+
+    /**
+     * 符号数量上限
+     */
+    private final int capacity;
+
+    // ========== 发送请求方向 ==========
+
+    /**
+     * 字符串与编号的映射
+     */
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * 协商状态
+     */
+    private volatile int state = NEGOTIATING;
+
+    /**
+     * 对方已确认的编号，不大于该编号的符号仅发送编号
+     */
+    private volatile int acknowledged;
+
+    // ========== 接收请求方向 ==========
+
+    /**
+     * 编号与字符串的映射
+     */
+    private final ConcurrentMap<Integer, String> symbols = new ConcurrentHashMap<Integer, String>();
+
+    /**
+     * 连续已定义的最大编号
+     */
+    private volatile int watermark;
+
+    /**
+     * 对方是否支持符号表
+     */
+    private volatile boolean peerCapable;
+
+    SymbolTable(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 获得通道的符号表
+     *
+     * @param channel 通道
+     * @return 符号表，未开启时返回 null
+     */
+    static SymbolTable getSymbolTable(Channel channel) {
+        SymbolTable table = (SymbolTable) channel.getAttribute(Constants.CHANNEL_SYMBOL_TABLE_KEY);
+        if (table == null) {
+            int capacity = channel.getUrl().getParameter(Constants.SYMBOL_TABLE_KEY, Constants.DEFAULT_SYMBOL_TABLE);
+            if (capacity <= 0) {
+                return null;
+            }
+            synchronized (SymbolTable.class) {
+                table = (SymbolTable) channel.getAttribute(Constants.CHANNEL_SYMBOL_TABLE_KEY);
+                if (table == null) {
+                    table = new SymbolTable(capacity);
+                    channel.setAttribute(Constants.CHANNEL_SYMBOL_TABLE_KEY, table);
+                }
+            }
+        }
+        return table;
+    }
+
+    static boolean isSymbolValue(String key) {
+        return SYMBOL_VALUE_KEYS.contains(key);
+    }
+
+    // ========== 发送请求方向 ==========
+
+    boolean isEnabled() {
+        return state == ENABLED;
+    }
+
+    boolean isNegotiating() {
+        return state == NEGOTIATING;
+    }
+
+    /**
+     * 对方确认，启用符号表
+     *
+     * @param watermark 对方连续已定义的最大编号
+     */
+    synchronized void acknowledge(int watermark) {
+        state = ENABLED;
+        if (watermark > acknowledged) {
+            acknowledged = watermark;
+        }
+    }
+
+    /**
+     * 对方不支持，不再启用符号表
+     */
+    synchronized void reject() {
+        if (state == NEGOTIATING) {
+            state = DISABLED;
+        }
+    }
+
+    void writeSymbol(ObjectOutput out, String value) throws IOException {
+        Integer id = value == null ? null : getId(value);
+        // 超过上限，直接写入字符串
+        if (id == null) {
+            out.writeInt(0);
+            out.writeUTF(value);
+            // 对方已确认，仅写入编号
+        } else if (id <= acknowledged) {
+            out.writeInt(id);
+            // 对方未确认，附带字符串定义
+        } else {
+            out.writeInt(-id);
+            out.writeUTF(value);
+        }
+    }
+
+    void writeAttachments(ObjectOutput out, Map<String, String> attachments) throws IOException {
+        out.writeInt(attachments.size());
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            writeSymbol(out, entry.getKey());
+            if (isSymbolValue(entry.getKey())) {
+                writeSymbol(out, entry.getValue());
+            } else {
+                out.writeUTF(entry.getValue());
+            }
+        }
+    }
+
+    private Integer getId(String value) {
+        Integer id = ids.get(value);
+        if (id == null && ids.size() < capacity) {
+            // 编号需连续分配，对方才能确认
+            synchronized (this) {
+                id = ids.get(value);
+                if (id == null && ids.size() < capacity) {
+                    id = ids.size() + 1;
+                    ids.put(value, id);
+                }
+            }
+        }
+        return id;
+    }
+
+    // ========== 接收请求方向 ==========
+
+    boolean isPeerCapable() {
+        return peerCapable;
+    }
+
+    void setPeerCapable() {
+        peerCapable = true;
+    }
+
+    int getWatermark() {
+        return watermark;
+    }
+
+    String readSymbol(ObjectInput in) throws IOException {
+        int code = in.readInt();
+        if (code > 0) {
+            String value = symbols.get(code);
+            if (value == null) {
+                throw new IOException("Unknown symbol " + code + ", the peer referenced a symbol before it was defined");
+            }
+            return value;
+        }
+        String value = in.readUTF();
+        if (code < 0) {
+            define(-code, value);
+        }
+        return value;
+    }
+
+    Map<String, String> readAttachments(ObjectInput in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> attachments = new HashMap<String, String>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            String key = readSymbol(in);
+            attachments.put(key, isSymbolValue(key) ? readSymbol(in) : in.readUTF());
+        }
+        return attachments;
+    }
+
+    private void define(int id, String value) {
+        // 超过上限，不保存，对方不会得到确认，继续附带字符串定义
+        if (id > capacity || symbols.containsKey(id)) {
+            return;
+        }
+        synchronized (this) {
+            symbols.put(id, value);
+            int mark = watermark;
+            while (symbols.containsKey(mark + 1)) {
+                mark++;
+            }
+            watermark = mark;
+        }
+    }
+
+}
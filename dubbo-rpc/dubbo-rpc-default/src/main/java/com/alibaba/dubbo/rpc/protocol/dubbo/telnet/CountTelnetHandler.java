@@ -18,6 +18,7 @@ package com.alibaba.dubbo.rpc.protocol.dubbo.telnet;
 
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.common.utils.RollingHistogram;
 import com.alibaba.dubbo.common.utils.StringUtils;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.RemotingException;
@@ -125,6 +126,8 @@ public class CountTelnetHandler implements TelnetHandler {
         header.add("active");
         header.add("average");
         header.add("max");
+        header.add("p99");
+        header.add("tps");
         if (method == null || method.length() == 0) {
             for (Method m : invoker.getInterface().getMethods()) {
                 RpcStatus count = RpcStatus.getStatus(url, m.getName());
@@ -135,6 +138,9 @@ public class CountTelnetHandler implements TelnetHandler {
                 row.add(String.valueOf(count.getActive()));
                 row.add(String.valueOf(count.getSucceededAverageElapsed()) + "ms");
                 row.add(String.valueOf(count.getSucceededMaxElapsed()) + "ms");
+                RollingHistogram.Snapshot recent = count.getRecentElapsed();
+                row.add(String.valueOf(recent.getPercentile(0.99)) + "ms");
+                row.add(String.valueOf(recent.getRate()));
                 table.add(row);
             }
         } else {
@@ -154,6 +160,9 @@ public class CountTelnetHandler implements TelnetHandler {
                 row.add(String.valueOf(count.getActive()));
                 row.add(String.valueOf(count.getSucceededAverageElapsed()) + "ms");
                 row.add(String.valueOf(count.getSucceededMaxElapsed()) + "ms");
+                RollingHistogram.Snapshot recent = count.getRecentElapsed();
+                row.add(String.valueOf(recent.getPercentile(0.99)) + "ms");
+                row.add(String.valueOf(recent.getRate()));
                 table.add(row);
             } else {
                 return "No such method " + method + " in class " + invoker.getInterface().getName();
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.NetUtils;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeadlineTest {
+
+    private Exporter<IDeadlineService> exporter;
+
+    private IDeadlineService service;
+
+    private DeadlineServiceImpl impl;
+
+    @Before
+    public void setUp() {
+        int port = NetUtils.getAvailablePort();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + port + "/" + IDeadlineService.class.getName()
+                + "?threads=1&queues=10&timeout=200&retries=0&slow.timeout=3000&slow.async=true");
+        impl = new DeadlineServiceImpl();
+        exporter = ProtocolUtils.export(impl, IDeadlineService.class, url);
+        service = ProtocolUtils.refer(IDeadlineService.class, url);
+    }
+
+    @After
+    public void tearDown() {
+        exporter.unexport();
+        ProtocolUtils.closeAll();
+    }
+
+    @Test
+    public void testRemainingBudget() {
+        long remaining = service.remaining();
+        Assert.assertTrue(remaining > 0);
+        Assert.assertTrue(remaining <= 200);
+    }
+
+    @Test
+    public void testInheritedDeadline() {
+        RpcContext.getContext().setDeadline(System.currentTimeMillis() + 50);
+        try {
+            Assert.assertTrue(service.remaining() <= 50);
+        } finally {
+            RpcContext.getContext().setDeadline(0);
+        }
+    }
+
+    @Test
+    public void testExpiredDeadlineFailFast() {
+        RpcContext.getContext().setDeadline(System.currentTimeMillis() - 1);
+        try {
+            service.remaining();
+            Assert.fail();
+        } catch (RpcException e) {
+            Assert.assertTrue(e.isTimeout());
+        } finally {
+            RpcContext.getContext().setDeadline(0);
+        }
+        Assert.assertEquals(0, impl.remainingCount.get());
+    }
+
+    @Test
+    public void testSkipExpiredRequest() throws Exception {
+        // 唯一的服务线程被占用，后续请求排队直至过期
+        service.slow(1000);
+        Future<Object> future = RpcContext.getContext().getFuture();
+        try {
+            service.remaining();
+            Assert.fail();
+        } catch (RpcException e) {
+            Assert.assertTrue(e.isTimeout());
+        }
+        future.get(3, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        Assert.assertEquals(0, impl.remainingCount.get());
+    }
+
+    public interface IDeadlineService {
+
+        long remaining();
+
+        void slow(long millis);
+
+    }
+
+    public static class DeadlineServiceImpl implements IDeadlineService {
+
+        private final AtomicInteger remainingCount = new AtomicInteger();
+
+        public long remaining() {
+            remainingCount.incrementAndGet();
+            return RpcContext.getContext().getDeadline() - System.currentTimeMillis();
+        }
+
+        public void slow(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
@@ -20,7 +20,10 @@ package com.alibaba.dubbo.rpc.protocol.dubbo;
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.remoting.exchange.support.LatencyStatistics;
+import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Protocol;
+import com.alibaba.dubbo.rpc.ProviderLoad;
 import com.alibaba.dubbo.rpc.ProxyFactory;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.protocol.dubbo.support.DemoService;
@@ -183,4 +186,55 @@ public class DubboProtocolTest {
             Assert.assertTrue(e.getMessage().contains("com.alibaba.dubbo.rpc.protocol.dubbo.support.NonSerialized must implement java.io.Serializable"));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLatencySample() throws Exception {
+        DemoService service = new DemoServiceImpl();
+        URL url = URL.valueOf("dubbo://127.0.0.1:9060/" + DemoService.class.getName() + "?" + Constants.LATENCY_SAMPLE_KEY + "=1");
+        protocol.export(proxy.getInvoker(service, DemoService.class, url));
+        service = proxy.getProxy(protocol.refer(DemoService.class, url));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(service.getSize(new String[]{"", "", ""}), 3);
+        }
+        String key = DemoService.class.getName() + ".getSize";
+        LatencyStatistics consumer = LatencyStatistics.getStatistics(true, key);
+        LatencyStatistics provider = LatencyStatistics.getStatistics(false, key);
+        Assert.assertEquals(10, count(consumer.getHistogram(LatencyStatistics.TOTAL)));
+        Assert.assertEquals(10, count(consumer.getHistogram(LatencyStatistics.REMOTE)));
+        Assert.assertEquals(10, count(provider.getHistogram(LatencyStatistics.EXECUTE)));
+        Assert.assertEquals(10, count(provider.getHistogram(LatencyStatistics.TOTAL)));
+        Assert.assertTrue(consumer.getPercentile(LatencyStatistics.TOTAL, 0.5) >= provider.getPercentile(LatencyStatistics.EXECUTE, 0.5));
+    }
+
+    @Test
+    public void testLoadFeedback() throws Exception {
+        DemoService service = new DemoServiceImpl();
+        URL url = URL.valueOf("dubbo://127.0.0.1:9061/" + DemoService.class.getName() + "?" + Constants.LOADBALANCE_KEY + "=" + Constants.LOAD_FEEDBACK_LOADBALANCE
+                + "&" + Constants.THREADPOOL_KEY + "=fixed&" + Constants.THREADS_KEY + "=10");
+        protocol.export(proxy.getInvoker(service, DemoService.class, url));
+        Invoker<DemoService> invoker = protocol.refer(DemoService.class, url);
+        service = proxy.getProxy(invoker);
+        // 首个响应携带负载，之后的响应符号表生效，同时携带隐式传参
+        for (int i = 0; i < 3; i++) {
+            assertEquals(service.getSize(new String[]{"", "", ""}), 3);
+            ProviderLoad load = ProviderLoad.getLoad(url.getAddress());
+            Assert.assertNotNull(load);
+            Assert.assertEquals(10, load.getThreads());
+            Thread.sleep(Constants.DEFAULT_LOAD_FEEDBACK_INTERVAL);
+            ProviderLoad.removeLoad(url.getAddress());
+        }
+        assertEquals(service.getSize(new String[]{"", "", ""}), 3);
+        Assert.assertNotNull(ProviderLoad.getLoad(url.getAddress()));
+        // Invoker 销毁时移除负载
+        invoker.destroy();
+        Assert.assertNull(ProviderLoad.getLoad(url.getAddress()));
+    }
+
+    private static long count(long[] counts) {
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.NetUtils;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.StreamObserver;
+import com.alibaba.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class StreamTest {
+
+    private Exporter<IStreamService> exporter;
+
+    private IStreamService service;
+
+    @Before
+    public void setUp() {
+        int port = NetUtils.getAvailablePort();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + port + "/" + IStreamService.class.getName() + "?timeout=5000&retries=0&stream.window=4");
+        exporter = ProtocolUtils.export(new StreamServiceImpl(), IStreamService.class, url);
+        service = ProtocolUtils.refer(IStreamService.class, url);
+    }
+
+    @After
+    public void tearDown() {
+        exporter.unexport();
+        ProtocolUtils.closeAll();
+    }
+
+    @Test
+    public void testServerStreaming() throws Exception {
+        CollectObserver<Integer> observer = new CollectObserver<Integer>();
+        service.list(1000, observer);
+        Assert.assertTrue(observer.completed.await(5, TimeUnit.SECONDS));
+        Assert.assertNull(observer.error.get());
+        Assert.assertEquals(1000, observer.items.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Integer.valueOf(i), observer.items.get(i));
+        }
+    }
+
+    @Test
+    public void testBidirectionalStreaming() throws Exception {
+        CollectObserver<String> replies = new CollectObserver<String>();
+        StreamObserver<String> requests = service.echo(replies);
+        for (int i = 0; i < 100; i++) {
+            requests.onNext("hello " + i);
+        }
+        requests.onCompleted();
+        Assert.assertTrue(replies.completed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(100, replies.items.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("echo: hello " + i, replies.items.get(i));
+        }
+    }
+
+    @Test
+    public void testServerException() throws Exception {
+        CollectObserver<Integer> observer = new CollectObserver<Integer>();
+        try {
+            service.fail(observer);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertTrue(observer.completed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(observer.error.get() instanceof IllegalStateException);
+        Assert.assertEquals(1, observer.items.size());
+    }
+
+    @Test
+    public void testCreditOnExhaustedThreadPool() throws Exception {
+        int port = NetUtils.getAvailablePort();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + port + "/" + IStreamService.class.getName()
+                + "?timeout=5000&retries=0&stream.window=4");
+        // 服务提供者仅一个线程
+        Exporter<IStreamService> exporter = ProtocolUtils.export(new StreamServiceImpl(), IStreamService.class, url.addParameter("threads", 1));
+        try {
+            IStreamService service = ProtocolUtils.refer(IStreamService.class, url);
+            // 唯一的线程等待信用，信用帧在 IO 线程处理
+            CollectObserver<Integer> observer = new CollectObserver<Integer>();
+            service.list(100, observer);
+            Assert.assertTrue(observer.completed.await(2, TimeUnit.SECONDS));
+            Assert.assertNull(observer.error.get());
+            Assert.assertEquals(100, observer.items.size());
+        } finally {
+            exporter.unexport();
+        }
+    }
+
+    @Test
+    public void testCallTimeout() throws Exception {
+        int port = NetUtils.getAvailablePort();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + port + "/" + IStreamService.class.getName()
+                + "?timeout=5000&retries=0&hang.timeout=200");
+        Exporter<IStreamService> exporter = ProtocolUtils.export(new StreamServiceImpl(), IStreamService.class, url);
+        try {
+            IStreamService service = ProtocolUtils.refer(IStreamService.class, url);
+            CollectObserver<Integer> observer = new CollectObserver<Integer>();
+            try {
+                service.hang(observer);
+                Assert.fail();
+            } catch (RpcException expected) {
+                Assert.assertTrue(expected.isTimeout());
+            }
+            // 调用超时，取消流
+            Assert.assertTrue(observer.completed.await(2, TimeUnit.SECONDS));
+            Assert.assertNotNull(observer.error.get());
+        } finally {
+            exporter.unexport();
+        }
+    }
+
+    public interface IStreamService {
+
+        void list(int count, StreamObserver<Integer> observer);
+
+        StreamObserver<String> echo(StreamObserver<String> replies);
+
+        void fail(StreamObserver<Integer> observer);
+
+        void hang(StreamObserver<Integer> observer);
+
+    }
+
+    public static class StreamServiceImpl implements IStreamService {
+
+        public void list(int count, StreamObserver<Integer> observer) {
+            for (int i = 0; i < count; i++) {
+                observer.onNext(i);
+            }
+            observer.onCompleted();
+        }
+
+        public StreamObserver<String> echo(final StreamObserver<String> replies) {
+            return new StreamObserver<String>() {
+                public void onNext(String item) {
+                    replies.onNext("echo: " + item);
+                }
+
+                public void onError(Throwable t) {
+                    replies.onError(t);
+                }
+
+                public void onCompleted() {
+                    replies.onCompleted();
+                }
+            };
+        }
+
+        public void fail(StreamObserver<Integer> observer) {
+            observer.onNext(1);
+            throw new IllegalStateException("fail");
+        }
+
+        public void hang(StreamObserver<Integer> observer) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    static class CollectObserver<T> implements StreamObserver<T> {
+
+        final List<T> items = new CopyOnWriteArrayList<T>();
+
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        public void onError(Throwable t) {
+            error.set(t);
+            completed.countDown();
+        }
+
+        public void onCompleted() {
+            completed.countDown();
+        }
+
+    }
+
+}
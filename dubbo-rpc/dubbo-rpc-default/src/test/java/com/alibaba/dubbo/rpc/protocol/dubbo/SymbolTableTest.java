@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.serialize.ObjectInput;
+import com.alibaba.dubbo.common.serialize.ObjectOutput;
+import com.alibaba.dubbo.common.serialize.support.hessian.Hessian2Serialization;
+import com.alibaba.dubbo.common.utils.NetUtils;
+import com.alibaba.dubbo.remoting.exchange.ExchangeServer;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SymbolTableTest {
+
+    private static final URL URL = new URL("dubbo", "127.0.0.1", 20880);
+
+    private static final String SERVICE = "com.alibaba.dubbo.rpc.protocol.dubbo.support.DemoService";
+
+    private final Hessian2Serialization serialization = new Hessian2Serialization();
+
+    @After
+    public void tearDown() {
+        ProtocolUtils.closeAll();
+    }
+
+    @Test
+    public void testDefineAndAcknowledge() throws Exception {
+        SymbolTable sender = new SymbolTable(16);
+        SymbolTable receiver = new SymbolTable(16);
+
+        byte[] define = writeSymbol(sender, SERVICE);
+        Assert.assertEquals(SERVICE, readSymbol(receiver, define));
+        Assert.assertEquals(1, receiver.getWatermark());
+
+        sender.acknowledge(receiver.getWatermark());
+        byte[] reference = writeSymbol(sender, SERVICE);
+        Assert.assertEquals(1, reference.length);
+        Assert.assertTrue(reference.length < define.length);
+        Assert.assertEquals(SERVICE, readSymbol(receiver, reference));
+    }
+
+    @Test
+    public void testOutOfOrderDefinitions() throws Exception {
+        SymbolTable sender = new SymbolTable(16);
+        SymbolTable receiver = new SymbolTable(16);
+
+        byte[] first = writeSymbol(sender, "first");
+        byte[] second = writeSymbol(sender, "second");
+        Assert.assertEquals("second", readSymbol(receiver, second));
+        Assert.assertEquals(0, receiver.getWatermark());
+        Assert.assertEquals("first", readSymbol(receiver, first));
+        Assert.assertEquals(2, receiver.getWatermark());
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        SymbolTable sender = new SymbolTable(1);
+        SymbolTable receiver = new SymbolTable(1);
+
+        readSymbol(receiver, writeSymbol(sender, "first"));
+        sender.acknowledge(receiver.getWatermark());
+        Assert.assertEquals("second", readSymbol(receiver, writeSymbol(sender, "second")));
+        Assert.assertEquals("second", readSymbol(receiver, writeSymbol(sender, "second")));
+        Assert.assertEquals(1, receiver.getWatermark());
+    }
+
+    @Test
+    public void testAttachments() throws Exception {
+        SymbolTable sender = new SymbolTable(16);
+        SymbolTable receiver = new SymbolTable(16);
+        Map<String, String> attachments = new HashMap<String, String>();
+        attachments.put("path", SERVICE);
+        attachments.put("interface", SERVICE);
+        attachments.put("timeout", "1000");
+        attachments.put("trace", "1234567890");
+        attachments.put("nil", null);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutput out = serialization.serialize(URL, bos);
+        sender.writeAttachments(out, attachments);
+        out.flushBuffer();
+        ObjectInput in = serialization.deserialize(URL, new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertEquals(attachments, receiver.readAttachments(in));
+    }
+
+    @Test
+    public void testNegotiation() {
+        int port = NetUtils.getAvailablePort();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + port + "/" + IAttachmentService.class.getName() + "?timeout=3000");
+        Exporter<IAttachmentService> exporter = ProtocolUtils.export(new AttachmentServiceImpl(), IAttachmentService.class, url);
+        try {
+            assertAttachments(ProtocolUtils.refer(IAttachmentService.class, url));
+            // 服务提供者已收到符号定义
+            ExchangeServer server = DubboProtocol.getDubboProtocol().getServers().iterator().next();
+            SymbolTable table = (SymbolTable) server.getChannels().iterator().next().getAttribute(Constants.CHANNEL_SYMBOL_TABLE_KEY);
+            Assert.assertTrue(table.isPeerCapable());
+            Assert.assertTrue(table.getWatermark() > 0);
+        } finally {
+            exporter.unexport();
+        }
+    }
+
+    @Test
+    public void testPeerDisabled() {
+        int port = NetUtils.getAvailablePort();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + port + "/" + IAttachmentService.class.getName() + "?timeout=3000");
+        Exporter<IAttachmentService> exporter = ProtocolUtils.export(new AttachmentServiceImpl(), IAttachmentService.class, url.addParameter("symbol.table", 0));
+        try {
+            assertAttachments(ProtocolUtils.refer(IAttachmentService.class, url));
+        } finally {
+            exporter.unexport();
+        }
+    }
+
+    private void assertAttachments(IAttachmentService service) {
+        for (int i = 0; i < 10; i++) {
+            RpcContext.getContext().setAttachment("index", String.valueOf(i));
+            Assert.assertEquals(i + ":null", service.get("index"));
+        }
+    }
+
+    private byte[] writeSymbol(SymbolTable table, String value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutput out = serialization.serialize(URL, bos);
+        table.writeSymbol(out, value);
+        out.flushBuffer();
+        return bos.toByteArray();
+    }
+
+    private String readSymbol(SymbolTable table, byte[] bytes) throws IOException {
+        return table.readSymbol(serialization.deserialize(URL, new ByteArrayInputStream(bytes)));
+    }
+
+    public interface IAttachmentService {
+
+        String get(String key);
+
+    }
+
+    public static class AttachmentServiceImpl implements IAttachmentService {
+
+        public String get(String key) {
+            RpcContext context = RpcContext.getContext();
+            return context.getAttachment(key) + ":" + context.getAttachment("_SYM");
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.injvm;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.SPI;
+
+import java.io.IOException;
+
+/**
+ * 深拷贝，用于 injvm 调用按值传递参数和结果
+ *
+ * @see Constants#INJVM_COPY_KEY
+ */
+@SPI(SerializationCloner.NAME)
+public interface Cloner {
+
+    /**
+     * 深拷贝
+     *
+     * @param url   服务消费者 URL
+     * @param value 值，可为 null
+     * @return 拷贝
+     * @throws IOException 当无法拷贝时
+     */
+    Object copy(URL url, Object value) throws IOException;
+
+}
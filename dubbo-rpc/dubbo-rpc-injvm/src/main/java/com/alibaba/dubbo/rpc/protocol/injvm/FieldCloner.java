@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.injvm;
+
+import com.alibaba.dubbo.common.URL;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 逐字段拷贝，每个类的拷贝计划（无参构造方法、非静态非 transient 字段）只解析一次
+ * <p>
+ * 不可变类型直接复用，数组、集合（包括应用自定义的 Collection、Map 子类）逐元素拷贝，保留对象图内的共享引用和环。
+ * 自定义集合子类先拷贝其自身声明的字段，再通过自身的 add、put 加入元素。
+ * 有序集合、其它 JDK 类型和没有无参构造方法的类，交给 {@link SerializationCloner} 拷贝。
+ */
+public class FieldCloner implements Cloner {
+
+    public static final String NAME = "field";
+
+    /**
+     * 不可变类型
+     */
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>();
+
+    /**
+     * 没有无参构造方法的类
+     */
+    private static final CopyPlan FALLBACK = new CopyPlan(null, null, false);
+
+    static {
+        Class<?>[] types = {String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+                Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, Class.class, Locale.class,
+                UUID.class, Object.class};
+        for (Class<?> type : types) {
+            IMMUTABLE_TYPES.add(type);
+        }
+    }
+
+    /**
+     * 拷贝计划集合
+     *
+     * key：类
+     */
+    private final ConcurrentMap<Class<?>, CopyPlan> plans = new ConcurrentHashMap<Class<?>, CopyPlan>();
+
+    private final Cloner fallback = new SerializationCloner();
+
+    @Override
+    public Object copy(URL url, Object value) throws IOException {
+        return copy(url, value, new IdentityHashMap<Object, Object>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copy(URL url, Object value, IdentityHashMap<Object, Object> copied) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = value.getClass();
+        if (IMMUTABLE_TYPES.contains(type) || value instanceof Enum) {
+            return value;
+        }
+        Object copy = copied.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        // 数组
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            copy = Array.newInstance(type.getComponentType(), length);
+            copied.put(value, copy);
+            if (type.getComponentType().isPrimitive()) {
+                System.arraycopy(value, 0, copy, 0, length);
+            } else {
+                Object[] source = (Object[]) value;
+                Object[] target = (Object[]) copy;
+                for (int i = 0; i < length; i++) {
+                    target[i] = copy(url, source[i], copied);
+                }
+            }
+            return copy;
+        }
+        CopyPlan plan = getPlan(type);
+        if (plan == FALLBACK) {
+            copy = fallback.copy(url, value);
+            copied.put(value, copy);
+            return copy;
+        }
+        copy = plan.newInstance();
+        copied.put(value, copy);
+        // 对象，或集合子类自身的字段
+        try {
+            for (Field field : plan.fields) {
+                Object fieldValue = field.get(value);
+                field.set(copy, field.getType().isPrimitive() ? fieldValue : copy(url, fieldValue, copied));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IOException("Failed to copy " + type.getName() + ", cause: " + e.getMessage());
+        }
+        // 集合
+        if (plan.container && value instanceof Collection) {
+            Collection<Object> target = (Collection<Object>) copy;
+            for (Object element : (Collection<Object>) value) {
+                target.add(copy(url, element, copied));
+            }
+        } else if (plan.container) {
+            Map<Object, Object> target = (Map<Object, Object>) copy;
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+                target.put(copy(url, entry.getKey(), copied), copy(url, entry.getValue(), copied));
+            }
+        }
+        return copy;
+    }
+
+    private CopyPlan getPlan(Class<?> type) {
+        CopyPlan plan = plans.get(type);
+        if (plan == null) {
+            plans.putIfAbsent(type, createPlan(type));
+            plan = plans.get(type);
+        }
+        return plan;
+    }
+
+    private static CopyPlan createPlan(Class<?> type) {
+        boolean container = Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+        // JDK 的类型只处理集合，有序集合的比较器无法通过 add、put 拷贝
+        if (isJdk(type) && !container || SortedSet.class.isAssignableFrom(type) || SortedMap.class.isAssignableFrom(type)) {
+            return FALLBACK;
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            return FALLBACK;
+        } catch (SecurityException e) {
+            return FALLBACK;
+        }
+        List<Field> fields = new ArrayList<Field>();
+        // 集合的内部状态由 add、put 重建，只拷贝子类在 JDK 父类之外声明的字段
+        for (Class<?> c = type; c != null && c != Object.class && !(container && isJdk(c)); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return new CopyPlan(constructor, fields.toArray(new Field[fields.size()]), container);
+    }
+
+    private static boolean isJdk(Class<?> type) {
+        return type.getName().startsWith("java.");
+    }
+
+    /**
+     * 类的拷贝计划
+     */
+    private static class CopyPlan {
+
+        private final Constructor<?> constructor;
+
+        private final Field[] fields;
+
+        /**
+         * 是否集合，逐元素拷贝
+         */
+        private final boolean container;
+
+        CopyPlan(Constructor<?> constructor, Field[] fields, boolean container) {
+            this.constructor = constructor;
+            this.fields = fields;
+            this.container = container;
+        }
+
+        Object newInstance() throws IOException {
+            try {
+                return constructor.newInstance();
+            } catch (Exception e) {
+                throw new IOException("Failed to create " + constructor.getDeclaringClass().getName() + ", cause: " + e.getMessage());
+            }
+        }
+
+    }
+
+}
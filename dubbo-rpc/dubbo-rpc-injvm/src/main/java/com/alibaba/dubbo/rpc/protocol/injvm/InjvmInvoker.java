@@ -16,15 +16,21 @@
  */
 package com.alibaba.dubbo.rpc.protocol.injvm;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.utils.ConfigUtils;
 import com.alibaba.dubbo.common.utils.NetUtils;
 import com.alibaba.dubbo.rpc.Exporter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
 import com.alibaba.dubbo.rpc.protocol.AbstractInvoker;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -46,10 +52,25 @@ class InjvmInvoker<T> extends AbstractInvoker<T> {
      */
     private final Map<String, Exporter<?>> exporterMap;
 
+    /**
+     * 参数和结果的拷贝，为 null 时按引用传递
+     */
+    private final Cloner cloner;
+
     InjvmInvoker(Class<T> type, URL url, String key, Map<String, Exporter<?>> exporterMap) {
         super(type, url);
         this.key = key;
         this.exporterMap = exporterMap;
+        this.cloner = getCloner(url);
+    }
+
+    private static Cloner getCloner(URL url) {
+        String copy = url.getParameter(Constants.INJVM_COPY_KEY);
+        if (ConfigUtils.isEmpty(copy)) {
+            return null;
+        }
+        ExtensionLoader<Cloner> loader = ExtensionLoader.getExtensionLoader(Cloner.class);
+        return ConfigUtils.isDefault(copy) ? loader.getDefaultExtension() : loader.getExtension(copy);
     }
 
     @Override
@@ -73,7 +94,28 @@ class InjvmInvoker<T> extends AbstractInvoker<T> {
         // 设置服务提供者地址为本地
         RpcContext.getContext().setRemoteAddress(NetUtils.LOCALHOST, 0);
         // 调用
-        return exporter.getInvoker().invoke(invocation);
+        if (cloner == null) {
+            return exporter.getInvoker().invoke(invocation);
+        }
+        // 拷贝参数和结果，按值传递
+        RpcInvocation copied = new RpcInvocation(invocation);
+        copied.setArguments((Object[]) copy(invocation.getArguments()));
+        Result result = exporter.getInvoker().invoke(copied);
+        if (result.hasException() || result.getValue() == null) {
+            return result;
+        }
+        RpcResult copiedResult = new RpcResult(copy(result.getValue()));
+        copiedResult.setAttachments(result.getAttachments());
+        return copiedResult;
+    }
+
+    private Object copy(Object value) throws RpcException {
+        try {
+            return cloner.copy(getUrl(), value);
+        } catch (IOException e) {
+            throw new RpcException(RpcException.SERIALIZATION_EXCEPTION, "Failed to copy " + value.getClass().getName()
+                    + " of service [" + key + "], cause: " + e.getMessage(), e);
+        }
     }
 
 }
\ No newline at end of file
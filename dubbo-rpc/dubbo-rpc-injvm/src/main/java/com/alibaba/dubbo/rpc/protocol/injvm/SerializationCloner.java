@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.injvm;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.io.UnsafeByteArrayInputStream;
+import com.alibaba.dubbo.common.io.UnsafeByteArrayOutputStream;
+import com.alibaba.dubbo.common.serialize.ObjectInput;
+import com.alibaba.dubbo.common.serialize.ObjectOutput;
+import com.alibaba.dubbo.common.serialize.Serialization;
+import com.alibaba.dubbo.common.threadlocal.InternalThreadLocal;
+
+import java.io.IOException;
+
+/**
+ * 通过序列化再反序列化拷贝，序列化方式取 URL 的 {@link Constants#SERIALIZATION_KEY}
+ * <p>
+ * 每个线程复用一个缓冲区，超过 {@link #MAX_POOLED_SIZE} 后不再复用，避免长期持有大数组。
+ */
+public class SerializationCloner implements Cloner {
+
+    public static final String NAME = "serialization";
+
+    /**
+     * 复用的缓冲区的最大大小
+     */
+    static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+    private static final InternalThreadLocal<UnsafeByteArrayOutputStream> BUFFER = new InternalThreadLocal<UnsafeByteArrayOutputStream>() {
+        @Override
+        protected UnsafeByteArrayOutputStream initialValue() {
+            return new UnsafeByteArrayOutputStream(1024);
+        }
+    };
+
+    @Override
+    public Object copy(URL url, Object value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        Serialization serialization = ExtensionLoader.getExtensionLoader(Serialization.class)
+                .getExtension(url.getParameter(Constants.SERIALIZATION_KEY, Constants.DEFAULT_REMOTING_SERIALIZATION));
+        UnsafeByteArrayOutputStream buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            ObjectOutput out = serialization.serialize(url, buffer);
+            out.writeObject(value);
+            out.flushBuffer();
+            ObjectInput in = serialization.deserialize(url, new UnsafeByteArrayInputStream(buffer.toByteBuffer().array(), 0, buffer.size()));
+            try {
+                return in.readObject(value.getClass());
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Failed to copy " + value.getClass().getName() + ", cause: " + e.getMessage());
+            }
+        } finally {
+            if (buffer.size() > MAX_POOLED_SIZE) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+}
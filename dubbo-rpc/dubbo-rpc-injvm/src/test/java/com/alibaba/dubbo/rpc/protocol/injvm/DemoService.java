@@ -16,6 +16,8 @@
  */
 package com.alibaba.dubbo.rpc.protocol.injvm;
 
+import java.util.List;
+
 /**
  * <code>TestService</code>
  */
@@ -39,4 +41,7 @@ public interface DemoService {
     int stringLength(String str);
 
     Type enumlength(Type... types);
-}
\ No newline at end of file
+
+    List<String> append(List<String> list, String value);
+
+}
@@ -18,6 +18,8 @@ package com.alibaba.dubbo.rpc.protocol.injvm;
 
 import com.alibaba.dubbo.rpc.RpcContext;
 
+import java.util.List;
+
 /**
  * DemoServiceImpl
  */
@@ -70,4 +72,9 @@ public class DemoServiceImpl implements DemoService {
     public int stringLength(String str) {
         return str.length();
     }
-}
\ No newline at end of file
+
+    public List<String> append(List<String> list, String value) {
+        list.add(value);
+        return list;
+    }
+}
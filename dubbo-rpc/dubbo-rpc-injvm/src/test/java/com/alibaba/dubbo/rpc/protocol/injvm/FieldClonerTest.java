@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.injvm;
+
+import com.alibaba.dubbo.common.URL;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FieldClonerTest {
+
+    private final URL url = URL.valueOf("injvm://127.0.0.1/TestService");
+
+    private final Cloner cloner = new FieldCloner();
+
+    @Test
+    public void testImmutable() throws Exception {
+        String text = "text";
+        Assert.assertSame(text, cloner.copy(url, text));
+        Assert.assertSame(Type.Lower, cloner.copy(url, Type.Lower));
+        Assert.assertNull(cloner.copy(url, null));
+    }
+
+    @Test
+    public void testObjectGraph() throws Exception {
+        Node root = new Node("root", 1);
+        Node child = new Node("child", 2);
+        root.children.add(child);
+        root.children.add(child);
+        child.parent = root;
+        root.attributes.put("created", new Date(1000));
+        root.values = new int[]{1, 2, 3};
+        root.cache = "transient";
+
+        Node copy = (Node) cloner.copy(url, root);
+        Assert.assertNotSame(root, copy);
+        Assert.assertEquals("root", copy.name);
+        Assert.assertEquals(1, copy.id);
+        Assert.assertNull(copy.cache);
+        // 共享引用和环
+        Assert.assertNotSame(child, copy.children.get(0));
+        Assert.assertSame(copy.children.get(0), copy.children.get(1));
+        Assert.assertSame(copy, copy.children.get(0).parent);
+        // 数组和 JDK 类型
+        Assert.assertNotSame(root.values, copy.values);
+        Assert.assertArrayEquals(root.values, copy.values);
+        Assert.assertNotSame(root.attributes.get("created"), copy.attributes.get("created"));
+        Assert.assertEquals(new Date(1000), copy.attributes.get("created"));
+    }
+
+    @Test
+    public void testFallbackToSerialization() throws Exception {
+        Immutable value = new Immutable("name");
+        Immutable copy = (Immutable) cloner.copy(url, value);
+        Assert.assertNotSame(value, copy);
+        Assert.assertEquals("name", copy.name);
+
+        List<String> list = Collections.unmodifiableList(new ArrayList<String>(Collections.singletonList("a")));
+        Assert.assertEquals(list, cloner.copy(url, list));
+    }
+
+    @Test
+    public void testArguments() throws Exception {
+        List<String> list = new ArrayList<String>();
+        Object[] arguments = new Object[]{list, list, "text"};
+        Object[] copy = (Object[]) cloner.copy(url, arguments);
+        Assert.assertNotSame(list, copy[0]);
+        Assert.assertSame(copy[0], copy[1]);
+        Assert.assertSame("text", copy[2]);
+    }
+
+    @Test
+    public void testCollectionSubclass() throws Exception {
+        MyList list = new MyList();
+        list.name = "list";
+        Node node = new Node("node", 1);
+        list.add(node);
+        list.add(node);
+        MyList copy = (MyList) cloner.copy(url, list);
+        Assert.assertNotSame(list, copy);
+        Assert.assertEquals("list", copy.name);
+        Assert.assertEquals(2, copy.size());
+        Assert.assertNotSame(node, copy.get(0));
+        Assert.assertSame(copy.get(0), copy.get(1));
+        Assert.assertEquals("node", copy.get(0).name);
+
+        MyMap map = new MyMap();
+        map.put("a", node);
+        MyMap mapCopy = (MyMap) cloner.copy(url, map);
+        Assert.assertEquals(1, mapCopy.size());
+        Assert.assertEquals("node", mapCopy.get("a").name);
+    }
+
+    static class MyList extends ArrayList<Node> {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+
+    }
+
+    static class MyMap extends HashMap<String, Node> {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+    static class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private final int id;
+
+        private Node parent;
+
+        private final List<Node> children = new ArrayList<Node>();
+
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        private int[] values;
+
+        private transient String cache;
+
+        Node() {
+            this(null, 0);
+        }
+
+        Node(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+
+    }
+
+    static class Immutable implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        Immutable(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.injvm;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Protocol;
+import com.alibaba.dubbo.rpc.ProxyFactory;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对比 injvm 按引用、拷贝参数和结果、本机 dubbo 调用的耗时
+ * <p>
+ * mvn test -Dtest=InjvmCopyPerformanceTest -Dbenchmark=true -Dcount=100000 -Dsize=16
+ */
+public class InjvmCopyPerformanceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InjvmCopyPerformanceTest.class);
+
+    private final Protocol protocol = ExtensionLoader.getExtensionLoader(Protocol.class).getAdaptiveExtension();
+
+    private final ProxyFactory proxy = ExtensionLoader.getExtensionLoader(ProxyFactory.class).getAdaptiveExtension();
+
+    @Test
+    public void testPerformance() throws Exception {
+        if (!Boolean.getBoolean("benchmark")) {
+            logger.warn("Please set -Dbenchmark=true");
+            return;
+        }
+        int count = Integer.getInteger("count", 100000);
+        int size = Integer.getInteger("size", 16);
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < size; i++) {
+            list.add("value-" + i);
+        }
+        String path = "/" + DemoService.class.getName();
+        List<Exporter<?>> exporters = new ArrayList<Exporter<?>>();
+        exporters.add(protocol.export(proxy.getInvoker(new DemoServiceImpl(), DemoService.class, URL.valueOf("injvm://127.0.0.1" + path))));
+        exporters.add(protocol.export(proxy.getInvoker(new DemoServiceImpl(), DemoService.class, URL.valueOf("dubbo://127.0.0.1:9061" + path))));
+        try {
+            run("injvm reference", "injvm://127.0.0.1" + path, list, count);
+            run("injvm serialization", "injvm://127.0.0.1" + path + "?" + Constants.INJVM_COPY_KEY + "=" + SerializationCloner.NAME, list, count);
+            run("injvm field", "injvm://127.0.0.1" + path + "?" + Constants.INJVM_COPY_KEY + "=" + FieldCloner.NAME, list, count);
+            run("dubbo loopback", "dubbo://127.0.0.1:9061" + path + "?timeout=10000", list, count);
+        } finally {
+            for (Exporter<?> exporter : exporters) {
+                exporter.unexport();
+            }
+        }
+    }
+
+    private void run(String name, String url, List<String> list, int count) {
+        Invoker<DemoService> invoker = protocol.refer(DemoService.class, URL.valueOf(url));
+        DemoService service = proxy.getProxy(invoker);
+        try {
+            // 预热
+            for (int i = 0; i < count / 10; i++) {
+                service.append(new ArrayList<String>(list), "x");
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                service.append(new ArrayList<String>(list), "x");
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.println(name + ": " + count + " calls, " + (elapsed / count) + " ns/call");
+        } finally {
+            invoker.destroy();
+        }
+    }
+
+}
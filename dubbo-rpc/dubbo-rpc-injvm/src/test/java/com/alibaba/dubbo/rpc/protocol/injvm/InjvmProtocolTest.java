@@ -28,9 +28,12 @@ import org.junit.After;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 /**
@@ -79,4 +82,34 @@ public class InjvmProtocolTest {
         assertTrue(InjvmProtocol.getInjvmProtocol().isInjvmRefer(url));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testByReference() throws Exception {
+        DemoService service = refer("injvm://127.0.0.1/TestService");
+        List<String> list = new ArrayList<String>();
+        List<String> result = service.append(list, "a");
+        assertSame(list, result);
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void testCopyOnCall() throws Exception {
+        for (String cloner : new String[]{"true", SerializationCloner.NAME, FieldCloner.NAME}) {
+            DemoService service = refer("injvm://127.0.0.1/TestService?" + Constants.INJVM_COPY_KEY + "=" + cloner);
+            List<String> list = new ArrayList<String>(Arrays.asList("a"));
+            List<String> result = service.append(list, "b");
+            assertNotSame(cloner, list, result);
+            assertEquals(cloner, Arrays.asList("a"), list);
+            assertEquals(cloner, Arrays.asList("a", "b"), result);
+            assertEquals(cloner, 3, service.getSize(new String[]{"", "", ""}));
+            after();
+        }
+    }
+
+    private DemoService refer(String url) {
+        Exporter<?> exporter = protocol.export(proxy.getInvoker(new DemoServiceImpl(), DemoService.class,
+                URL.valueOf("injvm://127.0.0.1/TestService").addParameter(Constants.INTERFACE_KEY, DemoService.class.getName())));
+        exporters.add(exporter);
+        return proxy.getProxy(protocol.refer(DemoService.class, URL.valueOf(url).addParameter(Constants.INTERFACE_KEY, DemoService.class.getName())));
+    }
+
+}